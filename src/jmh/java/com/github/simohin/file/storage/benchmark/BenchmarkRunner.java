@@ -0,0 +1,63 @@
+package com.github.simohin.file.storage.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks once per configured thread count, writing one JSON result file per run.
+ * Configured through system properties set by the {@code jmh} Gradle task.
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_THREADS = "1,4,16";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = System.getProperty("jmh.include", BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+        int[] threadCounts = Arrays.stream(System.getProperty("jmh.threads", DEFAULT_THREADS).split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        String fileSizes = System.getProperty("jmh.fileSizes");
+        String profilers = System.getProperty("jmh.profilers");
+        File resultDir = new File(System.getProperty("jmh.resultDir", "build/reports/jmh"));
+        resultDir.mkdirs();
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(resultDir, timestamp + "-t" + threads + ".json").getAbsolutePath());
+
+            if (fileSizes != null && !fileSizes.isBlank()) {
+                options.param("fileSize", fileSizes.split(","));
+            }
+            if (profilers != null && !profilers.isBlank()) {
+                // e.g. "gc" for allocation rates next to the scores
+                Arrays.stream(profilers.split(",")).map(String::trim).forEach(options::addProfiler);
+            }
+            if (System.getProperty("jmh.forks") != null) {
+                options.forks(Integer.parseInt(System.getProperty("jmh.forks")));
+            }
+            if (System.getProperty("jmh.iterations") != null) {
+                int iterations = Integer.parseInt(System.getProperty("jmh.iterations"));
+                options.warmupIterations(iterations).measurementIterations(iterations);
+            }
+
+            new Runner(options.build()).run();
+        }
+    }
+}
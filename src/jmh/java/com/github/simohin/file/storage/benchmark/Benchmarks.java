@@ -0,0 +1,130 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.config.BufferPoolConfig;
+import com.github.simohin.file.storage.config.BufferPoolProperties;
+import com.github.simohin.file.storage.config.ContentTypeProperties;
+import com.github.simohin.file.storage.config.DirectIoProperties;
+import com.github.simohin.file.storage.config.DurabilityProperties;
+import com.github.simohin.file.storage.config.HashingProperties;
+import com.github.simohin.file.storage.config.ReplicationProperties;
+import com.github.simohin.file.storage.config.StripingProperties;
+import com.github.simohin.file.storage.service.FileStorageMetrics;
+import com.github.simohin.file.storage.service.impl.ContentTypeDetector;
+import com.github.simohin.file.storage.service.impl.FileSyncer;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import com.github.simohin.file.storage.util.BufferPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Shared fixtures: a storage service wired outside Spring over a temporary directory
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    static LocalFileStorageService newStorageService(Path storageDir) {
+        return storageService(storageDir).build();
+    }
+
+    /**
+     * A storage service over storageDir with default properties; override only what the benchmark varies
+     */
+    static StorageServiceBuilder storageService(Path storageDir) {
+        return new StorageServiceBuilder(storageDir);
+    }
+
+    static final class StorageServiceBuilder {
+
+        private final Path storageDir;
+        private HashingProperties hashingProperties = new HashingProperties();
+        private ContentTypeProperties contentTypeProperties = new ContentTypeProperties();
+        private DirectIoProperties directIoProperties = new DirectIoProperties();
+        private FileSyncer fileSyncer;
+        private StripingProperties stripingProperties = new StripingProperties();
+        private ReplicationProperties replicationProperties = new ReplicationProperties();
+
+        private StorageServiceBuilder(Path storageDir) {
+            this.storageDir = storageDir;
+        }
+
+        StorageServiceBuilder hashing(HashingProperties hashingProperties) {
+            this.hashingProperties = hashingProperties;
+            return this;
+        }
+
+        StorageServiceBuilder contentType(ContentTypeProperties contentTypeProperties) {
+            this.contentTypeProperties = contentTypeProperties;
+            return this;
+        }
+
+        StorageServiceBuilder directIo(DirectIoProperties directIoProperties) {
+            this.directIoProperties = directIoProperties;
+            return this;
+        }
+
+        /**
+         * Defaults to a syncer with default durability properties
+         */
+        StorageServiceBuilder fileSyncer(FileSyncer fileSyncer) {
+            this.fileSyncer = fileSyncer;
+            return this;
+        }
+
+        /**
+         * storageDir is only used when stripingProperties lists no volumes
+         */
+        StorageServiceBuilder striping(StripingProperties stripingProperties) {
+            this.stripingProperties = stripingProperties;
+            return this;
+        }
+
+        StorageServiceBuilder replication(ReplicationProperties replicationProperties) {
+            this.replicationProperties = replicationProperties;
+            return this;
+        }
+
+        LocalFileStorageService build() {
+            LocalFileStorageService service = new LocalFileStorageService(
+                    new FileStorageMetrics(new SimpleMeterRegistry()), hashingProperties,
+                    new ContentTypeDetector(contentTypeProperties), newBufferPool(), directIoProperties,
+                    fileSyncer != null ? fileSyncer : newFileSyncer(new DurabilityProperties()),
+                    stripingProperties, replicationProperties);
+
+            Field storagePath = ReflectionUtils.findField(LocalFileStorageService.class, "storagePath");
+            ReflectionUtils.makeAccessible(storagePath);
+            ReflectionUtils.setField(storagePath, service, storageDir.toString());
+
+            service.init();
+            return service;
+        }
+    }
+
+    /**
+     * Started; the caller stops it on tear down
+     */
+    static FileSyncer newFileSyncer(DurabilityProperties durabilityProperties) {
+        FileSyncer fileSyncer = new FileSyncer(durabilityProperties, new SimpleMeterRegistry());
+        fileSyncer.start();
+        return fileSyncer;
+    }
+
+    static BufferPool newBufferPool() {
+        return new BufferPoolConfig().bufferPool(new BufferPoolProperties());
+    }
+
+    static Path createStorageDir() throws IOException {
+        return Files.createTempDirectory("file-storage-jmh-");
+    }
+
+    static void deleteStorageDir(Path storageDir) throws IOException {
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.common.FileConstants;
+import com.github.simohin.file.storage.config.ContentTypeProperties;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.apache.tika.Tika;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Content type detection through {@link LocalFileStorageService#detectContentType} for common payload kinds,
+ * with and without the result cache, against plain Tika over a freshly allocated sample as uploads used to do.
+ * With the cache on, every invocation after the first is a hit for kinds without a magic fast path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentTypeDetectionBenchmark {
+
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    @Param({"pdf", "png", "zip", "text", "binary"})
+    private String kind;
+
+    private Path storageDir;
+    private LocalFileStorageService storageService;
+    private LocalFileStorageService uncachedService;
+    private Tika tika;
+    private byte[] content;
+    private String fileName;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDir = Benchmarks.createStorageDir();
+        storageService = Benchmarks.newStorageService(storageDir);
+        ContentTypeProperties uncached = new ContentTypeProperties();
+        uncached.setCacheSize(0);
+        uncachedService = Benchmarks.storageService(storageDir).contentType(uncached).build();
+        tika = new Tika();
+
+        content = new byte[SAMPLE_SIZE];
+        new Random(7).nextBytes(content);
+        byte[] header = switch (kind) {
+            case "pdf" -> "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+            case "png" -> new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+            case "zip" -> new byte[]{'P', 'K', 3, 4};
+            case "text" -> {
+                byte[] text = "The quick brown fox jumps over the lazy dog.\n".repeat(SAMPLE_SIZE / 45)
+                        .getBytes(StandardCharsets.US_ASCII);
+                content = new byte[text.length];
+                yield text;
+            }
+            default -> new byte[0];
+        };
+        System.arraycopy(header, 0, content, 0, header.length);
+        fileName = "benchmark." + (kind.equals("binary") ? "bin" : kind.equals("text") ? "txt" : kind);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.deleteStorageDir(storageDir);
+    }
+
+    @Benchmark
+    public String detectContentType() {
+        return storageService.detectContentType(new ByteArrayInputStream(content), fileName);
+    }
+
+    @Benchmark
+    public String detectContentTypeUncached() {
+        return uncachedService.detectContentType(new ByteArrayInputStream(content), fileName);
+    }
+
+    @Benchmark
+    public String tikaBaseline() throws IOException {
+        byte[] sample = new byte[FileConstants.CONTENT_TYPE_SAMPLE_SIZE];
+        int bytesRead = new ByteArrayInputStream(content).read(sample);
+        byte[] actualSample = bytesRead < sample.length ? Arrays.copyOf(sample, bytesRead) : sample;
+        return tika.detect(new ByteArrayInputStream(actualSample), fileName);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.util.BufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Download-style copy of a stored file with {@link InputStream#transferTo}, which allocates a buffer
+ * per call, against {@link BufferPool#transfer}. Run with {@code -Pjmh.profilers=gc} and compare
+ * {@code gc.alloc.rate.norm}, the bytes allocated per copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class CopyBenchmark {
+
+    @Param({"1024", "65536", "1048576", "16777216"})
+    private long fileSize;
+
+    private Path storageDir;
+    private Path file;
+    private BufferPool bufferPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDir = Benchmarks.createStorageDir();
+        file = storageDir.resolve("content.bin");
+        try (InputStream input = new SyntheticInputStream(fileSize)) {
+            Files.copy(input, file);
+        }
+        bufferPool = Benchmarks.newBufferPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.deleteStorageDir(storageDir);
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return input.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    public long pooledTransfer() throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return bufferPool.transfer(input, OutputStream.nullOutputStream(), fileSize);
+        }
+    }
+}
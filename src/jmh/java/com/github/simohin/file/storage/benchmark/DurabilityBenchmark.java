@@ -0,0 +1,77 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.common.DurabilityMode;
+import com.github.simohin.file.storage.config.DurabilityProperties;
+import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.service.impl.FileSyncer;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload throughput and latency percentiles per {@link DurabilityMode}. Group commit only pays off
+ * with concurrent uploads, so run it with {@code -Pjmh.threads=16} or more, on the disk the service
+ * actually uses: on tmpfs every sync is free and the modes look the same.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class DurabilityBenchmark {
+
+    @Param({"NONE", "PER_FILE", "GROUP_COMMIT"})
+    private DurabilityMode mode;
+
+    @Param({"4096", "1048576"})
+    private long fileSize;
+
+    private Path storageDir;
+    private FileSyncer fileSyncer;
+    private LocalFileStorageService storageService;
+
+    @State(Scope.Thread)
+    public static class Upload {
+        private final UUID fileId = UUID.randomUUID();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        DurabilityProperties durabilityProperties = new DurabilityProperties();
+        durabilityProperties.setMode(mode);
+
+        storageDir = Benchmarks.createStorageDir();
+        fileSyncer = Benchmarks.newFileSyncer(durabilityProperties);
+        storageService = Benchmarks.storageService(storageDir)
+                .fileSyncer(fileSyncer)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fileSyncer.stop();
+        Benchmarks.deleteStorageDir(storageDir);
+    }
+
+    @Benchmark
+    public FileStorageResult saveFile(Upload upload) {
+        return storageService.saveFile(upload.fileId, new SyntheticInputStream(fileSize), "upload.bin", fileSize);
+    }
+}
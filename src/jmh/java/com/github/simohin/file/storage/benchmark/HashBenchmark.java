@@ -0,0 +1,75 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.common.HashAlgorithm;
+import com.github.simohin.file.storage.config.HashingProperties;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash throughput of flat SHA-256 against the parallel tree hash as the leaf pool grows.
+ * Multiply the score by {@code fileSize} for bytes per second. The flat algorithm ignores
+ * {@code parallelism}, so its rows are the single-core baseline repeated for each pool size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"16777216", "268435456"})
+    private long fileSize;
+
+    @Param({"SHA_256", "SHA_256_TREE"})
+    private HashAlgorithm algorithm;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private Path storageDir;
+    private LocalFileStorageService storageService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        HashingProperties properties = new HashingProperties();
+        properties.setAlgorithm(algorithm);
+        properties.setParallelism(parallelism);
+        properties.setMaxInFlightLeaves(2 * parallelism);
+
+        storageDir = Benchmarks.createStorageDir();
+        storageService = Benchmarks.storageService(storageDir).hashing(properties).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storageService.shutdown();
+        Benchmarks.deleteStorageDir(storageDir);
+    }
+
+    @Benchmark
+    public String calculateHash() {
+        return storageService.calculateHash(new SyntheticInputStream(fileSize));
+    }
+
+    @Benchmark
+    public String calculateQuickHash() {
+        return storageService.calculateQuickHash(new SyntheticInputStream(fileSize), fileSize);
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.config.StripingProperties;
+import com.github.simohin.file.storage.dto.FileMetadataDto;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.mapper.FileMetadataMapper;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request CPU paths that do no I/O: resolving a file's path on its home volume and entity-to-DTO
+ * mapping. Path resolution ranks the volumes for the file ID, so its cost grows with {@code volumes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+
+    @Param({"1", "4"})
+    private int volumes;
+
+    private final List<Path> roots = new ArrayList<>();
+    private LocalFileStorageService storageService;
+    private MethodHandle rank;
+    private MethodHandle filePath;
+    private FileMetadataMapper mapper;
+    private FileMetadata entity;
+    private UUID fileId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        StripingProperties stripingProperties = new StripingProperties();
+        for (int i = 0; i < volumes; i++) {
+            Path root = Benchmarks.createStorageDir();
+            roots.add(root);
+
+            StripingProperties.Volume volume = new StripingProperties.Volume();
+            volume.setPath(root.toString());
+            stripingProperties.getVolumes().add(volume);
+        }
+        storageService = Benchmarks.storageService(roots.get(0)).striping(stripingProperties).build();
+
+        // StorageVolumes is package-private; method handles avoid reflective call overhead in the measurement
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(LocalFileStorageService.class, MethodHandles.lookup());
+        Class<?> volumesClass = lookup.findClass("com.github.simohin.file.storage.service.impl.StorageVolumes");
+        Class<?> volumeClass = lookup.findClass("com.github.simohin.file.storage.service.impl.StorageVolumes$Volume");
+        Object storageVolumes = lookup.findGetter(LocalFileStorageService.class, "volumes", volumesClass)
+                .invoke(storageService);
+        rank = lookup.findVirtual(volumesClass, "rank", MethodType.methodType(List.class, UUID.class))
+                .bindTo(storageVolumes);
+        filePath = lookup.findVirtual(volumeClass, "filePath", MethodType.methodType(Path.class, UUID.class))
+                .asType(MethodType.methodType(Path.class, Object.class, UUID.class));
+
+        mapper = FileMetadataMapper.INSTANCE;
+        fileId = UUID.randomUUID();
+        entity = new FileMetadata()
+                .setId(fileId)
+                .setFileName("quarterly-report.pdf")
+                .setUserId("user123")
+                .setVisibility(Visibility.PRIVATE)
+                .setTags(Set.of("work", "finance", "q3"))
+                .setUploadDate(LocalDateTime.now())
+                .setContentType("application/pdf")
+                .setSize(1_048_576)
+                .setHash("a665a45920422f9d417e4867efdc4fb8a04a1f3fff1fa07e998e86f7f7a27ae3")
+                .setStatus(FileStatus.ACTIVE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storageService.shutdown();
+        for (Path root : roots) {
+            Benchmarks.deleteStorageDir(root);
+        }
+        roots.clear();
+    }
+
+    /**
+     * Path on the highest ranked volume, the one a new file is placed on and a read tries first
+     */
+    @Benchmark
+    public Path filePath() throws Throwable {
+        List<?> ranked = (List<?>) rank.invokeExact(fileId);
+        return (Path) filePath.invokeExact(ranked.get(0), fileId);
+    }
+
+    @Benchmark
+    public FileMetadataDto toDto() {
+        return mapper.toDto(entity);
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.config.DirectIoProperties;
+import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of a hot set of small files while another thread uploads and downloads large files, with
+ * and without O_DIRECT for the large ones. Small-file read latency is the proxy for their page cache
+ * hit ratio: with buffered large transfers it climbs once the cache is churned, with direct I/O it
+ * should stay flat. The effect only shows when the large transfers outgrow free memory, so run it in
+ * a memory-limited cgroup or with {@code fileSize} above the free page cache; {@code cachestat} from
+ * bcc gives the actual hit ratio alongside.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Fork(1)
+public class PageCacheBenchmark {
+
+    private static final int SMALL_FILES = 1000;
+    private static final long SMALL_FILE_SIZE = 64 * 1024;
+
+    @Param({"1073741824"})
+    private long fileSize;
+
+    @Param({"false", "true"})
+    private boolean directIo;
+
+    private Path storageDir;
+    private LocalFileStorageService storageService;
+    private UUID[] smallFiles;
+
+    @State(Scope.Thread)
+    public static class LargeFile {
+        private final UUID fileId = UUID.randomUUID();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        DirectIoProperties directIoProperties = new DirectIoProperties();
+        directIoProperties.setEnabled(directIo);
+        directIoProperties.setThreshold(DataSize.ofBytes(fileSize));
+
+        storageDir = Benchmarks.createStorageDir();
+        storageService = Benchmarks.storageService(storageDir)
+                .directIo(directIoProperties)
+                .build();
+
+        smallFiles = new UUID[SMALL_FILES];
+        for (int i = 0; i < SMALL_FILES; i++) {
+            smallFiles[i] = UUID.randomUUID();
+            storageService.saveFile(smallFiles[i], new SyntheticInputStream(SMALL_FILE_SIZE), "small.bin", SMALL_FILE_SIZE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.deleteStorageDir(storageDir);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public long readSmallFile() throws IOException {
+        UUID fileId = smallFiles[ThreadLocalRandom.current().nextInt(SMALL_FILES)];
+        try (InputStream input = storageService.getFile(fileId).orElseThrow()) {
+            return input.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public long transferLargeFile(LargeFile largeFile) throws IOException {
+        FileStorageResult stored = storageService.saveFile(largeFile.fileId, new SyntheticInputStream(fileSize),
+                "large.bin", fileSize);
+        try (InputStream input = storageService.getFile(largeFile.fileId).orElseThrow()) {
+            return stored.getSize() + input.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write path and hash pass of {@link LocalFileStorageService} over file sizes from 1 KB to 1 GB.
+ * Each thread overwrites its own file, so disk usage stays at threads x fileSize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1024", "1048576", "16777216", "268435456", "1073741824"})
+    private long fileSize;
+
+    private Path storageDir;
+    private LocalFileStorageService storageService;
+
+    @State(Scope.Thread)
+    public static class ThreadFile {
+        private final UUID fileId = UUID.randomUUID();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storageDir = Benchmarks.createStorageDir();
+        storageService = Benchmarks.newStorageService(storageDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.deleteStorageDir(storageDir);
+    }
+
+    @Benchmark
+    public FileStorageResult saveFile(ThreadFile threadFile) {
+        return storageService.saveFile(threadFile.fileId, new SyntheticInputStream(fileSize), "benchmark.bin", fileSize);
+    }
+
+    @Benchmark
+    public String calculateHash() {
+        return storageService.calculateHash(new SyntheticInputStream(fileSize));
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.simohin.file.storage.benchmark;
+
+import com.github.simohin.file.storage.common.DurabilityMode;
+import com.github.simohin.file.storage.config.DurabilityProperties;
+import com.github.simohin.file.storage.config.StripingProperties;
+import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.service.impl.FileSyncer;
+import com.github.simohin.file.storage.service.impl.LocalFileStorageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Upload throughput striped over 1, 2 and 4 volumes. Point {@code JMH_VOLUME_ROOTS} at a comma
+ * separated list of directories on different disks, at least as many as the largest {@code volumes};
+ * without it every volume is a temporary directory on the same disk and the numbers should not move.
+ * Uploads are synced per file, so each one costs the disk it lands on real I/O, and throughput should
+ * grow with the number of disks as long as there are enough threads to keep them busy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StripingBenchmark {
+
+    private static final int FILES_PER_THREAD = 16;
+
+    @Param({"1", "2", "4"})
+    private int volumes;
+
+    @Param({"1048576", "16777216"})
+    private long fileSize;
+
+    private final List<Path> roots = new ArrayList<>();
+    private FileSyncer fileSyncer;
+    private LocalFileStorageService storageService;
+
+    /**
+     * A small ring of IDs per thread, so writes spread over the volumes while disk usage stays bounded
+     */
+    @State(Scope.Thread)
+    public static class Uploads {
+        private final UUID[] fileIds = new UUID[FILES_PER_THREAD];
+        private int next;
+
+        public Uploads() {
+            for (int i = 0; i < fileIds.length; i++) {
+                fileIds[i] = UUID.randomUUID();
+            }
+        }
+
+        UUID next() {
+            return fileIds[next++ % fileIds.length];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String configured = System.getenv("JMH_VOLUME_ROOTS");
+        String[] parents = configured == null || configured.isBlank() ? new String[0] : configured.split(",");
+        StripingProperties stripingProperties = new StripingProperties();
+        stripingProperties.setMinFreeSpace(DataSize.ofBytes(0));
+        for (int i = 0; i < volumes; i++) {
+            Path root = parents.length == 0 ? Benchmarks.createStorageDir()
+                    : Files.createTempDirectory(Paths.get(parents[i % parents.length].trim()), "file-storage-jmh-");
+            roots.add(root);
+
+            StripingProperties.Volume volume = new StripingProperties.Volume();
+            volume.setPath(root.toString());
+            stripingProperties.getVolumes().add(volume);
+        }
+
+        DurabilityProperties durabilityProperties = new DurabilityProperties();
+        durabilityProperties.setMode(DurabilityMode.PER_FILE);
+        fileSyncer = Benchmarks.newFileSyncer(durabilityProperties);
+        storageService = Benchmarks.storageService(roots.get(0))
+                .fileSyncer(fileSyncer)
+                .striping(stripingProperties)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storageService.shutdown();
+        fileSyncer.stop();
+        for (Path root : roots) {
+            Benchmarks.deleteStorageDir(root);
+        }
+        roots.clear();
+    }
+
+    @Benchmark
+    public FileStorageResult saveFile(Uploads uploads) {
+        return storageService.saveFile(uploads.next(), new SyntheticInputStream(fileSize), "upload.bin", fileSize);
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.simohin.file.storage.benchmark;
+
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Produces a fixed number of pseudo-random bytes without holding them in memory, so benchmarks
+ * can stream files of up to several gigabytes
+ */
+final class SyntheticInputStream extends InputStream {
+
+    private static final byte[] PATTERN = new byte[64 * 1024];
+
+    static {
+        new Random(42).nextBytes(PATTERN);
+    }
+
+    private long remaining;
+    private int offset;
+
+    SyntheticInputStream(long size) {
+        this.remaining = size;
+    }
+
+    @Override
+    public int read() {
+        if (remaining <= 0) {
+            return -1;
+        }
+        remaining--;
+        int b = PATTERN[offset] & 0xFF;
+        offset = (offset + 1) % PATTERN.length;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (remaining <= 0) {
+            return -1;
+        }
+
+        int count = (int) Math.min(Math.min(len, remaining), PATTERN.length - offset);
+        System.arraycopy(PATTERN, offset, b, off, count);
+        offset = (offset + count) % PATTERN.length;
+        remaining -= count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(remaining, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.simohin.file.storage.loadtest;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.repository.FileMetadataRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.StreamSupport;
+
+/**
+ * Heap-backed stand-in for {@link FileMetadataRepository} so the load test runs without MongoDB.
+ * Implemented as a dynamic proxy dispatching on method name: the query methods used by uploads,
+ * downloads and listings are emulated, including the unique indexes on (userId, fileName) and
+ * (userId, hash); anything else fails with {@link UnsupportedOperationException}. Entities are
+ * copied on the way in and out, as a real store would.
+ */
+final class InMemoryFileMetadataRepository implements InvocationHandler {
+
+    private static final Set<FileStatus> FILENAME_INDEX_STATUSES = Set.of(FileStatus.PENDING, FileStatus.ACTIVE);
+
+    private final Map<UUID, FileMetadata> documents = new ConcurrentHashMap<>();
+
+    private InMemoryFileMetadataRepository() {
+    }
+
+    static FileMetadataRepository create() {
+        return (FileMetadataRepository) Proxy.newProxyInstance(
+                FileMetadataRepository.class.getClassLoader(),
+                new Class<?>[]{FileMetadataRepository.class},
+                new InMemoryFileMetadataRepository());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> "InMemoryFileMetadataRepository(" + documents.size() + " documents)";
+            };
+        }
+
+        Object[] a = args != null ? args : new Object[0];
+        Pageable pageable = a.length > 0 && a[a.length - 1] instanceof Pageable p ? p : null;
+
+        try {
+            return switch (method.getName()) {
+                case "save", "insert" -> a[0] instanceof Iterable<?> all ? saveAll(all) : save((FileMetadata) a[0]);
+                case "saveAll" -> saveAll((Iterable<?>) a[0]);
+                case "findById" -> find((UUID) a[0]);
+                case "existsById" -> documents.containsKey((UUID) a[0]);
+                case "findAll" -> a.length == 0 ? select(doc -> true) : unsupported(method);
+                case "findAllById" -> select(doc -> contains((Iterable<?>) a[0], doc.getId()));
+                case "count" -> (long) documents.size();
+                case "deleteById" -> {
+                    documents.remove((UUID) a[0]);
+                    yield null;
+                }
+                case "delete" -> {
+                    documents.remove(((FileMetadata) a[0]).getId());
+                    yield null;
+                }
+                case "deleteAll" -> {
+                    if (a.length == 0) {
+                        documents.clear();
+                    } else {
+                        ((Iterable<?>) a[0]).forEach(doc -> documents.remove(((FileMetadata) doc).getId()));
+                    }
+                    yield null;
+                }
+                case "findByIdAndStatus" -> find((UUID) a[0]).filter(doc -> doc.getStatus() == a[1]);
+                case "findByUserIdAndFileNameAndStatus" -> first(doc ->
+                        doc.getUserId().equals(a[0]) && doc.getFileName().equals(a[1]) && doc.getStatus() == a[2]);
+                case "findByUserIdAndHashAndStatus" -> first(doc ->
+                        doc.getUserId().equals(a[0]) && Objects.equals(doc.getHash(), a[1]) && doc.getStatus() == a[2]);
+                case "existsByUserIdAndQuickHashAndStatus" -> first(doc ->
+                        doc.getUserId().equals(a[0]) && Objects.equals(doc.getQuickHash(), a[1]) && doc.getStatus() == a[2])
+                        .isPresent();
+                case "findByUserIdAndStatusAndFileNameIn" -> select(doc -> owned(doc, a)
+                        && ((Collection<?>) a[2]).contains(doc.getFileName()));
+                case "findByUserIdAndStatusAndHashIn" -> select(doc -> owned(doc, a)
+                        && ((Collection<?>) a[2]).contains(doc.getHash()));
+                case "streamVisibleActiveFiles" -> select(doc -> ((Collection<?>) a[0]).contains(doc.getId())
+                        && doc.getStatus() == FileStatus.ACTIVE
+                        && (doc.getVisibility() == Visibility.PUBLIC || doc.getUserId().equals(a[1]))).stream();
+                case "findPublicActiveFiles" -> result(this::publicActive, pageable);
+                case "findPublicActiveFilesByTags" -> result(doc -> publicActive(doc) && tagged(doc, a[0]), pageable);
+                case "findByUserIdAndStatus" -> result(doc -> owned(doc, a), pageable);
+                case "findByUserIdAndStatusAndVisibility" -> result(doc -> owned(doc, a)
+                        && doc.getVisibility() == a[2], pageable);
+                case "findByUserIdAndStatusAndTagsIn" -> result(doc -> owned(doc, a) && tagged(doc, a[2]), pageable);
+                case "findByUserIdAndStatusAndVisibilityAndTagsIn" -> result(doc -> owned(doc, a)
+                        && doc.getVisibility() == a[2] && tagged(doc, a[3]), pageable);
+                case "countByUserIdAndStatus", "countActiveFilesByUserId" -> (long) select(doc -> owned(doc, a)).size();
+                default -> unsupported(method);
+            };
+        } catch (ClassCastException e) {
+            throw new UnsupportedOperationException("Unsupported overload in load-test repository: " + method, e);
+        }
+    }
+
+    private synchronized FileMetadata save(FileMetadata entity) {
+        for (FileMetadata other : documents.values()) {
+            if (other.getId().equals(entity.getId()) || !other.getUserId().equals(entity.getUserId())) {
+                continue;
+            }
+            if (FILENAME_INDEX_STATUSES.contains(entity.getStatus()) && FILENAME_INDEX_STATUSES.contains(other.getStatus())
+                    && other.getFileName().equals(entity.getFileName())) {
+                throw new DuplicateKeyException("E11000 duplicate key error index: user_filename_idx");
+            }
+            if (entity.getStatus() == FileStatus.ACTIVE && other.getStatus() == FileStatus.ACTIVE
+                    && Objects.equals(other.getHash(), entity.getHash())) {
+                throw new DuplicateKeyException("E11000 duplicate key error index: user_sha256_hash_idx");
+            }
+        }
+
+        documents.put(entity.getId(), copy(entity));
+        return entity;
+    }
+
+    private List<FileMetadata> saveAll(Iterable<?> entities) {
+        List<FileMetadata> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save((FileMetadata) entity)));
+        return saved;
+    }
+
+    private Optional<FileMetadata> find(UUID id) {
+        return Optional.ofNullable(documents.get(id)).map(InMemoryFileMetadataRepository::copy);
+    }
+
+    private Optional<FileMetadata> first(Predicate<FileMetadata> filter) {
+        return documents.values().stream().filter(filter).findFirst().map(InMemoryFileMetadataRepository::copy);
+    }
+
+    private List<FileMetadata> select(Predicate<FileMetadata> filter) {
+        return documents.values().stream().filter(filter).map(InMemoryFileMetadataRepository::copy).toList();
+    }
+
+    private Object result(Predicate<FileMetadata> filter, Pageable pageable) {
+        List<FileMetadata> matches = new ArrayList<>(select(filter));
+        if (pageable == null) {
+            return matches;
+        }
+
+        Comparator<FileMetadata> order = comparator(pageable.getSort());
+        if (order != null) {
+            matches.sort(order);
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    private boolean publicActive(FileMetadata doc) {
+        return doc.getVisibility() == Visibility.PUBLIC && doc.getStatus() == FileStatus.ACTIVE;
+    }
+
+    private static boolean owned(FileMetadata doc, Object[] args) {
+        return doc.getUserId().equals(args[0]) && doc.getStatus() == args[1];
+    }
+
+    private static boolean tagged(FileMetadata doc, Object tags) {
+        return doc.getTags() != null && ((Collection<?>) tags).stream().anyMatch(doc.getTags()::contains);
+    }
+
+    private static boolean contains(Iterable<?> ids, UUID id) {
+        return StreamSupport.stream(ids.spliterator(), false).anyMatch(id::equals);
+    }
+
+    private static Comparator<FileMetadata> comparator(Sort sort) {
+        Comparator<FileMetadata> result = null;
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            Comparator<FileMetadata> next = (left, right) -> compareValues(
+                    new BeanWrapperImpl(left).getPropertyValue(property),
+                    new BeanWrapperImpl(right).getPropertyValue(property));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            result = result == null ? next : result.thenComparing(next);
+        }
+        return result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right ? 0 : left == null ? -1 : 1;
+        }
+        if (left instanceof Comparable comparable && left.getClass() == right.getClass()) {
+            return comparable.compareTo(right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    private static FileMetadata copy(FileMetadata source) {
+        FileMetadata copy = new FileMetadata();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    private static Object unsupported(Method method) {
+        throw new UnsupportedOperationException("Not emulated by the load-test repository: " + method.getName());
+    }
+}
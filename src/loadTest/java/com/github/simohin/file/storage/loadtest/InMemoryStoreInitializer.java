@@ -0,0 +1,69 @@
+package com.github.simohin.file.storage.loadtest;
+
+import com.github.simohin.file.storage.repository.FileMetadataRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Replaces the Mongo-backed repository with {@link InMemoryFileMetadataRepository}. Registered
+ * programmatically rather than as a configuration class, because the load-test package sits under
+ * the application's component scan.
+ * <p>
+ * Only what the workloads exercise runs in memory: uploads, downloads by ID and the public and user
+ * listings, all of which go through the repository. Everything built on {@link MongoTemplate} (trash,
+ * restore, metadata updates, bulk operations, archives, batch uploads and the background jobs) has no
+ * in-memory counterpart; the template is replaced by one that fails every query at once instead of
+ * waiting for a server that is not there. Run with {@code -Pload.store=testcontainers} to cover those.
+ */
+final class InMemoryStoreInitializer implements ApplicationContextInitializer<GenericApplicationContext> {
+
+    /**
+     * Turns off everything that would contact MongoDB on startup, on health checks or on a schedule
+     */
+    static final Map<String, Object> PROPERTIES = Map.of(
+            "spring.data.mongodb.repositories.type", "none",
+            "spring.data.mongodb.auto-index-creation", "false",
+            "management.health.mongo.enabled", "false",
+            "app.file-storage.duplicate-filter.enabled", "false",
+            "app.file-storage.pending-sweeper.enabled", "false",
+            "app.file-storage.trash.purge-enabled", "false",
+            "app.file-storage.scrubber.enabled", "false");
+
+    @Override
+    public void initialize(GenericApplicationContext context) {
+        context.registerBean(FileMetadataRepository.class, InMemoryFileMetadataRepository::create,
+                definition -> definition.setPrimary(true));
+        context.registerBean(MongoTemplate.class, InMemoryStoreInitializer::unsupportedMongoTemplate,
+                definition -> definition.setPrimary(true));
+    }
+
+    /**
+     * Fails the data access methods of {@link MongoOperations}; container callbacks and the like are ignored
+     */
+    private static MongoTemplate unsupportedMongoTemplate() {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setTargetClass(MongoTemplate.class);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            // equals and hashCode are answered by the proxy itself
+            Method method = invocation.getMethod();
+            if (method.getName().equals("toString") && method.getParameterCount() == 0) {
+                return "UnsupportedMongoTemplate";
+            }
+            if (ClassUtils.hasMethod(MongoOperations.class, method.getName(), method.getParameterTypes())) {
+                throw new UnsupportedOperationException("MongoTemplate." + method.getName()
+                        + " is not available with the in-memory load-test store; use -Pload.store=testcontainers");
+            }
+            return null;
+        });
+        return (MongoTemplate) factory.getProxy();
+    }
+}
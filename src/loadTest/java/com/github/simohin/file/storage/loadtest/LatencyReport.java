@@ -0,0 +1,107 @@
+package com.github.simohin.file.storage.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint latency histograms in microseconds, plus error and transferred byte counters
+ */
+final class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Map<Workload.Endpoint, Histogram> histograms = new EnumMap<>(Workload.Endpoint.class);
+    private final Map<Workload.Endpoint, AtomicLong> errors = new EnumMap<>(Workload.Endpoint.class);
+    private final AtomicLong bytesUploaded = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+
+    LatencyReport() {
+        for (Workload.Endpoint endpoint : Workload.Endpoint.values()) {
+            histograms.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    void record(Workload.Endpoint endpoint, long startNanos, long endNanos) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos), HIGHEST_TRACKABLE_MICROS);
+        histograms.get(endpoint).recordValue(Math.max(1, micros));
+    }
+
+    void recordError(Workload.Endpoint endpoint) {
+        errors.get(endpoint).incrementAndGet();
+    }
+
+    void addUploaded(long bytes) {
+        bytesUploaded.addAndGet(bytes);
+    }
+
+    void addDownloaded(long bytes) {
+        bytesDownloaded.addAndGet(bytes);
+    }
+
+    void print(PrintStream out, double durationSeconds) {
+        out.printf("%n%-12s %10s %8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "p99.99 ms", "max ms");
+        histograms.forEach((endpoint, histogram) -> {
+            out.printf("%-12s %10d %8d %10.1f", endpoint.name().toLowerCase(), histogram.getTotalCount(),
+                    errors.get(endpoint).get(), histogram.getTotalCount() / durationSeconds);
+            for (double percentile : PERCENTILES) {
+                out.printf(" %10.2f", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            out.printf(" %10.2f%n", histogram.getMaxValue() / 1000.0);
+        });
+        out.printf("%nupload %.1f MB/s, download %.1f MB/s%n",
+                bytesUploaded.get() / durationSeconds / (1024 * 1024),
+                bytesDownloaded.get() / durationSeconds / (1024 * 1024));
+    }
+
+    /**
+     * Writes an HdrHistogram percentile distribution (.hgrm, plottable) per endpoint and a JSON summary
+     */
+    void write(Path directory, Map<String, Object> settings, double durationSeconds) throws IOException {
+        Files.createDirectories(directory);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<Workload.Endpoint, Histogram> entry : histograms.entrySet()) {
+            String name = entry.getKey().name().toLowerCase();
+            Histogram histogram = entry.getValue();
+
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(directory.resolve(name + ".hgrm")))) {
+                histogram.outputPercentileDistribution(hgrm, 1000.0);
+            }
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", histogram.getTotalCount());
+            summary.put("errors", errors.get(entry.getKey()).get());
+            summary.put("throughputPerSecond", histogram.getTotalCount() / durationSeconds);
+            for (double percentile : PERCENTILES) {
+                summary.put("p" + percentile + "Ms", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+            endpoints.put(name, summary);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("durationSeconds", durationSeconds);
+        report.put("bytesUploaded", bytesUploaded.get());
+        report.put("bytesDownloaded", bytesDownloaded.get());
+        report.put("endpoints", endpoints);
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("summary.json").toFile(), report);
+    }
+}
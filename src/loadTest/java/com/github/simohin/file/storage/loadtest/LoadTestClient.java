@@ -0,0 +1,102 @@
+package com.github.simohin.file.storage.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.simohin.file.storage.common.FileConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal HTTP client for the endpoints exercised by the load test. Response bodies are always
+ * drained so connection reuse and download transfer time are part of the measurement.
+ */
+final class LoadTestClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+
+    LoadTestClient(int port, int concurrency) {
+        this.baseUrl = "http://localhost:" + port + FileConstants.API_FILES_PATH;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newFixedThreadPool(Math.max(2, concurrency / 4)))
+                .build();
+    }
+
+    /**
+     * Uploads a file and returns its ID
+     */
+    String upload(String userId, String filename, byte[] content, boolean publicFile) throws IOException, InterruptedException {
+        String boundary = "----load-test-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        body.write(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(content);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        String query = "?userId=" + encode(userId) + "&filename=" + encode(filename)
+                + "&visibility=" + (publicFile ? "PUBLIC" : "PRIVATE") + "&tags=load,test";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + query))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        checkStatus(response.statusCode(), "upload");
+
+        JsonNode json = objectMapper.readTree(response.body());
+        return json.get("fileId").asText();
+    }
+
+    long download(String fileId, String userId) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + fileId + "?userId=" + encode(userId)))
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            long bytes = body.transferTo(OutputStream.nullOutputStream());
+            checkStatus(response.statusCode(), "download");
+            return bytes;
+        }
+    }
+
+    void listPublic(int page) throws IOException, InterruptedException {
+        get("/public?page=" + page + "&size=20&sortBy=UPLOAD_DATE", "list public");
+    }
+
+    void listUser(String userId, int page) throws IOException, InterruptedException {
+        get("/user/" + encode(userId) + "?page=" + page + "&size=20", "list user");
+    }
+
+    private void get(String path, String operation) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        checkStatus(response.statusCode(), operation);
+    }
+
+    private static void checkStatus(int status, String operation) throws IOException {
+        if (status / 100 != 2) {
+            throw new IOException(operation + " failed with HTTP " + status);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,243 @@
+package com.github.simohin.file.storage.loadtest;
+
+import com.github.simohin.file.storage.FileStorageApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application in-process on a random port and drives a workload mix against its HTTP API
+ * with closed-loop workers. Workers start evenly over the ramp period; only requests started after
+ * the ramp are recorded. Configured through {@code load.*} system properties set by the
+ * {@code loadTest} Gradle task.
+ */
+@Slf4j
+public final class LoadTestRunner {
+
+    private static final int CONTENT_POOL_SIZE = 1024 * 1024;
+
+    private final Workload workload;
+    private final int concurrency;
+    private final Duration rampUp;
+    private final Duration duration;
+    private final int users;
+    private final int seedFiles;
+    private final LatencyReport report = new LatencyReport();
+    private final List<StoredFile> storedFiles = new ArrayList<>();
+    private final AtomicLong fileCounter = new AtomicLong();
+    private final byte[] contentPool = new byte[CONTENT_POOL_SIZE];
+
+    private LoadTestClient client;
+
+    private LoadTestRunner(Workload workload, int concurrency, Duration rampUp, Duration duration, int users, int seedFiles) {
+        this.workload = workload;
+        this.concurrency = concurrency;
+        this.rampUp = rampUp;
+        this.duration = duration;
+        this.users = users;
+        this.seedFiles = seedFiles;
+        new Random(1).nextBytes(contentPool);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Workload workload = Workload.parse(System.getProperty("load.workload", "mixed"));
+        int concurrency = Integer.getInteger("load.concurrency", 16);
+        Duration rampUp = Duration.parse("PT" + System.getProperty("load.rampUp", "10s"));
+        Duration duration = Duration.parse("PT" + System.getProperty("load.duration", "60s"));
+        String store = System.getProperty("load.store", "in-memory");
+        Path reportDir = Path.of(System.getProperty("load.reportDir", "build/reports/loadtest"))
+                .resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + "-"
+                        + workload.name().toLowerCase());
+
+        LoadTestRunner runner = new LoadTestRunner(workload, concurrency, rampUp, duration,
+                Integer.getInteger("load.users", 20), Integer.getInteger("load.seedFiles", 200));
+
+        Path storageDir = Files.createTempDirectory("file-storage-load-");
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("app.file-storage.path", storageDir.toString());
+        properties.put("app.file-storage.max-total-size", System.getProperty("load.maxStorage", "100GB"));
+        properties.put("logging.level.com.github.simohin.file.storage", "WARN");
+
+        SpringApplicationBuilder application = new SpringApplicationBuilder(FileStorageApplication.class);
+        MongoDBContainer mongo = null;
+        if (store.equals("testcontainers")) {
+            mongo = new MongoDBContainer("mongo:6.0");
+            mongo.start();
+            properties.put("spring.data.mongodb.uri", mongo.getReplicaSetUrl("file_storage_load"));
+        } else {
+            properties.putAll(InMemoryStoreInitializer.PROPERTIES);
+            application.initializers(new InMemoryStoreInitializer());
+        }
+
+        try (ConfigurableApplicationContext context = application.properties(properties).run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            runner.client = new LoadTestClient(port, concurrency);
+
+            log.info("Load test: workload={}, store={}, concurrency={}, ramp={}, duration={}",
+                    workload, store, concurrency, rampUp, duration);
+            runner.seed();
+            runner.run();
+
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("workload", workload.name());
+            settings.put("store", store);
+            settings.put("concurrency", concurrency);
+            settings.put("rampUp", rampUp.toString());
+            settings.put("duration", duration.toString());
+            settings.put("users", runner.users);
+            settings.put("seedFiles", runner.seedFiles);
+
+            double seconds = duration.toMillis() / 1000.0;
+            runner.report.print(System.out, seconds);
+            runner.report.write(reportDir, settings, seconds);
+            log.info("Reports written to {}", reportDir.toAbsolutePath());
+        } finally {
+            if (mongo != null) {
+                mongo.stop();
+            }
+            FileSystemUtils.deleteRecursively(storageDir);
+        }
+    }
+
+    private void seed() throws Exception {
+        for (int i = 0; i < seedFiles; i++) {
+            upload(false);
+        }
+    }
+
+    private void run() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long measureFrom = startNanos + rampUp.toNanos();
+        long deadline = measureFrom + duration.toNanos();
+        long rampStep = concurrency > 1 ? rampUp.toNanos() / concurrency : 0;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int worker = 0; worker < concurrency; worker++) {
+            long workerStart = startNanos + worker * rampStep;
+            workers.execute(() -> work(workerStart, measureFrom, deadline));
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(rampUp.plus(duration).toSeconds() + 300, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void work(long workerStart, long measureFrom, long deadline) {
+        sleepUntil(workerStart);
+
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            Workload.Endpoint endpoint = workload.nextOperation();
+            long start = System.nanoTime();
+            boolean measured = start >= measureFrom;
+
+            try {
+                execute(endpoint, measured);
+                if (measured) {
+                    report.record(endpoint, start, System.nanoTime());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                if (measured) {
+                    report.recordError(endpoint);
+                }
+                log.debug("{} failed: {}", endpoint, e.getMessage());
+            }
+        }
+    }
+
+    private void execute(Workload.Endpoint endpoint, boolean measured) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (endpoint) {
+            case UPLOAD -> upload(measured);
+            case DOWNLOAD -> {
+                StoredFile file = randomStoredFile();
+                long bytes = client.download(file.id(), file.userId());
+                if (measured) {
+                    report.addDownloaded(bytes);
+                }
+            }
+            case LIST_PUBLIC -> client.listPublic(random.nextInt(5));
+            case LIST_USER -> client.listUser(randomUser(), random.nextInt(3));
+        }
+    }
+
+    private void upload(boolean measured) throws Exception {
+        long sequence = fileCounter.incrementAndGet();
+        String userId = randomUser();
+        byte[] content = content(workload.nextFileSize(), sequence);
+
+        String fileId = client.upload(userId, "load-" + sequence + ".bin", content, sequence % 2 == 0);
+        synchronized (storedFiles) {
+            storedFiles.add(new StoredFile(fileId, userId));
+        }
+        if (measured) {
+            report.addUploaded(content.length);
+        }
+    }
+
+    /**
+     * Content is unique per upload (the sequence number is stamped in front), so the service's
+     * per-user content deduplication never rejects load-test uploads
+     */
+    private byte[] content(int size, long sequence) {
+        byte[] content = new byte[Math.max(size, Long.BYTES)];
+        int offset = ThreadLocalRandom.current().nextInt(CONTENT_POOL_SIZE);
+        for (int position = 0; position < content.length; ) {
+            int count = Math.min(content.length - position, CONTENT_POOL_SIZE - offset);
+            System.arraycopy(contentPool, offset, content, position, count);
+            position += count;
+            offset = 0;
+        }
+        ByteBuffer.wrap(content).putLong(0, sequence);
+        return content;
+    }
+
+    private StoredFile randomStoredFile() {
+        synchronized (storedFiles) {
+            return storedFiles.get(ThreadLocalRandom.current().nextInt(storedFiles.size()));
+        }
+    }
+
+    private String randomUser() {
+        return "load-user-" + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        long remaining = nanoTime - System.nanoTime();
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record StoredFile(String id, String userId) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.simohin.file.storage.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Operation mixes. Weights are relative; upload sizes are drawn uniformly from the workload's range.
+ */
+enum Workload {
+    UPLOAD_HEAVY(70, 20, 10, 1024, 1024 * 1024),
+    DOWNLOAD_HEAVY(10, 80, 10, 1024, 1024 * 1024),
+    LISTING_HEAVY(5, 15, 80, 1024, 64 * 1024),
+    SMALL_FILES(40, 50, 10, 128, 16 * 1024),
+    LARGE_FILES(40, 50, 10, 8 * 1024 * 1024, 64 * 1024 * 1024),
+    MIXED(30, 50, 20, 1024, 8 * 1024 * 1024);
+
+    private final int uploadWeight;
+    private final int downloadWeight;
+    private final int listWeight;
+    private final int minFileSize;
+    private final int maxFileSize;
+
+    Workload(int uploadWeight, int downloadWeight, int listWeight, int minFileSize, int maxFileSize) {
+        this.uploadWeight = uploadWeight;
+        this.downloadWeight = downloadWeight;
+        this.listWeight = listWeight;
+        this.minFileSize = minFileSize;
+        this.maxFileSize = maxFileSize;
+    }
+
+    Endpoint nextOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(uploadWeight + downloadWeight + listWeight);
+        if (roll < uploadWeight) {
+            return Endpoint.UPLOAD;
+        }
+        if (roll < uploadWeight + downloadWeight) {
+            return Endpoint.DOWNLOAD;
+        }
+        return ThreadLocalRandom.current().nextBoolean() ? Endpoint.LIST_PUBLIC : Endpoint.LIST_USER;
+    }
+
+    int nextFileSize() {
+        return minFileSize == maxFileSize ? minFileSize : ThreadLocalRandom.current().nextInt(minFileSize, maxFileSize + 1);
+    }
+
+    int maxFileSize() {
+        return maxFileSize;
+    }
+
+    static Workload parse(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    enum Endpoint {
+        UPLOAD, DOWNLOAD, LIST_PUBLIC, LIST_USER
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.simohin.file.storage.common;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Archive formats for bulk downloads
+ */
+@Schema(description = "Archive format for bulk downloads")
+public enum ArchiveFormat {
+    @Schema(description = "ZIP archive, already-compressed content is stored without recompression")
+    ZIP("application/zip", "zip"),
+
+    @Schema(description = "Uncompressed POSIX tar archive")
+    TAR("application/x-tar", "tar");
+
+    private final String mediaType;
+    private final String extension;
+
+    ArchiveFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
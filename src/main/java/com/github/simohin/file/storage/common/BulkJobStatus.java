@@ -0,0 +1,18 @@
+package com.github.simohin.file.storage.common;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Bulk job lifecycle
+ */
+@Schema(description = "Bulk job state")
+public enum BulkJobStatus {
+    @Schema(description = "Job is queued or still processing files")
+    RUNNING,
+
+    @Schema(description = "Job processed every selected file")
+    COMPLETED,
+
+    @Schema(description = "Job stopped because of an unexpected error")
+    FAILED
+}
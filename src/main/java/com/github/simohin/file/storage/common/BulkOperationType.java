@@ -0,0 +1,18 @@
+package com.github.simohin.file.storage.common;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Bulk operation kinds
+ */
+@Schema(description = "Kind of bulk operation")
+public enum BulkOperationType {
+    @Schema(description = "Mark files as deleted and purge their content in the background")
+    DELETE,
+
+    @Schema(description = "Replace the tags of files")
+    RETAG,
+
+    @Schema(description = "Change the visibility of files")
+    VISIBILITY
+}
@@ -0,0 +1,21 @@
+package com.github.simohin.file.storage.common;
+
+/**
+ * When stored content is forced to disk before an upload is acknowledged
+ */
+public enum DurabilityMode {
+    /**
+     * Left to the OS write-back; a power loss can lose acknowledged uploads
+     */
+    NONE,
+
+    /**
+     * Each upload syncs its file and directory before returning
+     */
+    PER_FILE,
+
+    /**
+     * Uploads arriving within a short window are synced together by one flusher and acknowledged as a group
+     */
+    GROUP_COMMIT
+}
@@ -13,8 +13,29 @@ public enum ErrorCode {
     CONTENT_EXISTS("File with identical content already exists for user: %s"),
     OWNER_ONLY_DELETE("Access denied: Only the file owner can delete this file"),
     OWNER_ONLY_RENAME("Access denied: Only the file owner can rename this file"),
+    OWNER_ONLY_RESTORE("Access denied: Only the file owner can restore this file"),
+    NOT_IN_TRASH("File is not in the trash or its retention period has ended: %s"),
     NEW_FILENAME_EMPTY("New filename cannot be empty"),
-    NEW_FILENAME_EXISTS("File with name '%s' already exists for user");
+    NEW_FILENAME_EXISTS("File with name '%s' already exists for user"),
+    BATCH_EMPTY("At least one file is required"),
+    BATCH_TOO_LARGE("Maximum %d files allowed per batch, but %d provided"),
+    BATCH_METADATA_MISMATCH("Metadata entries (%d) do not match uploaded files (%d)"),
+    DUPLICATE_IN_BATCH("File with name '%s' appears more than once in batch"),
+    CONTENT_DUPLICATE_IN_BATCH("File with identical content appears earlier in batch: %s"),
+    STORAGE_FAILED("Failed to store file: %s"),
+    BULK_SELECTION_EMPTY("Either file IDs or a filter must be provided"),
+    BULK_SELECTION_AMBIGUOUS("File IDs and a filter cannot be combined"),
+    BULK_FILTER_EMPTY("Filter must contain tags or visibility, or set all to select every file"),
+    BULK_TOO_MANY_IDS("Maximum %d file IDs allowed per bulk operation, but %d provided"),
+    BULK_VISIBILITY_REQUIRED("Target visibility is required"),
+    BULK_JOB_NOT_FOUND("Bulk job not found: %s"),
+    BULK_JOB_FAILED("Bulk job stopped after an internal error; files processed before it keep their changes"),
+    FILE_IDS_EMPTY("At least one file ID is required"),
+    TOO_MANY_FILE_IDS("Maximum %d file IDs allowed per request, but %d provided"),
+    NOT_AN_ARCHIVE("File is not a readable ZIP archive: %s"),
+    ARCHIVE_ENTRY_NOT_FOUND("Archive entry not found: %s"),
+    ARCHIVE_ENTRY_UNSUPPORTED("Compression method %d is not supported for entry: %s"),
+    ARCHIVE_ENTRY_ENCRYPTED("Encrypted archive entries are not supported: %s");
 
     private final String message;
 
@@ -9,6 +9,7 @@ public final class FileConstants {
 
     public static final int MAX_TAGS_ALLOWED = 5;
     public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_GET_SIZE = 1000;
 
     public static final String API_FILES_PATH = "/api/files";
 
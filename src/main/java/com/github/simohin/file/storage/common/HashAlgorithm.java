@@ -0,0 +1,15 @@
+package com.github.simohin.file.storage.common;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Algorithm that produced a stored content hash. Hashes are only comparable within one algorithm.
+ */
+@Schema(description = "Content hash algorithm")
+public enum HashAlgorithm {
+    @Schema(description = "SHA-256 over the whole content, computed on one thread")
+    SHA_256,
+
+    @Schema(description = "SHA-256 of the concatenated SHA-256 digests of 1 MiB leaves; leaves are hashed in parallel")
+    SHA_256_TREE
+}
@@ -0,0 +1,35 @@
+package com.github.simohin.file.storage.common;
+
+/**
+ * Timed stages of file uploads and downloads, used as the {@code stage} metric tag
+ */
+public enum OperationStage {
+    DISK_SPACE_CHECK("upload", "disk_space_check"),
+    FILENAME_DUPLICATE_QUERY("upload", "filename_duplicate_query"),
+    QUICK_HASH("upload", "quick_hash"),
+    HASH("upload", "hash"),
+    HASH_DUPLICATE_QUERY("upload", "hash_duplicate_query"),
+    COPY("upload", "copy"),
+    SYNC("upload", "sync"),
+    CONTENT_TYPE_DETECTION("upload", "content_type_detection"),
+    METADATA_INSERT("upload", "metadata_insert"),
+    METADATA_LOOKUP("download", "metadata_lookup"),
+    OPEN("download", "open"),
+    TRANSFER("download", "transfer");
+
+    private final String operation;
+    private final String tagValue;
+
+    OperationStage(String operation, String tagValue) {
+        this.operation = operation;
+        this.tagValue = tagValue;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getTagValue() {
+        return tagValue;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.archive")
+public class ArchiveProperties {
+
+    /**
+     * Maximum number of files in a single archive
+     */
+    private int maxFiles = 10_000;
+
+    /**
+     * Number of entries prepared ahead of the one being written, per request
+     */
+    private int readAhead = 8;
+
+    /**
+     * Entries up to this size are read into memory during read-ahead
+     */
+    private DataSize inlineThreshold = DataSize.ofKilobytes(256);
+
+    /**
+     * Threads shared by all archive requests for read-ahead
+     */
+    private int threads = 16;
+
+    /**
+     * Heap for parsed ZIP central directories kept in memory, keyed by content hash; a directory
+     * estimated larger than this is parsed on every request instead
+     */
+    private DataSize indexCacheSize = DataSize.ofMegabytes(64);
+
+    /**
+     * ZIP archives with a larger central directory are not browsable
+     */
+    private DataSize maxCentralDirectorySize = DataSize.ofMegabytes(16);
+}
@@ -0,0 +1,26 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.batch-upload")
+public class BatchUploadProperties {
+
+    /**
+     * Maximum number of files accepted in a single batch request
+     */
+    private int maxFiles = 1000;
+
+    /**
+     * Number of worker threads writing batch parts to storage
+     */
+    private int parallelism = 8;
+
+    /**
+     * Pending write tasks allowed before callers start writing on their own thread
+     */
+    private int queueCapacity = 2000;
+}
@@ -0,0 +1,18 @@
+package com.github.simohin.file.storage.config;
+
+import com.github.simohin.file.storage.util.BufferPool;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Copy buffers shared by uploads, hashing, downloads and archives
+ */
+@Configuration
+public class BufferPoolConfig {
+
+    @Bean
+    public BufferPool bufferPool(BufferPoolProperties properties) {
+        return new BufferPool((int) properties.getMinSize().toBytes(), (int) properties.getMaxSize().toBytes(),
+                (int) properties.getDefaultSize().toBytes(), properties.getRetainedPerSizeClass().toBytes());
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.buffers")
+public class BufferPoolProperties {
+
+    /**
+     * Smallest copy buffer; size classes grow by a factor of four from here
+     */
+    private DataSize minSize = DataSize.ofKilobytes(16);
+
+    /**
+     * Largest copy buffer, used for files of this size and above
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Copy buffer when the size of the content is not known up front
+     */
+    private DataSize defaultSize = DataSize.ofKilobytes(64);
+
+    /**
+     * Memory kept for reuse per size class; buffers released beyond it are left to the GC
+     */
+    private DataSize retainedPerSizeClass = DataSize.ofMegabytes(16);
+}
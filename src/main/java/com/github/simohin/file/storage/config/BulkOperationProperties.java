@@ -0,0 +1,33 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.bulk")
+public class BulkOperationProperties {
+
+    /**
+     * Maximum number of explicit file IDs accepted in a single bulk request
+     */
+    private int maxIds = 50_000;
+
+    /**
+     * Number of files checked and updated per Mongo round trip
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Number of bulk jobs processed concurrently
+     */
+    private int parallelism = 2;
+
+    /**
+     * How long finished jobs stay available for progress queries
+     */
+    private Duration jobRetention = Duration.ofHours(1);
+}
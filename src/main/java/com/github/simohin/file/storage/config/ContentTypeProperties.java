@@ -0,0 +1,26 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.content-type")
+public class ContentTypeProperties {
+
+    /**
+     * Answer unambiguous signatures (PNG, JPEG, PDF, ...) directly instead of running Tika
+     */
+    private boolean magicFastPath = true;
+
+    /**
+     * Tika results kept per file extension and sample fingerprint; 0 disables the cache
+     */
+    private int cacheSize = 4096;
+
+    /**
+     * Sample buffers kept for reuse between uploads; more concurrent uploads allocate and drop extra buffers
+     */
+    private int samplePoolSize = 64;
+}
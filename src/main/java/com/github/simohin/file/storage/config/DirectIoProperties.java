@@ -0,0 +1,28 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.direct-io")
+public class DirectIoProperties {
+
+    /**
+     * Write and read large files with O_DIRECT, so they do not evict small hot files from the page cache.
+     * Falls back to buffered I/O where the file system does not support it.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Uploads and downloads of at least this size bypass the page cache
+     */
+    private DataSize threshold = DataSize.ofMegabytes(64);
+
+    /**
+     * Size of each direct read or write; rounded up to the file system block size
+     */
+    private DataSize bufferSize = DataSize.ofMegabytes(1);
+}
@@ -0,0 +1,31 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.duplicate-filter")
+public class DuplicateFilterProperties {
+
+    /**
+     * Skip duplicate queries that an in-memory Bloom filter proves unnecessary
+     */
+    private boolean enabled = true;
+
+    /**
+     * Minimum number of active files each filter is sized for; rebuilds size for twice the actual count
+     */
+    private long expectedInsertions = 1_000_000;
+
+    /**
+     * Target false positive probability of each filter
+     */
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * Rebuild once removed or renamed entries exceed this fraction of all entries
+     */
+    private double rebuildStaleRatio = 0.25;
+}
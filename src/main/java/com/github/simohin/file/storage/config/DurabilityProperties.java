@@ -0,0 +1,39 @@
+package com.github.simohin.file.storage.config;
+
+import com.github.simohin.file.storage.common.DurabilityMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.durability")
+public class DurabilityProperties {
+
+    /**
+     * Whether and how uploads are synced to disk before they are acknowledged
+     */
+    private DurabilityMode mode = DurabilityMode.NONE;
+
+    /**
+     * Group commit: how long the first upload of a group waits for others to join
+     */
+    private Duration groupCommitWindow = Duration.ofMillis(2);
+
+    /**
+     * Group commit: uploads synced together at most; a full group is flushed without waiting out the window
+     */
+    private int maxGroupSize = 128;
+
+    /**
+     * Group commit: files of one group forced concurrently, so the file system can fold them into one journal commit
+     */
+    private int syncThreads = 8;
+
+    /**
+     * Group commit: how long an upload waits for its group to be committed before it fails
+     */
+    private Duration groupCommitTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,54 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.flight-recorder")
+public class FlightRecorderProperties {
+
+    /**
+     * Keep a continuous JFR recording running
+     */
+    private boolean enabled = true;
+
+    /**
+     * JFR settings of the continuous recording: "default" (about 1% overhead) or "profile"
+     */
+    private String settings = "default";
+
+    /**
+     * Oldest data kept in the continuous recording
+     */
+    private Duration maxAge = Duration.ofMinutes(15);
+
+    /**
+     * Maximum size of the continuous recording on disk
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(256);
+
+    /**
+     * Requests slower than this trigger an automatic dump
+     */
+    private Duration slowRequestThreshold = Duration.ofSeconds(10);
+
+    /**
+     * Minimum time between two automatic dumps
+     */
+    private Duration minDumpInterval = Duration.ofMinutes(1);
+
+    /**
+     * Directory for dumped recordings
+     */
+    private String dumpDirectory = System.getProperty("java.io.tmpdir") + "/file-storage-jfr";
+
+    /**
+     * Number of dumps kept, oldest are deleted first
+     */
+    private int maxDumps = 10;
+}
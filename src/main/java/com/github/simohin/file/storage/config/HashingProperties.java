@@ -0,0 +1,34 @@
+package com.github.simohin.file.storage.config;
+
+import com.github.simohin.file.storage.common.HashAlgorithm;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.hashing")
+public class HashingProperties {
+
+    /**
+     * Algorithm for new uploads; existing files keep the algorithm recorded in their metadata
+     */
+    private HashAlgorithm algorithm = HashAlgorithm.SHA_256;
+
+    /**
+     * Threads shared by all uploads for hashing tree leaves
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Leaves read ahead per upload while earlier leaves are hashed; bounds memory to this many MiB per upload
+     */
+    private int maxInFlightLeaves = 8;
+
+    /**
+     * Files from this size on get a sampled fingerprint, and duplicate checks skip the full hash
+     * pass when no existing file has the same fingerprint
+     */
+    private DataSize quickHashThreshold = DataSize.ofMegabytes(8);
+}
@@ -0,0 +1,38 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.heavy-hitters")
+public class HeavyHitterProperties {
+
+    /**
+     * Track the hottest files and users
+     */
+    private boolean enabled = true;
+
+    /**
+     * Counters per sketch row; the estimation error is about total traffic * e / width
+     */
+    private int width = 4096;
+
+    /**
+     * Sketch rows; the error bound holds with probability 1 - exp(-depth)
+     */
+    private int depth = 4;
+
+    /**
+     * Number of top keys tracked per ranking
+     */
+    private int capacity = 100;
+
+    /**
+     * All counts are halved once per interval, so rankings reflect recent traffic
+     */
+    private Duration decayInterval = Duration.ofMinutes(5);
+}
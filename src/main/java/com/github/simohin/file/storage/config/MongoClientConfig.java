@@ -0,0 +1,26 @@
+package com.github.simohin.file.storage.config;
+
+import com.github.simohin.file.storage.jfr.JfrCommandListener;
+import com.github.simohin.file.storage.service.MongoQueryMonitor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Driver-level instrumentation of the Mongo client created by Spring Boot
+ */
+@Configuration
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer jfrCommandListenerCustomizer() {
+        return builder -> builder.addCommandListener(new JfrCommandListener());
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryMonitorCustomizer(MongoQueryMonitor mongoQueryMonitor) {
+        return builder -> builder
+                .addCommandListener(mongoQueryMonitor)
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(mongoQueryMonitor));
+    }
+}
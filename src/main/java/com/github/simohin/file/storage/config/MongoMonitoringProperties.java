@@ -0,0 +1,28 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.mongo-monitoring")
+public class MongoMonitoringProperties {
+
+    /**
+     * Commands slower than this are logged with their filter shape; zero disables the slow-query log
+     */
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+
+    /**
+     * Run an explain (executionStats) for slow queries and log its summary
+     */
+    private boolean explainSlowQueries = false;
+
+    /**
+     * Minimum time between two explains of the same query shape
+     */
+    private Duration explainMinInterval = Duration.ofMinutes(5);
+}
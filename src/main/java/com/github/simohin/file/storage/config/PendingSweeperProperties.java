@@ -0,0 +1,33 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.pending-sweeper")
+public class PendingSweeperProperties {
+
+    /**
+     * Periodically clean up uploads stuck in PENDING
+     */
+    private boolean enabled = true;
+
+    /**
+     * PENDING documents older than this are considered abandoned
+     */
+    private Duration timeout = Duration.ofHours(1);
+
+    /**
+     * Time between two sweeps
+     */
+    private Duration interval = Duration.ofMinutes(10);
+
+    /**
+     * Number of documents handled per sweep round trip
+     */
+    private int batchSize = 500;
+}
@@ -0,0 +1,43 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.reconciler")
+public class ReconcilerProperties {
+
+    /**
+     * Time between two scheduled report-only runs; unset to run only on demand
+     */
+    private Duration interval;
+
+    /**
+     * Number of shard directories walked concurrently
+     */
+    private int parallelism = 4;
+
+    /**
+     * Number of file IDs looked up per {@code $in} query
+     */
+    private int batchSize = 500;
+
+    /**
+     * Upper bound on files and documents checked per second, so a run can stay on during business hours
+     */
+    private int maxChecksPerSecond = 2000;
+
+    /**
+     * Content and metadata younger than this are skipped, so uploads in flight are never reported
+     */
+    private Duration minAge = Duration.ofHours(1);
+
+    /**
+     * Maximum number of orphan file IDs listed in a report
+     */
+    private int maxSamples = 100;
+}
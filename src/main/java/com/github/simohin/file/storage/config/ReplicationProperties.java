@@ -0,0 +1,40 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.replication")
+public class ReplicationProperties {
+
+    /**
+     * Copies of every file, each on a different striping volume; 1 disables replication
+     */
+    private int replicas = 1;
+
+    /**
+     * Copies that must be written and published before an upload is acknowledged
+     */
+    private int writeQuorum = 1;
+
+    /**
+     * Upload data queued for a replica that falls behind; beyond it a replica outside the quorum is
+     * dropped and re-replicated later instead of slowing the upload down
+     */
+    private DataSize maxReplicaLag = DataSize.ofMegabytes(16);
+
+    /**
+     * Pause between passes of the background job that restores missing copies
+     */
+    private Duration repairInterval = Duration.ofMinutes(1);
+
+    /**
+     * How long a volume that failed an I/O is read from only when no other copy is available
+     */
+    private Duration failureCooldown = Duration.ofSeconds(30);
+}
@@ -0,0 +1,44 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.scrubber")
+public class ScrubberProperties {
+
+    /**
+     * Periodically re-read stored content and verify it against the recorded hash
+     */
+    private boolean enabled = true;
+
+    /**
+     * Pause between the end of one full pass and the start of the next
+     */
+    private Duration passInterval = Duration.ofDays(7);
+
+    /**
+     * Read budget shared by all verification, so scrubbing does not compete with downloads for disk bandwidth
+     */
+    private DataSize bytesPerSecond = DataSize.ofMegabytes(32);
+
+    /**
+     * Size of each sequential read
+     */
+    private DataSize readBufferSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Read with O_DIRECT where the file system supports it, so scrubbing does not evict cached content
+     */
+    private boolean directIo = true;
+
+    /**
+     * Number of files verified between two checkpoints
+     */
+    private int batchSize = 100;
+}
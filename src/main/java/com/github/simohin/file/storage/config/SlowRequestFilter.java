@@ -0,0 +1,39 @@
+package com.github.simohin.file.storage.config;
+
+import com.github.simohin.file.storage.service.FlightRecorderService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Reports request latency to the flight recorder, which dumps its recording after slow requests.
+ * Resource downloads are timed until the body is written; for async responses (streamed
+ * archives, batch metadata) only the initial dispatch is timed.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlowRequestFilter extends OncePerRequestFilter {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (flightRecorderService.isRecording()) {
+                flightRecorderService.requestCompleted(
+                        request.getMethod() + " " + request.getRequestURI() + " -> " + response.getStatus(),
+                        System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.striping")
+public class StripingProperties {
+
+    /**
+     * Storage roots, one per disk; when empty everything is stored under app.file-storage.path
+     */
+    private List<Volume> volumes = new ArrayList<>();
+
+    /**
+     * Volumes with less usable space than this plus the upload are passed over by placement
+     */
+    private DataSize minFreeSpace = DataSize.ofGigabytes(1);
+
+    /**
+     * How long a volume's usable space is cached between placements
+     */
+    private Duration freeSpaceRefresh = Duration.ofSeconds(1);
+
+    @Data
+    public static class Volume {
+
+        /**
+         * Root directory on the volume
+         */
+        private String path;
+
+        /**
+         * Share of new files relative to the other volumes, e.g. proportional to capacity or IOPS
+         */
+        private double weight = 1.0;
+    }
+}
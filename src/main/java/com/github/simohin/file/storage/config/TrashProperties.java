@@ -0,0 +1,38 @@
+package com.github.simohin.file.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.file-storage.trash")
+public class TrashProperties {
+
+    /**
+     * Run the background purge of expired trash
+     */
+    private boolean purgeEnabled = true;
+
+    /**
+     * How long deleted files can be restored before their content and metadata are purged
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Time between two purge runs
+     */
+    private Duration purgeInterval = Duration.ofMinutes(10);
+
+    /**
+     * Number of deleted files purged per round trip
+     */
+    private int purgeBatchSize = 500;
+
+    /**
+     * Upper bound on blob deletions per second, so purging does not compete with uploads for disk I/O
+     */
+    private int maxDeletesPerSecond = 200;
+}
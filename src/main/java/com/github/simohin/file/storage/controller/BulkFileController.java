@@ -0,0 +1,152 @@
+package com.github.simohin.file.storage.controller;
+
+import com.github.simohin.file.storage.common.FileConstants;
+import com.github.simohin.file.storage.dto.BulkFileRequest;
+import com.github.simohin.file.storage.dto.BulkJobResponse;
+import com.github.simohin.file.storage.dto.ErrorResponse;
+import com.github.simohin.file.storage.service.BulkFileService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+/**
+ * REST Controller for bulk file operations
+ */
+@RestController
+@RequestMapping(FileConstants.API_FILES_PATH + "/bulk")
+@Validated
+@Tag(name = "Bulk File Operations", description = "API for deleting and updating many files at once")
+@RequiredArgsConstructor
+public class BulkFileController {
+
+    private final BulkFileService bulkFileService;
+
+    @Operation(
+            summary = "Delete many files",
+            description = "Move the selected files to the trash; their content is purged once the retention period ends. " +
+                    "Files not owned by the user are skipped."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Bulk job accepted",
+                    content = @Content(schema = @Schema(implementation = BulkJobResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid selection",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/delete")
+    public ResponseEntity<BulkJobResponse> deleteFiles(
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @RequestBody BulkFileRequest request
+    ) {
+        return accepted(bulkFileService.deleteFiles(userId, request));
+    }
+
+    @Operation(
+            summary = "Replace tags of many files",
+            description = "Replace the tags of the selected files. Files not owned by the user are skipped."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Bulk job accepted",
+                    content = @Content(schema = @Schema(implementation = BulkJobResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid selection or too many tags",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/retag")
+    public ResponseEntity<BulkJobResponse> retagFiles(
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @RequestBody BulkFileRequest request
+    ) {
+        return accepted(bulkFileService.retagFiles(userId, request));
+    }
+
+    @Operation(
+            summary = "Change visibility of many files",
+            description = "Set the visibility of the selected files. Files not owned by the user are skipped."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Bulk job accepted",
+                    content = @Content(schema = @Schema(implementation = BulkJobResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid selection or missing visibility",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/visibility")
+    public ResponseEntity<BulkJobResponse> changeVisibility(
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @RequestBody BulkFileRequest request
+    ) {
+        return accepted(bulkFileService.changeVisibility(userId, request));
+    }
+
+    @Operation(
+            summary = "Get bulk job progress",
+            description = "Get the progress of a bulk job started by the user."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job progress retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = BulkJobResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BulkJobResponse> getJob(
+            @Parameter(description = "Bulk job identifier", required = true, example = "9b2f4c1e-7d0a-4a55-9d7e-0c1f3b2a6e11")
+            @PathVariable String jobId,
+
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId
+    ) {
+        return ResponseEntity.ok(bulkFileService.getJob(jobId, userId));
+    }
+
+    private ResponseEntity<BulkJobResponse> accepted(BulkJobResponse job) {
+        return ResponseEntity.accepted()
+                .location(URI.create(FileConstants.API_FILES_PATH + "/bulk/" + job.getJobId()))
+                .body(job);
+    }
+}
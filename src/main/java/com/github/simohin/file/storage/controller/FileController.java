@@ -1,16 +1,30 @@
 package com.github.simohin.file.storage.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.simohin.file.storage.common.ArchiveFormat;
 import com.github.simohin.file.storage.common.FileConstants;
 import com.github.simohin.file.storage.common.SortBy;
 import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.dto.ArchiveEntryListResponse;
+import com.github.simohin.file.storage.dto.ArchiveRequest;
+import com.github.simohin.file.storage.dto.BatchGetRequest;
+import com.github.simohin.file.storage.dto.BatchUploadItem;
+import com.github.simohin.file.storage.dto.BatchUploadResponse;
 import com.github.simohin.file.storage.dto.ErrorResponse;
 import com.github.simohin.file.storage.dto.FileListResponse;
 import com.github.simohin.file.storage.dto.FileMetadataDto;
 import com.github.simohin.file.storage.dto.FileRenameRequest;
 import com.github.simohin.file.storage.dto.FileUploadResponse;
+import com.github.simohin.file.storage.service.ArchiveService;
+import com.github.simohin.file.storage.service.BatchUploadService;
 import com.github.simohin.file.storage.service.FileService;
+import com.github.simohin.file.storage.service.ZipBrowseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -20,6 +34,8 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -31,10 +47,17 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for file storage operations
@@ -47,6 +70,10 @@ import java.util.Set;
 public class FileController {
 
     private final FileService fileService;
+    private final BatchUploadService batchUploadService;
+    private final ArchiveService archiveService;
+    private final ZipBrowseService zipBrowseService;
+    private final ObjectMapper objectMapper;
 
     @Operation(
             summary = "Upload a new file",
@@ -96,6 +123,49 @@ public class FileController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Upload multiple files",
+            description = "Upload many files in one request. Each part may carry its own filename, visibility and tags " +
+                    "via a JSON 'metadata' part matched by position. Files are stored in parallel and results are " +
+                    "reported per file, so a rejected file does not fail the rest of the batch."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch processed, see per-file results",
+                    content = @Content(schema = @Schema(implementation = BatchUploadResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid batch parameters",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "413",
+                    description = "Request size exceeds maximum limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "507",
+                    description = "Storage limit would be exceeded by the batch",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BatchUploadResponse> uploadFiles(
+            @Parameter(description = "The files to upload", required = true)
+            @RequestPart("files") List<MultipartFile> files,
+
+            @Parameter(description = "ID of the user uploading the files", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @Parameter(description = "Per-file metadata as a JSON array, one entry per file in the same order")
+            @RequestPart(value = "metadata", required = false) List<BatchUploadItem> metadata
+    ) {
+        BatchUploadResponse response = batchUploadService.uploadFiles(userId, files, metadata);
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(
             summary = "Download a file",
             description = "Download a file by its unique identifier. Private files can only be downloaded by their owner."
@@ -129,9 +199,128 @@ public class FileController {
         return ResponseEntity.ok(resource);
     }
 
+    @Operation(
+            summary = "List entries of a ZIP archive",
+            description = "List the entries of a stored ZIP file without downloading it. " +
+                    "Only the archive's central directory is read."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Entries listed successfully",
+                    content = @Content(schema = @Schema(implementation = ArchiveEntryListResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "File is not a readable ZIP archive",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "File not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/{fileId}/entries")
+    public ResponseEntity<ArchiveEntryListResponse> listArchiveEntries(
+            @Parameter(description = "Unique file identifier", required = true, example = "f47ac10b-58cc-4372-a567-0e02b2c3d479")
+            @PathVariable String fileId,
+
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId
+    ) {
+        return ResponseEntity.ok(zipBrowseService.listEntries(fileId, userId));
+    }
+
+    @Operation(
+            summary = "Download a single ZIP archive entry",
+            description = "Extract one entry of a stored ZIP file. Only the requested entry is read and decompressed."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Entry content streamed successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "File or entry not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "501",
+                    description = "Entry is encrypted or uses an unsupported compression method",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/{fileId}/entries/content")
+    public ResponseEntity<Resource> downloadArchiveEntry(
+            @Parameter(description = "Unique file identifier", required = true, example = "f47ac10b-58cc-4372-a567-0e02b2c3d479")
+            @PathVariable String fileId,
+
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @Parameter(description = "Entry path inside the archive", required = true, example = "docs/readme.txt")
+            @RequestParam @NotBlank String path
+    ) {
+        Resource resource = zipBrowseService.getEntry(fileId, userId, path);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(resource.getFilename(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(resource);
+    }
+
+    @Operation(
+            summary = "Download many files as an archive",
+            description = "Stream the selected files as a single ZIP or TAR archive. Files are selected by ID list " +
+                    "or by a filter over the user's own files. Private files of other users are omitted."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Archive streamed successfully",
+                    content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid selection",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/archive")
+    public ResponseEntity<StreamingResponseBody> downloadArchive(
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @RequestBody ArchiveRequest request
+    ) {
+        ArchiveFormat format = request.getFormat() != null ? request.getFormat() : ArchiveFormat.ZIP;
+        ArchiveService.Selection selection = archiveService.selectFiles(userId, request);
+
+        // The cursor is opened by the body, so a body that never runs leaves nothing open
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<FileMetadataDto> files = archiveService.openSelection(userId, selection)) {
+                archiveService.writeArchive(files, format, outputStream);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("files." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
     @Operation(
             summary = "Delete a file",
-            description = "Delete a file by its unique identifier. Only the file owner can delete their files."
+            description = "Move a file to the trash. It can be restored until the retention period ends, " +
+                    "after which its content is purged. Only the file owner can delete their files."
     )
     @ApiResponses(value = {
             @ApiResponse(
@@ -161,6 +350,44 @@ public class FileController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+            summary = "Restore a deleted file",
+            description = "Bring a file back from the trash while its retention period has not ended. " +
+                    "Fails if the user has meanwhile uploaded a file with the same name or content."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "File restored successfully",
+                    content = @Content(schema = @Schema(implementation = FileMetadataDto.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "A file with the same name or content exists again",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Access denied - you can only restore your own files",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "File is not in the trash or was already purged",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/{fileId}/restore")
+    public ResponseEntity<FileMetadataDto> restoreFile(
+            @Parameter(description = "Unique file identifier", required = true, example = "f47ac10b-58cc-4372-a567-0e02b2c3d479")
+            @PathVariable String fileId,
+
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId
+    ) {
+        return ResponseEntity.ok(fileService.restoreFile(fileId, userId));
+    }
+
     @Operation(
             summary = "Rename a file",
             description = "Change the filename of an existing file. Only the file owner can rename their files."
@@ -201,6 +428,54 @@ public class FileController {
         return ResponseEntity.ok(updatedFile);
     }
 
+    @Operation(
+            summary = "Get metadata of multiple files",
+            description = "Fetch metadata for up to " + FileConstants.MAX_BATCH_GET_SIZE + " files in one request. " +
+                    "Only public files and files owned by the user are returned; unknown or inaccessible IDs are omitted. " +
+                    "Results are streamed as a JSON array."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Metadata retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = FileMetadataDto.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid or too many file IDs",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping(value = "/metadata:batchGet", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchGetMetadata(
+            @Parameter(description = "User ID for access control", required = true, example = "user123")
+            @RequestParam @NotBlank String userId,
+
+            @RequestBody BatchGetRequest request
+    ) {
+        Set<UUID> fileIds = fileService.validateBatchGet(request.getFileIds(), userId);
+        ObjectWriter writer = objectMapper.writerFor(FileMetadataDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        // The cursor is opened by the body, so a body that never runs leaves nothing open
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<FileMetadataDto> files = fileService.batchGetMetadata(fileIds, userId);
+                 JsonGenerator generator = objectMapper.createGenerator(outputStream)
+                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                Iterator<FileMetadataDto> iterator = files.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @Operation(
             summary = "List all public files",
             description = "Get a paginated list of all public files with optional filtering by tags and sorting options."
@@ -0,0 +1,47 @@
+package com.github.simohin.file.storage.controller;
+
+import com.github.simohin.file.storage.dto.FlightRecordingInfo;
+import com.github.simohin.file.storage.service.FlightRecorderService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Actuator endpoint for the continuous flight recording: {@code GET} lists dumps,
+ * {@code POST} dumps the recording now and {@code GET /{name}} downloads a dump. Recordings hold
+ * thread stacks and event fields such as user IDs and file names, so the endpoint is not exposed over
+ * HTTP by default.
+ */
+@Component
+@Endpoint(id = "flightrecording")
+@RequiredArgsConstructor
+public class FlightRecordingEndpoint {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @ReadOperation
+    public List<FlightRecordingInfo> listRecordings() throws IOException {
+        return flightRecorderService.listDumps();
+    }
+
+    @WriteOperation
+    public FlightRecordingInfo dumpRecording() throws IOException {
+        return flightRecorderService.dump("on-demand");
+    }
+
+    @ReadOperation(produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Resource downloadRecording(@Selector String name) {
+        return flightRecorderService.findDump(name)
+                .<Resource>map(FileSystemResource::new)
+                .orElse(null);
+    }
+}
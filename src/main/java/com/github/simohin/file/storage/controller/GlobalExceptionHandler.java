@@ -2,6 +2,7 @@ package com.github.simohin.file.storage.controller;
 
 import com.github.simohin.file.storage.dto.ErrorResponse;
 import com.github.simohin.file.storage.service.DiskSpaceService;
+import com.github.simohin.file.storage.service.ZipBrowseService;
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolation;
@@ -133,6 +134,22 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).body(error);
     }
 
+    @ExceptionHandler(ZipBrowseService.UnsupportedEntryException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedArchiveEntry(
+            ZipBrowseService.UnsupportedEntryException ex,
+            HttpServletRequest request) {
+
+        ErrorResponse error = new ErrorResponse(
+                "ARCHIVE_ENTRY_UNSUPPORTED",
+                ex.getMessage(),
+                HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                request.getRequestURI()
+        );
+
+        log.info("Unsupported archive entry requested: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(
             Exception ex,
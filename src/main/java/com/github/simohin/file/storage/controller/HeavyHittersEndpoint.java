@@ -0,0 +1,28 @@
+package com.github.simohin.file.storage.controller;
+
+import com.github.simohin.file.storage.dto.HeavyHittersReport;
+import com.github.simohin.file.storage.service.HeavyHitterTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint listing the hottest files and users: {@code GET /actuator/heavyhitters?limit=20}.
+ * The rankings name users and files, so the endpoint is not exposed over HTTP by default.
+ */
+@Component
+@Endpoint(id = "heavyhitters")
+@RequiredArgsConstructor
+public class HeavyHittersEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    @ReadOperation
+    public HeavyHittersReport heavyHitters(@Nullable Integer limit) {
+        return heavyHitterTracker.report(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.simohin.file.storage.controller;
+
+import com.github.simohin.file.storage.dto.ReconciliationReport;
+import com.github.simohin.file.storage.service.StorageReconciler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for the storage/metadata reconciler: {@code GET} returns the report of the
+ * current or last run, {@code POST} starts a run, report-only unless {@code repair=true} is passed.
+ * A repair deletes content and trashes metadata, so the endpoint is not exposed over HTTP by default.
+ */
+@Component
+@Endpoint(id = "reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationEndpoint {
+
+    private final StorageReconciler storageReconciler;
+
+    @ReadOperation
+    public ReconciliationReport lastReport() {
+        return storageReconciler.lastReport().orElse(null);
+    }
+
+    @WriteOperation
+    public ReconciliationReport reconcile(@Nullable Boolean repair) {
+        return storageReconciler.start(Boolean.TRUE.equals(repair));
+    }
+}
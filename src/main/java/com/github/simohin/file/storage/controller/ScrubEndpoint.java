@@ -0,0 +1,27 @@
+package com.github.simohin.file.storage.controller;
+
+import com.github.simohin.file.storage.dto.ScrubReport;
+import com.github.simohin.file.storage.service.ContentScrubber;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint showing content scrubber progress and corrupted files: {@code GET /actuator/scrub?limit=100}
+ */
+@Component
+@Endpoint(id = "scrub")
+@RequiredArgsConstructor
+public class ScrubEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final ContentScrubber contentScrubber;
+
+    @ReadOperation
+    public ScrubReport scrubReport(@Nullable Integer limit) {
+        return contentScrubber.report(limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+}
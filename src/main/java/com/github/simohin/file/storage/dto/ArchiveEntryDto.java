@@ -0,0 +1,28 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+
+@Data
+@Accessors(chain = true)
+@Schema(description = "Entry of a stored ZIP archive")
+public class ArchiveEntryDto {
+
+    @Schema(description = "Entry path inside the archive", example = "docs/report.pdf")
+    private String name;
+
+    @Schema(description = "Whether the entry is a directory", example = "false")
+    private boolean directory;
+
+    @Schema(description = "Uncompressed size in bytes", example = "1048576")
+    private long size;
+
+    @Schema(description = "Compressed size in bytes", example = "524288")
+    private long compressedSize;
+
+    @Schema(description = "Last modification time recorded in the archive")
+    private LocalDateTime lastModified;
+}
@@ -0,0 +1,28 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * Response DTO listing the entries of a stored ZIP archive
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Entries of a stored ZIP archive")
+public class ArchiveEntryListResponse {
+
+    @Schema(description = "Archive file identifier", example = "f47ac10b-58cc-4372-a567-0e02b2c3d479")
+    private String fileId;
+
+    @Schema(description = "Archive filename", example = "bundle.zip")
+    private String filename;
+
+    @Schema(description = "Number of entries in the archive", example = "1200")
+    private int totalEntries;
+
+    @Schema(description = "Archive entries in central directory order")
+    private List<ArchiveEntryDto> entries;
+}
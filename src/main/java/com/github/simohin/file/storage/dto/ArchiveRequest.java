@@ -0,0 +1,27 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.ArchiveFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * Request DTO for downloading many files as one archive
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Selection of files to download as a single archive")
+public class ArchiveRequest {
+
+    @Schema(description = "Explicit file identifiers, mutually exclusive with filter",
+            example = "[\"f47ac10b-58cc-4372-a567-0e02b2c3d479\"]")
+    private List<String> fileIds;
+
+    @Schema(description = "Filter over the user's own files, mutually exclusive with fileIds")
+    private BulkFileFilter filter;
+
+    @Schema(description = "Archive format, defaults to ZIP")
+    private ArchiveFormat format;
+}
@@ -0,0 +1,19 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.FileConstants;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for fetching metadata of many files at once
+ */
+@Data
+@Schema(description = "Request to fetch metadata of multiple files")
+public class BatchGetRequest {
+
+    @Schema(description = "File identifiers (max " + FileConstants.MAX_BATCH_GET_SIZE + ")",
+            example = "[\"f47ac10b-58cc-4372-a567-0e02b2c3d479\"]", required = true)
+    private List<String> fileIds;
+}
@@ -0,0 +1,26 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.Visibility;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Set;
+
+/**
+ * Per-file metadata for a batch upload, matched to the uploaded parts by position
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Metadata for a single file in a batch upload")
+public class BatchUploadItem {
+
+    @Schema(description = "Name for the uploaded file, defaults to the part's original filename", example = "document.pdf")
+    private String filename;
+
+    @Schema(description = "Visibility setting for the file, defaults to PRIVATE")
+    private Visibility visibility;
+
+    @Schema(description = "File tags (max 5)", example = "[\"work\", \"important\"]")
+    private Set<String> tags;
+}
@@ -0,0 +1,23 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Response DTO for batch upload with per-file results
+ */
+@Data
+@Schema(description = "Response containing the outcome of every file in a batch upload")
+public class BatchUploadResponse {
+
+    @Schema(description = "Per-file results in request order")
+    private List<BatchUploadResult> results;
+
+    @Schema(description = "Number of files stored successfully", example = "998")
+    private int succeeded;
+
+    @Schema(description = "Number of files rejected or failed", example = "2")
+    private int failed;
+}
@@ -0,0 +1,30 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+@Schema(description = "Outcome of a single file in a batch upload")
+public class BatchUploadResult {
+
+    @Schema(description = "Position of the file in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Requested filename", example = "document.pdf")
+    private String filename;
+
+    @Schema(description = "Whether the file was stored successfully", example = "true")
+    private boolean success;
+
+    @Schema(description = "Uploaded file information, present on success")
+    private FileUploadResponse file;
+
+    @Schema(description = "Error code identifier, present on failure", example = "FILENAME_EXISTS")
+    private String errorCode;
+
+    @Schema(description = "Human-readable error message, present on failure",
+            example = "File with name 'document.pdf' already exists for user")
+    private String error;
+}
@@ -0,0 +1,32 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.Visibility;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Set;
+
+/**
+ * Filter selecting the requesting user's files for a bulk operation
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Selects the user's active files matching every given criterion; "
+        + "bulk changes need at least one criterion or all=true")
+public class BulkFileFilter {
+
+    @Schema(description = "Match files having any of these tags", example = "[\"temp\", \"draft\"]")
+    private Set<String> tags;
+
+    @Schema(description = "Match files with this visibility")
+    private Visibility visibility;
+
+    @Schema(description = "Select all of the user's active files; required by bulk changes when no other "
+            + "criterion is given", example = "false")
+    private boolean all;
+
+    public boolean hasCriteria() {
+        return (tags != null && !tags.isEmpty()) || visibility != null;
+    }
+}
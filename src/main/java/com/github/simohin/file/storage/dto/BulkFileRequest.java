@@ -0,0 +1,31 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.Visibility;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Request DTO for bulk delete, retag and visibility changes
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Selection of files and the change to apply to them")
+public class BulkFileRequest {
+
+    @Schema(description = "Explicit file identifiers, mutually exclusive with filter",
+            example = "[\"f47ac10b-58cc-4372-a567-0e02b2c3d479\"]")
+    private List<String> fileIds;
+
+    @Schema(description = "Filter over the user's files, mutually exclusive with fileIds")
+    private BulkFileFilter filter;
+
+    @Schema(description = "New tags for retag operations (max 5)", example = "[\"archive\"]")
+    private Set<String> tags;
+
+    @Schema(description = "New visibility for visibility operations")
+    private Visibility visibility;
+}
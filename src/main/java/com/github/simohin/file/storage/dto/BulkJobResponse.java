@@ -0,0 +1,52 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.BulkJobStatus;
+import com.github.simohin.file.storage.common.BulkOperationType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO describing bulk job progress
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Progress of a bulk operation")
+public class BulkJobResponse {
+
+    @Schema(description = "Unique job identifier", example = "9b2f4c1e-7d0a-4a55-9d7e-0c1f3b2a6e11")
+    private String jobId;
+
+    @Schema(description = "Operation performed by the job")
+    private BulkOperationType operation;
+
+    @Schema(description = "Current job state")
+    private BulkJobStatus status;
+
+    @Schema(description = "Number of files selected, known once the selection is resolved", example = "50000")
+    private long total;
+
+    @Schema(description = "Number of files examined so far", example = "12000")
+    private long processed;
+
+    @Schema(description = "Number of files changed so far", example = "11998")
+    private long succeeded;
+
+    @Schema(description = "Number of files skipped because they were missing or owned by another user", example = "2")
+    private long skipped;
+
+    @Schema(description = "Sample of skipped file identifiers")
+    private List<String> skippedFileIds;
+
+    @Schema(description = "Job start timestamp")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Job completion timestamp")
+    private LocalDateTime finishedAt;
+
+    @Schema(description = "Failure reason when the job failed")
+    private String error;
+}
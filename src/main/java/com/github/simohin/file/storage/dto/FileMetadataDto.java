@@ -1,6 +1,7 @@
 package com.github.simohin.file.storage.dto;
 
 import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.HashAlgorithm;
 import com.github.simohin.file.storage.common.Visibility;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
@@ -51,6 +52,9 @@ public class FileMetadataDto {
     @Schema(description = "SHA-256 hash of file content", example = "a665a45920422f9d417e4867efdc4fb8a04a1f3fff1fa07e998e86f7f7a27ae3")
     private String hash;
 
+    @Schema(description = "Algorithm of the content hash; absent for files hashed with plain SHA-256")
+    private HashAlgorithm hashAlgorithm;
+
     @NotNull(message = "File status is required")
     @Schema(description = "Current file status")
     private FileStatus status;
@@ -1,5 +1,6 @@
 package com.github.simohin.file.storage.dto;
 
+import com.github.simohin.file.storage.common.HashAlgorithm;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -13,6 +14,13 @@ public class FileStorageResult {
             example = "a665a45920422f9d417e4867efdc4fb8a04a1f3fff1fa07e998e86f7f7a27ae3")
     private String hash;
 
+    @Schema(description = "Algorithm the hash was computed with")
+    private HashAlgorithm hashAlgorithm;
+
+    @Schema(description = "Sampled non-cryptographic fingerprint for duplicate pre-checks, only set for large files",
+            example = "0000000040000000c1f3e5a7b9d0e2f4")
+    private String quickHash;
+
     @Schema(description = "File size in bytes", example = "1048576")
     private long size;
 
@@ -0,0 +1,25 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+
+/**
+ * Dumped JFR recording available for download
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Dumped flight recording")
+public class FlightRecordingInfo {
+
+    @Schema(description = "Recording file name", example = "file-storage-20240115-103000-slow-request.jfr")
+    private String name;
+
+    @Schema(description = "Recording size in bytes", example = "5242880")
+    private long size;
+
+    @Schema(description = "Time the recording was dumped")
+    private Instant created;
+}
@@ -0,0 +1,17 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+@Data
+@Accessors(chain = true)
+@Schema(description = "File or user with its estimated traffic")
+public class HeavyHitterDto {
+
+    @Schema(description = "File ID or user ID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String key;
+
+    @Schema(description = "Estimated request count or bytes; never an undercount", example = "1520")
+    private long estimate;
+}
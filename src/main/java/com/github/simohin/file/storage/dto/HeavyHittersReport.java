@@ -0,0 +1,32 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Hottest files and users by upload and download traffic, with exponential decay
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Hottest files and users")
+public class HeavyHittersReport {
+
+    @Schema(description = "Interval after which all counts are halved")
+    private Duration decayInterval;
+
+    @Schema(description = "Files by number of uploads and downloads")
+    private List<HeavyHitterDto> filesByRequests;
+
+    @Schema(description = "Files by bytes uploaded and downloaded")
+    private List<HeavyHitterDto> filesByBytes;
+
+    @Schema(description = "Users by number of uploads and downloads")
+    private List<HeavyHitterDto> usersByRequests;
+
+    @Schema(description = "Users by bytes uploaded and downloaded")
+    private List<HeavyHitterDto> usersByBytes;
+}
@@ -0,0 +1,60 @@
+package com.github.simohin.file.storage.dto;
+
+import com.github.simohin.file.storage.common.BulkJobStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Outcome of a storage/metadata reconciliation run
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Storage and metadata reconciliation report")
+public class ReconciliationReport {
+
+    @Schema(description = "Current run state")
+    private BulkJobStatus status;
+
+    @Schema(description = "Whether orphans are repaired or only reported")
+    private boolean repair;
+
+    @Schema(description = "Number of shard directories walked", example = "65536")
+    private long shardsScanned;
+
+    @Schema(description = "Number of stored files checked against metadata", example = "120000")
+    private long filesScanned;
+
+    @Schema(description = "Number of PENDING and ACTIVE documents checked against storage", example = "119500")
+    private long documentsScanned;
+
+    @Schema(description = "Stored files without any metadata document", example = "12")
+    private long orphanFiles;
+
+    @Schema(description = "Disk space taken by stored files without metadata", example = "52428800")
+    private long orphanBytes;
+
+    @Schema(description = "PENDING and ACTIVE documents whose content is missing", example = "3")
+    private long missingContent;
+
+    @Schema(description = "Number of orphans repaired: files deleted plus documents moved to the trash", example = "15")
+    private long repaired;
+
+    @Schema(description = "Sample of stored file identifiers without metadata")
+    private List<String> orphanFileIds;
+
+    @Schema(description = "Sample of document identifiers whose content is missing")
+    private List<String> missingContentIds;
+
+    @Schema(description = "Run start timestamp")
+    private LocalDateTime startedAt;
+
+    @Schema(description = "Run completion timestamp")
+    private LocalDateTime finishedAt;
+
+    @Schema(description = "Failure reason when the run failed")
+    private String error;
+}
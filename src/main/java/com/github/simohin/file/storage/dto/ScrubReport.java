@@ -0,0 +1,41 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress of the content scrubber and the files it found corrupted
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Content scrubber progress and corrupted files")
+public class ScrubReport {
+
+    @Schema(description = "Start of the pass in progress, absent between passes")
+    private LocalDateTime passStartedAt;
+
+    @Schema(description = "Completion of the last full pass")
+    private LocalDateTime lastPassCompletedAt;
+
+    @Schema(description = "Last file verified in the current pass", example = "123e4567-e89b-12d3-a456-426614174000")
+    private String lastFileId;
+
+    @Schema(description = "Files verified in the current pass", example = "12000")
+    private long filesVerified;
+
+    @Schema(description = "Bytes verified in the current pass", example = "1073741824")
+    private long bytesVerified;
+
+    @Schema(description = "Hash mismatches found in the current pass", example = "0")
+    private long mismatches;
+
+    @Schema(description = "Number of files currently flagged as corrupted", example = "1")
+    private long corruptedCount;
+
+    @Schema(description = "Files flagged as corrupted, oldest finding first")
+    private List<FileMetadataDto> corruptedFiles;
+}
@@ -0,0 +1,26 @@
+package com.github.simohin.file.storage.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * File content as found on disk, independent of its metadata
+ */
+@Data
+@Accessors(chain = true)
+@Schema(description = "Stored file content")
+public class StoredBlob {
+
+    @Schema(description = "File identifier the content is stored under", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID fileId;
+
+    @Schema(description = "Content size in bytes", example = "1048576")
+    private long size;
+
+    @Schema(description = "Last modification time of the content")
+    private Instant lastModified;
+}
@@ -1,6 +1,7 @@
 package com.github.simohin.file.storage.entity;
 
 import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.HashAlgorithm;
 import com.github.simohin.file.storage.common.Visibility;
 import lombok.Data;
 import lombok.experimental.Accessors;
@@ -28,6 +29,18 @@ import java.util.UUID;
         partialFilter = "{'status': { $eq: 'ACTIVE' }}")
 @CompoundIndex(name = "userId_status_idx",
         def = "{'userId': 1, 'status': 1}")
+@CompoundIndex(name = "status_deleted_at_idx",
+        def = "{'status': 1, 'deletedAt': 1}",
+        partialFilter = "{'status': { $eq: 'DELETED' }}")
+@CompoundIndex(name = "status_upload_date_idx",
+        def = "{'status': 1, 'uploadDate': 1}",
+        partialFilter = "{'status': { $eq: 'PENDING' }}")
+@CompoundIndex(name = "user_quick_hash_idx",
+        def = "{'userId': 1, 'quickHash': 1}",
+        partialFilter = "{'status': { $eq: 'ACTIVE' }, 'quickHash': { $exists: true }}")
+@CompoundIndex(name = "corrupted_at_idx",
+        def = "{'corruptedAt': 1}",
+        sparse = true)
 public class FileMetadata {
 
     @Id
@@ -41,6 +54,10 @@ public class FileMetadata {
     private String contentType;
     private long size;
     private String hash;
+    private HashAlgorithm hashAlgorithm;
+    private String quickHash;
     private FileStatus status;
+    private LocalDateTime deletedAt;
+    private LocalDateTime corruptedAt;
 
 }
\ No newline at end of file
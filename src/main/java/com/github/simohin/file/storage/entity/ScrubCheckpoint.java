@@ -0,0 +1,37 @@
+package com.github.simohin.file.storage.entity;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of the content scrubber, saved after every batch so a restart resumes the current pass
+ */
+@Data
+@Accessors(chain = true)
+@Document(collection = "scrub_checkpoints")
+public class ScrubCheckpoint {
+
+    @Id
+    private String id;
+
+    /**
+     * Last file verified in the current pass; files are visited in {@code _id} order
+     */
+    private UUID lastFileId;
+
+    /**
+     * Start of the current pass, {@code null} between passes
+     */
+    private LocalDateTime passStartedAt;
+
+    private LocalDateTime lastPassCompletedAt;
+    private long filesVerified;
+    private long bytesVerified;
+    private long mismatches;
+    private LocalDateTime updatedAt;
+}
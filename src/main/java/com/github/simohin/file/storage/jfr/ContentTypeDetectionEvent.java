@@ -0,0 +1,31 @@
+package com.github.simohin.file.storage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.simohin.filestorage.ContentTypeDetection")
+@Label("Content Type Detection")
+@Category({"File Storage", "Upload"})
+@Description("Content type detection over a sample of the file")
+@StackTrace(false)
+public class ContentTypeDetectionEvent extends Event {
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Sample Size")
+    @DataAmount
+    public long sampleSize;
+
+    @Label("Content Type")
+    public String contentType;
+
+    @Label("Source")
+    @Description("What answered: magic, cache or tika")
+    public String source;
+}
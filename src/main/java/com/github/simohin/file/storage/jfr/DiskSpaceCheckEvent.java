@@ -0,0 +1,32 @@
+package com.github.simohin.file.storage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.simohin.filestorage.DiskSpaceCheck")
+@Label("Disk Space Check")
+@Category({"File Storage", "Upload"})
+@Description("Storage quota check, including the walk over the storage directory")
+@StackTrace(false)
+public class DiskSpaceCheckEvent extends Event {
+
+    @Label("Requested")
+    @DataAmount
+    public long requestedBytes;
+
+    @Label("Current Usage")
+    @DataAmount
+    public long currentUsageBytes;
+
+    @Label("Limit")
+    @DataAmount
+    public long limitBytes;
+
+    @Label("Allowed")
+    public boolean allowed;
+}
@@ -0,0 +1,34 @@
+package com.github.simohin.file.storage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.simohin.filestorage.FileDownload")
+@Label("File Download")
+@Category({"File Storage", "Download"})
+@Description("A single file download, from the access check until the response stream is closed")
+@StackTrace(false)
+public class FileDownloadEvent extends Event {
+
+    @Label("File ID")
+    public String fileId;
+
+    @Label("User ID")
+    public String userId;
+
+    @Label("File Size")
+    @DataAmount
+    public long size;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    public long bytesSent;
+
+    @Label("Outcome")
+    public String outcome;
+}
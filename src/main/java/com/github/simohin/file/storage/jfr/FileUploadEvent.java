@@ -0,0 +1,36 @@
+package com.github.simohin.file.storage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.simohin.filestorage.FileUpload")
+@Label("File Upload")
+@Category({"File Storage", "Upload"})
+@Description("A single file upload, from validation to the metadata commit")
+@StackTrace(false)
+public class FileUploadEvent extends Event {
+
+    @Label("File ID")
+    public String fileId;
+
+    @Label("User ID")
+    public String userId;
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("File Size")
+    @DataAmount
+    public long size;
+
+    @Label("Content Type")
+    public String contentType;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,24 @@
+package com.github.simohin.file.storage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.simohin.filestorage.Hash")
+@Label("Content Hash")
+@Category({"File Storage", "Upload"})
+@Description("A content hash pass over an uploaded file")
+@StackTrace(false)
+public class HashEvent extends Event {
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Bytes Hashed")
+    @DataAmount
+    public long size;
+}
@@ -0,0 +1,55 @@
+package com.github.simohin.file.storage.jfr;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emits a {@link MongoCommandEvent} per driver command. Nothing is allocated or tracked
+ * unless the event is enabled in a running recording.
+ */
+public class JfrCommandListener implements CommandListener {
+
+    private final Map<Integer, MongoCommandEvent> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent started) {
+        MongoCommandEvent event = new MongoCommandEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.begin();
+        event.command = started.getCommandName();
+        event.database = started.getDatabaseName();
+        BsonValue target = started.getCommand().get(started.getCommandName());
+        event.collection = target != null && target.isString() ? target.asString().getValue() : null;
+        event.server = started.getConnectionDescription().getServerAddress().toString();
+        event.requestId = started.getRequestId();
+        inFlight.put(started.getRequestId(), event);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent succeeded) {
+        finish(succeeded.getRequestId(), true);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent failed) {
+        finish(failed.getRequestId(), false);
+    }
+
+    private void finish(int requestId, boolean success) {
+        MongoCommandEvent event = inFlight.remove(requestId);
+        if (event != null) {
+            event.end();
+            event.success = success;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.simohin.file.storage.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.simohin.filestorage.MongoCommand")
+@Label("Mongo Command")
+@Category({"File Storage", "MongoDB"})
+@Description("A command sent to MongoDB, timed by the driver's command listener")
+@StackTrace(false)
+public class MongoCommandEvent extends Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Database")
+    public String database;
+
+    @Label("Collection")
+    public String collection;
+
+    @Label("Server")
+    public String server;
+
+    @Label("Request ID")
+    public int requestId;
+
+    @Label("Success")
+    public boolean success;
+}
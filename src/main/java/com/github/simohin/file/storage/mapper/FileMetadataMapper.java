@@ -14,5 +14,8 @@ public interface FileMetadataMapper {
     FileMetadataDto toDto(FileMetadata entity);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "corruptedAt", ignore = true)
+    @Mapping(target = "quickHash", ignore = true)
     FileMetadata toEntity(FileMetadataDto dto);
 }
\ No newline at end of file
@@ -9,10 +9,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface FileMetadataRepository extends MongoRepository<FileMetadata, UUID> {
@@ -28,6 +30,13 @@ public interface FileMetadataRepository extends MongoRepository<FileMetadata, UU
 
     Optional<FileMetadata> findByUserIdAndHashAndStatus(String userId, String hash, FileStatus status);
 
+    boolean existsByUserIdAndQuickHashAndStatus(String userId, String quickHash, FileStatus status);
+
+    // Batched duplicate checks
+    List<FileMetadata> findByUserIdAndStatusAndFileNameIn(String userId, FileStatus status, Collection<String> fileNames);
+
+    List<FileMetadata> findByUserIdAndStatusAndHashIn(String userId, FileStatus status, Collection<String> hashes);
+
     @Query("{'tags': {$in: ?0}, 'status': ?1}")
     List<FileMetadata> findByTagsInAndStatus(Set<String> tags, FileStatus status);
 
@@ -37,6 +46,10 @@ public interface FileMetadataRepository extends MongoRepository<FileMetadata, UU
     @Query("{'visibility': 'PUBLIC', 'status': 'ACTIVE'}")
     List<FileMetadata> findPublicActiveFiles();
 
+    // Multi-get with access control applied in the query: public files or files owned by the caller
+    @Query("{'_id': {$in: ?0}, 'status': 'ACTIVE', $or: [{'visibility': 'PUBLIC'}, {'userId': ?1}]}")
+    Stream<FileMetadata> streamVisibleActiveFiles(Collection<UUID> ids, String userId);
+
     List<FileMetadata> findByContentTypeContainingIgnoreCaseAndStatus(String contentType, FileStatus status);
 
     @Query("{'size': {$gte: ?0, $lte: ?1}, 'status': ?2}")
@@ -0,0 +1,344 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.ArchiveFormat;
+import com.github.simohin.file.storage.common.ErrorCode;
+import com.github.simohin.file.storage.config.ArchiveProperties;
+import com.github.simohin.file.storage.dto.ArchiveRequest;
+import com.github.simohin.file.storage.dto.BulkFileFilter;
+import com.github.simohin.file.storage.dto.FileMetadataDto;
+import com.github.simohin.file.storage.util.BufferPool;
+import com.github.simohin.file.storage.util.TarOutputStream;
+import com.github.simohin.file.storage.util.ValidationUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams many files as a single ZIP or TAR archive. Entries are prepared a bounded number of
+ * positions ahead of the writer (small files are read into memory, CRCs for stored ZIP entries
+ * are computed), so memory stays constant and no temporary files are written.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchiveService {
+
+    private static final Set<String> COMPRESSED_CONTENT_TYPES = Set.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp", "image/avif", "image/heic",
+            "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2",
+            "application/x-xz", "application/zstd", "application/x-7z-compressed",
+            "application/x-rar-compressed", "application/vnd.rar", "application/java-archive",
+            "application/epub+zip", "application/pdf");
+
+    private static final Set<String> UNCOMPRESSED_MEDIA_TYPES = Set.of(
+            "audio/wav", "audio/x-wav", "audio/vnd.wave", "audio/aiff", "audio/x-aiff");
+
+    private final FileMetadataService fileMetadataService;
+    private final FileStorageService fileStorageService;
+    private final ArchiveProperties archiveProperties;
+    private final BufferPool bufferPool;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(Math.max(1, archiveProperties.getThreads()),
+                new CustomizableThreadFactory("archive-read-ahead-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Files picked by an archive request: explicit IDs or a filter over the user's own files
+     */
+    public record Selection(Set<UUID> fileIds, BulkFileFilter filter) {
+    }
+
+    /**
+     * Validates the archive selection, including its size, before anything is streamed.
+     * The files are only resolved by {@link #openSelection}, once the response is written.
+     */
+    public Selection selectFiles(String userId, ArchiveRequest request) {
+        ValidationUtils.validateNotEmpty(userId, ErrorCode.USER_ID_EMPTY.getMessage());
+
+        boolean hasIds = request.getFileIds() != null && !request.getFileIds().isEmpty();
+        BulkFileFilter filter = request.getFilter();
+
+        if (!hasIds && filter == null) {
+            throw new IllegalArgumentException(ErrorCode.BULK_SELECTION_EMPTY.getMessage());
+        }
+        if (hasIds && filter != null) {
+            throw new IllegalArgumentException(ErrorCode.BULK_SELECTION_AMBIGUOUS.getMessage());
+        }
+
+        int maxFiles = archiveProperties.getMaxFiles();
+        if (filter != null) {
+            // A filter is rejected like an ID list instead of being cut at the limit
+            long count = fileMetadataService.countUserFileMetadata(userId, filter.getTags(), filter.getVisibility());
+            if (count > maxFiles) {
+                throw new IllegalArgumentException(ErrorCode.TOO_MANY_FILE_IDS.format(maxFiles, count));
+            }
+            return new Selection(null, filter);
+        }
+
+        if (request.getFileIds().size() > maxFiles) {
+            throw new IllegalArgumentException(ErrorCode.TOO_MANY_FILE_IDS.format(maxFiles, request.getFileIds().size()));
+        }
+
+        Set<UUID> fileIds = request.getFileIds().stream()
+                .map(ValidationUtils::validateAndParseFileId)
+                .collect(Collectors.toSet());
+        return new Selection(fileIds, null);
+    }
+
+    /**
+     * Resolves the selection with the same rules as {@link FileService#downloadFile}: public files or
+     * files owned by the user. The returned stream holds an open cursor and must be closed by the caller.
+     */
+    public Stream<FileMetadataDto> openSelection(String userId, Selection selection) {
+        if (selection.filter() != null) {
+            // One more than allowed, so that files added since the count fail the archive instead of
+            // going missing from it
+            return fileMetadataService.streamUserFileMetadata(userId, selection.filter().getTags(),
+                    selection.filter().getVisibility(), archiveProperties.getMaxFiles() + 1);
+        }
+        return fileMetadataService.streamVisibleFileMetadata(selection.fileIds(), userId);
+    }
+
+    public void writeArchive(Stream<FileMetadataDto> files, ArchiveFormat format, OutputStream outputStream)
+            throws IOException {
+        ArchiveWriter writer = format == ArchiveFormat.TAR
+                ? new TarWriter(new TarOutputStream(outputStream), bufferPool)
+                : new ZipWriter(new ZipOutputStream(outputStream), bufferPool);
+
+        Iterator<FileMetadataDto> iterator = files.iterator();
+        Deque<Future<PreparedEntry>> window = new ArrayDeque<>();
+        EntryNames entryNames = new EntryNames();
+        int readAhead = Math.max(1, archiveProperties.getReadAhead());
+        int maxFiles = archiveProperties.getMaxFiles();
+        int selected = 0;
+        int written = 0;
+
+        try {
+            while (iterator.hasNext() || !window.isEmpty()) {
+                while (window.size() < readAhead && iterator.hasNext()) {
+                    FileMetadataDto metadata = iterator.next();
+                    if (++selected > maxFiles) {
+                        // The status is already sent; failing leaves an archive the client sees as broken
+                        throw new IOException(ErrorCode.TOO_MANY_FILE_IDS.format(maxFiles, selected));
+                    }
+                    String entryName = entryNames.next(metadata.getFileName());
+                    boolean stored = format == ArchiveFormat.ZIP && isCompressed(metadata.getContentType());
+                    window.add(executor.submit(() -> prepare(metadata, entryName, stored)));
+                }
+
+                PreparedEntry entry = awaitEntry(window.poll());
+                if (entry.missing) {
+                    log.warn("Skipping archive entry without content: {}", entry.metadata.getId());
+                    continue;
+                }
+
+                writer.write(entry, this::openContent);
+                written++;
+            }
+
+            writer.finish();
+            log.info("Archive written: {} entries ({})", written, format);
+
+        } finally {
+            window.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Runs on the read-ahead pool
+     */
+    private PreparedEntry prepare(FileMetadataDto metadata, String entryName, boolean stored) throws IOException {
+        PreparedEntry entry = new PreparedEntry(metadata, entryName, stored);
+
+        boolean inline = metadata.getSize() <= archiveProperties.getInlineThreshold().toBytes();
+        if (!inline && !stored) {
+            return entry;
+        }
+
+        Optional<InputStream> content = fileStorageService.getFile(metadata.getId());
+        if (content.isEmpty()) {
+            entry.missing = true;
+            return entry;
+        }
+
+        CRC32 crc = new CRC32();
+        try (CheckedInputStream input = new CheckedInputStream(content.get(), crc)) {
+            if (inline) {
+                entry.data = input.readAllBytes();
+            } else {
+                bufferPool.transfer(input, OutputStream.nullOutputStream(), metadata.getSize());
+            }
+        }
+        entry.crc = crc.getValue();
+        return entry;
+    }
+
+    private InputStream openContent(PreparedEntry entry) throws IOException {
+        if (entry.data != null) {
+            return new ByteArrayInputStream(entry.data);
+        }
+
+        return fileStorageService.getFile(entry.metadata.getId())
+                .orElseThrow(() -> new IOException(ErrorCode.FILE_CONTENT_NOT_FOUND.format(entry.metadata.getId())));
+    }
+
+    private PreparedEntry awaitEntry(Future<PreparedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive streaming interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read archive entry", e.getCause());
+        }
+    }
+
+    private static boolean isCompressed(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        String mediaType = contentType.split(";", 2)[0].trim().toLowerCase();
+        if (COMPRESSED_CONTENT_TYPES.contains(mediaType) || mediaType.startsWith("application/vnd.openxmlformats-")) {
+            return true;
+        }
+        return (mediaType.startsWith("video/") || mediaType.startsWith("audio/"))
+                && !UNCOMPRESSED_MEDIA_TYPES.contains(mediaType);
+    }
+
+    private static long modifiedEpochSeconds(LocalDateTime uploadDate) {
+        return uploadDate != null ? uploadDate.atZone(ZoneId.systemDefault()).toEpochSecond() : 0;
+    }
+
+    @FunctionalInterface
+    private interface ContentOpener {
+        InputStream open(PreparedEntry entry) throws IOException;
+    }
+
+    private interface ArchiveWriter {
+        void write(PreparedEntry entry, ContentOpener opener) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private record ZipWriter(ZipOutputStream zip, BufferPool bufferPool) implements ArchiveWriter {
+
+        @Override
+        public void write(PreparedEntry entry, ContentOpener opener) throws IOException {
+            ZipEntry zipEntry = new ZipEntry(entry.name);
+            if (entry.metadata.getUploadDate() != null) {
+                zipEntry.setTimeLocal(entry.metadata.getUploadDate());
+            }
+            if (entry.stored) {
+                zipEntry.setMethod(ZipEntry.STORED);
+                zipEntry.setSize(entry.metadata.getSize());
+                zipEntry.setCompressedSize(entry.metadata.getSize());
+                zipEntry.setCrc(entry.crc);
+            }
+
+            zip.putNextEntry(zipEntry);
+            try (InputStream content = opener.open(entry)) {
+                bufferPool.transfer(content, zip, entry.metadata.getSize());
+            }
+            zip.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            zip.finish();
+        }
+    }
+
+    private record TarWriter(TarOutputStream tar, BufferPool bufferPool) implements ArchiveWriter {
+
+        @Override
+        public void write(PreparedEntry entry, ContentOpener opener) throws IOException {
+            tar.putNextEntry(entry.name, entry.metadata.getSize(), modifiedEpochSeconds(entry.metadata.getUploadDate()));
+            try (InputStream content = opener.open(entry)) {
+                bufferPool.transfer(content, tar, entry.metadata.getSize());
+            }
+            tar.closeEntry();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            tar.finish();
+        }
+    }
+
+    /**
+     * Produces safe, unique entry names: path separators are replaced and repeated names get a counter
+     */
+    private static final class EntryNames {
+        private final Map<String, Integer> used = new HashMap<>();
+
+        private String next(String fileName) {
+            String name = fileName == null || fileName.isBlank() ? "file" : fileName.replace('/', '_').replace('\\', '_');
+            if (name.equals(".") || name.equals("..")) {
+                name = "_" + name;
+            }
+
+            int count = used.merge(name, 1, Integer::sum);
+            if (count == 1) {
+                return name;
+            }
+
+            int dot = name.lastIndexOf('.');
+            return dot > 0
+                    ? name.substring(0, dot) + " (" + count + ")" + name.substring(dot)
+                    : name + " (" + count + ")";
+        }
+    }
+
+    private static final class PreparedEntry {
+        private final FileMetadataDto metadata;
+        private final String name;
+        private final boolean stored;
+        private byte[] data;
+        private long crc;
+        private boolean missing;
+
+        private PreparedEntry(FileMetadataDto metadata, String name, boolean stored) {
+            this.metadata = metadata;
+            this.name = name;
+            this.stored = stored;
+        }
+    }
+}
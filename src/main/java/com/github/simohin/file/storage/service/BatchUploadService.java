@@ -0,0 +1,401 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.ErrorCode;
+import com.github.simohin.file.storage.common.FileConstants;
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.config.BatchUploadProperties;
+import com.github.simohin.file.storage.dto.BatchUploadItem;
+import com.github.simohin.file.storage.dto.BatchUploadResponse;
+import com.github.simohin.file.storage.dto.BatchUploadResult;
+import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.dto.FileUploadResponse;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.repository.FileMetadataRepository;
+import com.github.simohin.file.storage.util.ValidationUtils;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-file upload that amortises the per-request costs of {@link FileService#uploadFile}:
+ * one disk space check, batched duplicate queries and a single bulk insert for the whole batch,
+ * with the storage writes running in parallel on a bounded pool.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchUploadService {
+
+    private static final String FILENAME_IDX = "user_filename_idx";
+    private static final String HASH_IDX = "user_sha256_hash_idx";
+
+    private final FileStorageService fileStorageService;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final MongoTemplate mongoTemplate;
+    private final DiskSpaceService diskSpaceService;
+    private final BatchUploadProperties batchUploadProperties;
+    private final DuplicateCheckFilter duplicateCheckFilter;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = Math.max(1, batchUploadProperties.getParallelism());
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, batchUploadProperties.getQueueCapacity())),
+                new CustomizableThreadFactory("batch-upload-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public BatchUploadResponse uploadFiles(String userId, List<MultipartFile> files, List<BatchUploadItem> items) {
+        ValidationUtils.validateNotEmpty(userId, ErrorCode.USER_ID_EMPTY.getMessage());
+        validateBatchParameters(files, items);
+
+        List<PendingUpload> uploads = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            uploads.add(new PendingUpload(i, files.get(i), items != null ? items.get(i) : null));
+        }
+
+        validateParts(uploads);
+        diskSpaceService.validateDiskSpace(accepted(uploads).stream().mapToLong(u -> u.file.getSize()).sum());
+
+        rejectExistingFilenames(userId, accepted(uploads));
+        try {
+            storeInParallel(accepted(uploads));
+            rejectDuplicateContent(userId, accepted(uploads));
+            commitMetadata(userId, accepted(uploads));
+        } finally {
+            // Also on a timeout or any other database error, which would otherwise leave the stored parts behind
+            cleanupFailedUploads(uploads);
+        }
+
+        BatchUploadResponse response = buildBatchResponse(uploads);
+        log.info("Batch upload for user {} finished: {} succeeded, {} failed",
+                userId, response.getSucceeded(), response.getFailed());
+        return response;
+    }
+
+    private void validateBatchParameters(List<MultipartFile> files, List<BatchUploadItem> items) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException(ErrorCode.BATCH_EMPTY.getMessage());
+        }
+
+        if (files.size() > batchUploadProperties.getMaxFiles()) {
+            throw new IllegalArgumentException(
+                    ErrorCode.BATCH_TOO_LARGE.format(batchUploadProperties.getMaxFiles(), files.size()));
+        }
+
+        if (items != null && items.size() != files.size()) {
+            throw new IllegalArgumentException(ErrorCode.BATCH_METADATA_MISMATCH.format(items.size(), files.size()));
+        }
+    }
+
+    /**
+     * Rejects invalid parts individually instead of failing the whole batch
+     */
+    private void validateParts(List<PendingUpload> uploads) {
+        Set<String> seenFilenames = new HashSet<>();
+
+        for (PendingUpload upload : uploads) {
+            if (upload.file == null || upload.file.isEmpty()) {
+                upload.fail(ErrorCode.FILE_EMPTY, ErrorCode.FILE_EMPTY.getMessage());
+            } else if (upload.filename == null || upload.filename.isEmpty()) {
+                upload.fail(ErrorCode.FILENAME_EMPTY, ErrorCode.FILENAME_EMPTY.getMessage());
+            } else if (upload.tags.size() > FileConstants.MAX_TAGS_ALLOWED) {
+                upload.fail(ErrorCode.TOO_MANY_TAGS,
+                        ErrorCode.TOO_MANY_TAGS.format(FileConstants.MAX_TAGS_ALLOWED, upload.tags.size()));
+            } else if (!seenFilenames.add(upload.filename)) {
+                upload.fail(ErrorCode.DUPLICATE_IN_BATCH, ErrorCode.DUPLICATE_IN_BATCH.format(upload.filename));
+            }
+        }
+    }
+
+    /**
+     * Checks all requested filenames against existing files with a single $in query
+     */
+    private void rejectExistingFilenames(String userId, List<PendingUpload> uploads) {
+        if (uploads.isEmpty()) {
+            return;
+        }
+
+        Set<String> filenames = new HashSet<>();
+        uploads.stream()
+                .filter(upload -> duplicateCheckFilter.mightContainFileName(userId, upload.filename))
+                .forEach(upload -> filenames.add(upload.filename));
+
+        Set<String> existing = new HashSet<>();
+        if (!filenames.isEmpty()) {
+            fileMetadataRepository.findByUserIdAndStatusAndFileNameIn(userId, FileStatus.ACTIVE, filenames)
+                    .forEach(metadata -> existing.add(metadata.getFileName()));
+        }
+
+        for (PendingUpload upload : uploads) {
+            if (existing.contains(upload.filename)) {
+                upload.fail(ErrorCode.FILENAME_EXISTS, ErrorCode.FILENAME_EXISTS.format(upload.filename));
+            }
+        }
+    }
+
+    /**
+     * Writes every accepted part to storage on the batch pool. Hashes come from the write pass,
+     * so content duplicates are checked after storing instead of reading each part twice.
+     */
+    private void storeInParallel(List<PendingUpload> uploads) {
+        CompletableFuture<?>[] writes = uploads.stream()
+                .map(upload -> CompletableFuture.runAsync(() -> store(upload), executor))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(writes).join();
+    }
+
+    private void store(PendingUpload upload) {
+        try (InputStream inputStream = upload.file.getInputStream()) {
+            upload.storageResult = fileStorageService.saveFile(upload.fileId, inputStream, upload.filename,
+                    upload.file.getSize());
+            upload.stored = true;
+        } catch (Exception e) {
+            log.error("Failed to store batch part {} ({})", upload.index, upload.filename, e);
+            upload.fail(ErrorCode.STORAGE_FAILED, ErrorCode.STORAGE_FAILED.format(upload.filename));
+        }
+    }
+
+    /**
+     * Checks all content hashes against existing files with a single $in query
+     */
+    private void rejectDuplicateContent(String userId, List<PendingUpload> uploads) {
+        if (uploads.isEmpty()) {
+            return;
+        }
+
+        Set<String> hashes = new HashSet<>();
+        uploads.stream()
+                .map(upload -> upload.storageResult.getHash())
+                .filter(hash -> duplicateCheckFilter.mightContainHash(userId, hash))
+                .forEach(hashes::add);
+
+        Map<String, String> existingByHash = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            fileMetadataRepository.findByUserIdAndStatusAndHashIn(userId, FileStatus.ACTIVE, hashes)
+                    .forEach(metadata -> existingByHash.put(metadata.getHash(), metadata.getFileName()));
+        }
+
+        Map<String, String> batchByHash = new HashMap<>();
+        for (PendingUpload upload : uploads) {
+            String hash = upload.storageResult.getHash();
+            if (existingByHash.containsKey(hash)) {
+                upload.fail(ErrorCode.CONTENT_EXISTS, ErrorCode.CONTENT_EXISTS.format(existingByHash.get(hash)));
+            } else {
+                String earlier = batchByHash.putIfAbsent(hash, upload.filename);
+                if (earlier != null) {
+                    upload.fail(ErrorCode.CONTENT_DUPLICATE_IN_BATCH, ErrorCode.CONTENT_DUPLICATE_IN_BATCH.format(earlier));
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts metadata for all stored parts with one unordered insertMany. Files are already written
+     * and hashed, so documents go straight to ACTIVE; unique index violations fail only their own part.
+     */
+    private void commitMetadata(String userId, List<PendingUpload> uploads) {
+        if (uploads.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime uploadDate = LocalDateTime.now();
+        List<FileMetadata> documents = new ArrayList<>(uploads.size());
+        for (PendingUpload upload : uploads) {
+            upload.uploadDate = uploadDate;
+            documents.add(new FileMetadata()
+                    .setId(upload.fileId)
+                    .setFileName(upload.filename)
+                    .setUserId(userId)
+                    .setContentType(upload.storageResult.getContentType())
+                    .setSize(upload.storageResult.getSize())
+                    .setHash(upload.storageResult.getHash())
+                    .setHashAlgorithm(upload.storageResult.getHashAlgorithm())
+                    .setQuickHash(upload.storageResult.getQuickHash())
+                    .setVisibility(upload.visibility)
+                    .setTags(upload.tags)
+                    .setUploadDate(uploadDate)
+                    .setStatus(FileStatus.ACTIVE));
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FileMetadata.class)
+                    .insert(documents)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                PendingUpload upload = uploads.get(error.getIndex());
+                ErrorCode code = resolveWriteError(error, upload);
+                upload.fail(code, writeErrorMessage(code, userId, upload));
+            }
+        }
+
+        for (PendingUpload upload : uploads) {
+            if (upload.errorCode == null) {
+                upload.committed = true;
+                duplicateCheckFilter.fileActivated(userId, upload.filename, upload.storageResult.getHash());
+            }
+        }
+    }
+
+    private ErrorCode resolveWriteError(BulkWriteError error, PendingUpload upload) {
+        String message = error.getMessage();
+        if (message != null && message.contains(FILENAME_IDX)) {
+            return ErrorCode.FILENAME_EXISTS;
+        }
+        if (message != null && message.contains(HASH_IDX)) {
+            return ErrorCode.CONTENT_EXISTS;
+        }
+        log.error("Failed to insert metadata for batch part {} ({}): {}", upload.index, upload.filename, message);
+        return ErrorCode.STORAGE_FAILED;
+    }
+
+    /**
+     * Client-facing message for a failed insert; the driver's text stays in the log
+     */
+    private String writeErrorMessage(ErrorCode code, String userId, PendingUpload upload) {
+        if (code == ErrorCode.CONTENT_EXISTS) {
+            String existing = fileMetadataRepository.findByUserIdAndStatusAndHashIn(userId, FileStatus.ACTIVE,
+                            Set.of(upload.storageResult.getHash())).stream()
+                    .map(FileMetadata::getFileName)
+                    .findFirst()
+                    .orElse(upload.filename);
+            return code.format(existing);
+        }
+        return code.format(upload.filename);
+    }
+
+    /**
+     * Deletes the content of every stored part whose metadata was not committed. Parts the batch did not
+     * get to, because a step failed as a whole, are marked failed first.
+     */
+    private void cleanupFailedUploads(List<PendingUpload> uploads) {
+        for (PendingUpload upload : uploads) {
+            if (!upload.stored || upload.committed) {
+                continue;
+            }
+            if (upload.errorCode == null) {
+                upload.fail(ErrorCode.STORAGE_FAILED, ErrorCode.STORAGE_FAILED.format(upload.filename));
+            }
+            try {
+                fileStorageService.deleteFile(upload.fileId);
+            } catch (RuntimeException e) {
+                log.error("Failed to delete content of batch part {} ({})", upload.index, upload.filename, e);
+            }
+        }
+    }
+
+    private BatchUploadResponse buildBatchResponse(List<PendingUpload> uploads) {
+        List<BatchUploadResult> results = new ArrayList<>(uploads.size());
+        int succeeded = 0;
+
+        for (PendingUpload upload : uploads) {
+            BatchUploadResult result = new BatchUploadResult()
+                    .setIndex(upload.index)
+                    .setFilename(upload.filename);
+
+            if (upload.errorCode == null) {
+                result.setSuccess(true).setFile(buildUploadResponse(upload));
+                succeeded++;
+            } else {
+                result.setSuccess(false)
+                        .setErrorCode(upload.errorCode.name())
+                        .setError(upload.errorMessage);
+            }
+            results.add(result);
+        }
+
+        BatchUploadResponse response = new BatchUploadResponse();
+        response.setResults(results);
+        response.setSucceeded(succeeded);
+        response.setFailed(uploads.size() - succeeded);
+        return response;
+    }
+
+    private FileUploadResponse buildUploadResponse(PendingUpload upload) {
+        FileUploadResponse response = new FileUploadResponse();
+        response.setFileId(upload.fileId.toString());
+        response.setFilename(upload.filename);
+        response.setVisibility(upload.visibility);
+        response.setContentType(upload.storageResult.getContentType());
+        response.setSize(upload.storageResult.getSize());
+        response.setUploadDate(upload.uploadDate);
+        response.setTags(upload.tags);
+        response.setDownloadUrl(FileConstants.API_FILES_PATH + "/" + upload.fileId);
+        return response;
+    }
+
+    private static List<PendingUpload> accepted(List<PendingUpload> uploads) {
+        return uploads.stream()
+                .filter(upload -> upload.errorCode == null)
+                .toList();
+    }
+
+    /**
+     * Mutable per-part state carried through the batch pipeline
+     */
+    private static final class PendingUpload {
+        private final int index;
+        private final MultipartFile file;
+        private final String filename;
+        private final Visibility visibility;
+        private final Set<String> tags;
+        private final UUID fileId = UUID.randomUUID();
+
+        private volatile FileStorageResult storageResult;
+        private volatile boolean stored;
+        private boolean committed;
+        private volatile ErrorCode errorCode;
+        private volatile String errorMessage;
+        private LocalDateTime uploadDate;
+
+        private PendingUpload(int index, MultipartFile file, BatchUploadItem item) {
+            this.index = index;
+            this.file = file;
+
+            String requestedName = item != null && item.getFilename() != null
+                    ? item.getFilename()
+                    : file != null ? file.getOriginalFilename() : null;
+            this.filename = requestedName != null ? requestedName.trim() : null;
+            this.visibility = item != null && item.getVisibility() != null ? item.getVisibility() : Visibility.PRIVATE;
+            this.tags = item != null && item.getTags() != null ? item.getTags() : Set.of();
+        }
+
+        private void fail(ErrorCode code, String message) {
+            this.errorCode = code;
+            this.errorMessage = message;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.BulkJobStatus;
+import com.github.simohin.file.storage.common.BulkOperationType;
+import com.github.simohin.file.storage.common.ErrorCode;
+import com.github.simohin.file.storage.common.FileConstants;
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.BulkOperationProperties;
+import com.github.simohin.file.storage.dto.BulkFileFilter;
+import com.github.simohin.file.storage.dto.BulkFileRequest;
+import com.github.simohin.file.storage.dto.BulkJobResponse;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.util.ValidationUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk delete, retag and visibility changes. Jobs run in the background and process the selection
+ * in chunks: one ownership query and one updateMany per chunk instead of a read and a save per file.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkFileService {
+
+    private static final int SKIPPED_SAMPLE_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final DuplicateCheckFilter duplicateCheckFilter;
+    private final BulkOperationProperties bulkOperationProperties;
+
+    private final Map<UUID, BulkJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(Math.max(1, bulkOperationProperties.getParallelism()),
+                new CustomizableThreadFactory("bulk-job-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public BulkJobResponse deleteFiles(String userId, BulkFileRequest request) {
+        return submit(userId, request, BulkOperationType.DELETE,
+                new Update().set("status", FileStatus.DELETED).currentDate("deletedAt"));
+    }
+
+    public BulkJobResponse retagFiles(String userId, BulkFileRequest request) {
+        Set<String> tags = request.getTags() != null ? request.getTags() : Set.of();
+        if (tags.size() > FileConstants.MAX_TAGS_ALLOWED) {
+            throw new IllegalArgumentException(ErrorCode.TOO_MANY_TAGS.format(FileConstants.MAX_TAGS_ALLOWED, tags.size()));
+        }
+
+        return submit(userId, request, BulkOperationType.RETAG, new Update().set("tags", tags));
+    }
+
+    public BulkJobResponse changeVisibility(String userId, BulkFileRequest request) {
+        if (request.getVisibility() == null) {
+            throw new IllegalArgumentException(ErrorCode.BULK_VISIBILITY_REQUIRED.getMessage());
+        }
+
+        return submit(userId, request, BulkOperationType.VISIBILITY,
+                new Update().set("visibility", request.getVisibility()));
+    }
+
+    public BulkJobResponse getJob(String jobId, String userId) {
+        UUID uuid = ValidationUtils.validateAndParseFileId(jobId);
+
+        BulkJob job = jobs.get(uuid);
+        if (job == null || !job.userId.equals(userId)) {
+            throw new RuntimeException(ErrorCode.BULK_JOB_NOT_FOUND.format(jobId));
+        }
+
+        return job.toResponse();
+    }
+
+    private BulkJobResponse submit(String userId, BulkFileRequest request, BulkOperationType operation, Update update) {
+        ValidationUtils.validateNotEmpty(userId, ErrorCode.USER_ID_EMPTY.getMessage());
+        List<UUID> fileIds = validateSelection(request);
+
+        evictFinishedJobs();
+
+        BulkJob job = new BulkJob(UUID.randomUUID(), userId, operation);
+        jobs.put(job.id, job);
+        executor.execute(() -> runJob(job, fileIds, request.getFilter(), update));
+
+        log.info("Submitted bulk {} job {} for user {}", operation, job.id, userId);
+        return job.toResponse();
+    }
+
+    private List<UUID> validateSelection(BulkFileRequest request) {
+        boolean hasIds = request.getFileIds() != null && !request.getFileIds().isEmpty();
+        boolean hasFilter = request.getFilter() != null;
+
+        if (!hasIds && !hasFilter) {
+            throw new IllegalArgumentException(ErrorCode.BULK_SELECTION_EMPTY.getMessage());
+        }
+        if (hasIds && hasFilter) {
+            throw new IllegalArgumentException(ErrorCode.BULK_SELECTION_AMBIGUOUS.getMessage());
+        }
+        if (!hasIds) {
+            // A forgotten criterion must not turn into a change of every file
+            if (!request.getFilter().hasCriteria() && !request.getFilter().isAll()) {
+                throw new IllegalArgumentException(ErrorCode.BULK_FILTER_EMPTY.getMessage());
+            }
+            return null;
+        }
+
+        if (request.getFileIds().size() > bulkOperationProperties.getMaxIds()) {
+            throw new IllegalArgumentException(
+                    ErrorCode.BULK_TOO_MANY_IDS.format(bulkOperationProperties.getMaxIds(), request.getFileIds().size()));
+        }
+
+        return request.getFileIds().stream()
+                .map(ValidationUtils::validateAndParseFileId)
+                .distinct()
+                .toList();
+    }
+
+    private void runJob(BulkJob job, List<UUID> fileIds, BulkFileFilter filter, Update update) {
+        BulkJobStatus status = BulkJobStatus.FAILED;
+        try {
+            if (fileIds != null) {
+                processIds(job, fileIds, update);
+            } else {
+                processFilter(job, filter, update);
+            }
+            status = BulkJobStatus.COMPLETED;
+        } catch (Exception e) {
+            // The exception text can carry driver and server details, so it stays in the log
+            log.error("Bulk {} job {} failed", job.operation, job.id, e);
+            job.error = ErrorCode.BULK_JOB_FAILED.getMessage();
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.status = status;
+            log.info("Bulk {} job {} finished: {} succeeded, {} skipped",
+                    job.operation, job.id, job.succeeded.get(), job.skipped.get());
+        }
+    }
+
+    private void processIds(BulkJob job, List<UUID> fileIds, Update update) {
+        job.total = fileIds.size();
+        int chunkSize = Math.max(1, bulkOperationProperties.getChunkSize());
+
+        for (int from = 0; from < fileIds.size(); from += chunkSize) {
+            List<UUID> chunk = fileIds.subList(from, Math.min(from + chunkSize, fileIds.size()));
+            List<UUID> owned = checkOwnership(job, chunk);
+            applyUpdate(job, owned, update);
+            job.processed.addAndGet(chunk.size());
+        }
+    }
+
+    /**
+     * Resolves ownership of a whole chunk with one projected $in query
+     */
+    private List<UUID> checkOwnership(BulkJob job, List<UUID> chunk) {
+        Query query = new Query(Criteria.where("_id").in(chunk).and("status").is(FileStatus.ACTIVE));
+        query.fields().include("_id").include("userId");
+
+        Set<UUID> owned = new HashSet<>();
+        for (FileMetadata metadata : mongoTemplate.find(query, FileMetadata.class)) {
+            if (job.userId.equals(metadata.getUserId())) {
+                owned.add(metadata.getId());
+            }
+        }
+
+        List<UUID> result = new ArrayList<>(owned.size());
+        for (UUID fileId : chunk) {
+            if (owned.contains(fileId)) {
+                result.add(fileId);
+            } else {
+                job.skip(fileId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Filter selections are owned by construction, so only IDs are read, one chunk at a time in {@code _id}
+     * order. Each chunk starts after the last ID of the previous one: the update can make a file stop or
+     * start matching the filter, which would make a single cursor over it return files twice or skip them.
+     */
+    private void processFilter(BulkJob job, BulkFileFilter filter, Update update) {
+        job.total = mongoTemplate.count(
+                new Query(FileMetadataService.userFilesCriteria(job.userId, filter.getTags(), filter.getVisibility())),
+                FileMetadata.class);
+
+        int chunkSize = Math.max(1, bulkOperationProperties.getChunkSize());
+        UUID lastId = null;
+        while (true) {
+            Criteria criteria = FileMetadataService.userFilesCriteria(job.userId, filter.getTags(), filter.getVisibility());
+            if (lastId != null) {
+                criteria = criteria.and("_id").gt(lastId);
+            }
+            Query query = new Query(criteria).with(Sort.by("_id")).limit(chunkSize);
+            query.fields().include("_id");
+
+            List<UUID> chunk = mongoTemplate.find(query, FileMetadata.class).stream()
+                    .map(FileMetadata::getId)
+                    .toList();
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            applyUpdate(job, chunk, update);
+            job.processed.addAndGet(chunk.size());
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            lastId = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    /**
+     * Applies the change to a chunk with one updateMany. Owner and status stay in the filter,
+     * so files changed concurrently since the ownership check are left alone.
+     */
+    private void applyUpdate(BulkJob job, List<UUID> fileIds, Update update) {
+        if (fileIds.isEmpty()) {
+            return;
+        }
+
+        Query query = new Query(Criteria.where("_id").in(fileIds)
+                .and("userId").is(job.userId)
+                .and("status").is(FileStatus.ACTIVE));
+
+        long matched = mongoTemplate.updateMulti(query, update, FileMetadata.class).getMatchedCount();
+        job.succeeded.addAndGet(matched);
+
+        if (job.operation == BulkOperationType.DELETE) {
+            duplicateCheckFilter.filesRemoved(matched);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(bulkOperationProperties.getJobRetention());
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    /**
+     * Mutable progress of a running bulk job
+     */
+    private static final class BulkJob {
+        private final UUID id;
+        private final String userId;
+        private final BulkOperationType operation;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final List<String> skippedSample = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile BulkJobStatus status = BulkJobStatus.RUNNING;
+        private volatile long total = -1;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private BulkJob(UUID id, String userId, BulkOperationType operation) {
+            this.id = id;
+            this.userId = userId;
+            this.operation = operation;
+        }
+
+        private void skip(UUID fileId) {
+            if (skipped.incrementAndGet() <= SKIPPED_SAMPLE_SIZE) {
+                skippedSample.add(fileId.toString());
+            }
+        }
+
+        private BulkJobResponse toResponse() {
+            return new BulkJobResponse()
+                    .setJobId(id.toString())
+                    .setOperation(operation)
+                    .setStatus(status)
+                    .setTotal(total)
+                    .setProcessed(processed.get())
+                    .setSucceeded(succeeded.get())
+                    .setSkipped(skipped.get())
+                    .setSkippedFileIds(List.copyOf(skippedSample))
+                    .setStartedAt(startedAt)
+                    .setFinishedAt(finishedAt)
+                    .setError(error);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.HashAlgorithm;
+import com.github.simohin.file.storage.config.ScrubberProperties;
+import com.github.simohin.file.storage.dto.ScrubReport;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.entity.ScrubCheckpoint;
+import com.github.simohin.file.storage.mapper.FileMetadataMapper;
+import com.github.simohin.file.storage.util.RatePacer;
+import com.github.simohin.file.storage.util.TreeHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background bit-rot detection. Walks ACTIVE files in {@code _id} order, re-reads every copy of their content
+ * sequentially within a bytes/sec budget and recomputes the hash with the algorithm recorded on the file.
+ * A mismatching or unreadable copy is discarded and re-replicated when another copy verifies; when none does,
+ * the file is flagged with {@code corruptedAt} on the metadata. Both are counted in metrics; a later clean
+ * verification clears the flag. The position is checkpointed after every batch, so a restart continues
+ * the pass instead of starting over.
+ */
+@Slf4j
+@Service
+public class ContentScrubber {
+
+    static final String CHECKPOINT_ID = "content-scrubber";
+
+    // A pass runs to completion within one invocation; polling only decides when the next pass is due
+    private static final Duration POLL_INTERVAL = Duration.ofMinutes(1);
+    // Page-aligned, so direct I/O reads straight into the scrubber's buffer instead of a per-file bounce buffer
+    private static final int READ_ALIGNMENT = 4096;
+
+    private final FileStorageService fileStorageService;
+    private final MongoTemplate mongoTemplate;
+    private final FileMetadataMapper fileMetadataMapper;
+    private final ScrubberProperties scrubberProperties;
+    private final Counter verified;
+    private final Counter mismatched;
+    private final Counter repaired;
+    private final Counter missing;
+    private final Counter verifiedBytes;
+
+    private ScheduledExecutorService scheduler;
+
+    public ContentScrubber(FileStorageService fileStorageService, MongoTemplate mongoTemplate,
+                           FileMetadataMapper fileMetadataMapper, ScrubberProperties scrubberProperties,
+                           MeterRegistry registry) {
+        this.fileStorageService = fileStorageService;
+        this.mongoTemplate = mongoTemplate;
+        this.fileMetadataMapper = fileMetadataMapper;
+        this.scrubberProperties = scrubberProperties;
+
+        verified = fileCounter(registry, "verified");
+        mismatched = fileCounter(registry, "mismatch");
+        repaired = fileCounter(registry, "repaired");
+        missing = fileCounter(registry, "missing");
+        verifiedBytes = Counter.builder(FileStorageMetrics.METRIC_PREFIX + ".scrub.bytes")
+                .description("Bytes re-read and verified by the content scrubber")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!scrubberProperties.isEnabled()) {
+            return;
+        }
+
+        long interval = POLL_INTERVAL.toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("content-scrubber-"));
+        scheduler.scheduleWithFixedDelay(this::scrubSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Continues the current pass, or starts a new one when it is due, and runs it to the end.
+     * Returns the number of files verified by this call.
+     */
+    public long scrub() {
+        ScrubCheckpoint checkpoint = loadCheckpoint();
+        if (checkpoint.getPassStartedAt() == null) {
+            LocalDateTime lastCompleted = checkpoint.getLastPassCompletedAt();
+            if (lastCompleted != null && lastCompleted.plus(scrubberProperties.getPassInterval()).isAfter(LocalDateTime.now())) {
+                return 0;
+            }
+            checkpoint.setPassStartedAt(LocalDateTime.now())
+                    .setLastFileId(null)
+                    .setFilesVerified(0)
+                    .setBytesVerified(0)
+                    .setMismatches(0);
+            log.info("Content scrub pass started");
+        }
+
+        RatePacer pacer = new RatePacer(scrubberProperties.getBytesPerSecond().toBytes());
+        int bufferSize = (int) Math.max(READ_ALIGNMENT,
+                scrubberProperties.getReadBufferSize().toBytes() / READ_ALIGNMENT * READ_ALIGNMENT);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize + READ_ALIGNMENT).alignedSlice(READ_ALIGNMENT);
+        int batchSize = Math.max(1, scrubberProperties.getBatchSize());
+        long filesVerified = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Criteria criteria = Criteria.where("status").is(FileStatus.ACTIVE);
+            if (checkpoint.getLastFileId() != null) {
+                criteria.and("_id").gt(checkpoint.getLastFileId());
+            }
+            Query query = new Query(criteria).with(Sort.by("_id")).limit(batchSize);
+            query.fields().include("_id", "hash", "hashAlgorithm", "corruptedAt");
+
+            List<FileMetadata> batch = mongoTemplate.find(query, FileMetadata.class);
+            if (batch.isEmpty()) {
+                log.info("Content scrub pass completed: {} files ({} bytes) verified, {} mismatches",
+                        checkpoint.getFilesVerified(), checkpoint.getBytesVerified(), checkpoint.getMismatches());
+                mongoTemplate.save(checkpoint.setLastPassCompletedAt(LocalDateTime.now())
+                        .setPassStartedAt(null)
+                        .setLastFileId(null)
+                        .setUpdatedAt(LocalDateTime.now()));
+                break;
+            }
+
+            for (FileMetadata file : batch) {
+                if (!verify(file, checkpoint, pacer, buffer)) {
+                    // Interrupted mid-file: the checkpoint still points before this file
+                    mongoTemplate.save(checkpoint.setUpdatedAt(LocalDateTime.now()));
+                    return filesVerified;
+                }
+                checkpoint.setLastFileId(file.getId());
+                filesVerified++;
+            }
+            mongoTemplate.save(checkpoint.setUpdatedAt(LocalDateTime.now()));
+        }
+        return filesVerified;
+    }
+
+    public ScrubReport report(int limit) {
+        ScrubCheckpoint checkpoint = loadCheckpoint();
+        Query corrupted = new Query(Criteria.where("corruptedAt").exists(true));
+
+        return new ScrubReport()
+                .setPassStartedAt(checkpoint.getPassStartedAt())
+                .setLastPassCompletedAt(checkpoint.getLastPassCompletedAt())
+                .setLastFileId(checkpoint.getLastFileId() != null ? checkpoint.getLastFileId().toString() : null)
+                .setFilesVerified(checkpoint.getFilesVerified())
+                .setBytesVerified(checkpoint.getBytesVerified())
+                .setMismatches(checkpoint.getMismatches())
+                .setCorruptedCount(mongoTemplate.count(corrupted, FileMetadata.class))
+                .setCorruptedFiles(mongoTemplate.find(Query.of(corrupted).with(Sort.by("corruptedAt")).limit(limit),
+                                FileMetadata.class).stream()
+                        .map(fileMetadataMapper::toDto)
+                        .toList());
+    }
+
+    /**
+     * Returns {@code false} only when interrupted before every copy of the file was read
+     */
+    private boolean verify(FileMetadata file, ScrubCheckpoint checkpoint, RatePacer pacer, ByteBuffer buffer) {
+        List<String> good = new ArrayList<>();
+        List<String> bad = new ArrayList<>();
+        long read = 0;
+        for (String copy : fileStorageService.listCopies(file.getId())) {
+            CopyCheck check = verifyCopy(file, copy, pacer, buffer);
+            if (check == null) {
+                return false;
+            }
+            read += check.read();
+            if (check.gone()) {
+                continue;
+            }
+            if (check.actualHash() != null && check.actualHash().equalsIgnoreCase(file.getHash())) {
+                good.add(copy);
+            } else {
+                bad.add(copy);
+                log.error("Copy of file {} on {} does not match its recorded hash {}: {}", file.getId(), copy,
+                        file.getHash(), check.failure() != null ? "read failed: " + check.failure()
+                                : "actual hash " + check.actualHash());
+            }
+        }
+
+        if (good.isEmpty() && bad.isEmpty()) {
+            // Deleted since the batch was read, or lost; missing content is the reconciler's concern
+            missing.increment();
+            return true;
+        }
+
+        checkpoint.setFilesVerified(checkpoint.getFilesVerified() + 1)
+                .setBytesVerified(checkpoint.getBytesVerified() + read);
+        verifiedBytes.increment(read);
+
+        if (!bad.isEmpty()) {
+            checkpoint.setMismatches(checkpoint.getMismatches() + 1);
+        }
+        if (!good.isEmpty()) {
+            if (bad.isEmpty()) {
+                verified.increment();
+            } else {
+                // A verified copy is left to re-replicate from, so the file itself stays intact
+                repaired.increment();
+                bad.forEach(copy -> fileStorageService.discardCopy(file.getId(), copy));
+            }
+            if (file.getCorruptedAt() != null) {
+                log.info("File {} verified again after being flagged corrupted at {}", file.getId(), file.getCorruptedAt());
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(file.getId())),
+                        new Update().unset("corruptedAt"), FileMetadata.class);
+            }
+            return true;
+        }
+
+        mismatched.increment();
+        if (file.getCorruptedAt() == null) {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(file.getId())),
+                    new Update().currentDate("corruptedAt"), FileMetadata.class);
+        }
+        return true;
+    }
+
+    /**
+     * Re-reads one copy and recomputes its hash. Returns {@code null} only when interrupted.
+     */
+    private CopyCheck verifyCopy(FileMetadata file, String copy, RatePacer pacer, ByteBuffer buffer) {
+        long read = 0;
+        try {
+            Optional<ReadableByteChannel> content = fileStorageService.openSequentialChannel(file.getId(), copy,
+                    buffer.capacity(), scrubberProperties.isDirectIo());
+            if (content.isEmpty()) {
+                return new CopyCheck(true, 0, null, null);
+            }
+
+            try (ReadableByteChannel channel = content.get()) {
+                // Tree hashes are recomputed sequentially: the read budget, not the CPU, is the limit here
+                TreeHash treeHash = file.getHashAlgorithm() == HashAlgorithm.SHA_256_TREE ? new TreeHash() : null;
+                MessageDigest digest = treeHash == null ? MessageDigest.getInstance("SHA-256") : null;
+                buffer.clear();
+                int count;
+                while ((count = channel.read(buffer)) != -1) {
+                    buffer.flip();
+                    pacer.acquire(count);
+                    if (treeHash != null) {
+                        treeHash.update(buffer);
+                    } else {
+                        digest.update(buffer);
+                    }
+                    buffer.clear();
+                    read += count;
+                }
+                return new CopyCheck(false, read,
+                        treeHash != null ? treeHash.hexDigest() : HexFormat.of().formatHex(digest.digest()), null);
+            }
+
+        } catch (ClosedByInterruptException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (IOException e) {
+            // An I/O error on a sequential read is the other face of bit rot: bad sectors
+            return new CopyCheck(false, read, null, e.getMessage());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    private ScrubCheckpoint loadCheckpoint() {
+        ScrubCheckpoint checkpoint = mongoTemplate.findById(CHECKPOINT_ID, ScrubCheckpoint.class);
+        return checkpoint != null ? checkpoint : new ScrubCheckpoint().setId(CHECKPOINT_ID);
+    }
+
+    private void scrubSafely() {
+        try {
+            scrub();
+        } catch (Exception e) {
+            log.error("Content scrub failed", e);
+        }
+    }
+
+    private record CopyCheck(boolean gone, long read, String actualHash, String failure) {
+    }
+
+    private static Counter fileCounter(MeterRegistry registry, String result) {
+        return Counter.builder(FileStorageMetrics.METRIC_PREFIX + ".scrub.files")
+                .description("Files re-read by the content scrubber, by verification result")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -1,14 +1,19 @@
 package com.github.simohin.file.storage.service;
 
 import com.github.simohin.file.storage.config.DiskSpaceProperties;
+import com.github.simohin.file.storage.config.StripingProperties;
+import com.github.simohin.file.storage.jfr.DiskSpaceCheckEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -16,19 +21,29 @@ import java.nio.file.Paths;
 public class DiskSpaceService {
 
     private final DiskSpaceProperties diskSpaceProperties;
+    private final StripingProperties stripingProperties;
 
     public void validateDiskSpace(long additionalSizeBytes) {
         if (!diskSpaceProperties.isDiskSpaceCheckEnabled()) {
             return;
         }
 
-        Path storagePath = Paths.get(diskSpaceProperties.getPath());
+        DiskSpaceCheckEvent event = new DiskSpaceCheckEvent();
+        event.begin();
 
         try {
-            long currentUsage = getCurrentStorageUsage(storagePath);
+            long currentUsage = 0;
+            for (Path root : storageRoots()) {
+                currentUsage += getCurrentStorageUsage(root);
+            }
             long maxAllowedBytes = diskSpaceProperties.getMaxTotalSize().toBytes();
             long projectedUsage = currentUsage + additionalSizeBytes;
 
+            event.requestedBytes = additionalSizeBytes;
+            event.currentUsageBytes = currentUsage;
+            event.limitBytes = maxAllowedBytes;
+            event.allowed = projectedUsage <= maxAllowedBytes;
+
             log.debug("Disk space check: current={} bytes, additional={} bytes, projected={} bytes, limit={} bytes",
                     currentUsage, additionalSizeBytes, projectedUsage, maxAllowedBytes);
 
@@ -49,6 +64,8 @@ public class DiskSpaceService {
         } catch (IOException e) {
             log.error("Failed to check disk space usage", e);
             throw new DiskSpaceException("Unable to verify disk space availability", e);
+        } finally {
+            event.commit();
         }
     }
 
@@ -56,7 +73,20 @@ public class DiskSpaceService {
         Path storagePath = Paths.get(diskSpaceProperties.getPath());
 
         try {
-            long currentUsage = getCurrentStorageUsage(storagePath);
+            // The limit applies to all volumes together; per volume the file system capacity is reported too
+            List<VolumeInfo> volumes = new ArrayList<>();
+            long currentUsage = 0;
+            for (Path root : storageRoots()) {
+                long usage = getCurrentStorageUsage(root);
+                FileStore store = Files.getFileStore(root);
+                volumes.add(VolumeInfo.builder()
+                        .path(root.toAbsolutePath().toString())
+                        .usageBytes(usage)
+                        .usableBytes(store.getUsableSpace())
+                        .totalBytes(store.getTotalSpace())
+                        .build());
+                currentUsage += usage;
+            }
             long maxAllowedBytes = diskSpaceProperties.getMaxTotalSize().toBytes();
             long availableBytes = maxAllowedBytes - currentUsage;
             double usagePercentage = (double) currentUsage / maxAllowedBytes * 100;
@@ -68,6 +98,7 @@ public class DiskSpaceService {
                     .usagePercentage(usagePercentage)
                     .isNearLimit(usagePercentage > diskSpaceProperties.getDiskSpaceThreshold())
                     .storagePath(storagePath.toAbsolutePath().toString())
+                    .volumes(volumes)
                     .build();
 
         } catch (IOException e) {
@@ -84,6 +115,18 @@ public class DiskSpaceService {
         }
     }
 
+    /**
+     * The striping volumes when configured, otherwise the single storage path
+     */
+    private List<Path> storageRoots() {
+        if (stripingProperties.getVolumes().isEmpty()) {
+            return List.of(Paths.get(diskSpaceProperties.getPath()));
+        }
+        return stripingProperties.getVolumes().stream()
+                .map(volume -> Paths.get(volume.getPath()))
+                .toList();
+    }
+
     private long getCurrentStorageUsage(Path storagePath) throws IOException {
         if (!Files.exists(storagePath)) {
             Files.createDirectories(storagePath);
@@ -122,6 +165,16 @@ public class DiskSpaceService {
         private final double usagePercentage;
         private final boolean isNearLimit;
         private final String storagePath;
+        private final List<VolumeInfo> volumes;
         private final String error;
     }
+
+    @lombok.Builder
+    @lombok.Data
+    public static class VolumeInfo {
+        private final String path;
+        private final long usageBytes;
+        private final long usableBytes;
+        private final long totalBytes;
+    }
 }
\ No newline at end of file
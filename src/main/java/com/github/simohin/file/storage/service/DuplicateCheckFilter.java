@@ -0,0 +1,234 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.DuplicateFilterProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Per-node Bloom filters over (userId, fileName) and (userId, hash) of ACTIVE files. A definite miss
+ * lets an upload skip the corresponding duplicate query; a possible hit still runs the query, and the
+ * unique indexes stay the source of truth. Until the first build finishes every check is a possible hit.
+ * <p>
+ * Bloom filters cannot forget, so deletes and renames leave stale entries that only raise the false
+ * positive rate; the filters are rebuilt from the collection once stale entries pass a threshold.
+ */
+@Slf4j
+@Component
+public class DuplicateCheckFilter {
+
+    /**
+     * Which duplicate check a filter answers
+     */
+    public enum Kind {
+        FILENAME, HASH;
+
+        private final String tagValue = name().toLowerCase();
+    }
+
+    private record Filters(BloomFilter fileNames, BloomFilter hashes, long capacity) {
+    }
+
+    private final DuplicateFilterProperties properties;
+    private final MongoTemplate mongoTemplate;
+    private final Counter[] skipped = new Counter[Kind.values().length];
+    private final Counter[] falsePositives = new Counter[Kind.values().length];
+    private final Counter[] confirmed = new Counter[Kind.values().length];
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("duplicate-filter-"));
+
+    private volatile Filters active;
+    private volatile Filters building;
+
+    public DuplicateCheckFilter(DuplicateFilterProperties properties, MongoTemplate mongoTemplate, MeterRegistry registry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+
+        for (Kind kind : Kind.values()) {
+            skipped[kind.ordinal()] = checkCounter(registry, kind, "skipped");
+            falsePositives[kind.ordinal()] = checkCounter(registry, kind, "false_positive");
+            confirmed[kind.ordinal()] = checkCounter(registry, kind, "duplicate");
+            Gauge.builder(FileStorageMetrics.METRIC_PREFIX + ".duplicate.filter.expected.fpp", this,
+                            filter -> filter.expectedFalsePositiveProbability(kind))
+                    .description("False positive probability implied by the current Bloom filter fill")
+                    .tag("filter", kind.tagValue)
+                    .register(registry);
+        }
+        Gauge.builder(FileStorageMetrics.METRIC_PREFIX + ".duplicate.filter.memory", this, DuplicateCheckFilter::sizeInBytes)
+                .description("Memory held by the duplicate check Bloom filters")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (properties.isEnabled()) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns false only when no ACTIVE file of the user can have this file name
+     */
+    public boolean mightContainFileName(String userId, String fileName) {
+        return mightContain(Kind.FILENAME, userId, fileName);
+    }
+
+    /**
+     * Returns false only when no ACTIVE file of the user can have this content hash
+     */
+    public boolean mightContainHash(String userId, String hash) {
+        return mightContain(Kind.HASH, userId, hash);
+    }
+
+    /**
+     * Reports the result of a query that ran because the filter answered "might contain"
+     */
+    public void recordQueryResult(Kind kind, boolean duplicateFound) {
+        (duplicateFound ? confirmed : falsePositives)[kind.ordinal()].increment();
+    }
+
+    public void fileActivated(String userId, String fileName, String hash) {
+        put(active, userId, fileName, hash);
+        put(building, userId, fileName, hash);
+        if (inserted.incrementAndGet() > capacity()) {
+            scheduleRebuild();
+        }
+    }
+
+    public void fileRenamed(String userId, String newFileName) {
+        put(active, userId, newFileName, null);
+        put(building, userId, newFileName, null);
+        filesRemoved(1);
+    }
+
+    public void filesRemoved(long count) {
+        if (count > 0 && stale.addAndGet(count) > inserted.get() * properties.getRebuildStaleRatio()) {
+            scheduleRebuild();
+        }
+    }
+
+    private boolean mightContain(Kind kind, String userId, String value) {
+        Filters filters = active;
+        if (filters == null || userId == null || value == null) {
+            return true;
+        }
+
+        BloomFilter filter = kind == Kind.FILENAME ? filters.fileNames() : filters.hashes();
+        if (filter.mightContain(userId, value)) {
+            return true;
+        }
+        skipped[kind.ordinal()].increment();
+        return false;
+    }
+
+    private void scheduleRebuild() {
+        if (properties.isEnabled() && rebuilding.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Streams all ACTIVE files into fresh filters. Files activated while the stream runs are written
+     * to both the old and the new filters, so nothing is missed when the new filters are swapped in.
+     * Runs on the rebuild thread; package-private so tests can build synchronously.
+     */
+    void rebuild() {
+        try {
+            Query query = new Query(Criteria.where("status").is(FileStatus.ACTIVE));
+            query.fields().include("userId", "fileName", "hash");
+
+            long activeFiles = mongoTemplate.count(query, FileMetadata.class);
+            long capacity = Math.max(properties.getExpectedInsertions(), activeFiles * 2);
+            Filters next = new Filters(
+                    new BloomFilter(capacity, properties.getFalsePositiveProbability()),
+                    new BloomFilter(capacity, properties.getFalsePositiveProbability()),
+                    capacity);
+            building = next;
+
+            long count = 0;
+            try (Stream<FileMetadata> files = mongoTemplate.stream(query, FileMetadata.class)) {
+                for (FileMetadata file : (Iterable<FileMetadata>) files::iterator) {
+                    put(next, file.getUserId(), file.getFileName(), file.getHash());
+                    count++;
+                }
+            }
+
+            active = next;
+            inserted.set(count);
+            stale.set(0);
+            log.info("Duplicate check filters built from {} active files ({} bytes)", count, sizeInBytes());
+
+        } catch (Exception e) {
+            log.warn("Failed to build duplicate check filters, duplicate queries stay enabled", e);
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    private long capacity() {
+        Filters filters = active;
+        return filters != null ? filters.capacity() : Long.MAX_VALUE;
+    }
+
+    private double expectedFalsePositiveProbability(Kind kind) {
+        Filters filters = active;
+        if (filters == null) {
+            return Double.NaN;
+        }
+        return (kind == Kind.FILENAME ? filters.fileNames() : filters.hashes()).expectedFalsePositiveProbability();
+    }
+
+    private double sizeInBytes() {
+        Filters filters = active;
+        return filters != null ? filters.fileNames().sizeInBytes() + filters.hashes().sizeInBytes() : 0;
+    }
+
+    private static void put(Filters filters, String userId, String fileName, String hash) {
+        if (filters == null || userId == null) {
+            return;
+        }
+        if (fileName != null) {
+            filters.fileNames().put(userId, fileName);
+        }
+        if (hash != null) {
+            filters.hashes().put(userId, hash);
+        }
+    }
+
+    private static Counter checkCounter(MeterRegistry registry, Kind kind, String result) {
+        return Counter.builder(FileStorageMetrics.METRIC_PREFIX + ".duplicate.filter.checks")
+                .description("Duplicate checks answered by the Bloom filter (skipped) or by a query")
+                .tag("filter", kind.tagValue)
+                .tag("result", result)
+                .register(registry);
+    }
+}
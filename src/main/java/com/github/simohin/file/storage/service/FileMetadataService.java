@@ -1,6 +1,7 @@
 package com.github.simohin.file.storage.service;
 
 import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.HashAlgorithm;
 import com.github.simohin.file.storage.common.Visibility;
 import com.github.simohin.file.storage.dto.FileMetadataDto;
 import com.github.simohin.file.storage.entity.FileMetadata;
@@ -8,13 +9,20 @@ import com.github.simohin.file.storage.mapper.FileMetadataMapper;
 import com.github.simohin.file.storage.repository.FileMetadataRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -23,10 +31,17 @@ public class FileMetadataService {
 
     private final FileMetadataRepository fileMetadataRepository;
     private final FileMetadataMapper fileMetadataMapper;
+    private final MongoTemplate mongoTemplate;
+    private final DuplicateCheckFilter duplicateCheckFilter;
 
+    /**
+     * Inserts the metadata of a fully stored file directly as ACTIVE, in one round trip.
+     * Unique index violations surface as {@link org.springframework.dao.DuplicateKeyException}.
+     */
     @Transactional
     public FileMetadataDto createFileMetadata(UUID fileId, String fileName, String userId, String contentType,
-                                              long size, String hash, Visibility visibility, Set<String> tags) {
+                                              long size, String hash, HashAlgorithm hashAlgorithm, String quickHash,
+                                              Visibility visibility, Set<String> tags) {
 
         FileMetadata metadata = new FileMetadata()
                 .setId(fileId)
@@ -35,24 +50,35 @@ public class FileMetadataService {
                 .setContentType(contentType)
                 .setSize(size)
                 .setHash(hash)
+                .setHashAlgorithm(hashAlgorithm)
+                .setQuickHash(quickHash)
                 .setVisibility(visibility)
                 .setTags(tags)
                 .setUploadDate(LocalDateTime.now())
-                .setStatus(FileStatus.PENDING);
+                .setStatus(FileStatus.ACTIVE);
 
-        FileMetadata saved = fileMetadataRepository.save(metadata);
+        FileMetadata saved = fileMetadataRepository.insert(metadata);
+        duplicateCheckFilter.fileActivated(userId, fileName, hash);
 
         return fileMetadataMapper.toDto(saved);
     }
 
+    /**
+     * Sets the status with a single atomic findAndModify instead of reading and re-saving the document
+     */
     @Transactional
     public Optional<FileMetadataDto> updateFileStatus(UUID fileId, FileStatus status) {
 
-        Optional<FileMetadata> metadata = fileMetadataRepository.findById(fileId);
-        if (metadata.isPresent()) {
-            FileMetadata updated = metadata.get().setStatus(status);
-            FileMetadata saved = fileMetadataRepository.save(updated);
-            return Optional.of(fileMetadataMapper.toDto(saved));
+        FileMetadata updated = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(fileId)),
+                new Update().set("status", status),
+                FindAndModifyOptions.options().returnNew(true),
+                FileMetadata.class);
+        if (updated != null) {
+            if (status == FileStatus.ACTIVE) {
+                duplicateCheckFilter.fileActivated(updated.getUserId(), updated.getFileName(), updated.getHash());
+            }
+            return Optional.of(fileMetadataMapper.toDto(updated));
         }
 
         log.warn("File not found for ID: {}", fileId);
@@ -66,6 +92,48 @@ public class FileMetadataService {
     }
 
 
+    /**
+     * Streams the visible subset of the requested files from a single $in query.
+     * The returned stream holds an open cursor and must be closed by the caller.
+     */
+    @Transactional(readOnly = true)
+    public Stream<FileMetadataDto> streamVisibleFileMetadata(Collection<UUID> fileIds, String userId) {
+        return fileMetadataRepository.streamVisibleActiveFiles(fileIds, userId)
+                .map(fileMetadataMapper::toDto);
+    }
+
+    /**
+     * Streams the user's active files matching the optional tag and visibility filters.
+     * The returned stream holds an open cursor and must be closed by the caller.
+     */
+    @Transactional(readOnly = true)
+    public Stream<FileMetadataDto> streamUserFileMetadata(String userId, Set<String> tags, Visibility visibility, int limit) {
+        return mongoTemplate.stream(new Query(userFilesCriteria(userId, tags, visibility)).limit(limit), FileMetadata.class)
+                .map(fileMetadataMapper::toDto);
+    }
+
+    /**
+     * Counts the files {@link #streamUserFileMetadata} would return without a limit
+     */
+    @Transactional(readOnly = true)
+    public long countUserFileMetadata(String userId, Set<String> tags, Visibility visibility) {
+        return mongoTemplate.count(new Query(userFilesCriteria(userId, tags, visibility)), FileMetadata.class);
+    }
+
+    /**
+     * Active files of the user, narrowed to the given tags and visibility when present
+     */
+    static Criteria userFilesCriteria(String userId, Set<String> tags, Visibility visibility) {
+        Criteria criteria = Criteria.where("userId").is(userId).and("status").is(FileStatus.ACTIVE);
+        if (tags != null && !tags.isEmpty()) {
+            criteria = criteria.and("tags").in(tags);
+        }
+        if (visibility != null) {
+            criteria = criteria.and("visibility").is(visibility);
+        }
+        return criteria;
+    }
+
     @Transactional(readOnly = true)
     public Optional<FileMetadataDto> checkFileExists(String userId, String fileName) {
         return fileMetadataRepository.findByUserIdAndFileNameAndStatus(userId, fileName, FileStatus.ACTIVE)
@@ -78,45 +146,106 @@ public class FileMetadataService {
                 .map(fileMetadataMapper::toDto);
     }
 
+    /**
+     * Whether any active file of the user has the same sampled fingerprint; a match is only a candidate
+     */
+    @Transactional(readOnly = true)
+    public boolean hasQuickHashCandidate(String userId, String quickHash) {
+        return fileMetadataRepository.existsByUserIdAndQuickHashAndStatus(userId, quickHash, FileStatus.ACTIVE);
+    }
+
 
+    /**
+     * Moves the owner's active file to the trash (DELETED with a deletion time) with one conditional
+     * findAndModify and returns the document as it was. Empty when the file is missing, not active or
+     * owned by someone else.
+     */
     @Transactional
-    public boolean deleteFileMetadata(UUID fileId) {
-
-        Optional<FileMetadata> metadata = fileMetadataRepository.findByIdAndStatus(fileId, FileStatus.ACTIVE);
-        if (metadata.isPresent()) {
-            FileMetadata updated = metadata.get().setStatus(FileStatus.DELETED);
-            fileMetadataRepository.save(updated);
-            return true;
+    public Optional<FileMetadataDto> deleteFileMetadata(UUID fileId, String userId) {
+
+        FileMetadata deleted = mongoTemplate.findAndModify(
+                ownedActiveFile(fileId, userId),
+                new Update().set("status", FileStatus.DELETED).currentDate("deletedAt"),
+                FileMetadata.class);
+        if (deleted == null) {
+            log.warn("File not found for deletion, ID: {}", fileId);
+            return Optional.empty();
         }
 
-        log.warn("File not found for deletion, ID: {}", fileId);
-        return false;
+        duplicateCheckFilter.filesRemoved(1);
+        return Optional.of(fileMetadataMapper.toDto(deleted));
     }
 
+    /**
+     * Applies the non-null fields of {@code updateDto} to the owner's active file with a targeted
+     * {@code $set} and returns the updated document. Empty when nothing matched the owner and status.
+     * A taken file name fails the unique index with {@link org.springframework.dao.DuplicateKeyException}.
+     */
     @Transactional
-    public Optional<FileMetadataDto> updateFileMetadata(UUID fileId, FileMetadataDto updateDto) {
+    public Optional<FileMetadataDto> updateFileMetadata(UUID fileId, String userId, FileMetadataDto updateDto) {
 
-        Optional<FileMetadata> metadata = fileMetadataRepository.findByIdAndStatus(fileId, FileStatus.ACTIVE);
-        if (metadata.isPresent()) {
-            FileMetadata existing = metadata.get();
+        Update update = new Update();
+        if (updateDto.getFileName() != null) {
+            update.set("fileName", updateDto.getFileName());
+        }
+        if (updateDto.getVisibility() != null) {
+            update.set("visibility", updateDto.getVisibility());
+        }
+        if (updateDto.getTags() != null) {
+            update.set("tags", updateDto.getTags());
+        }
 
-            if (updateDto.getFileName() != null) {
-                existing.setFileName(updateDto.getFileName());
-            }
-            if (updateDto.getVisibility() != null) {
-                existing.setVisibility(updateDto.getVisibility());
-            }
-            if (updateDto.getTags() != null) {
-                existing.setTags(updateDto.getTags());
-            }
+        FileMetadata updated = update.getUpdateObject().isEmpty()
+                ? mongoTemplate.findOne(ownedActiveFile(fileId, userId), FileMetadata.class)
+                : mongoTemplate.findAndModify(ownedActiveFile(fileId, userId), update,
+                        FindAndModifyOptions.options().returnNew(true), FileMetadata.class);
+        if (updated == null) {
+            log.warn("File not found for update, ID: {}", fileId);
+            return Optional.empty();
+        }
 
-            FileMetadata saved = fileMetadataRepository.save(existing);
-            return Optional.of(fileMetadataMapper.toDto(saved));
+        if (updateDto.getFileName() != null) {
+            duplicateCheckFilter.fileRenamed(userId, updated.getFileName());
         }
+        return Optional.of(fileMetadataMapper.toDto(updated));
+    }
 
-        log.warn("File not found for update, ID: {}", fileId);
-        return Optional.empty();
+    /**
+     * Brings the owner's file back from the trash if it was deleted after {@code deletedAfter}.
+     * Empty when no such file is in the trash; a name or content taken in the meantime fails the
+     * unique indexes with {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    @Transactional
+    public Optional<FileMetadataDto> restoreFileMetadata(UUID fileId, String userId, LocalDateTime deletedAfter) {
+
+        FileMetadata restored = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(fileId)
+                        .and("userId").is(userId)
+                        .and("status").is(FileStatus.DELETED)
+                        .and("deletedAt").gt(deletedAfter)),
+                new Update().set("status", FileStatus.ACTIVE).unset("deletedAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                FileMetadata.class);
+        if (restored == null) {
+            return Optional.empty();
+        }
+
+        duplicateCheckFilter.fileActivated(restored.getUserId(), restored.getFileName(), restored.getHash());
+        return Optional.of(fileMetadataMapper.toDto(restored));
     }
 
+    /**
+     * Returns a file's metadata in any status, for explaining why a conditional update matched nothing
+     */
+    @Transactional(readOnly = true)
+    public Optional<FileMetadataDto> findAnyFileMetadata(UUID fileId) {
+        return fileMetadataRepository.findById(fileId)
+                .map(fileMetadataMapper::toDto);
+    }
 
-}
\ No newline at end of file
+    private static Query ownedActiveFile(UUID fileId, String userId) {
+        return new Query(Criteria.where("_id").is(fileId)
+                .and("userId").is(userId)
+                .and("status").is(FileStatus.ACTIVE));
+    }
+}
@@ -3,19 +3,25 @@ package com.github.simohin.file.storage.service;
 import com.github.simohin.file.storage.common.ErrorCode;
 import com.github.simohin.file.storage.common.FileConstants;
 import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.OperationStage;
 import com.github.simohin.file.storage.common.SortBy;
 import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.config.HashingProperties;
 import com.github.simohin.file.storage.dto.FileListResponse;
 import com.github.simohin.file.storage.dto.FileMetadataDto;
 import com.github.simohin.file.storage.dto.FileStorageResult;
 import com.github.simohin.file.storage.dto.FileUploadResponse;
 import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.jfr.FileDownloadEvent;
+import com.github.simohin.file.storage.jfr.FileUploadEvent;
 import com.github.simohin.file.storage.mapper.FileMetadataMapper;
 import com.github.simohin.file.storage.repository.FileMetadataRepository;
+import com.github.simohin.file.storage.util.BufferPool;
 import com.github.simohin.file.storage.util.ValidationUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,36 +29,93 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileService {
 
+    private static final String FILENAME_INDEX = "user_filename_idx";
+    private static final String HASH_INDEX = "user_sha256_hash_idx";
+
     private final FileStorageService fileStorageService;
     private final FileMetadataService fileMetadataService;
     private final FileMetadataRepository fileMetadataRepository;
     private final FileMetadataMapper fileMetadataMapper;
     private final DiskSpaceService diskSpaceService;
+    private final FileStorageMetrics fileStorageMetrics;
+    private final HeavyHitterTracker heavyHitterTracker;
+    private final DuplicateCheckFilter duplicateCheckFilter;
+    private final StoragePurgeService storagePurgeService;
+    private final HashingProperties hashingProperties;
+    private final BufferPool bufferPool;
 
     public FileUploadResponse uploadFile(MultipartFile file, String userId, String filename,
                                          Visibility visibility, Set<String> tags) {
-        validateUploadParameters(file, userId, filename, tags);
+        long startNanos = fileStorageMetrics.start();
+        long declaredBytes = file != null ? file.getSize() : 0;
+        fileStorageMetrics.uploadStarted(declaredBytes);
+        FileUploadEvent event = new FileUploadEvent();
+        event.begin();
+
+        FileUploadResponse response = null;
+        FileStorageMetrics.Outcome outcome = FileStorageMetrics.Outcome.ERROR;
+        try {
+            validateUploadParameters(file, userId, filename, tags);
+            response = storeAndRegister(file, userId, filename, visibility, tags);
+            outcome = FileStorageMetrics.Outcome.SUCCESS;
+            return response;
+        } catch (RuntimeException e) {
+            outcome = FileStorageMetrics.outcomeOf(e);
+            throw e;
+        } finally {
+            fileStorageMetrics.uploadFinished(declaredBytes, startNanos,
+                    response != null ? response.getContentType() : null, outcome,
+                    response != null ? response.getSize() : 0);
+            if (response != null) {
+                heavyHitterTracker.record(response.getFileId(), userId, response.getSize());
+            }
+
+            if (event.shouldCommit()) {
+                event.fileId = response != null ? response.getFileId() : null;
+                event.userId = userId;
+                event.fileName = filename;
+                event.size = response != null ? response.getSize() : declaredBytes;
+                event.contentType = response != null ? response.getContentType() : null;
+                event.outcome = outcome.name();
+                event.commit();
+            }
+        }
+    }
 
+    private FileUploadResponse storeAndRegister(MultipartFile file, String userId, String filename,
+                                                Visibility visibility, Set<String> tags) {
         try {
+            long stageStart = fileStorageMetrics.start();
             diskSpaceService.validateDiskSpace(file.getSize());
+            fileStorageMetrics.recordStage(OperationStage.DISK_SPACE_CHECK, stageStart);
+
             checkForDuplicates(userId, filename, file);
 
             UUID fileId = UUID.randomUUID();
             FileStorageResult storageResult = storeFile(fileId, file, filename);
-            FileMetadataDto metadata = createFileMetadata(fileId, filename, userId, storageResult, visibility, tags);
+            FileMetadataDto metadata;
+            try {
+                metadata = createFileMetadata(fileId, filename, userId, storageResult, visibility, tags);
+            } catch (RuntimeException e) {
+                fileStorageService.deleteFile(fileId);
+                throw e;
+            }
 
             return buildUploadResponse(fileId, filename, visibility, storageResult, metadata, tags);
 
@@ -63,22 +126,41 @@ public class FileService {
 
     private FileStorageResult storeFile(UUID fileId, MultipartFile file, String filename) {
         try {
-            return fileStorageService.saveFile(fileId, file.getInputStream(), filename);
+            return fileStorageService.saveFile(fileId, file.getInputStream(), filename, file.getSize());
         } catch (IOException e) {
             throw new RuntimeException("Failed to process file: " + filename, e);
         }
     }
 
+    /**
+     * Commits the upload with a single ACTIVE insert; the content is already stored, so there is no
+     * PENDING phase. A concurrent upload that won the filename or content race fails the unique index.
+     */
     private FileMetadataDto createFileMetadata(UUID fileId, String filename, String userId,
                                                FileStorageResult storageResult, Visibility visibility, Set<String> tags) {
-        FileMetadataDto metadata = fileMetadataService.createFileMetadata(
-                fileId, filename, userId, storageResult.getContentType(),
-                storageResult.getSize(), storageResult.getHash(), visibility,
-                tags != null ? tags : Set.of()
-        );
-
-        fileMetadataService.updateFileStatus(fileId, FileStatus.ACTIVE);
-        return metadata;
+        long stageStart = fileStorageMetrics.start();
+        try {
+            return fileMetadataService.createFileMetadata(
+                    fileId, filename, userId, storageResult.getContentType(),
+                    storageResult.getSize(), storageResult.getHash(), storageResult.getHashAlgorithm(),
+                    storageResult.getQuickHash(), visibility,
+                    tags != null ? tags : Set.of()
+            );
+        } catch (DuplicateKeyException e) {
+            String message = e.getMessage() != null ? e.getMessage() : "";
+            if (message.contains(FILENAME_INDEX)) {
+                throw new IllegalArgumentException(ErrorCode.FILENAME_EXISTS.format(filename), e);
+            }
+            if (message.contains(HASH_INDEX)) {
+                String existing = fileMetadataService.checkDuplicateByHash(userId, storageResult.getHash())
+                        .map(FileMetadataDto::getFileName)
+                        .orElse(filename);
+                throw new IllegalArgumentException(ErrorCode.CONTENT_EXISTS.format(existing), e);
+            }
+            throw e;
+        } finally {
+            fileStorageMetrics.recordStage(OperationStage.METADATA_INSERT, stageStart);
+        }
     }
 
     private FileUploadResponse buildUploadResponse(UUID fileId, String filename, Visibility visibility,
@@ -96,46 +178,57 @@ public class FileService {
     }
 
     public Resource downloadFile(String fileId, String userId) {
-        UUID uuid = ValidationUtils.validateAndParseFileId(fileId);
-
-        Optional<FileMetadataDto> metadataOpt = fileMetadataService.getFileMetadata(uuid);
-        if (metadataOpt.isEmpty()) {
-            throw new RuntimeException(ErrorCode.FILE_NOT_FOUND.format(fileId));
-        }
+        long startNanos = fileStorageMetrics.start();
+        FileMetadataDto metadata = null;
+        FileDownloadEvent event = new FileDownloadEvent();
+        event.begin();
+        event.fileId = fileId;
+        event.userId = userId;
 
-        FileMetadataDto metadata = metadataOpt.get();
+        try {
+            UUID uuid = ValidationUtils.validateAndParseFileId(fileId);
 
-        boolean hasAccess = metadata.getVisibility() == Visibility.PUBLIC ||
-                metadata.getUserId().equals(userId);
+            long stageStart = fileStorageMetrics.start();
+            metadata = getReadableFileMetadata(fileId, userId);
+            fileStorageMetrics.recordStage(OperationStage.METADATA_LOOKUP, stageStart);
 
-        if (!hasAccess) {
-            throw new RuntimeException(ErrorCode.ACCESS_DENIED.format(fileId));
-        }
+            stageStart = fileStorageMetrics.start();
+            Optional<InputStream> fileStreamOpt = fileStorageService.getFile(uuid);
+            fileStorageMetrics.recordStage(OperationStage.OPEN, stageStart);
+            if (fileStreamOpt.isEmpty()) {
+                throw new RuntimeException(ErrorCode.FILE_CONTENT_NOT_FOUND.format(fileId));
+            }
 
-        Optional<InputStream> fileStreamOpt = fileStorageService.getFile(uuid);
-        if (fileStreamOpt.isEmpty()) {
-            throw new RuntimeException(ErrorCode.FILE_CONTENT_NOT_FOUND.format(fileId));
-        }
+            String filename = metadata.getFileName();
+            long size = metadata.getSize();
+            event.size = size;
+            InputStream content = new MeteredDownloadStream(fileStreamOpt.get(), startNanos, metadata.getContentType(),
+                    fileId, userId, size, event);
 
-        try {
-            return new org.springframework.core.io.InputStreamResource(fileStreamOpt.get()) {
+            return new org.springframework.core.io.InputStreamResource(content) {
                 @Override
                 public String getFilename() {
-                    return metadata.getFileName();
+                    return filename;
                 }
 
                 @Override
                 public long contentLength() {
-                    return metadata.getSize();
+                    return size;
                 }
             };
-        } catch (Exception e) {
-            log.error("Failed to create resource for file download: {}", fileId, e);
-            throw new RuntimeException("Failed to prepare file for download: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            FileStorageMetrics.Outcome outcome = FileStorageMetrics.outcomeOf(e);
+            fileStorageMetrics.downloadFinished(startNanos, metadata != null ? metadata.getContentType() : null, outcome, 0);
+            event.outcome = outcome.name();
+            event.commit();
+            throw e;
         }
     }
 
-    public void deleteFile(String fileId, String userId) {
+    /**
+     * Returns metadata of an active file the user may read: public files or files owned by the user
+     */
+    public FileMetadataDto getReadableFileMetadata(String fileId, String userId) {
         UUID uuid = ValidationUtils.validateAndParseFileId(fileId);
 
         Optional<FileMetadataDto> metadataOpt = fileMetadataService.getFileMetadata(uuid);
@@ -145,78 +238,130 @@ public class FileService {
 
         FileMetadataDto metadata = metadataOpt.get();
 
-        if (!metadata.getUserId().equals(userId)) {
-            throw new RuntimeException(ErrorCode.OWNER_ONLY_DELETE.getMessage());
-        }
+        boolean hasAccess = metadata.getVisibility() == Visibility.PUBLIC ||
+                metadata.getUserId().equals(userId);
 
-        try {
-            boolean storageDeleted = fileStorageService.deleteFile(uuid);
-            if (!storageDeleted) {
-                log.warn("File was not found in storage but metadata exists: {}", fileId);
-            }
+        if (!hasAccess) {
+            throw new RuntimeException(ErrorCode.ACCESS_DENIED.format(fileId));
+        }
 
-            boolean metadataDeleted = fileMetadataService.deleteFileMetadata(uuid);
-            if (!metadataDeleted) {
-                throw new RuntimeException("Failed to mark file metadata as deleted");
-            }
+        return metadata;
+    }
 
+    /**
+     * Moves the user's file to the trash. Owner and status are part of the update filter, so a successful
+     * delete is a single round trip; the failure path does one more lookup to report the cause. The content
+     * stays on disk until {@link StoragePurgeService} purges it after the retention period.
+     */
+    public void deleteFile(String fileId, String userId) {
+        UUID uuid = ValidationUtils.validateAndParseFileId(fileId);
 
+        Optional<FileMetadataDto> deleted;
+        try {
+            deleted = fileMetadataService.deleteFileMetadata(uuid, userId);
         } catch (Exception e) {
             log.error("File deletion failed for fileId: {}, userId: {}", fileId, userId, e);
             throw new RuntimeException("File deletion failed: " + e.getMessage(), e);
         }
+        if (deleted.isEmpty()) {
+            throw mutationFailure(uuid, fileId, userId, ErrorCode.OWNER_ONLY_DELETE);
+        }
     }
 
-    public FileMetadataDto renameFile(String fileId, String userId, String newFilename) {
+    /**
+     * Restores a file from the trash while its retention period has not ended
+     */
+    public FileMetadataDto restoreFile(String fileId, String userId) {
         UUID uuid = ValidationUtils.validateAndParseFileId(fileId);
-        ValidationUtils.validateNotEmpty(newFilename, ErrorCode.NEW_FILENAME_EMPTY.getMessage());
+        ValidationUtils.validateNotEmpty(userId, ErrorCode.USER_ID_EMPTY.getMessage());
 
-        FileMetadataDto metadata = getFileMetadataForRename(uuid, fileId);
-        validateRenamePermissions(metadata, userId);
-        validateNewFilenameAvailable(userId, newFilename.trim(), metadata.getFileName());
+        Optional<FileMetadataDto> restored;
+        try {
+            restored = fileMetadataService.restoreFileMetadata(uuid, userId, storagePurgeService.retentionCutoff());
+        } catch (DuplicateKeyException e) {
+            FileMetadataDto deleted = fileMetadataService.findAnyFileMetadata(uuid).orElseThrow(() -> e);
+            String message = e.getMessage() != null ? e.getMessage() : "";
+            if (message.contains(HASH_INDEX)) {
+                String existing = fileMetadataService.checkDuplicateByHash(userId, deleted.getHash())
+                        .map(FileMetadataDto::getFileName)
+                        .orElse(deleted.getFileName());
+                throw new IllegalArgumentException(ErrorCode.CONTENT_EXISTS.format(existing), e);
+            }
+            throw new IllegalArgumentException(ErrorCode.FILENAME_EXISTS.format(deleted.getFileName()), e);
+        }
 
-        return updateFileMetadata(uuid, newFilename.trim(), fileId, userId);
+        return restored.orElseThrow(() -> {
+            Optional<FileMetadataDto> current = fileMetadataService.findAnyFileMetadata(uuid);
+            if (current.isPresent() && current.get().getStatus() == FileStatus.DELETED
+                    && !current.get().getUserId().equals(userId)) {
+                return new RuntimeException(ErrorCode.OWNER_ONLY_RESTORE.getMessage());
+            }
+            return new RuntimeException(ErrorCode.NOT_IN_TRASH.format(fileId));
+        });
     }
 
-    private FileMetadataDto getFileMetadataForRename(UUID uuid, String fileId) {
-        Optional<FileMetadataDto> metadataOpt = fileMetadataService.getFileMetadata(uuid);
-        if (metadataOpt.isEmpty()) {
-            throw new RuntimeException(ErrorCode.FILE_NOT_FOUND.format(fileId));
-        }
-        return metadataOpt.get();
-    }
+    /**
+     * Renames the user's file with a single conditional update; the unique filename index
+     * rejects names already taken instead of a separate existence query
+     */
+    public FileMetadataDto renameFile(String fileId, String userId, String newFilename) {
+        UUID uuid = ValidationUtils.validateAndParseFileId(fileId);
+        ValidationUtils.validateNotEmpty(newFilename, ErrorCode.NEW_FILENAME_EMPTY.getMessage());
+
+        String filename = newFilename.trim();
+        FileMetadataDto updateDto = new FileMetadataDto();
+        updateDto.setFileName(filename);
 
-    private void validateRenamePermissions(FileMetadataDto metadata, String userId) {
-        if (!metadata.getUserId().equals(userId)) {
-            throw new RuntimeException(ErrorCode.OWNER_ONLY_RENAME.getMessage());
+        Optional<FileMetadataDto> updated;
+        try {
+            updated = fileMetadataService.updateFileMetadata(uuid, userId, updateDto);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException(ErrorCode.NEW_FILENAME_EXISTS.format(filename), e);
+        } catch (Exception e) {
+            log.error("File rename failed for fileId: {}, userId: {}, newFilename: {}", fileId, userId, filename, e);
+            throw new RuntimeException("File rename failed: " + e.getMessage(), e);
         }
+
+        return updated.orElseThrow(() -> mutationFailure(uuid, fileId, userId, ErrorCode.OWNER_ONLY_RENAME));
     }
 
-    private void validateNewFilenameAvailable(String userId, String newFilename, String currentFilename) {
-        if (!currentFilename.equals(newFilename)) {
-            Optional<FileMetadataDto> existingFile = fileMetadataService.checkFileExists(userId, newFilename);
-            if (existingFile.isPresent()) {
-                throw new IllegalArgumentException(ErrorCode.NEW_FILENAME_EXISTS.format(newFilename));
-            }
+    /**
+     * Explains why a conditional update matched nothing: the file is gone or belongs to someone else
+     */
+    private RuntimeException mutationFailure(UUID uuid, String fileId, String userId, ErrorCode ownerOnly) {
+        Optional<FileMetadataDto> current = fileMetadataService.getFileMetadata(uuid);
+        if (current.isPresent() && !current.get().getUserId().equals(userId)) {
+            return new RuntimeException(ownerOnly.getMessage());
         }
+        return new RuntimeException(ErrorCode.FILE_NOT_FOUND.format(fileId));
     }
 
-    private FileMetadataDto updateFileMetadata(UUID uuid, String newFilename, String fileId, String userId) {
-        try {
-            FileMetadataDto updateDto = new FileMetadataDto();
-            updateDto.setFileName(newFilename);
+    /**
+     * Validates a multi-get request up front, so that the cursor of {@link #batchGetMetadata}
+     * is only opened once the response is being written
+     */
+    public Set<UUID> validateBatchGet(List<String> fileIds, String userId) {
+        ValidationUtils.validateNotEmpty(userId, ErrorCode.USER_ID_EMPTY.getMessage());
 
-            Optional<FileMetadataDto> updatedMetadataOpt = fileMetadataService.updateFileMetadata(uuid, updateDto);
-            if (updatedMetadataOpt.isEmpty()) {
-                throw new RuntimeException("Failed to update file metadata");
-            }
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new IllegalArgumentException(ErrorCode.FILE_IDS_EMPTY.getMessage());
+        }
+        if (fileIds.size() > FileConstants.MAX_BATCH_GET_SIZE) {
+            throw new IllegalArgumentException(
+                    ErrorCode.TOO_MANY_FILE_IDS.format(FileConstants.MAX_BATCH_GET_SIZE, fileIds.size()));
+        }
 
-            return updatedMetadataOpt.get();
+        return fileIds.stream()
+                .map(ValidationUtils::validateAndParseFileId)
+                .collect(Collectors.toSet());
+    }
 
-        } catch (Exception e) {
-            log.error("File rename failed for fileId: {}, userId: {}, newFilename: {}", fileId, userId, newFilename, e);
-            throw new RuntimeException("File rename failed: " + e.getMessage(), e);
-        }
+    /**
+     * Resolves metadata for many files at once. Files that do not exist or are not visible
+     * to the user are omitted. The returned stream must be closed by the caller.
+     */
+    public Stream<FileMetadataDto> batchGetMetadata(Set<UUID> fileIds, String userId) {
+        return fileMetadataService.streamVisibleFileMetadata(fileIds, userId);
     }
 
     public FileListResponse listPublicFiles(int page, int size, Set<String> tags,
@@ -306,20 +451,47 @@ public class FileService {
     }
 
     /**
-     * Checks for duplicate files based on filename or content hash for the user
+     * Checks for duplicate files based on filename or content hash for the user.
+     * Queries the Bloom filter proves unnecessary are skipped. For large files a sampled
+     * fingerprint is compared first, and the full hash pass only runs when it matches; files
+     * stored before fingerprints existed are still caught by the unique hash index on insert.
      */
     private void checkForDuplicates(String userId, String filename, MultipartFile file) throws IOException {
         // Check for filename duplicate
-        Optional<FileMetadataDto> existingByFilename = fileMetadataService.checkFileExists(userId, filename);
-        if (existingByFilename.isPresent()) {
-            throw new IllegalArgumentException(ErrorCode.FILENAME_EXISTS.format(filename));
+        if (duplicateCheckFilter.mightContainFileName(userId, filename)) {
+            long stageStart = fileStorageMetrics.start();
+            Optional<FileMetadataDto> existingByFilename = fileMetadataService.checkFileExists(userId, filename);
+            fileStorageMetrics.recordStage(OperationStage.FILENAME_DUPLICATE_QUERY, stageStart);
+            duplicateCheckFilter.recordQueryResult(DuplicateCheckFilter.Kind.FILENAME, existingByFilename.isPresent());
+            if (existingByFilename.isPresent()) {
+                throw new IllegalArgumentException(ErrorCode.FILENAME_EXISTS.format(filename));
+            }
+        }
+
+        long stageStart;
+        if (file.getSize() >= hashingProperties.getQuickHashThreshold().toBytes()) {
+            stageStart = fileStorageMetrics.start();
+            String quickHash = fileStorageService.calculateQuickHash(file.getInputStream(), file.getSize());
+            boolean candidate = fileMetadataService.hasQuickHashCandidate(userId, quickHash);
+            fileStorageMetrics.recordStage(OperationStage.QUICK_HASH, stageStart);
+            if (!candidate) {
+                return;
+            }
         }
 
         // Check for content duplicate by calculating hash
+        stageStart = fileStorageMetrics.start();
         String contentHash = fileStorageService.calculateHash(file.getInputStream());
-        Optional<FileMetadataDto> existingByHash = fileMetadataService.checkDuplicateByHash(userId, contentHash);
-        if (existingByHash.isPresent()) {
-            throw new IllegalArgumentException(ErrorCode.CONTENT_EXISTS.format(existingByHash.get().getFileName()));
+        fileStorageMetrics.recordStage(OperationStage.HASH, stageStart);
+
+        if (duplicateCheckFilter.mightContainHash(userId, contentHash)) {
+            stageStart = fileStorageMetrics.start();
+            Optional<FileMetadataDto> existingByHash = fileMetadataService.checkDuplicateByHash(userId, contentHash);
+            fileStorageMetrics.recordStage(OperationStage.HASH_DUPLICATE_QUERY, stageStart);
+            duplicateCheckFilter.recordQueryResult(DuplicateCheckFilter.Kind.HASH, existingByHash.isPresent());
+            if (existingByHash.isPresent()) {
+                throw new IllegalArgumentException(ErrorCode.CONTENT_EXISTS.format(existingByHash.get().getFileName()));
+            }
         }
 
     }
@@ -375,4 +547,90 @@ public class FileService {
 
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * Counts the bytes actually sent and records the download when the response stream is closed
+     */
+    private final class MeteredDownloadStream extends FilterInputStream {
+        private final long startNanos;
+        private final long transferStart;
+        private final String contentType;
+        private final String fileId;
+        private final String userId;
+        private final long size;
+        private final FileDownloadEvent event;
+        private long transferred;
+        private boolean failed;
+        private boolean closed;
+
+        private MeteredDownloadStream(InputStream in, long startNanos, String contentType,
+                                      String fileId, String userId, long size, FileDownloadEvent event) {
+            super(in);
+            this.startNanos = startNanos;
+            this.transferStart = fileStorageMetrics.start();
+            this.contentType = contentType;
+            this.fileId = fileId;
+            this.userId = userId;
+            this.size = size;
+            this.event = event;
+        }
+
+        /**
+         * The response body is written through here; a pooled buffer sized for the file replaces
+         * the fresh buffer {@link InputStream#transferTo} would allocate per download
+         */
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            return bufferPool.transfer(this, out, size);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = super.read();
+                if (b >= 0) {
+                    transferred++;
+                }
+                return b;
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    transferred += read;
+                }
+                return read;
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                super.close();
+            } finally {
+                FileStorageMetrics.Outcome outcome = failed ? FileStorageMetrics.Outcome.ERROR : FileStorageMetrics.Outcome.SUCCESS;
+                fileStorageMetrics.recordStage(OperationStage.TRANSFER, transferStart);
+                fileStorageMetrics.downloadFinished(startNanos, contentType, outcome, transferred);
+                heavyHitterTracker.record(fileId, userId, transferred);
+
+                event.bytesSent = transferred;
+                event.outcome = outcome.name();
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.OperationStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upload and download metrics. All meters are registered up front, so recording is a lookup in a
+ * fixed array plus the meter update itself: no tag building and no allocation on the hot path.
+ * Byte counters are meant to be read as rates (bytes/sec).
+ */
+@Component
+public class FileStorageMetrics {
+
+    public static final String METRIC_PREFIX = "file.storage";
+
+    private static final List<String> CONTENT_TYPE_FAMILIES = List.of(
+            "application", "audio", "font", "image", "model", "text", "video", "other", "unknown");
+    private static final int OTHER_FAMILY = CONTENT_TYPE_FAMILIES.indexOf("other");
+    private static final int UNKNOWN_FAMILY = CONTENT_TYPE_FAMILIES.indexOf("unknown");
+
+    private static final Duration MIN_EXPECTED_DURATION = Duration.ofNanos(50_000);
+    private static final Duration MAX_EXPECTED_DURATION = Duration.ofMinutes(5);
+
+    /**
+     * Outcome tag of a whole upload or download
+     */
+    public enum Outcome {
+        SUCCESS, REJECTED, ERROR;
+
+        private final String tagValue = name().toLowerCase();
+    }
+
+    private final Map<OperationStage, Timer> stageTimers = new EnumMap<>(OperationStage.class);
+    private final Timer[][] uploadTimers;
+    private final Timer[][] downloadTimers;
+    private final Counter[] uploadBytes;
+    private final Counter[] downloadBytes;
+    private final DistributionSummary uploadSize;
+    private final AtomicInteger inFlightUploads = new AtomicInteger();
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    public FileStorageMetrics(MeterRegistry registry) {
+        for (OperationStage stage : OperationStage.values()) {
+            stageTimers.put(stage, Timer.builder(METRIC_PREFIX + ".stage")
+                    .description("Duration of a single upload or download stage")
+                    .tag("operation", stage.getOperation())
+                    .tag("stage", stage.getTagValue())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED_DURATION)
+                    .maximumExpectedValue(MAX_EXPECTED_DURATION)
+                    .register(registry));
+        }
+
+        uploadTimers = operationTimers(registry, "upload");
+        downloadTimers = operationTimers(registry, "download");
+        uploadBytes = byteCounters(registry, "upload");
+        downloadBytes = byteCounters(registry, "download");
+
+        uploadSize = DistributionSummary.builder(METRIC_PREFIX + ".upload.size")
+                .description("Size of uploaded files")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) DataSize.ofGigabytes(2).toBytes())
+                .register(registry);
+
+        Gauge.builder(METRIC_PREFIX + ".uploads.in.flight", inFlightUploads, AtomicInteger::get)
+                .description("Uploads currently being processed")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".uploads.reserved", reservedBytes, AtomicLong::get)
+                .description("Bytes of in-flight uploads that passed the disk space check but are not committed yet")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Returns the current time for a later {@link #recordStage} or {@link #uploadFinished} call
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void recordStage(OperationStage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void uploadStarted(long declaredBytes) {
+        inFlightUploads.incrementAndGet();
+        reservedBytes.addAndGet(declaredBytes);
+    }
+
+    /**
+     * Must be called exactly once for every {@link #uploadStarted} with the same declared size
+     */
+    public void uploadFinished(long declaredBytes, long startNanos, String contentType, Outcome outcome, long storedBytes) {
+        inFlightUploads.decrementAndGet();
+        reservedBytes.addAndGet(-declaredBytes);
+
+        int family = family(contentType);
+        uploadTimers[outcome.ordinal()][family].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (outcome == Outcome.SUCCESS) {
+            uploadBytes[family].increment(storedBytes);
+            uploadSize.record(storedBytes);
+        }
+    }
+
+    public void downloadFinished(long startNanos, String contentType, Outcome outcome, long transferredBytes) {
+        int family = family(contentType);
+        downloadTimers[outcome.ordinal()][family].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (transferredBytes > 0) {
+            downloadBytes[family].increment(transferredBytes);
+        }
+    }
+
+    /**
+     * Client mistakes (validation, duplicates, quota) are rejections; everything else is an error
+     */
+    public static Outcome outcomeOf(Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (current instanceof IllegalArgumentException || current instanceof DiskSpaceService.DiskSpaceException) {
+                return Outcome.REJECTED;
+            }
+            current = current.getCause();
+        }
+        return Outcome.ERROR;
+    }
+
+    private static int family(String contentType) {
+        if (contentType == null || contentType.isEmpty()) {
+            return UNKNOWN_FAMILY;
+        }
+
+        int slash = contentType.indexOf('/');
+        String type = slash > 0 ? contentType.substring(0, slash) : contentType;
+        for (int i = 0; i < OTHER_FAMILY; i++) {
+            if (CONTENT_TYPE_FAMILIES.get(i).equalsIgnoreCase(type)) {
+                return i;
+            }
+        }
+        return OTHER_FAMILY;
+    }
+
+    private static Timer[][] operationTimers(MeterRegistry registry, String operation) {
+        Timer[][] timers = new Timer[Outcome.values().length][CONTENT_TYPE_FAMILIES.size()];
+        for (Outcome outcome : Outcome.values()) {
+            for (int family = 0; family < CONTENT_TYPE_FAMILIES.size(); family++) {
+                timers[outcome.ordinal()][family] = Timer.builder(METRIC_PREFIX + "." + operation)
+                        .description("End-to-end duration of file " + operation + "s")
+                        .tag("outcome", outcome.tagValue)
+                        .tag("content.type", CONTENT_TYPE_FAMILIES.get(family))
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(MIN_EXPECTED_DURATION)
+                        .maximumExpectedValue(MAX_EXPECTED_DURATION)
+                        .register(registry);
+            }
+        }
+        return timers;
+    }
+
+    private static Counter[] byteCounters(MeterRegistry registry, String operation) {
+        Counter[] counters = new Counter[CONTENT_TYPE_FAMILIES.size()];
+        for (int family = 0; family < CONTENT_TYPE_FAMILIES.size(); family++) {
+            counters[family] = Counter.builder(METRIC_PREFIX + "." + operation + ".bytes")
+                    .description("Bytes " + (operation.equals("upload") ? "written by uploads" : "sent by downloads"))
+                    .baseUnit("bytes")
+                    .tag("content.type", CONTENT_TYPE_FAMILIES.get(family))
+                    .register(registry);
+        }
+        return counters;
+    }
+}
@@ -1,20 +1,72 @@
 package com.github.simohin.file.storage.service;
 
 import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.dto.StoredBlob;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface FileStorageService {
 
-    FileStorageResult saveFile(UUID fileId, InputStream inputStream, String originalFileName);
+    /**
+     * Stores the content; {@code expectedSize} is the declared size, or zero or less when unknown,
+     * and only picks buffers and the I/O mode
+     */
+    FileStorageResult saveFile(UUID fileId, InputStream inputStream, String originalFileName, long expectedSize);
 
     Optional<InputStream> getFile(UUID fileId);
 
+    Optional<SeekableByteChannel> openChannel(UUID fileId);
+
+    /**
+     * Names the copies of the content, one per volume holding it, in the order reads try them
+     */
+    List<String> listCopies(UUID fileId);
+
+    /**
+     * Opens one copy of the content for a sequential pass, optionally bypassing the page cache so background
+     * readers do not evict data that serves downloads; falls back to buffered I/O where direct I/O is unsupported.
+     * Empty when the copy is gone.
+     */
+    Optional<ReadableByteChannel> openSequentialChannel(UUID fileId, String copy, int bufferSize, boolean directIo)
+            throws IOException;
+
+    /**
+     * Deletes a copy that failed verification and, with replication, queues the file for re-replication
+     * from the copies left. Only for files with another copy known to be good.
+     */
+    boolean discardCopy(UUID fileId, String copy);
+
     boolean deleteFile(UUID fileId);
 
+    boolean exists(UUID fileId);
+
+    /**
+     * Lists the shard directories content is spread over, as paths relative to the storage root
+     */
+    List<String> listShards();
+
+    /**
+     * Streams the content stored in one shard; the stream holds an open directory handle and must be closed
+     */
+    Stream<StoredBlob> listShard(String shard);
+
     String detectContentType(InputStream inputStream, String fileName);
 
+    /**
+     * Hashes the content with the configured algorithm, as {@link #saveFile} would
+     */
     String calculateHash(InputStream inputStream);
+
+    /**
+     * Non-cryptographic fingerprint of the content size and three samples (start, middle, end).
+     * Identical content always has the same fingerprint; equal fingerprints must be confirmed with a full hash.
+     */
+    String calculateQuickHash(InputStream inputStream, long size);
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.config.FlightRecorderProperties;
+import com.github.simohin.file.storage.dto.FlightRecordingInfo;
+import com.github.simohin.file.storage.jfr.ContentTypeDetectionEvent;
+import com.github.simohin.file.storage.jfr.DiskSpaceCheckEvent;
+import com.github.simohin.file.storage.jfr.FileDownloadEvent;
+import com.github.simohin.file.storage.jfr.FileUploadEvent;
+import com.github.simohin.file.storage.jfr.HashEvent;
+import com.github.simohin.file.storage.jfr.MongoCommandEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a continuous, size- and age-bounded JFR recording and dumps it to disk on demand or
+ * automatically after a slow request, so the events leading up to the slow request are preserved.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlightRecorderService {
+
+    private static final String RECORDING_NAME = "file-storage-continuous";
+    private static final Pattern DUMP_NAME = Pattern.compile("[\\w.-]+\\.jfr");
+    private static final DateTimeFormatter DUMP_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final FlightRecorderProperties flightRecorderProperties;
+
+    private final AtomicLong lastAutomaticDump = new AtomicLong(Long.MIN_VALUE);
+    private volatile Recording recording;
+    private ExecutorService dumpExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!flightRecorderProperties.isEnabled()) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Flight recorder is not available in this JVM, continuous recording disabled");
+            return;
+        }
+
+        try {
+            Recording continuous = new Recording(Configuration.getConfiguration(flightRecorderProperties.getSettings()));
+            continuous.setName(RECORDING_NAME);
+            continuous.setToDisk(true);
+            continuous.setMaxAge(flightRecorderProperties.getMaxAge());
+            continuous.setMaxSize(flightRecorderProperties.getMaxSize().toBytes());
+            List.of(FileUploadEvent.class, FileDownloadEvent.class, HashEvent.class, ContentTypeDetectionEvent.class,
+                    DiskSpaceCheckEvent.class, MongoCommandEvent.class).forEach(continuous::enable);
+            continuous.start();
+
+            recording = continuous;
+            dumpExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("jfr-dump-"));
+            log.info("Continuous flight recording started (settings: {}, max age: {}, max size: {})",
+                    flightRecorderProperties.getSettings(), flightRecorderProperties.getMaxAge(),
+                    flightRecorderProperties.getMaxSize());
+
+        } catch (Exception e) {
+            log.warn("Failed to start continuous flight recording", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dumpExecutor != null) {
+            dumpExecutor.shutdownNow();
+        }
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Called for every finished request; schedules a dump when the request was slow and
+     * no automatic dump was taken within the minimum interval
+     */
+    public void requestCompleted(String description, long durationNanos) {
+        if (recording == null || durationNanos < flightRecorderProperties.getSlowRequestThreshold().toNanos()) {
+            return;
+        }
+
+        log.warn("Slow request: {} took {} ms", description, durationNanos / 1_000_000);
+
+        long now = System.nanoTime();
+        long last = lastAutomaticDump.get();
+        boolean intervalPassed = last == Long.MIN_VALUE
+                || now - last >= flightRecorderProperties.getMinDumpInterval().toNanos();
+        if (intervalPassed && lastAutomaticDump.compareAndSet(last, now)) {
+            dumpExecutor.execute(() -> {
+                try {
+                    dump("slow-request");
+                } catch (IOException e) {
+                    log.error("Failed to dump flight recording after slow request", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes the current content of the continuous recording to the dump directory
+     */
+    public FlightRecordingInfo dump(String reason) throws IOException {
+        Recording current = recording;
+        if (current == null) {
+            throw new IllegalStateException("Continuous flight recording is not running");
+        }
+
+        Path directory = Files.createDirectories(Paths.get(flightRecorderProperties.getDumpDirectory()));
+        Path target = directory.resolve("file-storage-" + LocalDateTime.now().format(DUMP_TIMESTAMP) + "-" + reason + ".jfr");
+        current.dump(target);
+        log.info("Flight recording dumped to {}", target.toAbsolutePath());
+
+        deleteOldDumps(directory);
+        return toInfo(target);
+    }
+
+    public List<FlightRecordingInfo> listDumps() throws IOException {
+        Path directory = Paths.get(flightRecorderProperties.getDumpDirectory());
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> DUMP_NAME.matcher(file.getFileName().toString()).matches())
+                    .map(this::toInfo)
+                    .sorted(Comparator.comparing(FlightRecordingInfo::getCreated).reversed())
+                    .toList();
+        }
+    }
+
+    /**
+     * Resolves a dump by file name; names are matched strictly so no path outside the dump directory is reachable
+     */
+    public Optional<Path> findDump(String name) {
+        if (name == null || !DUMP_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid recording name: " + name);
+        }
+
+        Path file = Paths.get(flightRecorderProperties.getDumpDirectory()).resolve(name);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private void deleteOldDumps(Path directory) throws IOException {
+        List<FlightRecordingInfo> dumps = listDumps();
+        int keep = Math.max(1, flightRecorderProperties.getMaxDumps());
+        for (int i = keep; i < dumps.size(); i++) {
+            Files.deleteIfExists(directory.resolve(dumps.get(i).getName()));
+        }
+    }
+
+    private FlightRecordingInfo toInfo(Path file) {
+        try {
+            return new FlightRecordingInfo()
+                    .setName(file.getFileName().toString())
+                    .setSize(Files.size(file))
+                    .setCreated(Files.getLastModifiedTime(file).toInstant());
+        } catch (IOException e) {
+            return new FlightRecordingInfo()
+                    .setName(file.getFileName().toString())
+                    .setSize(-1)
+                    .setCreated(Instant.EPOCH);
+        }
+    }
+}
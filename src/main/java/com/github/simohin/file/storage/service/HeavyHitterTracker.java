@@ -0,0 +1,92 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.config.HeavyHitterProperties;
+import com.github.simohin.file.storage.dto.HeavyHitterDto;
+import com.github.simohin.file.storage.dto.HeavyHittersReport;
+import com.github.simohin.file.storage.util.HeavyHitters;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming rankings of the files and users generating the most upload and download traffic.
+ * Memory is fixed by the sketch size; counts are halved once per decay interval. Decay is applied
+ * lazily by the first caller of a new interval, so no background thread is needed.
+ */
+@Component
+public class HeavyHitterTracker {
+
+    private final HeavyHitterProperties properties;
+    private final HeavyHitters filesByRequests;
+    private final HeavyHitters filesByBytes;
+    private final HeavyHitters usersByRequests;
+    private final HeavyHitters usersByBytes;
+    private final long decayIntervalNanos;
+    private final long origin = System.nanoTime();
+    private final AtomicLong decayedWindow = new AtomicLong();
+
+    public HeavyHitterTracker(HeavyHitterProperties properties) {
+        this.properties = properties;
+        this.filesByRequests = newRanking(properties);
+        this.filesByBytes = newRanking(properties);
+        this.usersByRequests = newRanking(properties);
+        this.usersByBytes = newRanking(properties);
+        this.decayIntervalNanos = Math.max(1, properties.getDecayInterval().toNanos());
+    }
+
+    /**
+     * Counts one upload or download of {@code bytes} for the file and the user who made the request
+     */
+    public void record(String fileId, String userId, long bytes) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        decayIfDue();
+        if (fileId != null) {
+            filesByRequests.add(fileId, 1);
+            if (bytes > 0) {
+                filesByBytes.add(fileId, bytes);
+            }
+        }
+        if (userId != null) {
+            usersByRequests.add(userId, 1);
+            if (bytes > 0) {
+                usersByBytes.add(userId, bytes);
+            }
+        }
+    }
+
+    public HeavyHittersReport report(int limit) {
+        decayIfDue();
+        return new HeavyHittersReport()
+                .setDecayInterval(properties.getDecayInterval())
+                .setFilesByRequests(toDto(filesByRequests.top(limit)))
+                .setFilesByBytes(toDto(filesByBytes.top(limit)))
+                .setUsersByRequests(toDto(usersByRequests.top(limit)))
+                .setUsersByBytes(toDto(usersByBytes.top(limit)));
+    }
+
+    private void decayIfDue() {
+        long window = (System.nanoTime() - origin) / decayIntervalNanos;
+        long last = decayedWindow.get();
+        if (window > last && decayedWindow.compareAndSet(last, window)) {
+            int halvings = (int) Math.min(window - last, 63);
+            filesByRequests.decay(halvings);
+            filesByBytes.decay(halvings);
+            usersByRequests.decay(halvings);
+            usersByBytes.decay(halvings);
+        }
+    }
+
+    private static HeavyHitters newRanking(HeavyHitterProperties properties) {
+        return new HeavyHitters(properties.getWidth(), properties.getDepth(), properties.getCapacity());
+    }
+
+    private static List<HeavyHitterDto> toDto(List<HeavyHitters.Entry> entries) {
+        return entries.stream()
+                .map(entry -> new HeavyHitterDto().setKey(entry.key()).setEstimate(entry.estimate()))
+                .toList();
+    }
+}
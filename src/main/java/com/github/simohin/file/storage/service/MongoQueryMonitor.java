@@ -0,0 +1,347 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.config.MongoMonitoringProperties;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Driver listener complementing the command and repository timers Spring Boot already publishes
+ * ({@code mongodb.driver.commands}, {@code spring.data.repository.invocations}): records the connection
+ * pool checkout wait as a histogram and logs slow queries with their filter shape, optionally followed
+ * by an explain summary (keys and documents examined, winning plan).
+ */
+@Slf4j
+@Component
+public class MongoQueryMonitor implements CommandListener, ConnectionPoolListener {
+
+    private static final Set<String> QUERY_COMMANDS = Set.of(
+            "find", "aggregate", "count", "distinct", "delete", "update", "findAndModify");
+    private static final Set<String> ARRAY_OPERATORS = Set.of("$or", "$and", "$nor");
+    private static final int MAX_EXPLAINED_SHAPES = 1000;
+
+    private record InFlightQuery(String collection, String shape, BsonDocument command) {
+    }
+
+    private final MongoMonitoringProperties properties;
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Timer checkoutWait;
+    private final Timer checkoutWaitFailed;
+
+    // Checkout happens on the calling thread, so a thread local carries the start time without a map lookup
+    private final ThreadLocal<long[]> checkoutStart = ThreadLocal.withInitial(() -> new long[1]);
+    private final Map<Integer, InFlightQuery> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor explainExecutor;
+
+    public MongoQueryMonitor(MongoMonitoringProperties properties, ObjectProvider<MongoTemplate> mongoTemplate,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.checkoutWait = checkoutTimer(meterRegistry, "success");
+        this.checkoutWaitFailed = checkoutTimer(meterRegistry, "failed");
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.isExplainSlowQueries()) {
+            explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16),
+                    new CustomizableThreadFactory("mongo-explain-"), new ThreadPoolExecutor.DiscardPolicy());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (explainExecutor != null) {
+            explainExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkoutStart.get()[0] = System.nanoTime();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        recordCheckout(checkoutWait);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        recordCheckout(checkoutWaitFailed);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!isSlowQueryLogEnabled() || !QUERY_COMMANDS.contains(event.getCommandName())) {
+            return;
+        }
+
+        // The command document is only valid during this callback, so the shape is taken now
+        BsonDocument command = event.getCommand();
+        BsonValue target = command.get(event.getCommandName());
+        String collection = target != null && target.isString() ? target.asString().getValue() : null;
+        inFlight.put(event.getRequestId(), new InFlightQuery(collection, shape(event.getCommandName(), command),
+                properties.isExplainSlowQueries() ? command.clone() : null));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        InFlightQuery query = inFlight.remove(event.getRequestId());
+        if (query != null) {
+            finish(event.getCommandName(), event.getDatabaseName(), query, event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        InFlightQuery query = inFlight.remove(event.getRequestId());
+        if (query != null) {
+            finish(event.getCommandName(), event.getDatabaseName(), query, event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private void finish(String commandName, String database, InFlightQuery query, long elapsedNanos) {
+        Duration threshold = properties.getSlowQueryThreshold();
+        if (elapsedNanos < threshold.toNanos()) {
+            return;
+        }
+
+        log.warn("Slow Mongo {} on {} took {} ms: {}", commandName, query.collection(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), query.shape());
+        meterRegistry.counter("mongodb.slow.commands",
+                "command", commandName, "collection", String.valueOf(query.collection())).increment();
+
+        if (query.command() != null && shouldExplain(query.shape())) {
+            explainExecutor.execute(() -> explain(database, query));
+        }
+    }
+
+    private boolean shouldExplain(String shape) {
+        long now = System.nanoTime();
+        if (lastExplained.size() >= MAX_EXPLAINED_SHAPES) {
+            lastExplained.clear();
+        }
+
+        Long previous = lastExplained.get(shape);
+        if (previous != null && now - previous < properties.getExplainMinInterval().toNanos()) {
+            return false;
+        }
+        return previous == null
+                ? lastExplained.putIfAbsent(shape, now) == null
+                : lastExplained.replace(shape, previous, now);
+    }
+
+    private void explain(String database, InFlightQuery query) {
+        MongoTemplate template = mongoTemplate.getIfAvailable();
+        if (template == null) {
+            return;
+        }
+
+        try {
+            BsonDocument command = new BsonDocument();
+            query.command().forEach((key, value) -> {
+                // Session, cluster time and $db fields are added by the driver and rejected inside explain
+                if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                    command.put(key, value);
+                }
+            });
+
+            Document result = template.getMongoDatabaseFactory().getMongoDatabase(database)
+                    .runCommand(new BsonDocument("explain", command).append("verbosity",
+                            new BsonString("executionStats")));
+            log.warn("Explain of slow query {}: {}", query.shape(), summarize(result));
+
+        } catch (Exception e) {
+            log.debug("Failed to explain slow query {}", query.shape(), e);
+        }
+    }
+
+    private static String summarize(Document explain) {
+        Document stats = explain.get("executionStats", Document.class);
+        Document planner = explain.get("queryPlanner", Document.class);
+        String plan = planner != null ? planStages(planner.get("winningPlan", Document.class)) : "n/a";
+        if (stats == null) {
+            return "plan=" + plan;
+        }
+
+        return "plan=" + plan
+                + ", returned=" + stats.get("nReturned")
+                + ", keysExamined=" + stats.get("totalKeysExamined")
+                + ", docsExamined=" + stats.get("totalDocsExamined")
+                + ", executionTimeMs=" + stats.get("executionTimeMillis");
+    }
+
+    private static String planStages(Document plan) {
+        StringBuilder stages = new StringBuilder();
+        Document current = plan;
+        while (current != null) {
+            // Since 7.0 the classic plan is nested under queryPlan
+            if (current.containsKey("queryPlan")) {
+                current = current.get("queryPlan", Document.class);
+                continue;
+            }
+            if (!stages.isEmpty()) {
+                stages.append(" <- ");
+            }
+            stages.append(current.getString("stage"));
+            if (current.containsKey("indexName")) {
+                stages.append('(').append(current.getString("indexName")).append(')');
+            }
+            current = current.get("inputStage", Document.class);
+        }
+        return stages.isEmpty() ? "n/a" : stages.toString();
+    }
+
+    /**
+     * Describes a query command with every literal value replaced by "?", so queries that differ
+     * only in their parameters share a shape
+     */
+    static String shape(String commandName, BsonDocument command) {
+        StringBuilder shape = new StringBuilder(commandName);
+        switch (commandName) {
+            case "find" -> {
+                appendPart(shape, "filter", command.get("filter"));
+                appendSort(shape, command.get("sort"));
+            }
+            case "count", "distinct", "findAndModify" -> appendPart(shape, "filter", command.get("query"));
+            case "delete" -> appendFirstStatement(shape, command.get("deletes"));
+            case "update" -> appendFirstStatement(shape, command.get("updates"));
+            case "aggregate" -> {
+                BsonValue pipeline = command.get("pipeline");
+                if (pipeline != null && pipeline.isArray()) {
+                    shape.append(" pipeline [");
+                    for (int i = 0; i < pipeline.asArray().size(); i++) {
+                        BsonValue stage = pipeline.asArray().get(i);
+                        if (i > 0) {
+                            shape.append(", ");
+                        }
+                        if (!stage.isDocument() || stage.asDocument().isEmpty()) {
+                            shape.append('?');
+                            continue;
+                        }
+                        String stageName = stage.asDocument().getFirstKey();
+                        shape.append(stageName);
+                        if (stageName.equals("$match")) {
+                            shape.append(' ');
+                            appendValue(shape, stage.asDocument().get(stageName));
+                        } else if (stageName.equals("$sort")) {
+                            shape.append(' ').append(stage.asDocument().get(stageName).toString());
+                        }
+                    }
+                    shape.append(']');
+                }
+            }
+            default -> {
+                // Not a query command
+            }
+        }
+        return shape.toString();
+    }
+
+    private static void appendFirstStatement(StringBuilder shape, BsonValue statements) {
+        if (statements != null && statements.isArray() && !statements.asArray().isEmpty()
+                && statements.asArray().get(0).isDocument()) {
+            appendPart(shape, "filter", statements.asArray().get(0).asDocument().get("q"));
+        }
+    }
+
+    private static void appendPart(StringBuilder shape, String name, BsonValue value) {
+        if (value != null) {
+            shape.append(' ').append(name).append(' ');
+            appendValue(shape, value);
+        }
+    }
+
+    private static void appendSort(StringBuilder shape, BsonValue sort) {
+        if (sort != null && sort.isDocument() && !sort.asDocument().isEmpty()) {
+            // Sort directions are part of the shape, not parameters
+            shape.append(" sort ").append(sort.asDocument().toJson());
+        }
+    }
+
+    private static void appendValue(StringBuilder shape, BsonValue value) {
+        if (!value.isDocument()) {
+            shape.append('?');
+            return;
+        }
+
+        shape.append('{');
+        boolean first = true;
+        for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+            if (!first) {
+                shape.append(", ");
+            }
+            first = false;
+            shape.append(entry.getKey()).append(": ");
+
+            if (ARRAY_OPERATORS.contains(entry.getKey()) && entry.getValue().isArray()) {
+                BsonArray clauses = entry.getValue().asArray();
+                shape.append('[');
+                for (int i = 0; i < clauses.size(); i++) {
+                    if (i > 0) {
+                        shape.append(", ");
+                    }
+                    appendValue(shape, clauses.get(i));
+                }
+                shape.append(']');
+            } else {
+                appendValue(shape, entry.getValue());
+            }
+        }
+        shape.append('}');
+    }
+
+    private boolean isSlowQueryLogEnabled() {
+        Duration threshold = properties.getSlowQueryThreshold();
+        return threshold != null && !threshold.isZero() && !threshold.isNegative();
+    }
+
+    private void recordCheckout(Timer timer) {
+        long start = checkoutStart.get()[0];
+        if (start != 0) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            checkoutStart.get()[0] = 0;
+        }
+    }
+
+    private static Timer checkoutTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("mongodb.driver.pool.checkout.wait")
+                .description("Time spent waiting for a connection from the Mongo connection pool")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.PendingSweeperProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves uploads stuck in PENDING to the trash, from where {@link StoragePurgeService} purges them.
+ * Uploads are committed with a single ACTIVE insert, so PENDING documents only remain from older
+ * versions or from writers that died between inserting and activating. Each sweep walks the
+ * partial (status, uploadDate) index oldest first.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PendingUploadSweeper {
+
+    private final MongoTemplate mongoTemplate;
+    private final PendingSweeperProperties pendingSweeperProperties;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!pendingSweeperProperties.isEnabled()) {
+            return;
+        }
+
+        long interval = pendingSweeperProperties.getInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("pending-sweeper-"));
+        scheduler.scheduleWithFixedDelay(this::sweepSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs one sweep and returns the number of abandoned uploads cleaned up
+     */
+    public long sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(pendingSweeperProperties.getTimeout());
+        int batchSize = Math.max(1, pendingSweeperProperties.getBatchSize());
+        long swept = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            Query query = new Query(Criteria.where("status").is(FileStatus.PENDING).and("uploadDate").lt(cutoff))
+                    .with(Sort.by("uploadDate"))
+                    .limit(batchSize);
+            query.fields().include("_id");
+
+            List<UUID> ids = mongoTemplate.find(query, FileMetadata.class).stream()
+                    .map(FileMetadata::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // Status stays in the filter so an upload activated meanwhile is left alone and not counted
+            UpdateResult result = mongoTemplate.updateMulti(
+                    new Query(Criteria.where("_id").in(ids).and("status").is(FileStatus.PENDING)),
+                    new Update().set("status", FileStatus.DELETED).currentDate("deletedAt"), FileMetadata.class);
+            swept += result.getModifiedCount();
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (swept > 0) {
+            log.info("Swept {} uploads stuck in PENDING since before {}", swept, cutoff);
+        }
+        return swept;
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Pending upload sweep failed", e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.TrashProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background purge of the trash. Deletes only flip metadata to DELETED; once a file has been in the
+ * trash longer than the retention period, this worker removes its content, paced to the configured
+ * deletion budget, and then compacts the tombstone out of the collection. Restores are only accepted
+ * inside the retention window, so they never race with a purge of the same file.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoragePurgeService {
+
+    private final FileStorageService fileStorageService;
+    private final MongoTemplate mongoTemplate;
+    private final TrashProperties trashProperties;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!trashProperties.isPurgeEnabled()) {
+            return;
+        }
+
+        long interval = trashProperties.getPurgeInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("storage-purge-"));
+        scheduler.scheduleWithFixedDelay(this::purgeSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Files deleted before this instant can no longer be restored and are due for purging
+     */
+    public LocalDateTime retentionCutoff() {
+        return LocalDateTime.now().minus(trashProperties.getRetention());
+    }
+
+    /**
+     * Purges all expired files in batches and returns how many tombstones were compacted
+     */
+    public long purgeExpired() {
+        LocalDateTime cutoff = retentionCutoff();
+        int batchSize = Math.max(1, trashProperties.getPurgeBatchSize());
+        long deleteIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, trashProperties.getMaxDeletesPerSecond());
+        long purged = 0;
+
+        FileMetadata last = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            Query query = new Query(expiredAfter(cutoff, last)).with(Sort.by("deletedAt", "_id")).limit(batchSize);
+            query.fields().include("_id", "deletedAt");
+
+            List<FileMetadata> batch = mongoTemplate.find(query, FileMetadata.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<UUID> ids = batch.stream()
+                    .map(FileMetadata::getId)
+                    .toList();
+
+            List<UUID> contentRemoved = new ArrayList<>(ids.size());
+            long nextDelete = System.nanoTime();
+            for (UUID id : ids) {
+                long wait = nextDelete - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (deleteContent(id)) {
+                    contentRemoved.add(id);
+                }
+                nextDelete += deleteIntervalNanos;
+            }
+
+            // Content goes first: a crash or failed delete in between leaves a tombstone that the next run retries
+            if (!contentRemoved.isEmpty()) {
+                purged += mongoTemplate.remove(new Query(Criteria.where("_id").in(contentRemoved)
+                        .and("status").is(FileStatus.DELETED)), FileMetadata.class).getDeletedCount();
+            }
+
+            // Failed deletes stay behind the cursor and wait for the next run
+            last = batch.get(batch.size() - 1);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} files deleted before {}", purged, cutoff);
+        }
+        return purged;
+    }
+
+    /**
+     * Expired tombstones after the last one seen, in {@code deletedAt}, {@code _id} order. Tombstones written
+     * before deletedAt existed have no timestamp; they are treated as expired and sort first.
+     */
+    private static Criteria expiredAfter(LocalDateTime cutoff, FileMetadata last) {
+        List<Criteria> after = new ArrayList<>(2);
+        if (last == null) {
+            after.add(Criteria.where("deletedAt").lt(cutoff));
+            after.add(Criteria.where("deletedAt").is(null));
+        } else if (last.getDeletedAt() == null) {
+            after.add(Criteria.where("deletedAt").lt(cutoff));
+            after.add(Criteria.where("deletedAt").is(null).and("_id").gt(last.getId()));
+        } else {
+            after.add(Criteria.where("deletedAt").is(last.getDeletedAt()).and("_id").gt(last.getId()));
+            after.add(Criteria.where("deletedAt").gt(last.getDeletedAt()).lt(cutoff));
+        }
+        return Criteria.where("status").is(FileStatus.DELETED).orOperator(after);
+    }
+
+    /**
+     * Returns whether the content is gone; content that was already missing counts as removed
+     */
+    private boolean deleteContent(UUID id) {
+        try {
+            if (fileStorageService.deleteFile(id) || !fileStorageService.exists(id)) {
+                return true;
+            }
+            log.warn("Content of purged file {} could not be deleted, keeping its tombstone", id);
+        } catch (RuntimeException e) {
+            log.warn("Content of purged file {} could not be deleted, keeping its tombstone", id, e);
+        }
+        return false;
+    }
+
+    private void purgeSafely() {
+        try {
+            purgeExpired();
+        } catch (Exception e) {
+            log.error("Storage purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.BulkJobStatus;
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.ReconcilerProperties;
+import com.github.simohin.file.storage.dto.ReconciliationReport;
+import com.github.simohin.file.storage.dto.StoredBlob;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.util.RatePacer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds and optionally repairs inconsistencies between stored content and metadata:
+ * <ul>
+ *     <li>orphan files: content on disk without any metadata document, left behind by uploads that
+ *     failed after saving the content; repaired by deleting the content</li>
+ *     <li>missing content: PENDING or ACTIVE documents whose content is gone; repaired by moving
+ *     the document to the trash</li>
+ * </ul>
+ * Shard directories are walked by a fork-join pool and checked against Mongo with batched
+ * {@code $in} queries. All checks share one pacer, so a run has a fixed I/O budget regardless
+ * of parallelism. Anything younger than the minimum age is skipped to leave uploads in flight alone.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StorageReconciler {
+
+    private static final List<FileStatus> LIVE_STATUSES = List.of(FileStatus.PENDING, FileStatus.ACTIVE);
+
+    private final FileStorageService fileStorageService;
+    private final MongoTemplate mongoTemplate;
+    private final DuplicateCheckFilter duplicateCheckFilter;
+    private final ReconcilerProperties reconcilerProperties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Run lastRun;
+    private ForkJoinPool shardPool;
+    private ScheduledExecutorService runner;
+
+    @PostConstruct
+    public void init() {
+        shardPool = new ForkJoinPool(Math.max(1, reconcilerProperties.getParallelism()));
+        runner = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("storage-reconciler-"));
+
+        if (reconcilerProperties.getInterval() != null) {
+            long interval = reconcilerProperties.getInterval().toMillis();
+            runner.scheduleWithFixedDelay(() -> {
+                Run run = new Run(false);
+                if (claim(run)) {
+                    reconcileAndRelease(run);
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        shardPool.shutdownNow();
+    }
+
+    /**
+     * Starts a run in the background; while a run is in progress its report is returned instead
+     */
+    public ReconciliationReport start(boolean repair) {
+        Run run = new Run(repair);
+        if (!claim(run)) {
+            return lastRun.toReport();
+        }
+
+        runner.execute(() -> reconcileAndRelease(run));
+        return run.toReport();
+    }
+
+    public Optional<ReconciliationReport> lastReport() {
+        Run run = lastRun;
+        return run == null ? Optional.empty() : Optional.of(run.toReport());
+    }
+
+    /**
+     * Runs a full reconciliation on the calling thread
+     */
+    public ReconciliationReport reconcile(boolean repair) {
+        Run run = new Run(repair);
+        if (!claim(run)) {
+            throw new IllegalStateException("Reconciliation is already running");
+        }
+
+        reconcileAndRelease(run);
+        return run.toReport();
+    }
+
+    /**
+     * Marks the run as the one in progress. The flag and {@code lastRun} change together, so whoever
+     * finds the flag taken also finds the run that took it.
+     */
+    private synchronized boolean claim(Run run) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        lastRun = run;
+        return true;
+    }
+
+    private void reconcileAndRelease(Run run) {
+        try {
+            execute(run);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void execute(Run run) {
+        RatePacer pacer = new RatePacer(reconcilerProperties.getMaxChecksPerSecond());
+        Instant fileCutoff = Instant.now().minus(reconcilerProperties.getMinAge());
+        LocalDateTime documentCutoff = LocalDateTime.now().minus(reconcilerProperties.getMinAge());
+
+        try {
+            List<String> shards = fileStorageService.listShards();
+            if (!shards.isEmpty()) {
+                shardPool.invoke(new ShardTask(shards, 0, shards.size(), run, pacer, fileCutoff));
+            }
+            checkDocuments(run, pacer, documentCutoff);
+            run.finish(BulkJobStatus.COMPLETED, null);
+
+            log.info("Reconciliation {}: {} files and {} documents checked, {} orphan files ({} bytes), "
+                            + "{} documents without content, {} repaired",
+                    run.repair ? "with repair" : "report only", run.filesScanned.sum(), run.documentsScanned.sum(),
+                    run.orphanFiles.sum(), run.orphanBytes.sum(), run.missingContent.sum(), run.repaired.sum());
+
+        } catch (RuntimeException e) {
+            log.error("Reconciliation failed", e);
+            run.finish(BulkJobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Splits the shard list in halves until each task owns a single shard directory
+     */
+    private class ShardTask extends RecursiveAction {
+
+        private final List<String> shards;
+        private final int from;
+        private final int to;
+        private final Run run;
+        private final RatePacer pacer;
+        private final Instant cutoff;
+
+        ShardTask(List<String> shards, int from, int to, Run run, RatePacer pacer, Instant cutoff) {
+            this.shards = shards;
+            this.from = from;
+            this.to = to;
+            this.run = run;
+            this.pacer = pacer;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                checkShard(shards.get(from), run, pacer, cutoff);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ShardTask(shards, from, middle, run, pacer, cutoff),
+                    new ShardTask(shards, middle, to, run, pacer, cutoff));
+        }
+    }
+
+    private void checkShard(String shard, Run run, RatePacer pacer, Instant cutoff) {
+        int batchSize = Math.max(1, reconcilerProperties.getBatchSize());
+        List<StoredBlob> batch = new ArrayList<>(batchSize);
+
+        try (Stream<StoredBlob> blobs = fileStorageService.listShard(shard)) {
+            Iterator<StoredBlob> iterator = blobs.iterator();
+            while (iterator.hasNext()) {
+                checkInterrupted();
+                pacer.acquire();
+                StoredBlob blob = iterator.next();
+                run.filesScanned.increment();
+
+                // Content is written before its metadata, so a recently modified file may still be committed
+                if (blob.getLastModified().isAfter(cutoff)) {
+                    continue;
+                }
+
+                batch.add(blob);
+                if (batch.size() == batchSize) {
+                    checkFiles(batch, run);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            checkFiles(batch, run);
+        }
+        run.shardsScanned.increment();
+    }
+
+    private void checkFiles(List<StoredBlob> batch, Run run) {
+        // Any status counts: DELETED documents keep their content until the trash is purged
+        Query query = new Query(Criteria.where("_id").in(batch.stream().map(StoredBlob::getFileId).toList()));
+        query.fields().include("_id");
+        Set<UUID> known = mongoTemplate.find(query, FileMetadata.class).stream()
+                .map(FileMetadata::getId)
+                .collect(Collectors.toSet());
+
+        for (StoredBlob blob : batch) {
+            if (known.contains(blob.getFileId())) {
+                continue;
+            }
+
+            run.orphanFiles.increment();
+            run.orphanBytes.add(blob.getSize());
+            run.sample(run.orphanFileIds, run.orphanSamples, blob.getFileId());
+            if (run.repair && fileStorageService.deleteFile(blob.getFileId())) {
+                run.repaired.increment();
+            }
+        }
+    }
+
+    private void checkDocuments(Run run, RatePacer pacer, LocalDateTime cutoff) {
+        int batchSize = Math.max(1, reconcilerProperties.getBatchSize());
+        Query query = new Query(Criteria.where("status").in(LIVE_STATUSES).and("uploadDate").lt(cutoff));
+        query.fields().include("_id");
+        List<UUID> missing = new ArrayList<>(batchSize);
+
+        try (Stream<FileMetadata> documents = mongoTemplate.stream(query, FileMetadata.class)) {
+            Iterator<FileMetadata> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                checkInterrupted();
+                pacer.acquire();
+                UUID fileId = iterator.next().getId();
+                run.documentsScanned.increment();
+
+                if (fileStorageService.exists(fileId)) {
+                    continue;
+                }
+
+                run.missingContent.increment();
+                run.sample(run.missingContentIds, run.missingContentSamples, fileId);
+                if (run.repair) {
+                    missing.add(fileId);
+                    if (missing.size() == batchSize) {
+                        trashDocuments(missing, run);
+                        missing.clear();
+                    }
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            trashDocuments(missing, run);
+        }
+    }
+
+    private void trashDocuments(List<UUID> fileIds, Run run) {
+        // Status stays in the filter so documents deleted meanwhile keep their original deletedAt
+        long trashed = mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(fileIds).and("status").in(LIVE_STATUSES)),
+                new Update().set("status", FileStatus.DELETED).currentDate("deletedAt"), FileMetadata.class)
+                .getModifiedCount();
+        run.repaired.add(trashed);
+        duplicateCheckFilter.filesRemoved(trashed);
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Reconciliation interrupted");
+        }
+    }
+
+    /**
+     * Progress of one run, updated concurrently by the shard tasks
+     */
+    private class Run {
+
+        private final boolean repair;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final LongAdder shardsScanned = new LongAdder();
+        private final LongAdder filesScanned = new LongAdder();
+        private final LongAdder documentsScanned = new LongAdder();
+        private final LongAdder orphanFiles = new LongAdder();
+        private final LongAdder orphanBytes = new LongAdder();
+        private final LongAdder missingContent = new LongAdder();
+        private final LongAdder repaired = new LongAdder();
+        private final ConcurrentLinkedQueue<String> orphanFileIds = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<String> missingContentIds = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger orphanSamples = new AtomicInteger();
+        private final AtomicInteger missingContentSamples = new AtomicInteger();
+        private volatile BulkJobStatus status = BulkJobStatus.RUNNING;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        Run(boolean repair) {
+            this.repair = repair;
+        }
+
+        void sample(ConcurrentLinkedQueue<String> target, AtomicInteger sampled, UUID fileId) {
+            if (sampled.getAndIncrement() < reconcilerProperties.getMaxSamples()) {
+                target.add(fileId.toString());
+            }
+        }
+
+        void finish(BulkJobStatus finalStatus, String failure) {
+            error = failure;
+            finishedAt = LocalDateTime.now();
+            status = finalStatus;
+        }
+
+        ReconciliationReport toReport() {
+            return new ReconciliationReport()
+                    .setStatus(status)
+                    .setRepair(repair)
+                    .setShardsScanned(shardsScanned.sum())
+                    .setFilesScanned(filesScanned.sum())
+                    .setDocumentsScanned(documentsScanned.sum())
+                    .setOrphanFiles(orphanFiles.sum())
+                    .setOrphanBytes(orphanBytes.sum())
+                    .setMissingContent(missingContent.sum())
+                    .setRepaired(repaired.sum())
+                    .setOrphanFileIds(List.copyOf(orphanFileIds))
+                    .setMissingContentIds(List.copyOf(missingContentIds))
+                    .setStartedAt(startedAt)
+                    .setFinishedAt(finishedAt)
+                    .setError(error);
+        }
+    }
+}
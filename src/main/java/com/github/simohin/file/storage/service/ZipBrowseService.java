@@ -0,0 +1,250 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.ErrorCode;
+import com.github.simohin.file.storage.config.ArchiveProperties;
+import com.github.simohin.file.storage.dto.ArchiveEntryDto;
+import com.github.simohin.file.storage.dto.ArchiveEntryListResponse;
+import com.github.simohin.file.storage.dto.FileMetadataDto;
+import com.github.simohin.file.storage.util.ValidationUtils;
+import com.github.simohin.file.storage.util.ZipIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Lists and extracts single entries of stored ZIP archives using random access, reading only the
+ * central directory and the requested entry. Parsed directories are cached by content hash.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ZipBrowseService {
+
+    private final FileService fileService;
+    private final FileStorageService fileStorageService;
+    private final ArchiveProperties archiveProperties;
+
+    // Access ordered and bounded by the estimated size of the indexes; guarded by itself
+    private final Map<String, ZipIndex> indexCache = new LinkedHashMap<>(16, 0.75f, true);
+    private long indexCacheBytes;
+
+    public ArchiveEntryListResponse listEntries(String fileId, String userId) {
+        FileMetadataDto metadata = fileService.getReadableFileMetadata(fileId, userId);
+        ZipIndex index = getIndex(metadata);
+
+        return new ArchiveEntryListResponse()
+                .setFileId(fileId)
+                .setFilename(metadata.getFileName())
+                .setTotalEntries(index.getEntries().size())
+                .setEntries(index.getEntries().stream()
+                        .map(entry -> new ArchiveEntryDto()
+                                .setName(entry.name())
+                                .setDirectory(entry.isDirectory())
+                                .setSize(entry.size())
+                                .setCompressedSize(entry.compressedSize())
+                                .setLastModified(entry.lastModified()))
+                        .toList());
+    }
+
+    public Resource getEntry(String fileId, String userId, String entryName) {
+        ValidationUtils.validateNotEmpty(entryName, ErrorCode.ARCHIVE_ENTRY_NOT_FOUND.format(entryName));
+
+        FileMetadataDto metadata = fileService.getReadableFileMetadata(fileId, userId);
+        ZipIndex.Entry entry = getIndex(metadata).getEntry(entryName);
+        if (entry == null || entry.isDirectory()) {
+            throw new RuntimeException(ErrorCode.ARCHIVE_ENTRY_NOT_FOUND.format(entryName));
+        }
+        if (entry.encrypted()) {
+            throw new UnsupportedEntryException(ErrorCode.ARCHIVE_ENTRY_ENCRYPTED.format(entryName));
+        }
+        if (entry.method() != ZipIndex.METHOD_STORED && entry.method() != ZipIndex.METHOD_DEFLATED) {
+            throw new UnsupportedEntryException(ErrorCode.ARCHIVE_ENTRY_UNSUPPORTED.format(entry.method(), entryName));
+        }
+
+        SeekableByteChannel channel = openChannel(metadata);
+        try {
+            InputStream raw = new BoundedChannelInputStream(
+                    channel, ZipIndex.dataOffset(channel, entry), entry.compressedSize());
+            InputStream content = entry.method() == ZipIndex.METHOD_DEFLATED ? new EntryInflaterInputStream(raw) : raw;
+
+            String simpleName = entryName.substring(entryName.lastIndexOf('/') + 1);
+            return new InputStreamResource(content) {
+                @Override
+                public String getFilename() {
+                    return simpleName;
+                }
+
+                @Override
+                public long contentLength() {
+                    return entry.size();
+                }
+            };
+        } catch (IOException e) {
+            closeQuietly(channel);
+            log.error("Failed to open archive entry {} in file {}", entryName, fileId, e);
+            throw new RuntimeException("Failed to read archive entry: " + e.getMessage(), e);
+        }
+    }
+
+    private ZipIndex getIndex(FileMetadataDto metadata) {
+        ZipIndex cached;
+        synchronized (indexCache) {
+            cached = indexCache.get(metadata.getHash());
+        }
+        if (cached != null) {
+            return cached;
+        }
+
+        try (SeekableByteChannel channel = openChannel(metadata)) {
+            ZipIndex index = ZipIndex.read(channel, archiveProperties.getMaxCentralDirectorySize().toBytes());
+            cacheIndex(metadata.getHash(), index);
+            log.debug("Indexed archive {} ({} entries)", metadata.getId(), index.getEntries().size());
+            return index;
+        } catch (ZipException e) {
+            throw new IllegalArgumentException(ErrorCode.NOT_AN_ARCHIVE.format(metadata.getId()), e);
+        } catch (IOException e) {
+            log.error("Failed to read archive directory for file {}", metadata.getId(), e);
+            throw new RuntimeException("Failed to read archive: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Evicts the least recently used indexes until the cache fits its size again
+     */
+    private void cacheIndex(String hash, ZipIndex index) {
+        long maxBytes = archiveProperties.getIndexCacheSize().toBytes();
+        if (index.getRetainedSize() > maxBytes) {
+            return;
+        }
+
+        synchronized (indexCache) {
+            ZipIndex previous = indexCache.put(hash, index);
+            if (previous != null) {
+                indexCacheBytes -= previous.getRetainedSize();
+            }
+            indexCacheBytes += index.getRetainedSize();
+
+            Iterator<ZipIndex> eldest = indexCache.values().iterator();
+            while (indexCacheBytes > maxBytes && eldest.hasNext()) {
+                indexCacheBytes -= eldest.next().getRetainedSize();
+                eldest.remove();
+            }
+        }
+    }
+
+    private SeekableByteChannel openChannel(FileMetadataDto metadata) {
+        return fileStorageService.openChannel(metadata.getId())
+                .orElseThrow(() -> new RuntimeException(ErrorCode.FILE_CONTENT_NOT_FOUND.format(metadata.getId())));
+    }
+
+    private static void closeQuietly(SeekableByteChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close archive channel", e);
+        }
+    }
+
+    /**
+     * Reads a byte range of a channel and closes the channel when closed
+     */
+    private static final class BoundedChannelInputStream extends InputStream {
+        private final SeekableByteChannel channel;
+        private long position;
+        private long remaining;
+
+        private BoundedChannelInputStream(SeekableByteChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+            channel.position(position);
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("Archive entry truncated");
+            }
+
+            position += read;
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Raw deflate stream; feeds a trailing dummy byte as zlib expects in nowrap mode, like ZipFile does
+     */
+    private static final class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean eof;
+
+        private EntryInflaterInputStream(InputStream in) {
+            super(in, new Inflater(true), 8192);
+        }
+
+        @Override
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of archive entry");
+            }
+
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                inf.end();
+            }
+        }
+    }
+
+    /**
+     * An entry of a valid archive that is deliberately not served: encrypted, or compressed with a method
+     * other than stored or deflated
+     */
+    public static class UnsupportedEntryException extends RuntimeException {
+        public UnsupportedEntryException(String message) {
+            super(message);
+        }
+    }
+}
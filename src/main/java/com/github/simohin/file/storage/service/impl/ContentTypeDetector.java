@@ -0,0 +1,180 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.common.FileConstants;
+import com.github.simohin.file.storage.config.ContentTypeProperties;
+import com.github.simohin.file.storage.jfr.ContentTypeDetectionEvent;
+import com.github.simohin.file.storage.util.FastHash;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Content type detection over the leading bytes of a file. Unambiguous signatures are answered from
+ * a small magic table, everything else goes to Tika, whose answers are cached by file extension and a
+ * fingerprint of the whole sample. Sample buffers are pooled so an upload does not allocate one.
+ */
+@Slf4j
+@Component
+public class ContentTypeDetector {
+
+    static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    static final String SOURCE_MAGIC = "magic";
+    static final String SOURCE_CACHE = "cache";
+    static final String SOURCE_TIKA = "tika";
+
+    private static final int ANY = -1;
+
+    /**
+     * Only formats whose signature alone decides the type; containers such as ZIP or RIFF with
+     * specialised subtypes match only under their own extension or with none, as Tika would answer
+     */
+    private static final List<Signature> SIGNATURES = List.of(
+            new Signature(new int[]{0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, "image/png", Set.of("png")),
+            new Signature(new int[]{0xFF, 0xD8, 0xFF}, "image/jpeg", Set.of("jpg", "jpeg", "jpe", "jfif")),
+            new Signature(new int[]{'G', 'I', 'F', '8', '7', 'a'}, "image/gif", Set.of("gif")),
+            new Signature(new int[]{'G', 'I', 'F', '8', '9', 'a'}, "image/gif", Set.of("gif")),
+            new Signature(new int[]{'%', 'P', 'D', 'F', '-'}, "application/pdf", Set.of("pdf")),
+            new Signature(new int[]{'R', 'I', 'F', 'F', ANY, ANY, ANY, ANY, 'W', 'E', 'B', 'P'}, "image/webp", Set.of("webp")),
+            new Signature(new int[]{0x1F, 0x8B, 0x08}, "application/gzip", Set.of("gz")),
+            new Signature(new int[]{'P', 'K', 3, 4}, "application/zip", Set.of("zip")));
+
+    private static final Set<String> COMPOUND_EXTENSIONS = Set.of("tar.gz", "tar.bz2", "tar.xz", "tar.zst");
+
+    private final Tika tika = new Tika();
+    private final ContentTypeProperties properties;
+    private final BlockingQueue<byte[]> samples;
+    private final Map<CacheKey, String> cache;
+
+    public ContentTypeDetector(ContentTypeProperties properties) {
+        this.properties = properties;
+        this.samples = new ArrayBlockingQueue<>(Math.max(1, properties.getSamplePoolSize()));
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, String> eldest) {
+                return size() > properties.getCacheSize();
+            }
+        });
+    }
+
+    /**
+     * A buffer of {@link FileConstants#CONTENT_TYPE_SAMPLE_SIZE} bytes; hand it back with {@link #releaseSample}
+     */
+    public byte[] acquireSample() {
+        byte[] sample = samples.poll();
+        return sample != null ? sample : new byte[FileConstants.CONTENT_TYPE_SAMPLE_SIZE];
+    }
+
+    public void releaseSample(byte[] sample) {
+        samples.offer(sample);
+    }
+
+    /**
+     * Detects the type from the first {@code length} bytes of {@code sample} and the file name
+     */
+    public String detect(byte[] sample, int length, String fileName) {
+        if (length <= 0) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+
+        ContentTypeDetectionEvent event = new ContentTypeDetectionEvent();
+        event.begin();
+
+        String source = SOURCE_MAGIC;
+        String extension = extension(fileName);
+        String contentType = properties.isMagicFastPath() ? matchSignature(sample, length, extension) : null;
+
+        if (contentType == null) {
+            // Glob patterns can match a whole name (Makefile, ...), so only names with an extension are cached
+            CacheKey key = extension != null && properties.getCacheSize() > 0
+                    ? new CacheKey(extension, length, FastHash.hash64(sample, 0, length, length))
+                    : null;
+            contentType = key != null ? cache.get(key) : null;
+            source = SOURCE_CACHE;
+
+            if (contentType == null) {
+                contentType = detectWithTika(sample, length, fileName);
+                source = SOURCE_TIKA;
+                if (key != null) {
+                    cache.put(key, contentType);
+                }
+            }
+        }
+
+        event.fileName = fileName;
+        event.sampleSize = length;
+        event.contentType = contentType;
+        event.source = source;
+        event.commit();
+        return contentType;
+    }
+
+    private String detectWithTika(byte[] sample, int length, String fileName) {
+        try (ByteArrayInputStream input = new ByteArrayInputStream(sample, 0, length)) {
+            String contentType = tika.detect(input, fileName);
+            return contentType != null ? contentType : DEFAULT_CONTENT_TYPE;
+        } catch (IOException e) {
+            log.error("Failed to detect content type for file: {}", fileName, e);
+            return DEFAULT_CONTENT_TYPE;
+        }
+    }
+
+    private static String matchSignature(byte[] sample, int length, String extension) {
+        for (Signature signature : SIGNATURES) {
+            if (signature.matches(sample, length)
+                    && (extension == null || signature.extensions().contains(extension.toLowerCase(Locale.ROOT)))) {
+                return signature.contentType();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The last extension of the base name, or a known compound one, so {@code a.tar.gz} and {@code b.gz}
+     * stay apart while {@code report.v2.pdf} is a plain {@code pdf}
+     */
+    static String extension(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        int dot = name.lastIndexOf('.');
+        if (dot <= 0 || dot == name.length() - 1) {
+            return null;
+        }
+        int previous = name.lastIndexOf('.', dot - 1);
+        if (previous > 0 && COMPOUND_EXTENSIONS.contains(name.substring(previous + 1).toLowerCase(Locale.ROOT))) {
+            return name.substring(previous + 1);
+        }
+        return name.substring(dot + 1);
+    }
+
+    private record Signature(int[] magic, String contentType, Set<String> extensions) {
+
+        boolean matches(byte[] sample, int length) {
+            if (length < magic.length) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (magic[i] != ANY && (sample[i] & 0xFF) != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record CacheKey(String extension, int length, long fingerprint) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader that bypasses the page cache with {@code O_DIRECT}. Direct I/O requires the
+ * buffer address, file position and read length to be multiples of the file system block size.
+ * A caller whose buffer is already aligned, like the scrubber reusing one buffer for every file, is
+ * read into directly; other buffers are served through an aligned buffer allocated on first use.
+ */
+final class DirectIoReadChannel implements ReadableByteChannel {
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final int bufferSize;
+    private final long size;
+    private ByteBuffer aligned;
+    private long position;
+
+    private DirectIoReadChannel(FileChannel channel, int blockSize, int bufferSize) throws IOException {
+        this.channel = channel;
+        this.blockSize = blockSize;
+        this.bufferSize = bufferSize;
+        this.size = channel.size();
+    }
+
+    /**
+     * Fails with an {@link IOException} or {@link UnsupportedOperationException} when the file system
+     * does not support direct I/O
+     */
+    static DirectIoReadChannel open(Path file, int bufferSize) throws IOException {
+        int blockSize = (int) Files.getFileStore(file).getBlockSize();
+        int length = Math.max(blockSize, (bufferSize + blockSize - 1) / blockSize * blockSize);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, ExtendedOpenOption.DIRECT);
+        try {
+            return new DirectIoReadChannel(channel, blockSize, length);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if ((aligned == null || !aligned.hasRemaining()) && isAligned(dst)) {
+            return readDirect(dst);
+        }
+
+        if (aligned == null) {
+            aligned = ByteBuffer.allocateDirect(bufferSize + blockSize).alignedSlice(blockSize).flip();
+        }
+        if (!aligned.hasRemaining()) {
+            aligned.clear();
+            int read = readDirect(aligned);
+            aligned.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+
+        int count = Math.min(dst.remaining(), aligned.remaining());
+        dst.put(aligned.slice(aligned.position(), count));
+        aligned.position(aligned.position() + count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads whole blocks into an aligned buffer. A short read only happens at the end of the file,
+     * so the position stays aligned until then.
+     */
+    private int readDirect(ByteBuffer dst) throws IOException {
+        if (position >= size) {
+            return -1;
+        }
+
+        int limit = dst.limit();
+        dst.limit(dst.position() + dst.remaining() / blockSize * blockSize);
+        try {
+            int read = channel.read(dst, position);
+            if (read <= 0) {
+                return -1;
+            }
+            position += read;
+            return read;
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    private boolean isAligned(ByteBuffer dst) {
+        return dst.isDirect() && dst.remaining() >= blockSize && dst.alignmentOffset(dst.position(), blockSize) == 0;
+    }
+}
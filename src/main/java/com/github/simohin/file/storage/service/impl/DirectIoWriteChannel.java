@@ -0,0 +1,98 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential writer that bypasses the page cache with {@code O_DIRECT}. Writes are collected in an
+ * aligned buffer and issued in whole buffers at aligned positions; the tail is written padded to the
+ * block size and the file is truncated back to the bytes actually written on close.
+ */
+final class DirectIoWriteChannel implements WritableByteChannel {
+
+    private final FileChannel channel;
+    private final ByteBuffer aligned;
+    private final int blockSize;
+    private long position;
+    private boolean closed;
+
+    private DirectIoWriteChannel(FileChannel channel, ByteBuffer aligned, int blockSize) {
+        this.channel = channel;
+        this.aligned = aligned;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Creates or truncates the file. Fails with an {@link IOException} or {@link UnsupportedOperationException}
+     * when the file system does not support direct I/O.
+     */
+    static DirectIoWriteChannel open(Path file, int bufferSize) throws IOException {
+        int blockSize = (int) Files.getFileStore(file.getParent()).getBlockSize();
+        int length = Math.max(blockSize, (bufferSize + blockSize - 1) / blockSize * blockSize);
+        ByteBuffer aligned = ByteBuffer.allocateDirect(length + blockSize).alignedSlice(blockSize);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE, ExtendedOpenOption.DIRECT);
+        return new DirectIoWriteChannel(channel, aligned, blockSize);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+
+        int written = 0;
+        while (src.hasRemaining()) {
+            int count = Math.min(src.remaining(), aligned.remaining());
+            aligned.put(aligned.position(), src, src.position(), count);
+            aligned.position(aligned.position() + count);
+            src.position(src.position() + count);
+            written += count;
+
+            if (!aligned.hasRemaining()) {
+                flush(aligned.capacity());
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (channel) {
+            int tail = aligned.position();
+            if (tail > 0) {
+                int padded = (tail + blockSize - 1) / blockSize * blockSize;
+                aligned.put(tail, new byte[padded - tail]);
+                flush(padded);
+                channel.truncate(position - (padded - tail));
+            }
+        }
+    }
+
+    private void flush(int length) throws IOException {
+        aligned.position(0).limit(length);
+        while (aligned.hasRemaining()) {
+            position += channel.write(aligned, position);
+        }
+        aligned.clear();
+    }
+}
@@ -0,0 +1,248 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.common.DurabilityMode;
+import com.github.simohin.file.storage.config.DurabilityProperties;
+import com.github.simohin.file.storage.service.FileStorageMetrics;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes written uploads under their final names and forces them to disk according to the
+ * configured {@link DurabilityMode}. In group-commit mode a single flusher collects the files of
+ * concurrent uploads for a short window, forces them together, renames them, syncs every affected
+ * directory once and then releases all waiting uploads at the same time.
+ */
+@Slf4j
+@Component
+public class FileSyncer {
+
+    private final DurabilityProperties properties;
+    private final DistributionSummary groupSize;
+    private final BlockingQueue<SyncRequest> queue = new LinkedBlockingQueue<>();
+
+    private ExecutorService flusher;
+    private ExecutorService syncPool;
+    private volatile boolean stopped;
+
+    public FileSyncer(DurabilityProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.groupSize = DistributionSummary.builder(FileStorageMetrics.METRIC_PREFIX + ".sync.group.size")
+                .description("Uploads synced together by one group commit")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.getMode() != DurabilityMode.GROUP_COMMIT) {
+            return;
+        }
+
+        syncPool = Executors.newFixedThreadPool(Math.max(1, properties.getSyncThreads()),
+                new CustomizableThreadFactory("file-sync-"));
+        flusher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("group-commit-"));
+        flusher.execute(this::flushLoop);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+
+        // Publishes from now on fail instead of queueing behind a flusher that is gone
+        stopped = true;
+        // The group being committed still needs the sync pool
+        flusher.shutdownNow();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        syncPool.shutdownNow();
+    }
+
+    /**
+     * Moves a completely written temp file to its final name in one atomic rename, replacing an existing
+     * file. In the durable modes the content is forced before the rename, so the final name never points
+     * to partial content, and the directory after it, so the new name survives a power loss once this
+     * returns.
+     */
+    public void publish(Path temp, Path target) throws IOException {
+        switch (properties.getMode()) {
+            case NONE -> move(temp, target);
+            case PER_FILE -> {
+                force(temp, false);
+                move(temp, target);
+                force(target.getParent(), true);
+            }
+            case GROUP_COMMIT -> awaitGroupCommit(temp, target);
+        }
+    }
+
+    /**
+     * Whether published files are forced to disk, so that whatever they depend on must be forced as well
+     */
+    boolean isDurable() {
+        return properties.getMode() != DurabilityMode.NONE;
+    }
+
+    /**
+     * Waits at most the group-commit timeout. A request that times out while still queued is withdrawn;
+     * one the flusher already took may still be published, and the caller's cleanup treats it as failed.
+     */
+    private void awaitGroupCommit(Path temp, Path target) throws IOException {
+        if (stopped) {
+            throw new IOException("File syncer stopped");
+        }
+        SyncRequest request = new SyncRequest(temp, target, new CompletableFuture<>());
+        queue.add(request);
+        // Stopped meanwhile: the flusher's last sweep may have missed the request
+        if (stopped && queue.remove(request)) {
+            throw new IOException("File syncer stopped");
+        }
+
+        Duration timeout = properties.getGroupCommitTimeout();
+        try {
+            request.done().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            queue.remove(request);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for group commit");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Group commit failed", e.getCause());
+        } catch (TimeoutException e) {
+            queue.remove(request);
+            throw new IOException("Group commit did not complete within " + timeout);
+        }
+    }
+
+    private void flushLoop() {
+        long window = properties.getGroupCommitWindow().toNanos();
+        int maxGroupSize = Math.max(1, properties.getMaxGroupSize());
+
+        while (!Thread.currentThread().isInterrupted()) {
+            List<SyncRequest> group = new ArrayList<>();
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + window;
+                while (group.size() < maxGroupSize) {
+                    SyncRequest next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                group.forEach(request -> request.done().completeExceptionally(
+                        new InterruptedIOException("File syncer stopped")));
+                break;
+            }
+
+            commit(group);
+        }
+
+        queue.forEach(request -> request.done().completeExceptionally(new InterruptedIOException("File syncer stopped")));
+    }
+
+    private void commit(List<SyncRequest> group) {
+        groupSize.record(group.size());
+
+        // Contents first, all at once
+        List<CompletableFuture<Void>> files = new ArrayList<>(group.size());
+        for (SyncRequest request : group) {
+            files.add(CompletableFuture.runAsync(() -> forceUnchecked(request.temp(), false), syncPool)
+                    .exceptionally(e -> {
+                        request.done().completeExceptionally(unwrap(e));
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(files.toArray(CompletableFuture[]::new)).join();
+
+        // Renames are cheap; each directory is then synced once for every file of the group moved into it
+        Map<Path, List<SyncRequest>> byDirectory = new LinkedHashMap<>();
+        for (SyncRequest request : group) {
+            if (request.done().isDone()) {
+                continue;
+            }
+            try {
+                move(request.temp(), request.target());
+                byDirectory.computeIfAbsent(request.target().getParent(), directory -> new ArrayList<>()).add(request);
+            } catch (IOException e) {
+                request.done().completeExceptionally(e);
+            }
+        }
+
+        List<CompletableFuture<Void>> directories = new ArrayList<>(byDirectory.size());
+        byDirectory.forEach((directory, requests) -> directories.add(
+                CompletableFuture.runAsync(() -> forceUnchecked(directory, true), syncPool)
+                        .whenComplete((ignored, e) -> requests.forEach(request -> {
+                            if (e != null) {
+                                request.done().completeExceptionally(unwrap(e));
+                            } else {
+                                request.done().complete(null);
+                            }
+                        }))));
+        CompletableFuture.allOf(directories.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+    }
+
+    private static void move(Path temp, Path target) throws IOException {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof UncheckedIOException unchecked ? unchecked.getCause() : cause;
+    }
+
+    private static void forceUnchecked(Path path, boolean directory) {
+        try {
+            force(path, directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void force(Path path, boolean directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, directory ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+            channel.force(false);
+        } catch (IOException e) {
+            if (!directory) {
+                throw e;
+            }
+            // Some platforms cannot open or sync directories; the file content itself is durable
+            log.debug("Could not sync directory {}: {}", path, e.getMessage());
+        }
+    }
+
+    private record SyncRequest(Path temp, Path target, CompletableFuture<Void> done) {
+    }
+}
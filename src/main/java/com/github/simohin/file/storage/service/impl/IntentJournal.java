@@ -0,0 +1,241 @@
+package com.github.simohin.file.storage.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of uploads in flight, so that recovery after a crash finds their temp files without
+ * walking the storage tree. A {@code B} record is appended before an upload writes its temp file and an
+ * {@code E} record once the temp file is gone, renamed or deleted. The log is kept in segments: when the
+ * current one outgrows the segment size, the intents still open are copied into a fresh segment and the
+ * old one is dropped, so recovery reads at most one segment whatever the size of the storage.
+ * <p>
+ * In the durable modes every {@code B} record is forced before {@link #begin} returns, so a temp file
+ * that survives a crash always has its intent on disk, and a rotation forces the new segment and its
+ * directory before the old segment is deleted. {@code E} records are never forced: losing one only
+ * makes recovery look for a temp file that is already gone.
+ */
+@Slf4j
+final class IntentJournal implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Recovery deletes the named file, so only names of the form uploads use are accepted
+    private static final Pattern TEMP_NAME = Pattern.compile("[0-9a-f-]{36}\\.[0-9a-f]+\\.tmp");
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean sync;
+    private final Map<Long, Intent> open;
+    private final List<Intent> recovered;
+
+    private FileChannel channel;
+    private long segment;
+    private long nextId;
+
+    /**
+     * An upload that began and did not end: its temp file may still exist next to the file
+     */
+    record Intent(long id, UUID fileId, String tempName) {
+    }
+
+    private IntentJournal(Path directory, long segmentSize, boolean sync, long segment, Map<Long, Intent> open,
+                          long nextId) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+        this.segment = segment;
+        this.open = open;
+        this.recovered = List.copyOf(open.values());
+        this.nextId = nextId;
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed, and replays the latest segment.
+     * A record torn by a crash at the end of the segment is dropped. With {@code sync} the journal
+     * forces what recovery depends on, see the class comment.
+     */
+    static IntentJournal open(Path directory, long segmentSize, boolean sync) throws IOException {
+        Files.createDirectories(directory);
+
+        long latest = 0;
+        List<Path> stale = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                long number = segmentNumber(file);
+                if (number > latest) {
+                    latest = number;
+                }
+                stale.add(file);
+            }
+        }
+
+        Map<Long, Intent> open = new LinkedHashMap<>();
+        long maxId = 0;
+        long validLength = 0;
+        if (latest > 0) {
+            try (BufferedReader reader = Files.newBufferedReader(segmentPath(directory, latest), StandardCharsets.ISO_8859_1)) {
+                StringBuilder line = new StringBuilder();
+                int c;
+                long length = 0;
+                while ((c = reader.read()) >= 0) {
+                    length++;
+                    if (c != '\n') {
+                        line.append((char) c);
+                        continue;
+                    }
+                    maxId = Math.max(maxId, apply(line.toString(), open));
+                    line.setLength(0);
+                    validLength = length;
+                }
+            }
+        } else {
+            latest = 1;
+        }
+
+        IntentJournal journal = new IntentJournal(directory, segmentSize, sync, latest, open, maxId + 1);
+        Path current = segmentPath(directory, latest);
+        journal.channel = FileChannel.open(current, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal.channel.truncate(validLength).position(validLength);
+        if (sync) {
+            journal.channel.force(false);
+            FileSyncer.force(directory, true);
+        }
+
+        // Older segments and unfinished rotations
+        for (Path file : stale) {
+            if (!file.equals(current)) {
+                Files.deleteIfExists(file);
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Intents left open by the previous run, in the order they began
+     */
+    List<Intent> recovered() {
+        return recovered;
+    }
+
+    synchronized long begin(UUID fileId, String tempName) throws IOException {
+        Intent intent = new Intent(nextId++, fileId, tempName);
+        append("B " + intent.id() + " " + fileId + " " + tempName + "\n");
+        if (sync) {
+            channel.force(false);
+        }
+        open.put(intent.id(), intent);
+
+        if (channel.position() >= segmentSize) {
+            rotate();
+        }
+        return intent.id();
+    }
+
+    /**
+     * Failing to record the end is harmless: recovery would only look for a temp file that no longer exists
+     */
+    synchronized void end(long id) {
+        if (open.remove(id) == null) {
+            return;
+        }
+        try {
+            append("E " + id + "\n");
+        } catch (IOException e) {
+            log.warn("Failed to record the end of upload intent {}: {}", id, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(String record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.ISO_8859_1));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void rotate() throws IOException {
+        long next = segment + 1;
+        Path temp = directory.resolve(next + SEGMENT_SUFFIX + ".tmp");
+        StringBuilder records = new StringBuilder();
+        for (Intent intent : open.values()) {
+            records.append("B ").append(intent.id()).append(' ').append(intent.fileId())
+                    .append(' ').append(intent.tempName()).append('\n');
+        }
+        Files.writeString(temp, records, StandardCharsets.ISO_8859_1);
+        if (sync) {
+            FileSyncer.force(temp, false);
+        }
+        Files.move(temp, segmentPath(directory, next), StandardCopyOption.ATOMIC_MOVE);
+        if (sync) {
+            // The new segment must be reachable before the only other copy of its intents goes
+            FileSyncer.force(directory, true);
+        }
+
+        Path previous = segmentPath(directory, segment);
+        channel.close();
+        channel = FileChannel.open(segmentPath(directory, next), StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        segment = next;
+        Files.deleteIfExists(previous);
+    }
+
+    /**
+     * Returns the intent ID of the record, or 0 for an unknown one
+     */
+    private static long apply(String record, Map<Long, Intent> open) {
+        String[] fields = record.split(" ");
+        try {
+            if (fields.length == 4 && fields[0].equals("B") && TEMP_NAME.matcher(fields[3]).matches()) {
+                long id = Long.parseLong(fields[1]);
+                open.put(id, new Intent(id, UUID.fromString(fields[2]), fields[3]));
+                return id;
+            }
+            if (fields.length == 2 && fields[0].equals("E")) {
+                long id = Long.parseLong(fields[1]);
+                open.remove(id);
+                return id;
+            }
+        } catch (IllegalArgumentException e) {
+            // Fall through
+        }
+        log.warn("Skipping malformed journal record: {}", record);
+        return 0;
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SEGMENT_SUFFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(segment + SEGMENT_SUFFIX);
+    }
+}
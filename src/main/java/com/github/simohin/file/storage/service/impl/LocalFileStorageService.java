@@ -1,85 +1,258 @@
 package com.github.simohin.file.storage.service.impl;
 
-import com.github.simohin.file.storage.common.FileConstants;
+import com.github.simohin.file.storage.common.HashAlgorithm;
+import com.github.simohin.file.storage.common.OperationStage;
+import com.github.simohin.file.storage.config.DirectIoProperties;
+import com.github.simohin.file.storage.config.HashingProperties;
+import com.github.simohin.file.storage.config.ReplicationProperties;
+import com.github.simohin.file.storage.config.StripingProperties;
 import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.dto.StoredBlob;
+import com.github.simohin.file.storage.jfr.HashEvent;
+import com.github.simohin.file.storage.service.FileStorageMetrics;
 import com.github.simohin.file.storage.service.FileStorageService;
+import com.github.simohin.file.storage.util.BufferPool;
+import com.github.simohin.file.storage.util.FastHash;
+import com.github.simohin.file.storage.util.TreeHash;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.security.DigestInputStream;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LocalFileStorageService implements FileStorageService {
 
-    private final Tika tika = new Tika();
+    private static final Pattern SHARD_NAME = Pattern.compile("[0-9a-f]{2}");
+    private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}");
+
+    // Part of the fingerprint definition: changing it changes every quick hash
+    private static final int QUICK_HASH_SAMPLE_SIZE = 64 * 1024;
+
+    // Bounds what recovery reads at startup: one segment of upload intents
+    private static final long JOURNAL_SEGMENT_SIZE = 4 * 1024 * 1024;
+    private static final String JOURNAL_DIRECTORY = ".journal";
+
+    private final FileStorageMetrics fileStorageMetrics;
+    private final HashingProperties hashingProperties;
+    private final ContentTypeDetector contentTypeDetector;
+    private final BufferPool bufferPool;
+    private final DirectIoProperties directIoProperties;
+    private final FileSyncer fileSyncer;
+    private final StripingProperties stripingProperties;
+    private final ReplicationProperties replicationProperties;
 
     @Value("${app.file-storage.path:./storage}")
     private String storagePath;
 
+    private volatile boolean directIoSupported = true;
+    private ExecutorService hashExecutor;
+    private StorageVolumes volumes;
+    private ExecutorService replicaExecutor;
+    private ScheduledExecutorService repairExecutor;
+
+    // Files with fewer copies than configured, waiting for the re-replication job
+    private final Set<UUID> degraded = ConcurrentHashMap.newKeySet();
+    // Files with copies being written by uploads or re-replication, retired by deleteFile
+    private final Map<UUID, CopyGeneration> copyGenerations = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
-        try {
-            Path storageDir = Paths.get(storagePath);
-            if (!Files.exists(storageDir)) {
-                Files.createDirectories(storageDir);
-                log.info("Created storage directory: {}", storageDir.toAbsolutePath());
+        List<StorageVolumes.Volume> roots = new ArrayList<>();
+        if (stripingProperties.getVolumes().isEmpty()) {
+            roots.add(new StorageVolumes.Volume(Paths.get(storagePath), 1.0));
+        } else {
+            for (StripingProperties.Volume volume : stripingProperties.getVolumes()) {
+                roots.add(new StorageVolumes.Volume(Paths.get(volume.getPath()), volume.getWeight()));
+            }
+        }
+        int replicas = replicationProperties.getReplicas();
+        if (replicas < 1 || replicas > roots.size()) {
+            throw new IllegalArgumentException("Replicas must be between 1 and the number of volumes (" + roots.size()
+                    + "): " + replicas);
+        }
+        if (replicationProperties.getWriteQuorum() < 1 || replicationProperties.getWriteQuorum() > replicas) {
+            throw new IllegalArgumentException("Write quorum must be between 1 and the number of replicas (" + replicas
+                    + "): " + replicationProperties.getWriteQuorum());
+        }
+        volumes = new StorageVolumes(roots, stripingProperties.getMinFreeSpace().toBytes(),
+                stripingProperties.getFreeSpaceRefresh().toNanos(), replicationProperties.getFailureCooldown().toNanos());
+
+        for (StorageVolumes.Volume volume : volumes.all()) {
+            try {
+                Path storageDir = volume.root();
+                if (!Files.exists(storageDir)) {
+                    Files.createDirectories(storageDir);
+                    log.info("Created storage directory: {}", storageDir.toAbsolutePath());
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create storage directory", e);
+            }
+
+            try {
+                volume.journal(IntentJournal.open(volume.root().resolve(JOURNAL_DIRECTORY), JOURNAL_SEGMENT_SIZE,
+                        fileSyncer.isDurable()));
+                recoverInterruptedUploads(volume);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open upload journal", e);
+            }
+        }
+
+        if (hashingProperties.getAlgorithm() == HashAlgorithm.SHA_256_TREE) {
+            hashExecutor = Executors.newFixedThreadPool(Math.max(1, hashingProperties.getParallelism()),
+                    new CustomizableThreadFactory("tree-hash-"));
+        }
+
+        if (replicas > 1) {
+            // One writer per copy for the length of an upload; uploads are already bounded by the request threads
+            replicaExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("replica-writer-"));
+            repairExecutor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("re-replication-"));
+            long interval = replicationProperties.getRepairInterval().toMillis();
+            repairExecutor.scheduleWithFixedDelay(this::repairDegraded, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hashExecutor != null) {
+            hashExecutor.shutdownNow();
+        }
+        if (repairExecutor != null) {
+            repairExecutor.shutdownNow();
+        }
+        if (replicaExecutor != null) {
+            // Copies outside the quorum finish from memory before their journals close
+            replicaExecutor.shutdown();
+            try {
+                replicaExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (volumes == null) {
+            return;
+        }
+        for (StorageVolumes.Volume volume : volumes.all()) {
+            if (volume.journal() == null) {
+                continue;
+            }
+            try {
+                volume.journal().close();
+            } catch (IOException e) {
+                log.warn("Failed to close upload journal of {}: {}", volume.root(), e.getMessage());
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to create storage directory", e);
         }
     }
 
     @Override
-    public FileStorageResult saveFile(UUID fileId, InputStream inputStream, String originalFileName) {
+    public FileStorageResult saveFile(UUID fileId, InputStream inputStream, String originalFileName, long expectedSize) {
         log.info("Saving file with ID: {} and original name: {}", fileId, originalFileName);
 
         try {
-            // Create organized directory structure
-            Path filePath = getFilePath(fileId);
-            Path parentDir = filePath.getParent();
-            if (!Files.exists(parentDir)) {
-                Files.createDirectories(parentDir);
-            }
-
-            // Use streaming approach for large files - calculate hash while saving
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            HashAlgorithm algorithm = hashingProperties.getAlgorithm();
+            String hash;
             long fileSize;
-
-            try (BufferedInputStream bufferedInput = new BufferedInputStream(inputStream);
-                 DigestInputStream digestInput = new DigestInputStream(bufferedInput, digest)) {
-
-                // Save file while calculating hash in a single pass
-                fileSize = Files.copy(digestInput, filePath, StandardCopyOption.REPLACE_EXISTING);
+            String contentType;
+            Path filePath;
+
+            byte[] sample = contentTypeDetector.acquireSample();
+            // Every copy is written under a temp name and renamed when complete, so a crash never leaves
+            // partial content under the file's name; the volume's journal lets recovery find the temp file
+            try (ReplicatedWrite<VolumeReplica> output = openReplicas(fileId, expectedSize)) {
+                // Detect from the head of the upload before it is written, instead of reading it back from disk
+                int sampled = inputStream.readNBytes(sample, 0, sample.length);
+                long stageStart = fileStorageMetrics.start();
+                contentType = contentTypeDetector.detect(sample, sampled, originalFileName);
+                fileStorageMetrics.recordStage(OperationStage.CONTENT_TYPE_DETECTION, stageStart);
+
+                InputStream content = new SequenceInputStream(new ByteArrayInputStream(sample, 0, sampled), inputStream);
+                // available() is the remaining size for file and memory backed uploads
+                long sizeHint = expectedSize > 0 ? expectedSize : sampled + (long) inputStream.available();
+
+                stageStart = fileStorageMetrics.start();
+                if (algorithm == HashAlgorithm.SHA_256_TREE) {
+                    // Leaves are written in order and hashed on the shared pool while the next ones are read
+                    try (InputStream input = content) {
+                        TreeHash.Result result = TreeHash.parallel(input, Channels.newOutputStream(output),
+                                hashExecutor, hashingProperties.getMaxInFlightLeaves(), bufferPool);
+                        hash = result.hash();
+                        fileSize = result.size();
+                    }
+                } else {
+                    // Save file while calculating hash in a single pass
+                    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                    try (InputStream input = content) {
+                        fileSize = copyAndDigest(input, output, digest, sizeHint);
+                    }
+                    hash = HexFormat.of().formatHex(digest.digest());
+                }
+                fileStorageMetrics.recordStage(OperationStage.COPY, stageStart);
+
+                // Acknowledge only once the write quorum is published and durable, as configured
+                stageStart = fileStorageMetrics.start();
+                filePath = output.commit().filePath;
+                fileStorageMetrics.recordStage(OperationStage.SYNC, stageStart);
+            } finally {
+                contentTypeDetector.releaseSample(sample);
             }
 
-            String hash = HexFormat.of().formatHex(digest.digest());
-
-            // Detect content type using a small sample from the saved file
-            String contentType = detectContentTypeFromFile(filePath, originalFileName);
+            String quickHash = null;
+            if (fileSize >= hashingProperties.getQuickHashThreshold().toBytes()) {
+                try (InputStream savedInput = Files.newInputStream(filePath)) {
+                    quickHash = calculateQuickHash(savedInput, fileSize);
+                }
+            }
 
             log.info("File saved successfully: {} (size: {} bytes)", filePath.toAbsolutePath(), fileSize);
 
             return new FileStorageResult()
                     .setHash(hash)
+                    .setHashAlgorithm(algorithm)
+                    .setQuickHash(quickHash)
                     .setSize(fileSize)
                     .setContentType(contentType);
 
@@ -93,33 +266,109 @@ public class LocalFileStorageService implements FileStorageService {
     public Optional<InputStream> getFile(UUID fileId) {
         log.debug("Getting file with ID: {}", fileId);
 
-        try {
-            Path filePath = getFilePath(fileId);
-            if (!Files.exists(filePath)) {
-                log.warn("File not found: {}", filePath.toAbsolutePath());
-                return Optional.empty();
+        Optional<InputStream> input = openCopy(fileId, filePath -> {
+            if (isDirectIoCandidate(Files.size(filePath))) {
+                try {
+                    return Channels.newInputStream(DirectIoReadChannel.open(filePath,
+                            (int) directIoProperties.getBufferSize().toBytes()));
+                } catch (NoSuchFileException e) {
+                    throw e;
+                } catch (IOException | UnsupportedOperationException e) {
+                    directIoUnsupported(filePath, e);
+                }
             }
+            return Files.newInputStream(filePath);
+        });
 
-            return Optional.of(Files.newInputStream(filePath));
+        if (input.isEmpty()) {
+            log.warn("File not found: {}", fileId);
+        }
+        return input;
+    }
 
-        } catch (IOException e) {
-            log.error("Failed to read file with ID: {}", fileId, e);
+    @Override
+    public Optional<SeekableByteChannel> openChannel(UUID fileId) {
+        log.debug("Opening channel for file with ID: {}", fileId);
+
+        Optional<SeekableByteChannel> channel = openCopy(fileId,
+                filePath -> Files.newByteChannel(filePath, StandardOpenOption.READ));
+
+        if (channel.isEmpty()) {
+            log.warn("File not found: {}", fileId);
+        }
+        return channel;
+    }
+
+    @Override
+    public List<String> listCopies(UUID fileId) {
+        return volumes.copies(fileId).stream()
+                .map(volume -> volume.root().toString())
+                .toList();
+    }
+
+    @Override
+    public Optional<ReadableByteChannel> openSequentialChannel(UUID fileId, String copy, int bufferSize,
+                                                               boolean directIo) throws IOException {
+        Path filePath = volume(copy).filePath(fileId);
+        try {
+            if (directIo && directIoSupported) {
+                try {
+                    return Optional.of(DirectIoReadChannel.open(filePath, bufferSize));
+                } catch (NoSuchFileException e) {
+                    throw e;
+                } catch (IOException | UnsupportedOperationException e) {
+                    directIoUnsupported(filePath, e);
+                }
+            }
+            return Optional.of(Files.newByteChannel(filePath, StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
             return Optional.empty();
         }
     }
 
+    @Override
+    public boolean discardCopy(UUID fileId, String copy) {
+        Path filePath = volume(copy).filePath(fileId);
+        try {
+            if (!Files.deleteIfExists(filePath)) {
+                return false;
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete the copy of {} on {}", fileId, copy, e);
+            return false;
+        }
+
+        log.warn("Discarded the copy of {} on {}", fileId, copy);
+        if (replicationProperties.getReplicas() > 1) {
+            degraded.add(fileId);
+        }
+        return true;
+    }
+
     @Override
     public boolean deleteFile(UUID fileId) {
         log.info("Deleting file with ID: {}", fileId);
 
+        // Copies still being written are discarded instead of bringing the file back after it is gone
+        CopyGeneration generation = copyGenerations.remove(fileId);
+        if (generation != null) {
+            generation.retire().forEach(ReplicatedWrite::cancel);
+        }
+
         try {
-            Path filePath = getFilePath(fileId);
-            boolean deleted = Files.deleteIfExists(filePath);
+            // Every copy, wherever placement put it
+            boolean deleted = false;
+            for (StorageVolumes.Volume volume : volumes.all()) {
+                Path filePath = volume.filePath(fileId);
+                if (Files.deleteIfExists(filePath)) {
+                    log.info("File deleted successfully: {}", filePath.toAbsolutePath());
+                    deleted = true;
+                }
+            }
+            degraded.remove(fileId);
 
-            if (deleted) {
-                log.info("File deleted successfully: {}", filePath.toAbsolutePath());
-            } else {
-                log.warn("File not found for deletion: {}", filePath.toAbsolutePath());
+            if (!deleted) {
+                log.warn("File not found for deletion: {}", fileId);
             }
 
             return deleted;
@@ -131,66 +380,107 @@ public class LocalFileStorageService implements FileStorageService {
     }
 
     @Override
-    public String detectContentType(InputStream inputStream, String fileName) {
-        try {
-            // Read only a small sample for content type detection to avoid memory issues with large files
-            byte[] sample = new byte[FileConstants.CONTENT_TYPE_SAMPLE_SIZE];
-
-            // Mark the stream so we can read the sample and reset
-            if (inputStream.markSupported()) {
-                inputStream.mark(sample.length);
-                int bytesRead = inputStream.read(sample);
-                inputStream.reset();
+    public boolean exists(UUID fileId) {
+        return Files.isRegularFile(volumes.locate(fileId));
+    }
 
-                if (bytesRead <= 0) {
-                    return "application/octet-stream";
+    @Override
+    public List<String> listShards() {
+        // Every volume has its own copy of the shard tree
+        SortedSet<String> shards = new TreeSet<>();
+        for (StorageVolumes.Volume volume : volumes.all()) {
+            for (Path level1 : listShardDirectories(volume.root())) {
+                for (Path level2 : listShardDirectories(level1)) {
+                    shards.add(level1.getFileName() + "/" + level2.getFileName());
                 }
+            }
+        }
+        return List.copyOf(shards);
+    }
 
-                // Use only the bytes that were actually read
-                byte[] actualSample = bytesRead < sample.length ?
-                        java.util.Arrays.copyOf(sample, bytesRead) : sample;
+    @Override
+    public Stream<StoredBlob> listShard(String shard) {
+        if (shard == null || !SHARD.matcher(shard).matches()) {
+            throw new IllegalArgumentException("Invalid shard: " + shard);
+        }
 
-                return detectContentTypeFromBytes(actualSample, fileName);
-            } else {
-                // If mark is not supported, wrap in BufferedInputStream
-                try (BufferedInputStream bufferedInput = new BufferedInputStream(inputStream)) {
-                    bufferedInput.mark(sample.length);
-                    int bytesRead = bufferedInput.read(sample);
-                    bufferedInput.reset();
-
-                    if (bytesRead <= 0) {
-                        return "application/octet-stream";
+        return volumes.all().stream()
+                .map(volume -> volume.root().resolve(shard))
+                .filter(Files::isDirectory)
+                .flatMap(directory -> {
+                    try {
+                        return Files.list(directory);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to list shard " + shard, e);
                     }
+                })
+                .map(this::toStoredBlob)
+                .flatMap(Optional::stream);
+    }
+
+    @Override
+    public String detectContentType(InputStream inputStream, String fileName) {
+        byte[] sample = contentTypeDetector.acquireSample();
+        try {
+            // Read only a small sample and reset, so the caller can still consume the whole stream
+            InputStream input = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+            input.mark(sample.length);
+            int bytesRead = input.readNBytes(sample, 0, sample.length);
+            input.reset();
 
-                    byte[] actualSample = bytesRead < sample.length ?
-                            java.util.Arrays.copyOf(sample, bytesRead) : sample;
+            return contentTypeDetector.detect(sample, bytesRead, fileName);
 
-                    return detectContentTypeFromBytes(actualSample, fileName);
-                }
-            }
         } catch (IOException e) {
             log.error("Failed to detect content type for file: {}", fileName, e);
             return "application/octet-stream";
+        } finally {
+            contentTypeDetector.releaseSample(sample);
         }
     }
 
     @Override
     public String calculateHash(InputStream inputStream) {
+        HashEvent event = new HashEvent();
+        event.begin();
+
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (hashingProperties.getAlgorithm() == HashAlgorithm.SHA_256_TREE) {
+                TreeHash.Result result;
+                try (InputStream input = inputStream) {
+                    result = TreeHash.parallel(input, null, hashExecutor, hashingProperties.getMaxInFlightLeaves(),
+                            bufferPool);
+                }
 
-            // Use streaming approach for large files
-            try (BufferedInputStream bufferedInput = new BufferedInputStream(inputStream);
-                 DigestInputStream digestInput = new DigestInputStream(bufferedInput, digest)) {
+                event.algorithm = HashAlgorithm.SHA_256_TREE.name();
+                event.size = result.size();
+                event.commit();
+                return result.hash();
+            }
 
-                // Read the stream in chunks to calculate hash without loading entire file into memory
-                byte[] buffer = new byte[FileConstants.CONTENT_TYPE_SAMPLE_SIZE];
-                while (digestInput.read(buffer) != -1) {
-                    // Just consuming the stream to calculate the hash
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long hashed = 0;
+
+            // Read the stream in chunks to calculate hash without loading entire file into memory
+            try (InputStream input = inputStream) {
+                ByteBuffer buffer = bufferPool.acquire(input.available());
+                try {
+                    byte[] array = buffer.array();
+                    int read;
+                    while ((read = input.readNBytes(array, 0, array.length)) > 0) {
+                        digest.update(array, 0, read);
+                        hashed += read;
+                    }
+                } finally {
+                    bufferPool.release(buffer);
                 }
             }
 
-            return HexFormat.of().formatHex(digest.digest());
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            event.algorithm = digest.getAlgorithm();
+            event.size = hashed;
+            event.commit();
+            return hash;
 
         } catch (IOException | NoSuchAlgorithmException e) {
             log.error("Failed to calculate hash", e);
@@ -198,57 +488,451 @@ public class LocalFileStorageService implements FileStorageService {
         }
     }
 
-    private Path getFilePath(UUID fileId) {
-        // Create organized directory structure: first 2 chars / next 2 chars / fileId
-        String fileIdStr = fileId.toString();
-        String level1 = fileIdStr.substring(0, 2);
-        String level2 = fileIdStr.substring(2, 4);
-        return Paths.get(storagePath, level1, level2, fileIdStr);
+    @Override
+    public String calculateQuickHash(InputStream inputStream, long size) {
+        try (InputStream input = inputStream) {
+            byte[] sample;
+            if (size <= 3L * QUICK_HASH_SAMPLE_SIZE) {
+                sample = input.readNBytes((int) size);
+            } else {
+                // Start, middle and end of the content; skipping is a seek on file-backed streams
+                long middleStart = size / 2 - QUICK_HASH_SAMPLE_SIZE / 2;
+                sample = new byte[3 * QUICK_HASH_SAMPLE_SIZE];
+                input.readNBytes(sample, 0, QUICK_HASH_SAMPLE_SIZE);
+                input.skipNBytes(middleStart - QUICK_HASH_SAMPLE_SIZE);
+                input.readNBytes(sample, QUICK_HASH_SAMPLE_SIZE, QUICK_HASH_SAMPLE_SIZE);
+                input.skipNBytes(size - QUICK_HASH_SAMPLE_SIZE - (middleStart + QUICK_HASH_SAMPLE_SIZE));
+                input.readNBytes(sample, 2 * QUICK_HASH_SAMPLE_SIZE, QUICK_HASH_SAMPLE_SIZE);
+            }
+
+            HexFormat hex = HexFormat.of();
+            return hex.toHexDigits(size) + hex.toHexDigits(FastHash.hash64(sample, 0, sample.length, 0));
+
+        } catch (IOException e) {
+            log.error("Failed to calculate quick hash", e);
+            throw new RuntimeException("Failed to calculate quick hash", e);
+        }
+    }
+
+    /**
+     * Opens the first copy that opens, on healthy volumes first. A copy that fails to open marks its
+     * volume as failing and, with replication, queues the file for re-replication.
+     */
+    private <T> Optional<T> openCopy(UUID fileId, CopyOpener<T> opener) {
+        for (StorageVolumes.Volume volume : volumes.readOrder(fileId)) {
+            Path filePath = volume.filePath(fileId);
+            if (!Files.exists(filePath)) {
+                continue;
+            }
+
+            try {
+                return Optional.of(opener.open(filePath));
+            } catch (NoSuchFileException e) {
+                // Deleted between the check and the open
+            } catch (IOException e) {
+                log.error("Failed to read file with ID: {} from {}", fileId, volume.root(), e);
+                volumes.markFailed(volume);
+                if (replicationProperties.getReplicas() > 1) {
+                    degraded.add(fileId);
+                }
+            }
+        }
+        return Optional.empty();
     }
 
-    private String calculateHashFromBytes(byte[] fileBytes) {
+    private StorageVolumes.Volume volume(String copy) {
+        return volumes.all().stream()
+                .filter(volume -> volume.root().toString().equals(copy))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown storage volume: " + copy));
+    }
+
+    private ReplicatedWrite<VolumeReplica> openReplicas(UUID fileId, long expectedSize) throws IOException {
+        int replicas = replicationProperties.getReplicas();
+        int writeQuorum = replicationProperties.getWriteQuorum();
+
+        CopyGeneration generation = beginCopies(fileId);
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(fileBytes);
-            return HexFormat.of().formatHex(hashBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
+            List<VolumeReplica> opened = new ArrayList<>(replicas);
+            for (StorageVolumes.Volume volume : volumes.place(fileId, expectedSize, replicas)) {
+                try {
+                    opened.add(new VolumeReplica(fileId, volume, expectedSize, generation));
+                } catch (IOException e) {
+                    if (replicas == 1) {
+                        throw e;
+                    }
+                    log.warn("Failed to open a copy of {} on {}: {}", fileId, volume.root(), e.getMessage());
+                    volumes.markFailed(volume);
+                }
+            }
+
+            if (opened.size() < writeQuorum) {
+                opened.forEach(VolumeReplica::discard);
+                throw new IOException("Only " + opened.size() + " of " + writeQuorum + " required copies could be opened");
+            }
+            if (opened.size() < replicas) {
+                degraded.add(fileId);
+            }
+
+            ReplicatedWrite<VolumeReplica> write = new ReplicatedWrite<>(opened, writeQuorum,
+                    replicationProperties.getMaxReplicaLag().toBytes(), expectedSize, bufferPool, replicaExecutor,
+                    replica -> {
+                        log.warn("Copy of {} on {} was not written, queued for re-replication", fileId, replica);
+                        degraded.add(fileId);
+                    });
+            generation.track(write);
+            return write;
+        } finally {
+            endCopies(fileId, generation);
         }
     }
 
-    private String detectContentTypeFromBytes(byte[] fileBytes, String fileName) {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(fileBytes)) {
-            String contentType = tika.detect(bais, fileName);
-            return contentType != null ? contentType : "application/octet-stream";
+    /**
+     * Joins the copies of the file being written, or starts a generation of them. The caller holds the
+     * generation until its replicas are created, each of which holds it until published or discarded.
+     */
+    private CopyGeneration beginCopies(UUID fileId) {
+        return copyGenerations.compute(fileId, (id, current) -> (current != null ? current : new CopyGeneration()).retain());
+    }
+
+    private void joinCopies(UUID fileId, CopyGeneration generation) {
+        copyGenerations.computeIfPresent(fileId, (id, current) -> current == generation ? current.retain() : current);
+    }
+
+    private void endCopies(UUID fileId, CopyGeneration generation) {
+        copyGenerations.computeIfPresent(fileId, (id, current) -> current == generation && current.release() ? null : current);
+    }
+
+    /**
+     * Restores the missing copies of degraded files from a copy that is still there
+     */
+    private void repairDegraded() {
+        for (UUID fileId : List.copyOf(degraded)) {
+            try {
+                if (repair(fileId)) {
+                    degraded.remove(fileId);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Re-replication of {} failed, retrying in the next pass: {}", fileId, e.getMessage());
+            }
+        }
+    }
+
+    private boolean repair(UUID fileId) throws IOException {
+        // Joined before the holders are listed, so a delete after that discards the copies made from them
+        CopyGeneration generation = beginCopies(fileId);
+        try {
+            List<StorageVolumes.Volume> holders = volumes.copies(fileId);
+            int missing = replicationProperties.getReplicas() - holders.size();
+            if (holders.isEmpty() || missing <= 0) {
+                // Deleted meanwhile, or complete again
+                return true;
+            }
+
+            Path source = holders.get(0).filePath(fileId);
+            long size = Files.size(source);
+            for (StorageVolumes.Volume target : volumes.place(fileId, size, volumes.all().size())) {
+                if (missing == 0) {
+                    break;
+                }
+                if (holders.contains(target)) {
+                    continue;
+                }
+
+                VolumeReplica replica = new VolumeReplica(fileId, target, size, generation);
+                try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ)) {
+                    long position = 0;
+                    while (position < size) {
+                        position += input.transferTo(position, size - position, replica.channel());
+                    }
+                    replica.channel().close();
+                    replica.publish();
+                } catch (IOException | RuntimeException e) {
+                    replica.discard();
+                    if (generation.isRetired()) {
+                        return true;
+                    }
+                    throw e;
+                }
+                missing--;
+                log.info("Re-replicated file {} from {} to {}", fileId, holders.get(0).root(), target.root());
+            }
+            return missing == 0;
+        } finally {
+            endCopies(fileId, generation);
+        }
+    }
+
+    /**
+     * Deletes the temp files of uploads a crash interrupted. Only the journal is read, not the storage
+     * tree; a temp file whose deletion fails stays in the journal for the next start.
+     */
+    private void recoverInterruptedUploads(StorageVolumes.Volume volume) {
+        List<IntentJournal.Intent> interrupted = volume.journal().recovered();
+        if (interrupted.isEmpty()) {
+            return;
+        }
+
+        int discarded = 0;
+        for (IntentJournal.Intent intent : interrupted) {
+            Path tempPath = volume.filePath(intent.fileId()).resolveSibling(intent.tempName());
+            if (discardTemp(tempPath)) {
+                volume.journal().end(intent.id());
+                discarded++;
+            }
+        }
+        log.info("Recovered {} interrupted uploads from the journal of {}", discarded, volume.root());
+    }
+
+    private boolean discardTemp(Path tempPath) {
+        try {
+            Files.deleteIfExists(tempPath);
+            return true;
         } catch (IOException e) {
-            log.error("Failed to detect content type for file: {}", fileName, e);
-            return "application/octet-stream";
+            log.warn("Failed to delete temp file {}: {}", tempPath, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Uploads whose declared size reaches the threshold are written with O_DIRECT
+     */
+    private WritableByteChannel openForWrite(Path filePath, long expectedSize) throws IOException {
+        if (isDirectIoCandidate(expectedSize)) {
+            try {
+                return DirectIoWriteChannel.open(filePath, (int) directIoProperties.getBufferSize().toBytes());
+            } catch (IOException | UnsupportedOperationException e) {
+                directIoUnsupported(filePath, e);
+            }
         }
+        return FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+    }
+
+    private boolean isDirectIoCandidate(long size) {
+        return directIoProperties.isEnabled() && directIoSupported
+                && size >= directIoProperties.getThreshold().toBytes();
     }
 
-    private String detectContentTypeFromFile(Path filePath, String fileName) {
+    private void directIoUnsupported(Path filePath, Exception e) {
+        // Checked once for all volumes, which are expected to use the same file system type
+        directIoSupported = false;
+        log.warn("Direct I/O is not supported for {}, falling back to buffered I/O: {}",
+                filePath.getParent().toAbsolutePath(), e.getMessage());
+    }
+
+    /**
+     * Fills a pooled buffer from the stream before each write, so large uploads are written in
+     * buffer-sized chunks whatever sizes the source delivers
+     */
+    private long copyAndDigest(InputStream input, WritableByteChannel channel, MessageDigest digest,
+                               long expectedSize) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire(expectedSize);
         try {
-            // Read only a small sample for content type detection to avoid memory issues
-            byte[] sample = new byte[FileConstants.CONTENT_TYPE_SAMPLE_SIZE];
-            int bytesRead;
+            byte[] array = buffer.array();
+            long copied = 0;
+            int read;
+            while ((read = input.readNBytes(array, 0, array.length)) > 0) {
+                digest.update(array, 0, read);
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                copied += read;
+            }
+            return copied;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
 
-            try (InputStream fileInput = Files.newInputStream(filePath)) {
-                bytesRead = fileInput.read(sample);
+    private List<Path> listShardDirectories(Path parent) {
+        if (!Files.isDirectory(parent)) {
+            return List.of();
+        }
+
+        try (Stream<Path> children = Files.list(parent)) {
+            return children.filter(child -> SHARD_NAME.matcher(child.getFileName().toString()).matches())
+                    .filter(Files::isDirectory)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list " + parent, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CopyOpener<T> {
+        T open(Path filePath) throws IOException;
+    }
+
+    /**
+     * Copies of one file being written, counted so the entry goes away with the last of them. Once the
+     * file is deleted the generation is retired: its copies are discarded instead of published, and a copy
+     * published while the delete ran removes itself again.
+     */
+    private static final class CopyGeneration {
+
+        // Guarded by copyGenerations' compute
+        private int copies;
+        // Guarded by this
+        private final List<ReplicatedWrite<?>> writes = new ArrayList<>();
+        private boolean retired;
+
+        private CopyGeneration retain() {
+            copies++;
+            return this;
+        }
+
+        /**
+         * Returns whether this was the last copy
+         */
+        private boolean release() {
+            return --copies == 0;
+        }
+
+        private synchronized void track(ReplicatedWrite<?> write) {
+            if (retired) {
+                write.cancel();
+            } else {
+                writes.add(write);
+            }
+        }
+
+        private synchronized List<ReplicatedWrite<?>> retire() {
+            retired = true;
+            List<ReplicatedWrite<?>> inFlight = List.copyOf(writes);
+            writes.clear();
+            return inFlight;
+        }
+
+        private synchronized boolean isRetired() {
+            return retired;
+        }
+    }
+
+    /**
+     * One copy of an upload, written to a temp file on its volume that the volume's journal records
+     */
+    private final class VolumeReplica implements ReplicatedWrite.Replica {
+
+        private final UUID fileId;
+        private final StorageVolumes.Volume volume;
+        private final CopyGeneration generation;
+        private final Path filePath;
+        private final Path tempPath;
+        private final long intent;
+        private final WritableByteChannel channel;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private VolumeReplica(UUID fileId, StorageVolumes.Volume volume, long expectedSize,
+                              CopyGeneration generation) throws IOException {
+            this.fileId = fileId;
+            this.volume = volume;
+            this.generation = generation;
+            this.filePath = volume.filePath(fileId);
+            Path parentDir = filePath.getParent();
+            if (!Files.exists(parentDir)) {
+                Files.createDirectories(parentDir);
+            }
+
+            this.tempPath = parentDir.resolve(fileId + "." + HexFormat.of().toHexDigits(
+                    ThreadLocalRandom.current().nextLong()) + ".tmp");
+            this.intent = volume.journal().begin(fileId, tempPath.getFileName().toString());
+            try {
+                this.channel = openForWrite(tempPath, expectedSize);
+            } catch (IOException | RuntimeException e) {
+                if (discardTemp(tempPath)) {
+                    volume.journal().end(intent);
+                }
+                throw e;
+            }
+            joinCopies(fileId, generation);
+        }
+
+        @Override
+        public WritableByteChannel channel() {
+            return channel;
+        }
+
+        @Override
+        public void publish() throws IOException {
+            // Not held across the publish, which may wait for a group commit: a delete must not wait with it
+            if (generation.isRetired()) {
+                throw new IOException("File " + fileId + " was deleted while its copy was written");
+            }
+            fileSyncer.publish(tempPath, filePath);
+            if (generation.isRetired()) {
+                // The delete may have swept this volume before the rename
+                Files.deleteIfExists(filePath);
+                throw new IOException("File " + fileId + " was deleted while its copy was written");
             }
+            volume.journal().end(intent);
+            finish();
+        }
 
-            if (bytesRead <= 0) {
-                return "application/octet-stream";
+        @Override
+        public void discard() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Deleted below
+            }
+            if (discardTemp(tempPath)) {
+                volume.journal().end(intent);
             }
+            finish();
+        }
 
-            // Use only the bytes that were actually read
-            byte[] actualSample = bytesRead < sample.length ?
-                    java.util.Arrays.copyOf(sample, bytesRead) : sample;
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                endCopies(fileId, generation);
+            }
+        }
 
-            return detectContentTypeFromBytes(actualSample, fileName);
+        @Override
+        public String toString() {
+            return volume.root().toString();
+        }
+    }
+
+    /**
+     * Anything that is not a regular file named after a file ID (leftovers of other tools, directories) is skipped
+     */
+    private Optional<StoredBlob> toStoredBlob(Path file) {
+        String name = file.getFileName().toString();
+        UUID fileId;
+        try {
+            fileId = UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!fileId.toString().equals(name)) {
+            return Optional.empty();
+        }
 
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return Optional.empty();
+            }
+            return Optional.of(new StoredBlob()
+                    .setFileId(fileId)
+                    .setSize(attributes.size())
+                    .setLastModified(attributes.lastModifiedTime().toInstant()));
         } catch (IOException e) {
-            log.error("Failed to detect content type from file: {}", fileName, e);
-            return "application/octet-stream";
+            // Deleted between listing and reading attributes
+            return Optional.empty();
+        }
+    }
+
+    private String calculateHashFromBytes(byte[] fileBytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashBytes = digest.digest(fileBytes);
+            return HexFormat.of().formatHex(hashBytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,410 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.util.BufferPool;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Tee of one upload into the replicas of a file. The upload is read once; every chunk is copied into a
+ * pooled buffer and queued to one writer per replica, so the replicas are written in parallel.
+ * {@link #commit()} returns as soon as the write quorum has published, and the remaining replicas finish
+ * from their queues in the background. A replica that falls more than the lag limit behind the fastest
+ * one is dropped while enough others are left for the quorum, so upload latency follows the slowest
+ * quorum member rather than the slowest disk. With a single replica the chunks are written straight
+ * through on the caller's thread.
+ */
+@Slf4j
+final class ReplicatedWrite<R extends ReplicatedWrite.Replica> implements WritableByteChannel {
+
+    private static final Chunk END = new Chunk(null, 0);
+    private static final long LAG_CHECK_MILLIS = 10;
+
+    /**
+     * One copy being written: a channel to its temp file and how to finish or abandon it
+     */
+    interface Replica {
+
+        WritableByteChannel channel();
+
+        /**
+         * Makes the written content visible under the file's name; called once the channel is closed
+         */
+        void publish() throws IOException;
+
+        /**
+         * Called instead of {@link #publish()} when the copy failed or was dropped; does not throw
+         */
+        void discard();
+    }
+
+    private final List<Writer> writers;
+    private final int writeQuorum;
+    private final long maxLagBytes;
+    private final BufferPool bufferPool;
+    private final long expectedSize;
+    private final CompletableFuture<R> quorum = new CompletableFuture<>();
+    private final AtomicInteger published = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile boolean aborted;
+    private ByteBuffer current;
+    private boolean committed;
+    private boolean closed;
+
+    /**
+     * @param onReplicaLost called from a writer thread for every replica that did not make it, after a
+     *                      successful {@link #commit()} as well, so the file can be re-replicated
+     */
+    ReplicatedWrite(List<R> replicas, int writeQuorum, long maxLagBytes, long expectedSize,
+                    BufferPool bufferPool, Executor executor, Consumer<R> onReplicaLost) {
+        if (writeQuorum < 1 || writeQuorum > replicas.size()) {
+            throw new IllegalArgumentException("Write quorum " + writeQuorum + " needs 1 to " + replicas.size() + " replicas");
+        }
+        this.writeQuorum = writeQuorum;
+        this.maxLagBytes = maxLagBytes;
+        this.bufferPool = bufferPool;
+        this.expectedSize = expectedSize;
+
+        ByteBuffer probe = bufferPool.acquire(expectedSize);
+        int queueCapacity = (int) Math.max(2, Math.min(Integer.MAX_VALUE, maxLagBytes / probe.capacity()));
+        bufferPool.release(probe);
+
+        this.writers = new ArrayList<>(replicas.size());
+        for (R replica : replicas) {
+            writers.add(new Writer(replica, new ArrayBlockingQueue<>(queueCapacity)));
+        }
+
+        if (writers.size() > 1) {
+            for (Writer writer : writers) {
+                writer.done.whenComplete((ignored, e) -> onWriterDone(writer, e, onReplicaLost));
+                executor.execute(writer);
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (closed || committed) {
+            throw new ClosedChannelException();
+        }
+
+        int written = src.remaining();
+        if (writers.size() == 1) {
+            WritableByteChannel channel = writers.get(0).replica.channel();
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+            return written;
+        }
+
+        // Chunks are queued full, so the lag limit counts whole buffers
+        while (src.hasRemaining()) {
+            if (current == null) {
+                current = bufferPool.acquire(expectedSize);
+            }
+            int count = Math.min(src.remaining(), current.remaining());
+            current.put(current.position(), src, src.position(), count);
+            current.position(current.position() + count);
+            src.position(src.position() + count);
+
+            if (!current.hasRemaining()) {
+                ByteBuffer full = current.flip();
+                current = null;
+                enqueue(full);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Waits until the write quorum has published and returns the first replica that did
+     */
+    R commit() throws IOException {
+        if (closed || committed) {
+            throw new ClosedChannelException();
+        }
+        committed = true;
+
+        if (writers.size() == 1) {
+            R replica = writers.get(0).replica;
+            try {
+                replica.channel().close();
+                replica.publish();
+                return replica;
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+        }
+
+        try {
+            if (current != null) {
+                ByteBuffer tail = current.flip();
+                current = null;
+                enqueue(tail);
+            }
+            for (Writer writer : live()) {
+                offer(writer, END);
+            }
+            return quorum.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            throw new InterruptedIOException("Interrupted while waiting for the write quorum");
+        } catch (ExecutionException e) {
+            abort();
+            throw e.getCause() instanceof IOException io ? io : new IOException("Replicated write failed", e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Abandons every replica unless the write was committed; the replicas outside the quorum are left to finish
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (!committed) {
+            abort();
+        }
+    }
+
+    /**
+     * Drops the replicas still being written because the file was deleted meanwhile; may be called from any
+     * thread, also after {@link #commit()}. Their copies are discarded and not reported as lost. A single
+     * replica is written on the uploader's thread and is left to fail on publish.
+     */
+    void cancel() {
+        aborted = true;
+        if (writers.size() == 1) {
+            return;
+        }
+        for (Writer writer : writers) {
+            if (!writer.done.isDone()) {
+                abandon(writer);
+            }
+        }
+    }
+
+    private void abort() {
+        aborted = true;
+        if (writers.size() == 1) {
+            Writer writer = writers.get(0);
+            closeQuietly(writer.replica.channel());
+            writer.replica.discard();
+            return;
+        }
+
+        if (current != null) {
+            bufferPool.release(current);
+            current = null;
+        }
+        for (Writer writer : writers) {
+            abandon(writer);
+        }
+    }
+
+    /**
+     * Takes back the chunks the writer has not started on and wakes it up if it waits for more; a writer
+     * in the middle of a chunk sees the flag when it is done with it
+     */
+    private void abandon(Writer writer) {
+        writer.abandoned = true;
+        for (Chunk chunk = writer.queue.poll(); chunk != null; chunk = writer.queue.poll()) {
+            if (chunk != END) {
+                chunk.release(bufferPool);
+            }
+        }
+        writer.queue.offer(END);
+    }
+
+    private void enqueue(ByteBuffer buffer) throws IOException {
+        List<Writer> live = live();
+        if (live.size() < writeQuorum) {
+            bufferPool.release(buffer);
+            throw new IOException("Write quorum lost: " + live.size() + " of " + writeQuorum + " replicas left");
+        }
+
+        Chunk chunk = new Chunk(buffer, live.size());
+        for (Writer writer : live) {
+            // Dropped while queueing to an earlier replica
+            if (writer.abandoned || !offer(writer, chunk)) {
+                chunk.release(bufferPool);
+            }
+        }
+    }
+
+    /**
+     * Queues the chunk, waiting for room. While waiting, a replica that has fallen more than the lag limit
+     * behind the fastest one is dropped if the quorum holds without it; that may be this replica.
+     */
+    private boolean offer(Writer writer, Chunk chunk) throws IOException {
+        try {
+            while (!writer.queue.offer(chunk, LAG_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (writer.done.isDone()) {
+                    return false;
+                }
+                Writer laggard = laggard();
+                if (laggard != null) {
+                    log.warn("Dropping replica that fell behind: {}", laggard.replica);
+                    abandon(laggard);
+                    if (laggard == writer) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing replicas");
+        }
+    }
+
+    private Writer laggard() {
+        List<Writer> live = live();
+        if (live.size() <= writeQuorum) {
+            return null;
+        }
+        Writer leader = live.get(0);
+        Writer laggard = live.get(0);
+        for (Writer writer : live) {
+            if (writer.written > leader.written) {
+                leader = writer;
+            }
+            if (writer.written < laggard.written) {
+                laggard = writer;
+            }
+        }
+        return leader.written - laggard.written >= maxLagBytes ? laggard : null;
+    }
+
+    private List<Writer> live() {
+        List<Writer> live = new ArrayList<>(writers.size());
+        for (Writer writer : writers) {
+            if (!writer.abandoned && !writer.done.isDone()) {
+                live.add(writer);
+            }
+        }
+        return live;
+    }
+
+    private void onWriterDone(Writer writer, Throwable e, Consumer<R> onReplicaLost) {
+        if (e == null) {
+            if (published.incrementAndGet() == writeQuorum) {
+                quorum.complete(writer.replica);
+            }
+            return;
+        }
+
+        if (failed.incrementAndGet() > writers.size() - writeQuorum) {
+            quorum.completeExceptionally(e);
+        }
+        if (!aborted) {
+            onReplicaLost.accept(writer.replica);
+        }
+    }
+
+    private static void closeQuietly(WritableByteChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // The copy is discarded anyway
+        }
+    }
+
+    private record Chunk(ByteBuffer buffer, AtomicInteger pending) {
+
+        Chunk(ByteBuffer buffer, int readers) {
+            this(buffer, new AtomicInteger(readers));
+        }
+
+        void release(BufferPool bufferPool) {
+            if (pending.decrementAndGet() == 0) {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    private final class Writer implements Runnable {
+
+        private final R replica;
+        private final BlockingQueue<Chunk> queue;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile boolean abandoned;
+        private volatile long written;
+
+        private Writer(R replica, BlockingQueue<Chunk> queue) {
+            this.replica = replica;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            WritableByteChannel channel = replica.channel();
+            try {
+                for (Chunk chunk = queue.take(); chunk != END; chunk = queue.take()) {
+                    try {
+                        if (!abandoned) {
+                            ByteBuffer data = chunk.buffer().duplicate();
+                            while (data.hasRemaining()) {
+                                channel.write(data);
+                            }
+                            written += chunk.buffer().remaining();
+                        }
+                    } finally {
+                        chunk.release(bufferPool);
+                    }
+                    if (abandoned) {
+                        throw new IOException("Replica dropped");
+                    }
+                }
+                if (abandoned) {
+                    throw new IOException("Replica dropped");
+                }
+
+                channel.close();
+                replica.publish();
+                done.complete(null);
+
+            } catch (Exception e) {
+                closeQuietly(channel);
+                replica.discard();
+                for (Chunk chunk = queue.poll(); chunk != null; chunk = queue.poll()) {
+                    if (chunk != END) {
+                        chunk.release(bufferPool);
+                    }
+                }
+                done.completeExceptionally(e);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.util.FastHash;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Storage roots a file can live on, ordered per file ID by weighted rendezvous hashing: every volume
+ * gets a score from the ID and its own root, scaled by its weight, and the highest score is the file's
+ * home. The order is derived from the ID alone, so reads need no lookup, each volume receives new files
+ * in proportion to its weight, and adding a volume only moves the files it would now win.
+ */
+final class StorageVolumes {
+
+    private final List<Volume> volumes;
+    private final long minFreeSpace;
+    private final long freeSpaceRefreshNanos;
+    private final long failureCooldownNanos;
+
+    /**
+     * One root; the journal of uploads in flight is kept per volume, next to their temp files
+     */
+    static final class Volume {
+
+        private final Path root;
+        private final double weight;
+        private final long seed;
+        private IntentJournal journal;
+
+        private volatile long usableSpace;
+        private volatile long usableSpaceCheckedAt;
+        private volatile long failedAt;
+
+        Volume(Path root, double weight) {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("Volume weight must be positive: " + root);
+            }
+            this.root = root;
+            this.weight = weight;
+            byte[] name = root.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+            this.seed = FastHash.hash64(name, 0, name.length, 0);
+        }
+
+        Path root() {
+            return root;
+        }
+
+        IntentJournal journal() {
+            return journal;
+        }
+
+        void journal(IntentJournal journal) {
+            this.journal = journal;
+        }
+
+        /**
+         * Organized directory structure: first 2 chars / next 2 chars / fileId
+         */
+        Path filePath(UUID fileId) {
+            String fileIdStr = fileId.toString();
+            return root.resolve(fileIdStr.substring(0, 2)).resolve(fileIdStr.substring(2, 4)).resolve(fileIdStr);
+        }
+
+        private double score(UUID fileId) {
+            long hash = FastHash.fmix64(fileId.getMostSignificantBits() ^ seed) ^ fileId.getLeastSignificantBits();
+            double uniform = ((FastHash.fmix64(hash) >>> 11) + 0.5) * 0x1.0p-53;
+            return -weight / Math.log(uniform);
+        }
+    }
+
+    StorageVolumes(List<Volume> volumes, long minFreeSpace, long freeSpaceRefreshNanos, long failureCooldownNanos) {
+        if (volumes.isEmpty()) {
+            throw new IllegalArgumentException("At least one storage volume is required");
+        }
+        this.volumes = List.copyOf(volumes);
+        this.minFreeSpace = minFreeSpace;
+        this.freeSpaceRefreshNanos = freeSpaceRefreshNanos;
+        this.failureCooldownNanos = failureCooldownNanos;
+    }
+
+    List<Volume> all() {
+        return volumes;
+    }
+
+    /**
+     * Volumes in the order the file is placed and looked up on
+     */
+    List<Volume> rank(UUID fileId) {
+        if (volumes.size() == 1) {
+            return volumes;
+        }
+
+        Volume[] ranked = volumes.toArray(Volume[]::new);
+        double[] scores = new double[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            scores[i] = ranked[i].score(fileId);
+        }
+        Integer[] order = new Integer[ranked.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+        return Arrays.stream(order).map(i -> ranked[i]).toList();
+    }
+
+    /**
+     * The file on the volume holding it, or on its home volume when no volume has it
+     */
+    Path locate(UUID fileId) {
+        List<Volume> ranked = rank(fileId);
+        for (Volume volume : ranked) {
+            Path path = volume.filePath(fileId);
+            if (Files.exists(path)) {
+                return path;
+            }
+        }
+        return ranked.get(0).filePath(fileId);
+    }
+
+    /**
+     * Volumes to read the file from, in rank order with volumes that failed recently moved to the end;
+     * the file may be missing on any of them
+     */
+    List<Volume> readOrder(UUID fileId) {
+        List<Volume> ranked = rank(fileId);
+        if (ranked.size() == 1) {
+            return ranked;
+        }
+
+        List<Volume> ordered = new ArrayList<>(ranked.size());
+        List<Volume> failing = new ArrayList<>();
+        for (Volume volume : ranked) {
+            (isHealthy(volume) ? ordered : failing).add(volume);
+        }
+        ordered.addAll(failing);
+        return ordered;
+    }
+
+    /**
+     * Volumes holding a copy of the file, in {@link #readOrder} order
+     */
+    List<Volume> copies(UUID fileId) {
+        return readOrder(fileId).stream()
+                .filter(volume -> Files.isRegularFile(volume.filePath(fileId)))
+                .toList();
+    }
+
+    /**
+     * Where the copies of a new file go, on distinct volumes: the volumes already holding the ID, so a
+     * replacement does not leave a stale copy elsewhere, then the highest ranked volumes with room for
+     * it. When too few have room the rest are filled in by rank and the write fails there.
+     */
+    List<Volume> place(UUID fileId, long expectedSize, int count) {
+        List<Volume> ranked = rank(fileId);
+        if (ranked.size() == 1) {
+            return ranked;
+        }
+
+        List<Volume> chosen = new ArrayList<>(count);
+        for (Volume volume : ranked) {
+            if (chosen.size() < count && Files.exists(volume.filePath(fileId))) {
+                chosen.add(volume);
+            }
+        }
+        for (Volume volume : ranked) {
+            if (chosen.size() < count && !chosen.contains(volume) && isHealthy(volume)
+                    && usableSpace(volume) - Math.max(0, expectedSize) >= minFreeSpace) {
+                chosen.add(volume);
+            }
+        }
+        for (Volume volume : ranked) {
+            if (chosen.size() < count && !chosen.contains(volume)) {
+                chosen.add(volume);
+            }
+        }
+        return chosen;
+    }
+
+    void markFailed(Volume volume) {
+        volume.failedAt = System.nanoTime();
+    }
+
+    private boolean isHealthy(Volume volume) {
+        long failedAt = volume.failedAt;
+        return failedAt == 0 || System.nanoTime() - failedAt >= failureCooldownNanos;
+    }
+
+    long usableSpace(Volume volume) {
+        long now = System.nanoTime();
+        if (volume.usableSpaceCheckedAt == 0 || now - volume.usableSpaceCheckedAt >= freeSpaceRefreshNanos) {
+            try {
+                volume.usableSpace = Files.getFileStore(volume.root).getUsableSpace();
+            } catch (IOException e) {
+                // Unreadable volumes take no new files until they answer again
+                volume.usableSpace = 0;
+            }
+            volume.usableSpaceCheckedAt = now;
+        }
+        return volume.usableSpace;
+    }
+}
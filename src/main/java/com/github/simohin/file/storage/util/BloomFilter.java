@@ -0,0 +1,88 @@
+package com.github.simohin.file.storage.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over pairs of strings. A negative answer is definite; a positive answer
+ * is wrong with roughly the configured false positive probability. Elements cannot be removed.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * Sizes the filter for {@code expectedInsertions} at the given false positive probability
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions < 1 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: " + expectedInsertions
+                    + " insertions at " + falsePositiveProbability);
+        }
+
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) >>> 6));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    public void put(String first, String second) {
+        long hash = hash(first, second);
+        long h1 = hash;
+        long h2 = FastHash.fmix64(hash) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            // Skip the CAS when the bit is already set, which is the common case for a filling filter
+            if ((current & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (value, set) -> value | set);
+            }
+        }
+    }
+
+    public boolean mightContain(String first, String second) {
+        long hash = hash(first, second);
+        long h1 = hash;
+        long h2 = FastHash.fmix64(hash) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False positive probability implied by the current fill ratio: {@code (set bits / bits)^k}
+     */
+    public double expectedFalsePositiveProbability() {
+        long set = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            set += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashFunctions);
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    private static long hash(String first, String second) {
+        // FNV-1a over both strings with a separator, so ("ab", "c") and ("a", "bc") differ
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < first.length(); i++) {
+            hash = (hash ^ first.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ 0xffff) * 0x100000001b3L;
+        for (int i = 0; i < second.length(); i++) {
+            hash = (hash ^ second.charAt(i)) * 0x100000001b3L;
+        }
+        return FastHash.fmix64(hash);
+    }
+}
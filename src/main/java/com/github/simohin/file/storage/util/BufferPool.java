@@ -0,0 +1,102 @@
+package com.github.simohin.file.storage.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Copy buffers in power-of-four size classes, picked from the expected transfer size so small files
+ * do not hold a large buffer and large files are moved with few, large reads and writes. Each class
+ * is striped by thread to keep concurrent copies off a shared lock. Buffers beyond the retained
+ * budget are dropped on release and left to the GC, so a burst cannot pin memory.
+ * <p>
+ * Buffers are heap-backed: every consumer here (streams, {@link java.security.MessageDigest}) works
+ * on a {@code byte[]}, and a direct buffer would need one more copy to reach it.
+ */
+public final class BufferPool {
+
+    private final int minSize;
+    private final int defaultSize;
+    private final BlockingQueue<ByteBuffer>[][] stripes;
+    private final int stripeMask;
+
+    /**
+     * @param minSize        smallest buffer, rounded up to a power of two
+     * @param maxSize        largest buffer; expected sizes above it get this size
+     * @param defaultSize    buffer for copies of unknown size
+     * @param retainedBytes  bytes kept for reuse per size class, across all stripes
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(int minSize, int maxSize, int defaultSize, long retainedBytes) {
+        this.minSize = Integer.highestOneBit(Math.max(1, minSize - 1)) << 1;
+        int classes = 1;
+        while (classSize(classes - 1) < maxSize) {
+            classes++;
+        }
+        this.defaultSize = defaultSize;
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new BlockingQueue[classes][stripeCount];
+        for (int sizeClass = 0; sizeClass < classes; sizeClass++) {
+            int perStripe = (int) Math.max(1, retainedBytes / classSize(sizeClass) / stripeCount);
+            for (int stripe = 0; stripe < stripeCount; stripe++) {
+                stripes[sizeClass][stripe] = new ArrayBlockingQueue<>(perStripe);
+            }
+        }
+    }
+
+    /**
+     * A cleared buffer for copying about {@code expectedSize} bytes; zero or less means unknown
+     */
+    public ByteBuffer acquire(long expectedSize) {
+        int sizeClass = sizeClass(expectedSize > 0 ? expectedSize : defaultSize);
+        ByteBuffer buffer = stripe(sizeClass).poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocate(classSize(sizeClass));
+    }
+
+    public void release(ByteBuffer buffer) {
+        int sizeClass = Integer.numberOfTrailingZeros(buffer.capacity() / minSize) / 2;
+        if (sizeClass < stripes.length && classSize(sizeClass) == buffer.capacity()) {
+            stripe(sizeClass).offer(buffer);
+        }
+    }
+
+    /**
+     * Copies the stream to the end with a pooled buffer; neither stream is closed
+     */
+    public long transfer(InputStream input, OutputStream output, long expectedSize) throws IOException {
+        ByteBuffer buffer = acquire(expectedSize);
+        try {
+            byte[] array = buffer.array();
+            long transferred = 0;
+            int read;
+            while ((read = input.read(array, 0, array.length)) != -1) {
+                output.write(array, 0, read);
+                transferred += read;
+            }
+            return transferred;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private int sizeClass(long expectedSize) {
+        int sizeClass = 0;
+        while (sizeClass < stripes.length - 1 && classSize(sizeClass) < expectedSize) {
+            sizeClass++;
+        }
+        return sizeClass;
+    }
+
+    private int classSize(int sizeClass) {
+        return minSize << (2 * sizeClass);
+    }
+
+    private BlockingQueue<ByteBuffer> stripe(int sizeClass) {
+        return stripes[sizeClass][(int) Thread.currentThread().threadId() & stripeMask];
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.simohin.file.storage.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free Count-Min Sketch. Estimates never undercount; they overcount by at most
+ * {@code e / width} of the total added with probability {@code 1 - exp(-depth)}.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counters;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows (independent hash functions)
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        int rowSize = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.depth = depth;
+        this.mask = rowSize - 1;
+        this.counters = new AtomicLongArray(rowSize * depth);
+    }
+
+    /**
+     * Adds {@code count} to the key and returns its estimate after the update
+     */
+    public long add(long hash, long count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(hash, row), count));
+        }
+        return estimate;
+    }
+
+    public long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Divides every counter by {@code 2^halvings}, so old traffic fades out window by window
+     */
+    public void decay(int halvings) {
+        int shift = Math.min(halvings, 63);
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, value -> value >>> shift);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a string, without allocating
+     */
+    public static long hash(CharSequence key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private int index(long hash, int row) {
+        // Kirsch-Mitzenmacher: row hashes derived from the two halves of one 64-bit hash
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+}
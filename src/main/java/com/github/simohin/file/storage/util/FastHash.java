@@ -0,0 +1,51 @@
+package com.github.simohin.file.storage.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Fast non-cryptographic 64-bit hash over byte arrays, consuming eight bytes per step with a
+ * multiply-xorshift mix and the MurmurHash3 finalizer. Good distribution for fingerprints and
+ * pre-checks; not collision resistant, so a match must always be confirmed with a real digest.
+ */
+public final class FastHash {
+
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long LANE_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    private FastHash() {
+    }
+
+    public static long hash64(byte[] data, int offset, int length, long seed) {
+        long hash = seed ^ (length * MULTIPLIER);
+        int end = offset + length;
+        int position = offset;
+
+        for (; position + Long.BYTES <= end; position += Long.BYTES) {
+            long lane = (long) LONG_LE.get(data, position) * LANE_MULTIPLIER;
+            hash = Long.rotateLeft(hash ^ (lane ^ (lane >>> 31)), 27) * MULTIPLIER;
+        }
+
+        long tail = 0;
+        for (int shift = 0; position < end; position++, shift += 8) {
+            tail |= (data[position] & 0xFFL) << shift;
+        }
+        hash ^= tail * LANE_MULTIPLIER;
+
+        return fmix64(hash);
+    }
+
+    /**
+     * MurmurHash3 fmix64 finalizer: a bijective avalanche mix, so every input bit affects every output bit
+     */
+    public static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
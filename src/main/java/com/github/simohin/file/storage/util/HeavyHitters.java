@@ -0,0 +1,88 @@
+package com.github.simohin.file.storage.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Top-K tracker on top of a {@link CountMinSketch}. Every key is counted in the sketch; only keys whose
+ * estimate reaches the current admission threshold are kept as candidates, so memory stays bounded
+ * by the sketch plus about {@code 2 * capacity} candidate entries. Updates never block: trimming the
+ * candidate set is done by whichever thread wins a flag, the others skip it.
+ */
+public final class HeavyHitters {
+
+    public record Entry(String key, long estimate) {
+    }
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private volatile long admissionThreshold;
+
+    public HeavyHitters(int width, int depth, int capacity) {
+        this.sketch = new CountMinSketch(width, depth);
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void add(String key, long count) {
+        long estimate = sketch.add(CountMinSketch.hash(key), count);
+        if (estimate < admissionThreshold) {
+            return;
+        }
+
+        candidates.put(key, estimate);
+        if (candidates.size() > 2 * capacity) {
+            trim();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} keys with the highest estimates, highest first
+     */
+    public List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        candidates.keySet().forEach(key -> {
+            long estimate = sketch.estimate(CountMinSketch.hash(key));
+            if (estimate > 0) {
+                entries.add(new Entry(key, estimate));
+            }
+        });
+        entries.sort(Comparator.comparingLong(Entry::estimate).reversed());
+        return entries.size() > limit ? List.copyOf(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * Halves all counts {@code halvings} times and drops candidates that faded out
+     */
+    public void decay(int halvings) {
+        int shift = Math.min(halvings, 63);
+        sketch.decay(shift);
+        admissionThreshold >>>= shift;
+        candidates.replaceAll((key, estimate) -> estimate >>> shift);
+        candidates.values().removeIf(estimate -> estimate == 0);
+    }
+
+    private void trim() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            List<Entry> ranked = top(Integer.MAX_VALUE);
+            if (ranked.size() <= capacity) {
+                return;
+            }
+            for (int i = capacity; i < ranked.size(); i++) {
+                candidates.remove(ranked.get(i).key());
+            }
+            admissionThreshold = ranked.get(capacity - 1).estimate();
+        } finally {
+            trimming.set(false);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.simohin.file.storage.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spreads operations evenly over time so that all threads sharing a pacer together stay under
+ * the configured rate. Unused time is not saved up, so there are no bursts after an idle period.
+ */
+public final class RatePacer {
+
+    private final double nanosPerPermit;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    /**
+     * A rate of zero or less disables pacing
+     */
+    public RatePacer(long permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? (double) TimeUnit.SECONDS.toNanos(1) / permitsPerSecond : 0;
+    }
+
+    /**
+     * Blocks until the caller's turn comes up
+     */
+    public void acquire() {
+        acquire(1);
+    }
+
+    /**
+     * Blocks until the caller's turn comes up and reserves time for {@code permits} operations,
+     * e.g. one per byte when pacing throughput
+     */
+    public void acquire(long permits) {
+        if (nanosPerPermit == 0 || permits <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long cost = (long) (permits * nanosPerPermit);
+        long slot = nextSlot.getAndUpdate(next -> Math.max(next, now) + cost);
+        long wait;
+        while ((wait = slot - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.simohin.file.storage.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal streaming writer for POSIX ustar archives. Names that do not fit the 100 byte ASCII
+ * header field and sizes above the octal limit are carried in PAX extended headers.
+ */
+public final class TarOutputStream extends FilterOutputStream {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_PAX_HEADER = 'x';
+
+    private long entrySize;
+    private long entryRemaining;
+    private boolean entryOpen;
+    private boolean finished;
+
+    public TarOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Starts a regular file entry. Exactly {@code size} bytes must be written before {@link #closeEntry()}.
+     */
+    public void putNextEntry(String name, long size, long modifiedEpochSeconds) throws IOException {
+        if (entryOpen) {
+            closeEntry();
+        }
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean fitsHeader = nameBytes.length == name.length() && nameBytes.length <= NAME_LENGTH;
+
+        Map<String, String> paxRecords = new LinkedHashMap<>();
+        if (!fitsHeader) {
+            paxRecords.put("path", name);
+        }
+        if (size > MAX_OCTAL_SIZE) {
+            paxRecords.put("size", Long.toString(size));
+        }
+        if (!paxRecords.isEmpty()) {
+            writePaxHeader(paxRecords, modifiedEpochSeconds);
+        }
+
+        String headerName = fitsHeader ? name : asciiFallback(name);
+        writeHeader(headerName, size > MAX_OCTAL_SIZE ? 0 : size, modifiedEpochSeconds, TYPE_FILE);
+
+        entrySize = size;
+        entryRemaining = size;
+        entryOpen = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        checkRemaining(1);
+        out.write(b);
+        entryRemaining--;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkRemaining(len);
+        out.write(b, off, len);
+        entryRemaining -= len;
+    }
+
+    public void closeEntry() throws IOException {
+        if (!entryOpen) {
+            return;
+        }
+        if (entryRemaining != 0) {
+            throw new IOException("Tar entry incomplete: " + entryRemaining + " of " + entrySize + " bytes missing");
+        }
+
+        pad(entrySize);
+        entryOpen = false;
+    }
+
+    /**
+     * Writes the end-of-archive marker without closing the underlying stream
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        closeEntry();
+        out.write(new byte[BLOCK_SIZE * 2]);
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        super.close();
+    }
+
+    private void checkRemaining(long len) throws IOException {
+        if (!entryOpen || len > entryRemaining) {
+            throw new IOException("Write exceeds declared tar entry size");
+        }
+    }
+
+    private void writePaxHeader(Map<String, String> records, long modifiedEpochSeconds) throws IOException {
+        StringBuilder content = new StringBuilder();
+        records.forEach((key, value) -> content.append(paxRecord(key, value)));
+        byte[] data = content.toString().getBytes(StandardCharsets.UTF_8);
+
+        writeHeader("PaxHeaders/entry", data.length, modifiedEpochSeconds, TYPE_PAX_HEADER);
+        out.write(data);
+        pad(data.length);
+    }
+
+    /**
+     * PAX records are "<length> <key>=<value>\n" where the length counts its own digits
+     */
+    private static String paxRecord(String key, String value) {
+        int payload = 1 + key.length() + 1 + value.getBytes(StandardCharsets.UTF_8).length + 1;
+        int length = payload + String.valueOf(payload).length();
+        if (String.valueOf(length).length() != String.valueOf(payload).length()) {
+            length++;
+        }
+        return length + " " + key + "=" + value + "\n";
+    }
+
+    private void writeHeader(String name, long size, long modifiedEpochSeconds, byte type) throws IOException {
+        byte[] header = new byte[BLOCK_SIZE];
+
+        putString(header, 0, NAME_LENGTH, name);
+        putOctal(header, 100, 8, 0644);
+        putOctal(header, 108, 8, 0);
+        putOctal(header, 116, 8, 0);
+        putOctal(header, 124, 12, size);
+        putOctal(header, 136, 12, Math.max(0, modifiedEpochSeconds));
+        header[156] = type;
+        putString(header, 257, 6, "ustar");
+        putString(header, 263, 2, "00");
+
+        // Checksum is computed with the checksum field itself filled with spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        putOctal(header, 148, 7, checksum);
+        header[155] = ' ';
+
+        out.write(header);
+    }
+
+    private void pad(long written) throws IOException {
+        int remainder = (int) (written % BLOCK_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+
+    private static void putString(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+    }
+
+    /**
+     * Writes a zero-padded octal number terminated by NUL into a field of the given length
+     */
+    private static void putOctal(byte[] header, int offset, int length, long value) {
+        String octal = Long.toOctalString(value);
+        int digits = length - 1;
+        String padded = "0".repeat(Math.max(0, digits - octal.length())) + octal;
+        putString(header, offset, digits, padded);
+        header[offset + digits] = 0;
+    }
+
+    private static String asciiFallback(String name) {
+        StringBuilder fallback = new StringBuilder(NAME_LENGTH);
+        for (int i = 0; i < name.length() && fallback.length() < NAME_LENGTH; i++) {
+            char c = name.charAt(i);
+            fallback.append(c >= 0x20 && c < 0x7F ? c : '_');
+        }
+        return fallback.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.simohin.file.storage.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Two-level SHA-256 tree hash: content is split into fixed 1 MiB leaves, each leaf is hashed
+ * separately and the root is the SHA-256 of all leaf digests in order. Leaves are independent, so
+ * they can be hashed on several cores while the content is still being read. Leaf and root inputs
+ * carry different prefix bytes, as in RFC 6962, so a list of leaf digests cannot pass for leaf content.
+ * <p>
+ * Instances hash incrementally on the calling thread; {@link #parallel} spreads leaves over an executor.
+ * Both produce the same digest.
+ */
+public final class TreeHash {
+
+    public static final int LEAF_SIZE = 1024 * 1024;
+
+    private static final byte LEAF_PREFIX = 0;
+    private static final byte NODE_PREFIX = 1;
+
+    private final MessageDigest root = sha256();
+    private final MessageDigest leaf = sha256();
+    private int leafBytes;
+    private boolean hasLeaves;
+
+    public TreeHash() {
+        root.update(NODE_PREFIX);
+        leaf.update(LEAF_PREFIX);
+    }
+
+    /**
+     * Result of hashing a whole stream
+     */
+    public record Result(String hash, long size) {
+    }
+
+    public void update(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            int count = Math.min(data.remaining(), LEAF_SIZE - leafBytes);
+            int limit = data.limit();
+            data.limit(data.position() + count);
+            leaf.update(data);
+            data.limit(limit);
+
+            leafBytes += count;
+            if (leafBytes == LEAF_SIZE) {
+                completeLeaf();
+            }
+        }
+    }
+
+    public String hexDigest() {
+        // Empty content still has one (empty) leaf
+        if (leafBytes > 0 || !hasLeaves) {
+            completeLeaf();
+        }
+        return HexFormat.of().formatHex(root.digest());
+    }
+
+    /**
+     * Reads the stream leaf by leaf, optionally copies every leaf to {@code copy}, and hashes the
+     * leaves on {@code executor}. At most {@code maxInFlightLeaves} leaf buffers are held at once,
+     * so memory per call is bounded no matter how large the content is. The buffers come from
+     * {@code bufferPool} and go back to it when the call returns.
+     */
+    public static Result parallel(InputStream input, OutputStream copy, ExecutorService executor,
+                                  int maxInFlightLeaves, BufferPool bufferPool) throws IOException {
+        int buffers = Math.max(1, maxInFlightLeaves);
+        BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(buffers);
+        List<Future<byte[]>> leaves = new ArrayList<>();
+        int acquired = 0;
+        ByteBuffer held = null;
+        long size = 0;
+
+        try {
+            while (true) {
+                held = free.poll();
+                if (held == null && acquired < buffers) {
+                    held = acquireLeafBuffer(bufferPool);
+                    acquired++;
+                } else if (held == null) {
+                    held = free.take();
+                }
+
+                byte[] buffer = held.array();
+                int length = input.readNBytes(buffer, 0, LEAF_SIZE);
+                if (length == 0 && !leaves.isEmpty()) {
+                    break;
+                }
+                if (copy != null) {
+                    copy.write(buffer, 0, length);
+                }
+                size += length;
+
+                ByteBuffer leafData = held;
+                leaves.add(executor.submit(() -> {
+                    try {
+                        return leafDigest(leafData.array(), length);
+                    } finally {
+                        free.add(leafData);
+                    }
+                }));
+                held = null;
+
+                if (length < LEAF_SIZE) {
+                    break;
+                }
+            }
+
+            MessageDigest root = sha256();
+            root.update(NODE_PREFIX);
+            for (Future<byte[]> leaf : leaves) {
+                root.update(leaf.get());
+            }
+            return new Result(HexFormat.of().formatHex(root.digest()), size);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while hashing");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Leaf hashing failed", e.getCause());
+        } finally {
+            leaves.forEach(leaf -> leaf.cancel(false));
+            // After a failure, buffers of leaves still being hashed are left to the GC instead of handed out again
+            if (held != null) {
+                bufferPool.release(held);
+            }
+            for (ByteBuffer buffer = free.poll(); buffer != null; buffer = free.poll()) {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    private void completeLeaf() {
+        root.update(leaf.digest());
+        leaf.update(LEAF_PREFIX);
+        leafBytes = 0;
+        hasLeaves = true;
+    }
+
+    /**
+     * A pooled buffer holds a whole leaf unless the pool's largest class is smaller
+     */
+    private static ByteBuffer acquireLeafBuffer(BufferPool bufferPool) {
+        ByteBuffer buffer = bufferPool.acquire(LEAF_SIZE);
+        if (buffer.capacity() >= LEAF_SIZE) {
+            return buffer;
+        }
+        bufferPool.release(buffer);
+        return ByteBuffer.allocate(LEAF_SIZE);
+    }
+
+    private static byte[] leafDigest(byte[] data, int length) {
+        MessageDigest digest = sha256();
+        digest.update(LEAF_PREFIX);
+        digest.update(data, 0, length);
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+}
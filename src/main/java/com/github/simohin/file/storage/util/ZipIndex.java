@@ -0,0 +1,269 @@
+package com.github.simohin.file.storage.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * Central directory of a ZIP archive read with random access: only the end-of-central-directory
+ * record and the central directory itself are read, never the entry data. Supports ZIP64.
+ */
+public final class ZipIndex {
+
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int EOCD64_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int EOCD_SIZE = 22;
+    private static final int EOCD64_LOCATOR_SIZE = 20;
+    private static final int EOCD64_SIZE = 56;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int FLAG_ENCRYPTED = 0x0001;
+    private static final int FLAG_UTF8 = 0x0800;
+    // Entry record, its LocalDateTime, the name String and the list and map slots, without the name's bytes
+    private static final int ENTRY_OVERHEAD = 240;
+    // Names without the UTF-8 flag are CP437 by the spec; runtimes without the extended charsets fall back to Latin-1
+    private static final Charset CP437 = Charset.isSupported("IBM437") ? Charset.forName("IBM437") : StandardCharsets.ISO_8859_1;
+
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+    private final long retainedSize;
+
+    private ZipIndex(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.entriesByName = new HashMap<>(entries.size() * 2);
+        entries.forEach(entry -> entriesByName.putIfAbsent(entry.name(), entry));
+
+        long size = 0;
+        for (Entry entry : entries) {
+            size += ENTRY_OVERHEAD + 2L * entry.name().length();
+        }
+        this.retainedSize = size;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public Entry getEntry(String name) {
+        return entriesByName.get(name);
+    }
+
+    /**
+     * Estimated heap held by the index, for caches bounded by size
+     */
+    public long getRetainedSize() {
+        return retainedSize;
+    }
+
+    /**
+     * Reads the central directory, refusing directories larger than {@code maxCentralDirectorySize}
+     *
+     * @throws ZipException if the channel does not contain a readable ZIP archive
+     */
+    public static ZipIndex read(SeekableByteChannel channel, long maxCentralDirectorySize) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < EOCD_SIZE) {
+            throw new ZipException("File too small to be a ZIP archive");
+        }
+
+        int tailSize = (int) Math.min(fileSize, EOCD_SIZE + MAX_COMMENT_SIZE);
+        long tailStart = fileSize - tailSize;
+        ByteBuffer tail = readFully(channel, tailStart, tailSize);
+
+        int eocd = findEndOfCentralDirectory(tail);
+        if (eocd < 0) {
+            throw new ZipException("End of central directory not found");
+        }
+
+        long entryCount = tail.getShort(eocd + 10) & 0xFFFFL;
+        long directorySize = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+
+        int locator = eocd - EOCD64_LOCATOR_SIZE;
+        if (locator >= 0 && tail.getInt(locator) == EOCD64_LOCATOR_SIGNATURE) {
+            long eocd64Offset = tail.getLong(locator + 8);
+            ByteBuffer eocd64 = readFully(channel, eocd64Offset, EOCD64_SIZE);
+            if (eocd64.getInt(0) != EOCD64_SIGNATURE) {
+                throw new ZipException("Invalid ZIP64 end of central directory");
+            }
+            entryCount = eocd64.getLong(32);
+            directorySize = eocd64.getLong(40);
+            directoryOffset = eocd64.getLong(48);
+        }
+
+        if (directorySize > maxCentralDirectorySize) {
+            throw new ZipException("Central directory too large: " + directorySize + " bytes");
+        }
+        if (directoryOffset + directorySize > fileSize) {
+            throw new ZipException("Central directory exceeds file size");
+        }
+
+        ByteBuffer directory = readFully(channel, directoryOffset, (int) directorySize);
+        return new ZipIndex(parseEntries(directory, entryCount));
+    }
+
+    /**
+     * Returns the offset of the entry data, resolving the variable-length local header
+     */
+    public static long dataOffset(SeekableByteChannel channel, Entry entry) throws IOException {
+        ByteBuffer header = readFully(channel, entry.localHeaderOffset(), LOCAL_HEADER_SIZE);
+        if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry: " + entry.name());
+        }
+
+        int nameLength = header.getShort(26) & 0xFFFF;
+        int extraLength = header.getShort(28) & 0xFFFF;
+        return entry.localHeaderOffset() + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    private static int findEndOfCentralDirectory(ByteBuffer tail) {
+        for (int i = tail.limit() - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE) {
+                int commentLength = tail.getShort(i + 20) & 0xFFFF;
+                if (i + EOCD_SIZE + commentLength == tail.limit()) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static List<Entry> parseEntries(ByteBuffer directory, long expectedCount) throws ZipException {
+        List<Entry> entries = new ArrayList<>((int) Math.min(expectedCount, 1 << 16));
+        int position = 0;
+
+        while (position + CENTRAL_HEADER_SIZE <= directory.limit()) {
+            if (directory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header at " + position);
+            }
+
+            int flags = directory.getShort(position + 8) & 0xFFFF;
+            int method = directory.getShort(position + 10) & 0xFFFF;
+            int time = directory.getShort(position + 12) & 0xFFFF;
+            int date = directory.getShort(position + 14) & 0xFFFF;
+            long crc = directory.getInt(position + 16) & 0xFFFFFFFFL;
+            long compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+            long size = directory.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+
+            int nameStart = position + CENTRAL_HEADER_SIZE;
+            int extraStart = nameStart + nameLength;
+            if (extraStart + extraLength + commentLength > directory.limit()) {
+                throw new ZipException("Truncated central directory entry at " + position);
+            }
+
+            byte[] nameBytes = new byte[nameLength];
+            directory.get(nameStart, nameBytes);
+            String name = decodeName(nameBytes, (flags & FLAG_UTF8) != 0);
+
+            // ZIP64 extra field carries the real values of fields saturated to 0xFFFFFFFF, in this order
+            int extra = extraStart;
+            while (extra + 4 <= extraStart + extraLength) {
+                int id = directory.getShort(extra) & 0xFFFF;
+                int length = directory.getShort(extra + 2) & 0xFFFF;
+                if (id == ZIP64_EXTRA_ID) {
+                    int field = extra + 4;
+                    if (size == 0xFFFFFFFFL && field + 8 <= extra + 4 + length) {
+                        size = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL && field + 8 <= extra + 4 + length) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == 0xFFFFFFFFL && field + 8 <= extra + 4 + length) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+
+            entries.add(new Entry(name, method, (flags & FLAG_ENCRYPTED) != 0, crc, compressedSize, size,
+                    localHeaderOffset, dosToLocalDateTime(date, time)));
+            position = extraStart + extraLength + commentLength;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Names flagged as UTF-8 are decoded as such. Unflagged names are CP437 by the spec, but many tools
+     * write UTF-8 without setting the flag, so unflagged names that are valid UTF-8 are read as UTF-8.
+     */
+    private static String decodeName(byte[] name, boolean utf8) {
+        if (utf8) {
+            return new String(name, StandardCharsets.UTF_8);
+        }
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(name))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return new String(name, CP437);
+        }
+    }
+
+    private static LocalDateTime dosToLocalDateTime(int date, int time) {
+        int month = (date >> 5) & 0x0F;
+        int day = date & 0x1F;
+        if (month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.of(((date >> 9) & 0x7F) + 1980, month, day,
+                    (time >> 11) & 0x1F, (time >> 5) & 0x3F, (time & 0x1F) * 2);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer readFully(SeekableByteChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        channel.position(position);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new ZipException("Unexpected end of archive");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Central directory entry
+     */
+    public record Entry(String name, int method, boolean encrypted, long crc, long compressedSize, long size,
+                        long localHeaderOffset, LocalDateTime lastModified) {
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.simohin.file.storage.config;
+
+import com.github.simohin.file.storage.service.FlightRecorderService;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SlowRequestFilter Tests")
+class SlowRequestFilterTest {
+
+    @Mock
+    private FlightRecorderService flightRecorderService;
+
+    @Test
+    @DisplayName("Should report the request and its status to the flight recorder")
+    void shouldReportCompletedRequest() throws Exception {
+        // Given
+        when(flightRecorderService.isRecording()).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+            }
+        };
+
+        // When
+        new SlowRequestFilter(flightRecorderService).doFilter(
+                new MockHttpServletRequest("GET", "/api/files/123"), response, chain);
+
+        // Then
+        verify(flightRecorderService).requestCompleted(eq("GET /api/files/123 -> 404"), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should not report requests while nothing is recorded")
+    void shouldSkipWhenNotRecording() throws Exception {
+        // Given
+        when(flightRecorderService.isRecording()).thenReturn(false);
+
+        // When
+        new SlowRequestFilter(flightRecorderService).doFilter(
+                new MockHttpServletRequest("GET", "/api/files/123"), new MockHttpServletResponse(), new MockFilterChain());
+
+        // Then
+        verify(flightRecorderService, never()).requestCompleted(anyString(), anyLong());
+    }
+}
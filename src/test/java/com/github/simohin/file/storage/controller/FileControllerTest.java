@@ -0,0 +1,90 @@
+package com.github.simohin.file.storage.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.simohin.file.storage.dto.BatchGetRequest;
+import com.github.simohin.file.storage.dto.FileMetadataDto;
+import com.github.simohin.file.storage.service.ArchiveService;
+import com.github.simohin.file.storage.service.BatchUploadService;
+import com.github.simohin.file.storage.service.FileService;
+import com.github.simohin.file.storage.service.ZipBrowseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("FileController Streaming Tests")
+class FileControllerTest {
+
+    private static final String TEST_USER_ID = "testUser123";
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private BatchUploadService batchUploadService;
+
+    @Mock
+    private ArchiveService archiveService;
+
+    @Mock
+    private ZipBrowseService zipBrowseService;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private FileController fileController;
+
+    @BeforeEach
+    void setUp() {
+        fileController = new FileController(fileService, batchUploadService, archiveService, zipBrowseService, objectMapper);
+    }
+
+    @Test
+    @DisplayName("Should open the metadata cursor only when the response body is written, and close it")
+    void shouldOpenBatchGetCursorInBody() throws Exception {
+        // Given
+        UUID fileId = UUID.randomUUID();
+        AtomicBoolean closed = new AtomicBoolean();
+        BatchGetRequest request = new BatchGetRequest();
+        request.setFileIds(List.of(fileId.toString()));
+        when(fileService.validateBatchGet(any(), anyString())).thenReturn(Set.of(fileId));
+        when(fileService.batchGetMetadata(anySet(), anyString())).thenReturn(Stream.of(
+                new FileMetadataDto().setId(fileId).setFileName("a.txt")).onClose(() -> closed.set(true)));
+
+        // When
+        ResponseEntity<StreamingResponseBody> response = fileController.batchGetMetadata(TEST_USER_ID, request);
+
+        // Then - a body that never runs leaves no cursor behind
+        verify(fileService, never()).batchGetMetadata(anySet(), anyString());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        assertThat(closed).isTrue();
+        assertThat(objectMapper.readTree(output.toString(StandardCharsets.UTF_8)).get(0).get("fileName").asText())
+                .isEqualTo("a.txt");
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.ArchiveFormat;
+import com.github.simohin.file.storage.config.ArchiveProperties;
+import com.github.simohin.file.storage.dto.ArchiveRequest;
+import com.github.simohin.file.storage.dto.BulkFileFilter;
+import com.github.simohin.file.storage.dto.FileMetadataDto;
+import com.github.simohin.file.storage.util.BufferPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ArchiveService Tests")
+class ArchiveServiceTest {
+
+    private static final String TEST_USER_ID = "testUser123";
+    private static final byte[] TEXT = "hello".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IMAGE = new byte[40];
+
+    @Mock
+    private FileMetadataService fileMetadataService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private final ArchiveProperties archiveProperties = new ArchiveProperties();
+    private final BufferPool bufferPool = new BufferPool(16 * 1024, 1024 * 1024, 64 * 1024, 1024 * 1024);
+
+    private ArchiveService archiveService;
+
+    private final FileMetadataDto text = file("a.txt", "text/plain", TEXT.length);
+    private final FileMetadataDto image = file("b.png", "image/png", IMAGE.length);
+
+    @BeforeEach
+    void setUp() {
+        archiveProperties.setMaxFiles(2);
+        archiveProperties.setInlineThreshold(DataSize.ofBytes(16));
+        archiveService = new ArchiveService(fileMetadataService, fileStorageService, archiveProperties, bufferPool);
+        archiveService.init();
+
+        Arrays.fill(IMAGE, (byte) 7);
+        when(fileStorageService.getFile(text.getId())).thenAnswer(invocation -> Optional.of(new ByteArrayInputStream(TEXT)));
+        when(fileStorageService.getFile(image.getId())).thenAnswer(invocation -> Optional.of(new ByteArrayInputStream(IMAGE)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiveService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should write a ZIP with compressed content stored and small entries read ahead")
+    void shouldWriteZip() throws IOException {
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        archiveService.writeArchive(Stream.of(text, image), ArchiveFormat.ZIP, output);
+
+        // Then
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), entry);
+                contents.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        assertThat(entries.keySet()).containsExactly("a.txt", "b.png");
+        assertThat(entries.get("a.txt").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+        assertThat(entries.get("b.png").getMethod()).isEqualTo(ZipEntry.STORED);
+        assertThat(contents.get("a.txt")).isEqualTo(TEXT);
+        assertThat(contents.get("b.png")).isEqualTo(IMAGE);
+
+        // The small entry is read once into memory; the large stored one once for its CRC and once to write it
+        verify(fileStorageService, times(1)).getFile(text.getId());
+        verify(fileStorageService, times(2)).getFile(image.getId());
+    }
+
+    @Test
+    @DisplayName("Should write a TAR with block-aligned entries")
+    void shouldWriteTar() throws IOException {
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        archiveService.writeArchive(Stream.of(text, image), ArchiveFormat.TAR, output);
+
+        // Then - header and one data block per entry, then two zero blocks
+        byte[] archive = output.toByteArray();
+        assertThat(archive).hasSize(512 * 6);
+        assertThat(new String(archive, 0, 5, StandardCharsets.US_ASCII)).isEqualTo("a.txt");
+        assertThat(Arrays.copyOfRange(archive, 512, 512 + TEXT.length)).isEqualTo(TEXT);
+        assertThat(new String(archive, 1024, 5, StandardCharsets.US_ASCII)).isEqualTo("b.png");
+        assertThat(Arrays.copyOfRange(archive, 1536, 1536 + IMAGE.length)).isEqualTo(IMAGE);
+        verify(fileStorageService, times(1)).getFile(image.getId());
+    }
+
+    @Test
+    @DisplayName("Should skip a small entry whose content is missing")
+    void shouldSkipMissingInlineEntry() throws IOException {
+        // Given
+        when(fileStorageService.getFile(text.getId())).thenReturn(Optional.empty());
+
+        // When
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        archiveService.writeArchive(Stream.of(text, image), ArchiveFormat.ZIP, output);
+
+        // Then
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            assertThat(zip.getNextEntry().getName()).isEqualTo("b.png");
+            assertThat(zip.getNextEntry()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a filter matching more files than allowed instead of truncating it")
+    void shouldRejectOversizedFilterSelection() {
+        // Given
+        when(fileMetadataService.countUserFileMetadata(TEST_USER_ID, Set.of("work"), null)).thenReturn(3L);
+        ArchiveRequest request = new ArchiveRequest().setFilter(new BulkFileFilter().setTags(Set.of("work")));
+
+        // When & Then
+        assertThatThrownBy(() -> archiveService.selectFiles(TEST_USER_ID, request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Maximum 2 file IDs allowed per request, but 3 provided");
+        verify(fileMetadataService, never()).streamUserFileMetadata(anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should reject more explicit IDs than allowed")
+    void shouldRejectOversizedIdSelection() {
+        // Given
+        ArchiveRequest request = new ArchiveRequest().setFileIds(List.of(
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+        // When & Then
+        assertThatThrownBy(() -> archiveService.selectFiles(TEST_USER_ID, request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Maximum 2 file IDs allowed per request, but 3 provided");
+    }
+
+    @Test
+    @DisplayName("Should fail the archive when the selection grew past the limit after it was counted")
+    void shouldFailWhenSelectionGrows() {
+        // Given
+        when(fileMetadataService.countUserFileMetadata(TEST_USER_ID, null, null)).thenReturn(2L);
+        when(fileMetadataService.streamUserFileMetadata(TEST_USER_ID, null, null, 3))
+                .thenReturn(Stream.of(text, image, file("c.txt", "text/plain", 1)));
+        ArchiveService.Selection selection = archiveService.selectFiles(TEST_USER_ID,
+                new ArchiveRequest().setFilter(new BulkFileFilter().setAll(true)));
+
+        // When & Then
+        assertThatThrownBy(() -> archiveService.writeArchive(archiveService.openSelection(TEST_USER_ID, selection),
+                ArchiveFormat.ZIP, new ByteArrayOutputStream()))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Maximum 2 file IDs allowed per request, but 3 provided");
+    }
+
+    private static FileMetadataDto file(String fileName, String contentType, long size) {
+        return new FileMetadataDto()
+                .setId(UUID.randomUUID())
+                .setFileName(fileName)
+                .setContentType(contentType)
+                .setSize(size);
+    }
+}
@@ -0,0 +1,217 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.config.BatchUploadProperties;
+import com.github.simohin.file.storage.dto.BatchUploadItem;
+import com.github.simohin.file.storage.dto.BatchUploadResponse;
+import com.github.simohin.file.storage.dto.BatchUploadResult;
+import com.github.simohin.file.storage.dto.FileStorageResult;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.repository.FileMetadataRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("BatchUploadService Tests")
+class BatchUploadServiceTest {
+
+    private static final String TEST_USER_ID = "testUser123";
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DiskSpaceService diskSpaceService;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private DuplicateCheckFilter duplicateCheckFilter;
+
+    private BatchUploadService batchUploadService;
+
+    @BeforeEach
+    void setUp() {
+        BatchUploadProperties properties = new BatchUploadProperties();
+        properties.setMaxFiles(3);
+        properties.setParallelism(2);
+
+        batchUploadService = new BatchUploadService(
+                fileStorageService, fileMetadataRepository, mongoTemplate, diskSpaceService, properties, duplicateCheckFilter);
+        batchUploadService.init();
+
+        when(duplicateCheckFilter.mightContainFileName(anyString(), anyString())).thenReturn(true);
+        when(duplicateCheckFilter.mightContainHash(anyString(), anyString())).thenReturn(true);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(FileMetadata.class))).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(fileMetadataRepository.findByUserIdAndStatusAndFileNameIn(anyString(), eq(FileStatus.ACTIVE), anyCollection()))
+                .thenReturn(List.of());
+        when(fileMetadataRepository.findByUserIdAndStatusAndHashIn(anyString(), eq(FileStatus.ACTIVE), anyCollection()))
+                .thenReturn(List.of());
+        when(fileStorageService.saveFile(any(UUID.class), any(), anyString(), anyLong()))
+                .thenAnswer(invocation -> storageResult("hash-" + invocation.getArgument(2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchUploadService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should store all files with a single disk check, batched queries and one bulk insert")
+    void shouldUploadAllFilesInOneBatch() {
+        // Given
+        List<MultipartFile> files = List.of(createFile("a.txt"), createFile("b.txt"), createFile("c.txt"));
+        List<BatchUploadItem> items = List.of(
+                new BatchUploadItem().setFilename("a.txt").setVisibility(Visibility.PUBLIC).setTags(Set.of("work")),
+                new BatchUploadItem().setFilename("b.txt"),
+                new BatchUploadItem().setFilename("c.txt"));
+
+        // When
+        BatchUploadResponse response = batchUploadService.uploadFiles(TEST_USER_ID, files, items);
+
+        // Then
+        assertThat(response.getSucceeded()).isEqualTo(3);
+        assertThat(response.getFailed()).isZero();
+        assertThat(response.getResults()).extracting(BatchUploadResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(response.getResults().get(0).getFile().getVisibility()).isEqualTo(Visibility.PUBLIC);
+        assertThat(response.getResults().get(1).getFile().getVisibility()).isEqualTo(Visibility.PRIVATE);
+
+        verify(diskSpaceService, times(1)).validateDiskSpace(anyLong());
+        verify(fileMetadataRepository, times(1)).findByUserIdAndStatusAndFileNameIn(anyString(), any(), anyCollection());
+        verify(fileMetadataRepository, times(1)).findByUserIdAndStatusAndHashIn(anyString(), any(), anyCollection());
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    @DisplayName("Should report duplicates per file without failing the batch")
+    void shouldReportPartialFailures() {
+        // Given
+        List<MultipartFile> files = List.of(createFile("a.txt"), createFile("b.txt"), createFile("a.txt"));
+        when(fileMetadataRepository.findByUserIdAndStatusAndHashIn(anyString(), eq(FileStatus.ACTIVE), anyCollection()))
+                .thenReturn(List.of(new FileMetadata().setFileName("existing.txt").setHash("hash-b.txt")));
+
+        // When
+        BatchUploadResponse response = batchUploadService.uploadFiles(TEST_USER_ID, files, null);
+
+        // Then
+        assertThat(response.getSucceeded()).isEqualTo(1);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults().get(0).isSuccess()).isTrue();
+        assertThat(response.getResults().get(1).getErrorCode()).isEqualTo("CONTENT_EXISTS");
+        assertThat(response.getResults().get(2).getErrorCode()).isEqualTo("DUPLICATE_IN_BATCH");
+
+        // Duplicate filename in the batch is rejected before it is written, duplicate content is cleaned up
+        verify(fileStorageService, times(2)).saveFile(any(UUID.class), any(), anyString(), anyLong());
+        verify(fileStorageService, times(1)).deleteFile(any(UUID.class));
+    }
+
+    @Test
+    @DisplayName("Should reject batches above the configured size")
+    void shouldRejectOversizedBatch() {
+        // Given
+        List<MultipartFile> files = List.of(
+                createFile("a.txt"), createFile("b.txt"), createFile("c.txt"), createFile("d.txt"));
+
+        // When & Then
+        assertThatThrownBy(() -> batchUploadService.uploadFiles(TEST_USER_ID, files, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Maximum 3 files allowed per batch, but 4 provided");
+
+        verify(fileStorageService, never()).saveFile(any(UUID.class), any(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should not return the database error text to the client")
+    void shouldHideWriteErrorDetails() {
+        // Given
+        List<MultipartFile> files = List.of(createFile("a.txt"), createFile("b.txt"));
+        String driverMessage = "E11000 duplicate key error collection: file_storage.files index: user_sha256_hash_idx";
+        MongoBulkWriteException source = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, driverMessage, new BsonDocument(), 1),
+                        new BulkWriteError(91, "Shutdown in progress on mongo-0:27017", new BsonDocument(), 0)),
+                null, new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException(driverMessage, source));
+
+        // When
+        BatchUploadResponse response = batchUploadService.uploadFiles(TEST_USER_ID, files, null);
+
+        // Then
+        assertThat(response.getResults().get(0).getErrorCode()).isEqualTo("STORAGE_FAILED");
+        assertThat(response.getResults().get(0).getError()).isEqualTo("Failed to store file: a.txt");
+        assertThat(response.getResults().get(1).getErrorCode()).isEqualTo("CONTENT_EXISTS");
+        assertThat(response.getResults().get(1).getError())
+                .isEqualTo("File with identical content already exists for user: b.txt");
+        verify(fileStorageService, times(2)).deleteFile(any(UUID.class));
+    }
+
+    @Test
+    @DisplayName("Should delete the stored content of every part when the metadata insert fails as a whole")
+    void shouldDeleteStoredContentWhenCommitFails() {
+        // Given
+        List<MultipartFile> files = List.of(createFile("a.txt"), createFile("b.txt"));
+        when(bulkOperations.execute()).thenThrow(new QueryTimeoutException("Timed out waiting for a server"));
+
+        // When & Then
+        assertThatThrownBy(() -> batchUploadService.uploadFiles(TEST_USER_ID, files, null))
+                .isInstanceOf(QueryTimeoutException.class);
+        verify(fileStorageService, times(2)).deleteFile(any(UUID.class));
+        verify(duplicateCheckFilter, never()).fileActivated(anyString(), anyString(), anyString());
+    }
+
+    // Helper methods
+    private MultipartFile createFile(String filename) {
+        return new MockMultipartFile("files", filename, "text/plain", ("content of " + filename).getBytes());
+    }
+
+    private FileStorageResult storageResult(String hash) {
+        return new FileStorageResult()
+                .setHash(hash)
+                .setSize(16)
+                .setContentType("text/plain");
+    }
+}
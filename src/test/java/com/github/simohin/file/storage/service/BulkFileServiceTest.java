@@ -0,0 +1,225 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.BulkJobStatus;
+import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.config.BulkOperationProperties;
+import com.github.simohin.file.storage.dto.BulkFileFilter;
+import com.github.simohin.file.storage.dto.BulkFileRequest;
+import com.github.simohin.file.storage.dto.BulkJobResponse;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("BulkFileService Tests")
+class BulkFileServiceTest {
+
+    private static final String TEST_USER_ID = "testUser123";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DuplicateCheckFilter duplicateCheckFilter;
+
+    private BulkFileService bulkFileService;
+
+    @BeforeEach
+    void setUp() {
+        BulkOperationProperties properties = new BulkOperationProperties();
+        properties.setChunkSize(2);
+        properties.setMaxIds(10);
+        properties.setParallelism(1);
+
+        bulkFileService = new BulkFileService(mongoTemplate, duplicateCheckFilter, properties);
+        bulkFileService.init();
+
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class)))
+                .thenAnswer(invocation -> {
+                    Query query = invocation.getArgument(0);
+                    int ids = query.getQueryObject().get("_id", Document.class).getList("$in", UUID.class).size();
+                    return UpdateResult.acknowledged(ids, (long) ids, null);
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkFileService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should check ownership per chunk and skip files of other users")
+    void shouldSkipFilesNotOwned() throws Exception {
+        // Given - five IDs in chunks of two, one belongs to someone else and one does not exist
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID());
+        UUID foreign = ids.get(1);
+        UUID missing = ids.get(4);
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            List<FileMetadata> found = new ArrayList<>();
+            for (UUID id : query.getQueryObject().get("_id", Document.class).getList("$in", UUID.class)) {
+                if (!id.equals(missing)) {
+                    found.add(new FileMetadata().setId(id).setUserId(id.equals(foreign) ? "someoneElse" : TEST_USER_ID));
+                }
+            }
+            return found;
+        });
+
+        // When
+        BulkJobResponse job = awaitJob(bulkFileService.deleteFiles(TEST_USER_ID,
+                new BulkFileRequest().setFileIds(ids.stream().map(UUID::toString).toList())));
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(job.getTotal()).isEqualTo(5);
+        assertThat(job.getProcessed()).isEqualTo(5);
+        assertThat(job.getSucceeded()).isEqualTo(3);
+        assertThat(job.getSkipped()).isEqualTo(2);
+        assertThat(job.getSkippedFileIds()).containsExactly(foreign.toString(), missing.toString());
+        verify(mongoTemplate, times(3)).find(any(Query.class), eq(FileMetadata.class));
+        // The last chunk has no owned file left, so it needs no update
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+        verify(duplicateCheckFilter).filesRemoved(2);
+        verify(duplicateCheckFilter).filesRemoved(1);
+    }
+
+    @Test
+    @DisplayName("Should apply a filter selection in chunks paged by ID")
+    void shouldChunkFilterSelection() throws Exception {
+        // Given
+        UUID lastOfFirstChunk = UUID.randomUUID();
+        when(mongoTemplate.count(any(Query.class), eq(FileMetadata.class))).thenReturn(3L);
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(
+                List.of(new FileMetadata().setId(UUID.randomUUID()), new FileMetadata().setId(lastOfFirstChunk)),
+                List.of(new FileMetadata().setId(UUID.randomUUID())));
+
+        // When
+        BulkJobResponse job = awaitJob(bulkFileService.changeVisibility(TEST_USER_ID, new BulkFileRequest()
+                .setFilter(new BulkFileFilter().setTags(Set.of("draft")))
+                .setVisibility(Visibility.PUBLIC)));
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(job.getTotal()).isEqualTo(3);
+        assertThat(job.getSucceeded()).isEqualTo(3);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+
+        // The second chunk starts after the first, whatever the update did to the files already changed
+        ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(pages.capture(), eq(FileMetadata.class));
+        assertThat(pages.getAllValues().get(0).getQueryObject().containsKey("_id")).isFalse();
+        assertThat(pages.getAllValues().get(1).getQueryObject().get("_id", Document.class).get("$gt"))
+                .isEqualTo(lastOfFirstChunk);
+        assertThat((Collection<?>) pages.getAllValues().get(1).getQueryObject().get("tags", Document.class).get("$in"))
+                .containsExactly("draft");
+        assertThat(pages.getAllValues().get(1).getSortObject()).isEqualTo(new Document("_id", 1));
+    }
+
+    @Test
+    @DisplayName("Should report a failed job without the database error text")
+    void shouldHideJobErrorDetails() throws Exception {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class)))
+                .thenThrow(new DataAccessResourceFailureException("Timed out connecting to mongo-0:27017"));
+
+        // When
+        BulkJobResponse job = awaitJob(bulkFileService.deleteFiles(TEST_USER_ID,
+                new BulkFileRequest().setFileIds(List.of(UUID.randomUUID().toString()))));
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(BulkJobStatus.FAILED);
+        assertThat(job.getError())
+                .isEqualTo("Bulk job stopped after an internal error; files processed before it keep their changes");
+    }
+
+    @Test
+    @DisplayName("Should reject a filter without criteria unless all files are selected explicitly")
+    void shouldRejectEmptyFilter() throws Exception {
+        // When & Then
+        assertThatThrownBy(() -> bulkFileService.deleteFiles(TEST_USER_ID,
+                new BulkFileRequest().setFilter(new BulkFileFilter())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Filter must contain tags or visibility, or set all to select every file");
+        assertThatThrownBy(() -> bulkFileService.deleteFiles(TEST_USER_ID,
+                new BulkFileRequest().setFilter(new BulkFileFilter().setTags(Set.of()))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(List.of());
+
+        // When
+        BulkJobResponse job = awaitJob(bulkFileService.deleteFiles(TEST_USER_ID,
+                new BulkFileRequest().setFilter(new BulkFileFilter().setAll(true))));
+
+        // Then
+        assertThat(job.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Should reject selections with both IDs and a filter")
+    void shouldRejectAmbiguousSelection() {
+        // When & Then
+        assertThatThrownBy(() -> bulkFileService.deleteFiles(TEST_USER_ID, new BulkFileRequest()
+                .setFileIds(List.of(UUID.randomUUID().toString()))
+                .setFilter(new BulkFileFilter().setAll(true))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("File IDs and a filter cannot be combined");
+    }
+
+    @Test
+    @DisplayName("Should report a job only to the user who submitted it")
+    void shouldHideJobFromOtherUsers() throws Exception {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(List.of());
+        BulkJobResponse job = awaitJob(bulkFileService.deleteFiles(TEST_USER_ID,
+                new BulkFileRequest().setFileIds(List.of(UUID.randomUUID().toString()))));
+
+        // When & Then
+        assertThat(job.getFinishedAt()).isNotNull();
+        assertThatThrownBy(() -> bulkFileService.getJob(job.getJobId(), "someoneElse"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Bulk job not found: " + job.getJobId());
+    }
+
+    private BulkJobResponse awaitJob(BulkJobResponse submitted) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        BulkJobResponse job = submitted;
+        while (job.getStatus() == BulkJobStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = bulkFileService.getJob(submitted.getJobId(), TEST_USER_ID);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.ScrubberProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.entity.ScrubCheckpoint;
+import com.github.simohin.file.storage.mapper.FileMetadataMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ContentScrubber Tests")
+class ContentScrubberTest {
+
+    private static final byte[] CONTENT = "stored content".getBytes(StandardCharsets.UTF_8);
+    private static final String FIRST_COPY = "/data/volume-1";
+    private static final String SECOND_COPY = "/data/volume-2";
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private FileMetadataMapper fileMetadataMapper;
+
+    private ContentScrubber contentScrubber;
+    private SimpleMeterRegistry registry;
+
+    private final UUID intactFile = UUID.randomUUID();
+    private final UUID corruptedFile = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ScrubberProperties properties = new ScrubberProperties();
+        properties.setDirectIo(false);
+        registry = new SimpleMeterRegistry();
+        contentScrubber = new ContentScrubber(fileStorageService, mongoTemplate, fileMetadataMapper, properties, registry);
+
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(
+                List.of(new FileMetadata().setId(intactFile).setHash(hash).setStatus(FileStatus.ACTIVE),
+                        new FileMetadata().setId(corruptedFile).setHash(hash).setStatus(FileStatus.ACTIVE)),
+                List.of());
+        when(fileStorageService.listCopies(any(UUID.class))).thenReturn(List.of(FIRST_COPY));
+        // Every copy of the intact file is good; of the corrupted file only a second copy, where there is one
+        when(fileStorageService.openSequentialChannel(any(UUID.class), anyString(), anyInt(), anyBoolean()))
+                .thenAnswer(invocation -> Optional.of(Channels.newChannel(new ByteArrayInputStream(
+                        intactFile.equals(invocation.getArgument(0)) || SECOND_COPY.equals(invocation.getArgument(1))
+                                ? CONTENT : "rotten content".getBytes()))));
+    }
+
+    @Test
+    @DisplayName("Should flag files whose content no longer matches the recorded hash")
+    void shouldFlagMismatches() {
+        // When
+        long verified = contentScrubber.scrub();
+
+        // Then
+        assertThat(verified).isEqualTo(2);
+        ArgumentCaptor<Query> flagged = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(flagged.capture(), any(UpdateDefinition.class), eq(FileMetadata.class));
+        assertThat(flagged.getValue().getQueryObject().get("_id")).isEqualTo(corruptedFile);
+        assertThat(registry.get("file.storage.scrub.files").tag("result", "mismatch").counter().count()).isEqualTo(1);
+        assertThat(registry.get("file.storage.scrub.files").tag("result", "verified").counter().count()).isEqualTo(1);
+
+        // The completed pass is checkpointed
+        ArgumentCaptor<ScrubCheckpoint> checkpoint = ArgumentCaptor.forClass(ScrubCheckpoint.class);
+        verify(mongoTemplate, atLeastOnce()).save(checkpoint.capture());
+        ScrubCheckpoint last = checkpoint.getValue();
+        assertThat(last.getPassStartedAt()).isNull();
+        assertThat(last.getLastPassCompletedAt()).isNotNull();
+        assertThat(last.getMismatches()).isEqualTo(1);
+        assertThat(last.getBytesVerified()).isEqualTo(CONTENT.length + "rotten content".length());
+    }
+
+    @Test
+    @DisplayName("Should verify every copy and discard a bad one while another copy is intact")
+    void shouldDiscardBadReplica() throws Exception {
+        // Given
+        when(fileStorageService.listCopies(corruptedFile)).thenReturn(List.of(FIRST_COPY, SECOND_COPY));
+
+        // When
+        long verified = contentScrubber.scrub();
+
+        // Then
+        assertThat(verified).isEqualTo(2);
+        verify(fileStorageService).openSequentialChannel(eq(corruptedFile), eq(SECOND_COPY), anyInt(), anyBoolean());
+        verify(fileStorageService).discardCopy(corruptedFile, FIRST_COPY);
+        verify(fileStorageService, never()).discardCopy(corruptedFile, SECOND_COPY);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+        assertThat(registry.get("file.storage.scrub.files").tag("result", "repaired").counter().count()).isEqualTo(1);
+        assertThat(registry.get("file.storage.scrub.files").tag("result", "mismatch").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should resume the current pass after the checkpointed file")
+    void shouldResumeFromCheckpoint() {
+        // Given
+        UUID lastVerified = UUID.randomUUID();
+        when(mongoTemplate.findById(ContentScrubber.CHECKPOINT_ID, ScrubCheckpoint.class)).thenReturn(new ScrubCheckpoint()
+                .setId(ContentScrubber.CHECKPOINT_ID)
+                .setPassStartedAt(LocalDateTime.now().minusHours(1))
+                .setLastFileId(lastVerified));
+
+        // When
+        contentScrubber.scrub();
+
+        // Then
+        ArgumentCaptor<Query> batch = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, atLeastOnce()).find(batch.capture(), eq(FileMetadata.class));
+        assertThat(batch.getAllValues().get(0).getQueryObject().get("_id")).isEqualTo(new Document("$gt", lastVerified));
+    }
+
+    @Test
+    @DisplayName("Should not start a new pass before the pass interval has elapsed")
+    void shouldWaitForPassInterval() throws Exception {
+        // Given
+        when(mongoTemplate.findById(ContentScrubber.CHECKPOINT_ID, ScrubCheckpoint.class)).thenReturn(new ScrubCheckpoint()
+                .setId(ContentScrubber.CHECKPOINT_ID)
+                .setLastPassCompletedAt(LocalDateTime.now().minusHours(1)));
+
+        // When
+        long verified = contentScrubber.scrub();
+
+        // Then
+        assertThat(verified).isZero();
+        verify(fileStorageService, never()).openSequentialChannel(any(UUID.class), anyString(), anyInt(), anyBoolean());
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.config.DuplicateFilterProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("DuplicateCheckFilter Tests")
+class DuplicateCheckFilterTest {
+
+    private static final String TEST_USER_ID = "testUser123";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final DuplicateFilterProperties properties = new DuplicateFilterProperties();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private DuplicateCheckFilter duplicateCheckFilter;
+
+    @BeforeEach
+    void setUp() {
+        properties.setExpectedInsertions(8);
+        properties.setRebuildStaleRatio(0.25);
+        duplicateCheckFilter = new DuplicateCheckFilter(properties, mongoTemplate, registry);
+
+        when(mongoTemplate.count(any(Query.class), eq(FileMetadata.class))).thenReturn(4L);
+        when(mongoTemplate.stream(any(Query.class), eq(FileMetadata.class))).thenAnswer(invocation -> Stream.of(
+                file("a.txt", "hash-a"), file("b.txt", "hash-b"), file("c.txt", "hash-c"), file("d.txt", "hash-d")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        duplicateCheckFilter.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should answer every check as a possible hit until the first build")
+    void shouldAllowEverythingBeforeBuild() {
+        // When & Then
+        assertThat(duplicateCheckFilter.mightContainFileName(TEST_USER_ID, "never-uploaded.txt")).isTrue();
+        assertThat(duplicateCheckFilter.mightContainHash(TEST_USER_ID, "never-seen")).isTrue();
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should skip only checks that no active file can match")
+    void shouldSkipDefiniteMisses() {
+        // When
+        duplicateCheckFilter.rebuild();
+
+        // Then
+        assertThat(duplicateCheckFilter.mightContainFileName(TEST_USER_ID, "a.txt")).isTrue();
+        assertThat(duplicateCheckFilter.mightContainHash(TEST_USER_ID, "hash-d")).isTrue();
+        assertThat(duplicateCheckFilter.mightContainFileName(TEST_USER_ID, "never-uploaded.txt")).isFalse();
+        assertThat(duplicateCheckFilter.mightContainFileName("someoneElse", "a.txt")).isFalse();
+        assertThat(registry.get("file.storage.duplicate.filter.checks")
+                .tag("filter", "filename").tag("result", "skipped").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should add activated and renamed files without a rebuild")
+    void shouldAddNewFilesInPlace() {
+        // Given
+        duplicateCheckFilter.rebuild();
+
+        // When
+        duplicateCheckFilter.fileActivated(TEST_USER_ID, "e.txt", "hash-e");
+        duplicateCheckFilter.fileRenamed(TEST_USER_ID, "renamed.txt");
+
+        // Then
+        assertThat(duplicateCheckFilter.mightContainFileName(TEST_USER_ID, "e.txt")).isTrue();
+        assertThat(duplicateCheckFilter.mightContainHash(TEST_USER_ID, "hash-e")).isTrue();
+        assertThat(duplicateCheckFilter.mightContainFileName(TEST_USER_ID, "renamed.txt")).isTrue();
+        verify(mongoTemplate, after(200).times(1)).stream(any(Query.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should rebuild once stale entries pass the configured share of all entries")
+    void shouldRebuildWhenStale() {
+        // Given - four entries, so more than one stale entry passes a ratio of 0.25
+        duplicateCheckFilter.rebuild();
+
+        // When
+        duplicateCheckFilter.filesRemoved(1);
+
+        // Then
+        verify(mongoTemplate, after(200).times(1)).stream(any(Query.class), eq(FileMetadata.class));
+
+        // When - a rename leaves the old name behind as well
+        duplicateCheckFilter.fileRenamed(TEST_USER_ID, "renamed.txt");
+
+        // Then
+        verify(mongoTemplate, timeout(5000).times(2)).stream(any(Query.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should rebuild with more room once activations pass the capacity")
+    void shouldRebuildWhenFull() {
+        // Given - sized for twice the four active files
+        duplicateCheckFilter.rebuild();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            duplicateCheckFilter.fileActivated(TEST_USER_ID, "new-" + i + ".txt", "hash-new-" + i);
+        }
+
+        // Then
+        verify(mongoTemplate, after(200).times(1)).stream(any(Query.class), eq(FileMetadata.class));
+
+        // When
+        duplicateCheckFilter.fileActivated(TEST_USER_ID, "one-too-many.txt", "hash-one-too-many");
+
+        // Then
+        verify(mongoTemplate, timeout(5000).times(2)).stream(any(Query.class), eq(FileMetadata.class));
+    }
+
+    private static FileMetadata file(String fileName, String hash) {
+        return new FileMetadata().setUserId(TEST_USER_ID).setFileName(fileName).setHash(hash);
+    }
+}
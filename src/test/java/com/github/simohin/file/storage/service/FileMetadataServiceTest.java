@@ -0,0 +1,135 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.dto.FileMetadataDto;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.github.simohin.file.storage.mapper.FileMetadataMapper;
+import com.github.simohin.file.storage.repository.FileMetadataRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("FileMetadataService Mutation Tests")
+class FileMetadataServiceTest {
+
+    private static final String OWNER = "owner1";
+    private static final UUID FILE_ID = UUID.randomUUID();
+
+    @Mock
+    private FileMetadataRepository fileMetadataRepository;
+
+    @Mock
+    private FileMetadataMapper fileMetadataMapper;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DuplicateCheckFilter duplicateCheckFilter;
+
+    @InjectMocks
+    private FileMetadataService fileMetadataService;
+
+    @BeforeEach
+    void setUp() {
+        when(fileMetadataMapper.toDto(any())).thenReturn(new FileMetadataDto());
+    }
+
+    @Test
+    @DisplayName("Should delete with one conditional findAndModify filtered by owner and status")
+    void shouldDeleteInOneRoundTrip() {
+        // Given
+        FileMetadata existing = new FileMetadata().setId(FILE_ID).setUserId(OWNER).setStatus(FileStatus.ACTIVE);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class)))
+                .thenReturn(existing);
+
+        // When
+        Optional<FileMetadataDto> deleted = fileMetadataService.deleteFileMetadata(FILE_ID, OWNER);
+
+        // Then - exactly one Mongo round trip, no repository read
+        assertThat(deleted).isPresent();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(1)).findAndModify(query.capture(), update.capture(), eq(FileMetadata.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        verifyNoInteractions(fileMetadataRepository);
+
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("_id", FILE_ID)
+                .containsEntry("userId", OWNER)
+                .containsEntry("status", FileStatus.ACTIVE);
+        assertThat(update.getValue().getUpdateObject())
+                .containsEntry("$set", new Document("status", FileStatus.DELETED));
+    }
+
+    @Test
+    @DisplayName("Should report nothing deleted when owner or status do not match")
+    void shouldNotDeleteForeignFile() {
+        // Given
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class)))
+                .thenReturn(null);
+
+        // When
+        Optional<FileMetadataDto> deleted = fileMetadataService.deleteFileMetadata(FILE_ID, "someoneElse");
+
+        // Then
+        assertThat(deleted).isEmpty();
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+        verifyNoMoreInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Should rename with one targeted $set returning the new document")
+    void shouldRenameInOneRoundTrip() {
+        // Given
+        FileMetadataDto updateDto = new FileMetadataDto();
+        updateDto.setFileName("renamed.pdf");
+        FileMetadata renamed = new FileMetadata().setId(FILE_ID).setUserId(OWNER).setFileName("renamed.pdf");
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(FileMetadata.class)))
+                .thenReturn(renamed);
+
+        // When
+        Optional<FileMetadataDto> updated = fileMetadataService.updateFileMetadata(FILE_ID, OWNER, updateDto);
+
+        // Then - exactly one Mongo round trip touching only the file name
+        assertThat(updated).isPresent();
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), update.capture(), options.capture(),
+                eq(FileMetadata.class));
+        verifyNoMoreInteractions(mongoTemplate);
+        verifyNoInteractions(fileMetadataRepository);
+
+        assertThat(update.getValue().getUpdateObject())
+                .containsEntry("$set", new Document("fileName", "renamed.pdf"));
+        assertThat(options.getValue().isReturnNew()).isTrue();
+        verify(duplicateCheckFilter).fileRenamed(OWNER, "renamed.pdf");
+    }
+}
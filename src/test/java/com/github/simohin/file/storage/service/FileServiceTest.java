@@ -1,10 +1,13 @@
 package com.github.simohin.file.storage.service;
 
+import com.github.simohin.file.storage.common.FileConstants;
 import com.github.simohin.file.storage.common.FileStatus;
 import com.github.simohin.file.storage.common.Visibility;
+import com.github.simohin.file.storage.config.HashingProperties;
 import com.github.simohin.file.storage.dto.FileMetadataDto;
 import com.github.simohin.file.storage.dto.FileStorageResult;
 import com.github.simohin.file.storage.dto.FileUploadResponse;
+import com.github.simohin.file.storage.util.BufferPool;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -12,15 +15,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -30,6 +37,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -39,6 +47,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +65,24 @@ class FileServiceTest {
     @Mock
     private DiskSpaceService diskSpaceService;
 
+    @Mock
+    private FileStorageMetrics fileStorageMetrics;
+
+    @Mock
+    private HeavyHitterTracker heavyHitterTracker;
+
+    @Mock
+    private DuplicateCheckFilter duplicateCheckFilter;
+
+    @Mock
+    private StoragePurgeService storagePurgeService;
+
+    @Spy
+    private HashingProperties hashingProperties = new HashingProperties();
+
+    @Spy
+    private BufferPool bufferPool = new BufferPool(16 * 1024, 1024 * 1024, 64 * 1024, 1024 * 1024);
+
     @InjectMocks
     private FileService fileService;
 
@@ -77,6 +104,10 @@ class FileServiceTest {
 
         // Mock DiskSpaceService to allow uploads by default
         doNothing().when(diskSpaceService).validateDiskSpace(anyLong());
+
+        // Duplicate queries always run unless a test says the Bloom filter rules them out
+        when(duplicateCheckFilter.mightContainFileName(any(), any())).thenReturn(true);
+        when(duplicateCheckFilter.mightContainHash(any(), any())).thenReturn(true);
     }
 
     @Nested
@@ -96,11 +127,11 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                     .thenReturn(storageResult);
             when(fileMetadataService.createFileMetadata(
                     any(UUID.class), eq(TEST_FILENAME), eq(TEST_USER_ID), eq(TEST_CONTENT_TYPE),
-                    eq(TEST_FILE_SIZE), eq(TEST_HASH), eq(Visibility.PRIVATE), eq(tags)))
+                    eq(TEST_FILE_SIZE), eq(TEST_HASH), any(), any(), eq(Visibility.PRIVATE), eq(tags)))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -123,11 +154,11 @@ class FileServiceTest {
             verify(fileMetadataService).checkFileExists(TEST_USER_ID, TEST_FILENAME);
             verify(fileStorageService).calculateHash(any());
             verify(fileMetadataService).checkDuplicateByHash(TEST_USER_ID, TEST_HASH);
-            verify(fileStorageService).saveFile(any(UUID.class), any(), eq(TEST_FILENAME));
+            verify(fileStorageService).saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong());
             verify(fileMetadataService).createFileMetadata(
                     any(UUID.class), eq(TEST_FILENAME), eq(TEST_USER_ID), eq(TEST_CONTENT_TYPE),
-                    eq(TEST_FILE_SIZE), eq(TEST_HASH), eq(Visibility.PRIVATE), eq(tags));
-            verify(fileMetadataService).updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE));
+                    eq(TEST_FILE_SIZE), eq(TEST_HASH), any(), any(), eq(Visibility.PRIVATE), eq(tags));
+            verify(fileMetadataService, never()).updateFileStatus(any(), any());
         }
 
         @Test
@@ -142,11 +173,11 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                     .thenReturn(storageResult);
             when(fileMetadataService.createFileMetadata(
                     any(UUID.class), eq(TEST_FILENAME), eq(TEST_USER_ID), eq(TEST_CONTENT_TYPE),
-                    eq(TEST_FILE_SIZE), eq(TEST_HASH), eq(Visibility.PUBLIC), eq(Set.of())))
+                    eq(TEST_FILE_SIZE), eq(TEST_HASH), any(), any(), eq(Visibility.PUBLIC), eq(Set.of())))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -294,6 +325,53 @@ class FileServiceTest {
             verify(fileStorageService).calculateHash(any());
             verify(fileMetadataService).checkDuplicateByHash(TEST_USER_ID, TEST_HASH);
         }
+
+        @Test
+        @DisplayName("Should skip duplicate queries when the Bloom filter rules out both duplicates")
+        void shouldSkipDuplicateQueriesOnDefiniteMiss() {
+            // Given
+            FileMetadataDto metadata = createTestMetadata();
+            when(duplicateCheckFilter.mightContainFileName(TEST_USER_ID, TEST_FILENAME)).thenReturn(false);
+            when(duplicateCheckFilter.mightContainHash(TEST_USER_ID, TEST_HASH)).thenReturn(false);
+            when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
+                    .thenReturn(createTestStorageResult());
+            when(fileMetadataService.createFileMetadata(any(UUID.class), any(), any(), any(), anyLong(), any(), any(), any(), any(), any()))
+                    .thenReturn(metadata);
+            when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
+                    .thenReturn(Optional.of(metadata));
+
+            // When
+            FileUploadResponse response = fileService.uploadFile(testFile, TEST_USER_ID, TEST_FILENAME, Visibility.PRIVATE, null);
+
+            // Then
+            assertThat(response.getFilename()).isEqualTo(TEST_FILENAME);
+            verify(fileMetadataService, never()).checkFileExists(any(), any());
+            verify(fileMetadataService, never()).checkDuplicateByHash(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should skip the full hash pass when no file has the same quick hash")
+        void shouldSkipFullHashWithoutQuickHashCandidate() {
+            // Given - the test file is above the quick hash threshold
+            hashingProperties.setQuickHashThreshold(DataSize.ofBytes(1));
+            FileMetadataDto metadata = createTestMetadata();
+            when(fileMetadataService.checkFileExists(TEST_USER_ID, TEST_FILENAME)).thenReturn(Optional.empty());
+            when(fileStorageService.calculateQuickHash(any(), anyLong())).thenReturn("quick");
+            when(fileMetadataService.hasQuickHashCandidate(TEST_USER_ID, "quick")).thenReturn(false);
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
+                    .thenReturn(createTestStorageResult());
+            when(fileMetadataService.createFileMetadata(any(UUID.class), any(), any(), any(), anyLong(), any(), any(), any(), any(), any()))
+                    .thenReturn(metadata);
+
+            // When
+            FileUploadResponse response = fileService.uploadFile(testFile, TEST_USER_ID, TEST_FILENAME, Visibility.PRIVATE, null);
+
+            // Then
+            assertThat(response.getFilename()).isEqualTo(TEST_FILENAME);
+            verify(fileStorageService, never()).calculateHash(any());
+            verify(fileMetadataService, never()).checkDuplicateByHash(any(), any());
+        }
     }
 
     @Nested
@@ -322,9 +400,9 @@ class FileServiceTest {
                     .thenReturn(Optional.empty());
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, "hash2"))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(filename)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(filename), anyLong()))
                     .thenReturn(storageResult);
-            lenient().when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any()))
+            lenient().when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any(), any(), any()))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -388,9 +466,9 @@ class FileServiceTest {
                     .thenReturn(Optional.empty())
                     .thenReturn(Optional.of(metadata));
 
-            when(fileStorageService.saveFile(any(UUID.class), any(), anyString()))
+            when(fileStorageService.saveFile(any(UUID.class), any(), anyString(), anyLong()))
                     .thenReturn(storageResult);
-            lenient().when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any()))
+            lenient().when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any(), any(), any()))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -468,11 +546,11 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(specialFilename)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(specialFilename), anyLong()))
                     .thenReturn(storageResult);
             when(fileMetadataService.createFileMetadata(
                     any(UUID.class), eq(specialFilename), eq(TEST_USER_ID), eq("application/pdf"),
-                    anyLong(), eq(TEST_HASH), eq(Visibility.PRIVATE), eq(Set.of())))
+                    anyLong(), eq(TEST_HASH), any(), any(), eq(Visibility.PRIVATE), eq(Set.of())))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -502,9 +580,9 @@ class FileServiceTest {
                     .thenReturn(Optional.empty());
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, "hash2"))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), anyString()))
+            when(fileStorageService.saveFile(any(UUID.class), any(), anyString(), anyLong()))
                     .thenReturn(storageResult1, storageResult2);
-            when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any()))
+            when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any(), any(), any()))
                     .thenReturn(metadata1, metadata2);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata1), Optional.of(metadata2));
@@ -543,11 +621,11 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(longFilename)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(longFilename), anyLong()))
                     .thenReturn(storageResult);
             when(fileMetadataService.createFileMetadata(
                     any(UUID.class), eq(longFilename), eq(TEST_USER_ID), anyString(),
-                    anyLong(), eq(TEST_HASH), eq(Visibility.PRIVATE), eq(Set.of())))
+                    anyLong(), eq(TEST_HASH), any(), any(), eq(Visibility.PRIVATE), eq(Set.of())))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -568,11 +646,11 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                     .thenReturn(storageResult);
             when(fileMetadataService.createFileMetadata(
                     any(UUID.class), eq(TEST_FILENAME), eq(TEST_USER_ID), eq(TEST_CONTENT_TYPE),
-                    eq(TEST_FILE_SIZE), eq(TEST_HASH), eq(null), eq(Set.of())))
+                    eq(TEST_FILE_SIZE), eq(TEST_HASH), any(), any(), eq(null), eq(Set.of())))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -594,11 +672,11 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                     .thenReturn(storageResult);
             when(fileMetadataService.createFileMetadata(
                     any(UUID.class), eq(TEST_FILENAME), eq(TEST_USER_ID), eq(TEST_CONTENT_TYPE),
-                    eq(TEST_FILE_SIZE), eq(TEST_HASH), eq(Visibility.PRIVATE), eq(tagsWithSpaces)))
+                    eq(TEST_FILE_SIZE), eq(TEST_HASH), any(), any(), eq(Visibility.PRIVATE), eq(tagsWithSpaces)))
                     .thenReturn(metadata);
             when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                     .thenReturn(Optional.of(metadata));
@@ -626,9 +704,9 @@ class FileServiceTest {
                 when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH + contentType);
                 when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH + contentType))
                         .thenReturn(Optional.empty());
-                when(fileStorageService.saveFile(any(UUID.class), any(), eq(file.getOriginalFilename())))
+                when(fileStorageService.saveFile(any(UUID.class), any(), eq(file.getOriginalFilename()), anyLong()))
                         .thenReturn(storageResult);
-                when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), eq(contentType), anyLong(), anyString(), any(), any()))
+                when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), eq(contentType), anyLong(), anyString(), any(), any(), any(), any()))
                         .thenReturn(metadata);
                 when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                         .thenReturn(Optional.of(metadata));
@@ -668,7 +746,7 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                     .thenThrow(new RuntimeException("Storage failed"));
 
             // When & Then
@@ -688,9 +766,9 @@ class FileServiceTest {
             when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
             when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                     .thenReturn(Optional.empty());
-            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+            when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                     .thenReturn(storageResult);
-            when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any()))
+            when(fileMetadataService.createFileMetadata(any(UUID.class), anyString(), anyString(), anyString(), anyLong(), anyString(), any(), any(), any(), any()))
                     .thenThrow(new RuntimeException("Database error"));
 
             // When & Then
@@ -708,6 +786,113 @@ class FileServiceTest {
                 .setContentType(TEST_CONTENT_TYPE);
     }
 
+    @Nested
+    @DisplayName("Batch Get Scenarios")
+    class BatchGetTests {
+
+        @Test
+        @DisplayName("Should parse and deduplicate the requested IDs")
+        void shouldValidateBatchGet() {
+            // Given
+            UUID fileId = UUID.randomUUID();
+
+            // When
+            Set<UUID> fileIds = fileService.validateBatchGet(List.of(fileId.toString(), fileId.toString()), TEST_USER_ID);
+
+            // Then
+            assertThat(fileIds).containsExactly(fileId);
+            verify(fileMetadataService, never()).streamVisibleFileMetadata(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should reject empty, oversized and malformed ID lists")
+        void shouldRejectInvalidBatchGet() {
+            // Given
+            List<String> tooMany = Stream.generate(() -> UUID.randomUUID().toString())
+                    .limit(FileConstants.MAX_BATCH_GET_SIZE + 1)
+                    .toList();
+
+            // When & Then
+            assertThatThrownBy(() -> fileService.validateBatchGet(List.of(), TEST_USER_ID))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("At least one file ID is required");
+            assertThatThrownBy(() -> fileService.validateBatchGet(tooMany, TEST_USER_ID))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Maximum 1000 file IDs allowed per request, but 1001 provided");
+            assertThatThrownBy(() -> fileService.validateBatchGet(List.of("not-a-uuid"), TEST_USER_ID))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Delete and Rename Scenarios")
+    class MutationTests {
+
+        @Test
+        @DisplayName("Should delete with a single conditional metadata update, no prior lookup and no unlink")
+        void shouldDeleteWithoutLookup() {
+            // Given
+            UUID fileId = UUID.randomUUID();
+            when(fileMetadataService.deleteFileMetadata(fileId, TEST_USER_ID)).thenReturn(Optional.of(createTestMetadata()));
+
+            // When
+            fileService.deleteFile(fileId.toString(), TEST_USER_ID);
+
+            // Then - content stays in place until the trash is purged
+            verify(fileMetadataService).deleteFileMetadata(fileId, TEST_USER_ID);
+            verify(fileMetadataService, never()).getFileMetadata(any());
+            verify(fileStorageService, never()).deleteFile(any());
+        }
+
+        @Test
+        @DisplayName("Should restore a file from the trash within the retention period")
+        void shouldRestoreFromTrash() {
+            // Given
+            UUID fileId = UUID.randomUUID();
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(7);
+            when(storagePurgeService.retentionCutoff()).thenReturn(cutoff);
+            when(fileMetadataService.restoreFileMetadata(fileId, TEST_USER_ID, cutoff))
+                    .thenReturn(Optional.of(createTestMetadata()));
+
+            // When
+            FileMetadataDto restored = fileService.restoreFile(fileId.toString(), TEST_USER_ID);
+
+            // Then
+            assertThat(restored.getStatus()).isEqualTo(FileStatus.ACTIVE);
+            verify(fileMetadataService).restoreFileMetadata(fileId, TEST_USER_ID, cutoff);
+        }
+
+        @Test
+        @DisplayName("Should reject deleting another user's file and keep its content")
+        void shouldRejectForeignDelete() {
+            // Given
+            UUID fileId = UUID.randomUUID();
+            when(fileMetadataService.deleteFileMetadata(fileId, "intruder")).thenReturn(Optional.empty());
+            when(fileMetadataService.getFileMetadata(fileId)).thenReturn(Optional.of(createTestMetadata()));
+
+            // When & Then
+            assertThatThrownBy(() -> fileService.deleteFile(fileId.toString(), "intruder"))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("Only the file owner can delete this file");
+            verify(fileStorageService, never()).deleteFile(any());
+        }
+
+        @Test
+        @DisplayName("Should map a filename unique index violation on rename to a validation error")
+        void shouldRejectRenameToTakenName() {
+            // Given
+            UUID fileId = UUID.randomUUID();
+            when(fileMetadataService.updateFileMetadata(eq(fileId), eq(TEST_USER_ID), any()))
+                    .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: user_filename_idx"));
+
+            // When & Then
+            assertThatThrownBy(() -> fileService.renameFile(fileId.toString(), TEST_USER_ID, " taken.pdf "))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("File with name 'taken.pdf' already exists for user");
+            verify(fileMetadataService, never()).checkFileExists(any(), any());
+        }
+    }
+
     private FileMetadataDto createTestMetadata() {
         FileMetadataDto metadata = new FileMetadataDto();
         metadata.setId(UUID.randomUUID());
@@ -728,11 +913,11 @@ class FileServiceTest {
         when(fileStorageService.calculateHash(any())).thenReturn(TEST_HASH);
         when(fileMetadataService.checkDuplicateByHash(TEST_USER_ID, TEST_HASH))
                 .thenReturn(Optional.empty());
-        when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME)))
+        when(fileStorageService.saveFile(any(UUID.class), any(), eq(TEST_FILENAME), anyLong()))
                 .thenReturn(storageResult);
         when(fileMetadataService.createFileMetadata(
                 any(UUID.class), eq(TEST_FILENAME), eq(TEST_USER_ID), eq(TEST_CONTENT_TYPE),
-                eq(TEST_FILE_SIZE), eq(TEST_HASH), eq(Visibility.PRIVATE), eq(tags)))
+                eq(TEST_FILE_SIZE), eq(TEST_HASH), any(), any(), eq(Visibility.PRIVATE), eq(tags)))
                 .thenReturn(metadata);
         when(fileMetadataService.updateFileStatus(any(UUID.class), eq(FileStatus.ACTIVE)))
                 .thenReturn(Optional.of(metadata));
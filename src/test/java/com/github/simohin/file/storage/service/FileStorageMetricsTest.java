@@ -0,0 +1,72 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.OperationStage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FileStorageMetrics Tests")
+class FileStorageMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private FileStorageMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new FileStorageMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("Should record stage durations under operation and stage tags")
+    void shouldRecordStage() {
+        // When
+        metrics.recordStage(OperationStage.COPY, metrics.start());
+
+        // Then
+        assertThat(registry.get("file.storage.stage")
+                .tags("operation", "upload", "stage", "copy")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should track in-flight uploads and reserved bytes until the upload finishes")
+    void shouldTrackInFlightUploads() {
+        // Given
+        long start = metrics.start();
+        metrics.uploadStarted(2048);
+
+        // Then
+        assertThat(registry.get("file.storage.uploads.in.flight").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("file.storage.uploads.reserved").gauge().value()).isEqualTo(2048);
+
+        // When
+        metrics.uploadFinished(2048, start, "image/png; charset=binary", FileStorageMetrics.Outcome.SUCCESS, 2000);
+
+        // Then
+        assertThat(registry.get("file.storage.uploads.in.flight").gauge().value()).isZero();
+        assertThat(registry.get("file.storage.uploads.reserved").gauge().value()).isZero();
+        assertThat(registry.get("file.storage.upload")
+                .tags("outcome", "success", "content.type", "image")
+                .timer()
+                .count()).isEqualTo(1);
+        assertThat(registry.get("file.storage.upload.bytes")
+                .tags("content.type", "image")
+                .counter()
+                .count()).isEqualTo(2000);
+    }
+
+    @Test
+    @DisplayName("Should classify wrapped client errors as rejections")
+    void shouldClassifyOutcome() {
+        // Then
+        assertThat(FileStorageMetrics.outcomeOf(new RuntimeException("wrapped", new IllegalArgumentException())))
+                .isEqualTo(FileStorageMetrics.Outcome.REJECTED);
+        assertThat(FileStorageMetrics.outcomeOf(new RuntimeException("boom")))
+                .isEqualTo(FileStorageMetrics.Outcome.ERROR);
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.config.FlightRecorderProperties;
+import com.github.simohin.file.storage.dto.FlightRecordingInfo;
+import jdk.jfr.FlightRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@DisplayName("FlightRecorderService Tests")
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path dumpDirectory;
+
+    private final FlightRecorderProperties properties = new FlightRecorderProperties();
+    private final FlightRecorderService flightRecorderService = new FlightRecorderService(properties);
+
+    @BeforeEach
+    void setUp() {
+        properties.setDumpDirectory(dumpDirectory.toString());
+        properties.setMaxAge(Duration.ofMinutes(1));
+        properties.setSlowRequestThreshold(Duration.ofSeconds(1));
+        properties.setMinDumpInterval(Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        flightRecorderService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should dump once after slow requests and not again within the minimum interval")
+    void shouldRateLimitAutomaticDumps() throws Exception {
+        // Given
+        startRecording();
+
+        // When
+        flightRecorderService.requestCompleted("GET /api/files/fast -> 200", Duration.ofMillis(10).toNanos());
+        flightRecorderService.requestCompleted("GET /api/files/slow -> 200", Duration.ofSeconds(2).toNanos());
+        flightRecorderService.requestCompleted("GET /api/files/slow -> 200", Duration.ofSeconds(3).toNanos());
+
+        // Then
+        List<FlightRecordingInfo> dumps = awaitDumps(1);
+        Thread.sleep(500);
+        assertThat(flightRecorderService.listDumps()).hasSize(1);
+        assertThat(dumps.get(0).getName()).endsWith("-slow-request.jfr");
+    }
+
+    @Test
+    @DisplayName("Should keep only the newest dumps and leave other files alone")
+    void shouldRotateDumps() throws Exception {
+        // Given
+        startRecording();
+        properties.setMaxDumps(2);
+        Instant now = Instant.now();
+        for (int age = 1; age <= 3; age++) {
+            Path old = Files.writeString(dumpDirectory.resolve("old-" + age + ".jfr"), "dump");
+            Files.setLastModifiedTime(old, FileTime.from(now.minus(Duration.ofHours(age))));
+        }
+        Files.writeString(dumpDirectory.resolve("notes.txt"), "not a dump");
+
+        // When
+        FlightRecordingInfo dump = flightRecorderService.dump("manual");
+
+        // Then
+        assertThat(flightRecorderService.listDumps()).extracting(FlightRecordingInfo::getName)
+                .containsExactly(dump.getName(), "old-1.jfr");
+        assertThat(dump.getSize()).isPositive();
+        assertThat(dumpDirectory.resolve("notes.txt")).exists();
+    }
+
+    @Test
+    @DisplayName("Should resolve only plain dump names inside the dump directory")
+    void shouldValidateDumpNames() throws IOException {
+        // Given
+        Files.writeString(dumpDirectory.resolve("file-storage-manual.jfr"), "dump");
+
+        // When & Then
+        assertThat(flightRecorderService.findDump("file-storage-manual.jfr")).contains(
+                dumpDirectory.resolve("file-storage-manual.jfr"));
+        assertThat(flightRecorderService.findDump("missing.jfr")).isEmpty();
+        for (String name : new String[]{null, "", "../secret.jfr", "nested/dump.jfr", "/etc/dump.jfr", "dump.txt",
+                "dump.jfr/.."}) {
+            assertThatThrownBy(() -> flightRecorderService.findDump(name))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid recording name: " + name);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse to dump when the recorder is disabled")
+    void shouldNotDumpWhenDisabled() {
+        // Given
+        properties.setEnabled(false);
+        flightRecorderService.init();
+
+        // When & Then
+        assertThat(flightRecorderService.isRecording()).isFalse();
+        flightRecorderService.requestCompleted("GET /api/files/slow -> 200", Duration.ofSeconds(2).toNanos());
+        assertThatThrownBy(() -> flightRecorderService.dump("manual"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Continuous flight recording is not running");
+    }
+
+    private void startRecording() {
+        assumeTrue(FlightRecorder.isAvailable(), "Flight recorder is not available in this JVM");
+        flightRecorderService.init();
+        assertThat(flightRecorderService.isRecording()).isTrue();
+    }
+
+    private List<FlightRecordingInfo> awaitDumps(int count) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<FlightRecordingInfo> dumps = flightRecorderService.listDumps();
+        while (dumps.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            dumps = flightRecorderService.listDumps();
+        }
+        return dumps;
+    }
+}
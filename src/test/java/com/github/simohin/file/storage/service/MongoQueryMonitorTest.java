@@ -0,0 +1,40 @@
+package com.github.simohin.file.storage.service;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MongoQueryMonitor Tests")
+class MongoQueryMonitorTest {
+
+    @Test
+    @DisplayName("Should replace literal values of a find filter while keeping fields, operators and sort")
+    void shouldShapeFind() {
+        // Given
+        BsonDocument command = BsonDocument.parse("""
+                {find: 'file_metadata',
+                 filter: {userId: 'user1', status: 'ACTIVE', tags: {$in: ['a', 'b']},
+                          $or: [{visibility: 'PUBLIC'}, {userId: 'user2'}]},
+                 sort: {uploadDate: -1}, limit: 20}""");
+
+        // When
+        String shape = MongoQueryMonitor.shape("find", command);
+
+        // Then
+        assertThat(shape).isEqualTo("find filter {userId: ?, status: ?, tags: {$in: ?}, "
+                + "$or: [{visibility: ?}, {userId: ?}]} sort {\"uploadDate\": -1}");
+    }
+
+    @Test
+    @DisplayName("Should give queries that differ only in parameters the same shape")
+    void shouldShareShapeAcrossParameters() {
+        // Given
+        BsonDocument first = BsonDocument.parse("{count: 'file_metadata', query: {userId: 'a', status: 'ACTIVE'}}");
+        BsonDocument second = BsonDocument.parse("{count: 'file_metadata', query: {userId: 'b', status: 'DELETED'}}");
+
+        // Then
+        assertThat(MongoQueryMonitor.shape("count", first)).isEqualTo(MongoQueryMonitor.shape("count", second));
+    }
+}
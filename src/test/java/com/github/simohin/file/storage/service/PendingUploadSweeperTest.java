@@ -0,0 +1,92 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.PendingSweeperProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PendingUploadSweeper Tests")
+class PendingUploadSweeperTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private PendingUploadSweeper sweeper;
+
+    private final UUID abandoned = UUID.randomUUID();
+    private final UUID activatedMeanwhile = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        PendingSweeperProperties properties = new PendingSweeperProperties();
+        properties.setEnabled(false);
+        properties.setBatchSize(2);
+        sweeper = new PendingUploadSweeper(mongoTemplate, properties);
+    }
+
+    @Test
+    @DisplayName("Should count only the uploads still PENDING when the update runs")
+    void shouldNotCountUploadActivatedMeanwhile() {
+        // Given - both are PENDING when found, one is activated before the update
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(
+                List.of(new FileMetadata().setId(abandoned), new FileMetadata().setId(activatedMeanwhile)),
+                List.of());
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 1L, null));
+
+        // When
+        long swept = sweeper.sweep();
+
+        // Then
+        assertThat(swept).isEqualTo(1);
+        ArgumentCaptor<Query> update = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(update.capture(), any(UpdateDefinition.class), eq(FileMetadata.class));
+        Document filter = update.getValue().getQueryObject();
+        assertThat(filter.get("status")).isEqualTo(FileStatus.PENDING);
+        assertThat(filter.get("_id", Document.class).getList("$in", UUID.class))
+                .containsExactly(abandoned, activatedMeanwhile);
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should stop after a short batch")
+    void shouldStopAfterShortBatch() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class)))
+                .thenReturn(List.of(new FileMetadata().setId(abandoned)));
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // When
+        long swept = sweeper.sweep();
+
+        // Then
+        assertThat(swept).isEqualTo(1);
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(FileMetadata.class));
+    }
+}
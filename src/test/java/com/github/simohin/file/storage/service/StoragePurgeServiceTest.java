@@ -0,0 +1,183 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.FileStatus;
+import com.github.simohin.file.storage.config.TrashProperties;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StoragePurgeService Tests")
+class StoragePurgeServiceTest {
+
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private StoragePurgeService storagePurgeService;
+
+    private final UUID expired = UUID.randomUUID();
+    private final UUID failing = UUID.randomUUID();
+    private final UUID alreadyGone = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        TrashProperties properties = new TrashProperties();
+        properties.setPurgeEnabled(false);
+        properties.setRetention(RETENTION);
+        properties.setPurgeBatchSize(10);
+        properties.setMaxDeletesPerSecond(10_000);
+        storagePurgeService = new StoragePurgeService(fileStorageService, mongoTemplate, properties);
+
+        when(fileStorageService.deleteFile(any(UUID.class))).thenReturn(true);
+        when(mongoTemplate.remove(any(Query.class), eq(FileMetadata.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            return DeleteResult.acknowledged(query.getQueryObject().get("_id", Document.class)
+                    .getList("$in", UUID.class).size());
+        });
+    }
+
+    @Test
+    @DisplayName("Should purge only tombstones deleted before the retention period")
+    void shouldPurgeOnlyExpiredTombstones() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class)))
+                .thenReturn(List.of(new FileMetadata().setId(expired)));
+
+        // When
+        LocalDateTime before = LocalDateTime.now().minus(RETENTION);
+        long purged = storagePurgeService.purgeExpired();
+        LocalDateTime after = LocalDateTime.now().minus(RETENTION);
+
+        // Then
+        assertThat(purged).isEqualTo(1);
+        verify(fileStorageService).deleteFile(expired);
+
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(find.capture(), eq(FileMetadata.class));
+        Document filter = find.getValue().getQueryObject();
+        assertThat(filter.get("status")).isEqualTo(FileStatus.DELETED);
+        Document deletedBefore = filter.getList("$or", Document.class).get(0).get("deletedAt", Document.class);
+        assertThat(deletedBefore.get("$lt", LocalDateTime.class)).isBetween(before, after);
+    }
+
+    @Test
+    @DisplayName("Should leave files restored from the trash alone")
+    void shouldLeaveRestoredFilesAlone() {
+        // Given - a restored file is ACTIVE again and no longer matches
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(List.of());
+
+        // When
+        long purged = storagePurgeService.purgeExpired();
+
+        // Then
+        assertThat(purged).isZero();
+        verify(fileStorageService, never()).deleteFile(any(UUID.class));
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should remove a tombstone only once its content is gone, and only while still DELETED")
+    void shouldKeepTombstoneWhenContentDeleteFails() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(List.of(
+                new FileMetadata().setId(expired),
+                new FileMetadata().setId(failing),
+                new FileMetadata().setId(alreadyGone)));
+        when(fileStorageService.deleteFile(failing)).thenReturn(false);
+        when(fileStorageService.exists(failing)).thenReturn(true);
+        when(fileStorageService.deleteFile(alreadyGone)).thenReturn(false);
+        when(fileStorageService.exists(alreadyGone)).thenReturn(false);
+
+        // When
+        long purged = storagePurgeService.purgeExpired();
+
+        // Then
+        assertThat(purged).isEqualTo(2);
+        ArgumentCaptor<Query> remove = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(remove.capture(), eq(FileMetadata.class));
+        Document filter = remove.getValue().getQueryObject();
+        assertThat(filter.get("_id", Document.class).getList("$in", UUID.class)).containsExactly(expired, alreadyGone);
+        assertThat(filter.get("status")).isEqualTo(FileStatus.DELETED);
+        // A short page is the last one
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should page past tombstones whose content cannot be deleted")
+    void shouldContinuePastFailedDeletes() {
+        // Given
+        TrashProperties properties = new TrashProperties();
+        properties.setPurgeEnabled(false);
+        properties.setRetention(RETENTION);
+        properties.setPurgeBatchSize(2);
+        properties.setMaxDeletesPerSecond(10_000);
+        storagePurgeService = new StoragePurgeService(fileStorageService, mongoTemplate, properties);
+
+        LocalDateTime deletedAt = LocalDateTime.now().minus(RETENTION).minusDays(1);
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class))).thenReturn(
+                List.of(new FileMetadata().setId(failing).setDeletedAt(deletedAt),
+                        new FileMetadata().setId(expired).setDeletedAt(deletedAt)),
+                List.of(new FileMetadata().setId(alreadyGone).setDeletedAt(deletedAt.plusHours(1))));
+        when(fileStorageService.deleteFile(failing)).thenReturn(false);
+        when(fileStorageService.exists(failing)).thenReturn(true);
+
+        // When
+        long purged = storagePurgeService.purgeExpired();
+
+        // Then
+        assertThat(purged).isEqualTo(2);
+        verify(fileStorageService).deleteFile(alreadyGone);
+
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(find.capture(), eq(FileMetadata.class));
+        Document sameTime = find.getAllValues().get(1).getQueryObject().getList("$or", Document.class).get(0);
+        assertThat(sameTime.get("deletedAt")).isEqualTo(deletedAt);
+        assertThat(sameTime.get("_id")).isEqualTo(new Document("$gt", expired));
+    }
+
+    @Test
+    @DisplayName("Should keep every tombstone when the content cannot be deleted")
+    void shouldKeepTombstonesWhenStorageFails() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class)))
+                .thenReturn(List.of(new FileMetadata().setId(failing)));
+        when(fileStorageService.deleteFile(failing)).thenThrow(new RuntimeException("volume unavailable"));
+
+        // When
+        long purged = storagePurgeService.purgeExpired();
+
+        // Then
+        assertThat(purged).isZero();
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(FileMetadata.class));
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.simohin.file.storage.service;
+
+import com.github.simohin.file.storage.common.BulkJobStatus;
+import com.github.simohin.file.storage.config.ReconcilerProperties;
+import com.github.simohin.file.storage.dto.ReconciliationReport;
+import com.github.simohin.file.storage.dto.StoredBlob;
+import com.github.simohin.file.storage.entity.FileMetadata;
+import com.mongodb.client.result.UpdateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StorageReconciler Tests")
+class StorageReconcilerTest {
+
+    private static final String SHARD = "12/34";
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private DuplicateCheckFilter duplicateCheckFilter;
+
+    private StorageReconciler storageReconciler;
+
+    private final UUID knownFile = UUID.randomUUID();
+    private final UUID orphanFile = UUID.randomUUID();
+    private final UUID recentFile = UUID.randomUUID();
+    private final UUID missingContent = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReconcilerProperties properties = new ReconcilerProperties();
+        properties.setMaxChecksPerSecond(0);
+        storageReconciler = new StorageReconciler(fileStorageService, mongoTemplate, duplicateCheckFilter, properties);
+        storageReconciler.init();
+
+        Instant old = Instant.now().minus(Duration.ofDays(1));
+        when(fileStorageService.listShards()).thenReturn(List.of(SHARD));
+        when(fileStorageService.listShard(SHARD)).thenAnswer(invocation -> Stream.of(
+                new StoredBlob().setFileId(knownFile).setSize(10).setLastModified(old),
+                new StoredBlob().setFileId(orphanFile).setSize(100).setLastModified(old),
+                new StoredBlob().setFileId(recentFile).setSize(1000).setLastModified(Instant.now())));
+        when(mongoTemplate.find(any(Query.class), eq(FileMetadata.class)))
+                .thenReturn(List.of(new FileMetadata().setId(knownFile)));
+        when(mongoTemplate.stream(any(Query.class), eq(FileMetadata.class))).thenAnswer(invocation -> Stream.of(
+                new FileMetadata().setId(knownFile), new FileMetadata().setId(missingContent)));
+        when(fileStorageService.exists(knownFile)).thenReturn(true);
+        when(fileStorageService.exists(missingContent)).thenReturn(false);
+        when(fileStorageService.deleteFile(orphanFile)).thenReturn(true);
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageReconciler.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should report orphans in both directions without touching anything")
+    void shouldReportOrphans() {
+        // When
+        ReconciliationReport report = storageReconciler.reconcile(false);
+
+        // Then - the recently written file is skipped as a possible upload in flight
+        assertThat(report.getStatus()).isEqualTo(BulkJobStatus.COMPLETED);
+        assertThat(report.getShardsScanned()).isEqualTo(1);
+        assertThat(report.getFilesScanned()).isEqualTo(3);
+        assertThat(report.getOrphanFiles()).isEqualTo(1);
+        assertThat(report.getOrphanBytes()).isEqualTo(100);
+        assertThat(report.getOrphanFileIds()).containsExactly(orphanFile.toString());
+        assertThat(report.getDocumentsScanned()).isEqualTo(2);
+        assertThat(report.getMissingContent()).isEqualTo(1);
+        assertThat(report.getMissingContentIds()).containsExactly(missingContent.toString());
+        assertThat(report.getRepaired()).isZero();
+
+        verify(fileStorageService, never()).deleteFile(any());
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+    }
+
+    @Test
+    @DisplayName("Should delete orphan files and move documents without content to the trash")
+    void shouldRepairOrphans() {
+        // When
+        ReconciliationReport report = storageReconciler.reconcile(true);
+
+        // Then
+        assertThat(report.getRepaired()).isEqualTo(2);
+        verify(fileStorageService).deleteFile(orphanFile);
+        verify(fileStorageService, never()).deleteFile(knownFile);
+        verify(fileStorageService, never()).deleteFile(recentFile);
+        verify(mongoTemplate).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(FileMetadata.class));
+        verify(duplicateCheckFilter).filesRemoved(1);
+        assertThat(storageReconciler.lastReport()).hasValueSatisfying(last -> assertThat(last.isRepair()).isTrue());
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.config.ContentTypeProperties;
+import org.apache.tika.Tika;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ContentTypeDetector Tests")
+class ContentTypeDetectorTest {
+
+    private final ContentTypeDetector detector = new ContentTypeDetector(new ContentTypeProperties());
+    private final Tika tika = new Tika();
+
+    @ParameterizedTest
+    @CsvSource({
+            "89504E470D0A1A0A0000000D49484452, image.png",
+            "89504E470D0A1A0A0000000D49484452, image",
+            "FFD8FFE000104A464946000101, photo.JPG",
+            "255044462D312E370A25, report.pdf",
+            "255044462D312E370A25, drawing.ai",
+            "255044462D312E370A25, report.v2.final.pdf",
+            "504B0304140000000800, document.docx",
+            "504B0304140000000800, archive.zip",
+            "1F8B0800000000000003, backup.gz",
+            "1F8B0800000000000003, backup.tar.gz",
+            "1F8B0800000000000003, access.log.2024-01-01.gz",
+            "52494646240000005745425056503820, picture.webp",
+            "7B226B6579223A2276616C7565227D0A, data.json",
+            "7B226B6579223A2276616C7565227D0A, Makefile"
+    })
+    @DisplayName("Should answer what Tika answers, from the fast path, the cache or Tika itself")
+    void shouldAgreeWithTika(String hexSample, String fileName) throws Exception {
+        // Given
+        byte[] sample = HexFormat.of().parseHex(hexSample);
+        String expected = tika.detect(new ByteArrayInputStream(sample), fileName);
+
+        // When - the second call is served by the fast path or the cache
+        String first = detector.detect(sample, sample.length, fileName);
+        String second = detector.detect(sample, sample.length, fileName);
+
+        // Then
+        assertThat(first).isEqualTo(expected);
+        assertThat(second).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+            "report.pdf, pdf",
+            "report.v2.final.pdf, pdf",
+            "dir.d/photo.JPG, JPG",
+            "C:\\scans\\scan.2024.png, png",
+            "backup.tar.gz, tar.gz",
+            "backup.TAR.GZ, TAR.GZ",
+            "backup.v1.tar.xz, tar.xz",
+            "notes.tar, tar",
+            ".tar.gz, gz",
+            ".bashrc, null",
+            "Makefile, null",
+            "trailing., null",
+            "null, null"
+    })
+    @DisplayName("Should key on the last extension and keep known compound ones together")
+    void shouldExtractExtension(String fileName, String expected) {
+        // When & Then
+        assertThat(ContentTypeDetector.extension(fileName)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"notes.txt", "notes.csv"})
+    @DisplayName("Should not serve a cached type to a sample that differs after the leading bytes")
+    void shouldKeyCacheOnWholeSample(String fileName) {
+        // Given
+        byte[] text = "same header line\nplain text body\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] binary = text.clone();
+        binary[binary.length - 3] = 0;
+        binary[binary.length - 2] = 1;
+
+        // When
+        String textType = detector.detect(text, text.length, fileName);
+        String binaryType = detector.detect(binary, binary.length, fileName);
+
+        // Then
+        assertThat(textType).isEqualTo(tika.detect(text, fileName));
+        assertThat(binaryType).isEqualTo(tika.detect(binary, fileName));
+    }
+}
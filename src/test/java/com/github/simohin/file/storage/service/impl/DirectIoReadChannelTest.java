@@ -0,0 +1,90 @@
+package com.github.simohin.file.storage.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.abort;
+
+@DisplayName("DirectIoReadChannel Tests")
+class DirectIoReadChannelTest {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int[] SIZES = {0, 1, 4096, BUFFER_SIZE, 3 * BUFFER_SIZE + 123};
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 4096, BUFFER_SIZE, 3 * BUFFER_SIZE + 123})
+    @DisplayName("Should read exactly the file into an unaligned buffer through its own aligned buffer")
+    void shouldReadIntoUnalignedBuffer(int size) throws IOException {
+        // Given
+        byte[] content = content(size);
+
+        // When - odd chunk sizes so reads straddle buffer boundaries
+        byte[] read = readAll(content, ByteBuffer.allocate(10_007));
+
+        // Then
+        assertThat(read).isEqualTo(content);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 4096, BUFFER_SIZE, 3 * BUFFER_SIZE + 123})
+    @DisplayName("Should read exactly the file straight into a caller-owned aligned buffer")
+    void shouldReadIntoAlignedBuffer(int size) throws IOException {
+        // Given - one buffer reused for every file, as the scrubber does
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE + 4096).alignedSlice(4096);
+        for (int other : SIZES) {
+            readAll(content(other), buffer);
+        }
+        byte[] content = content(size);
+
+        // When
+        byte[] read = readAll(content, buffer);
+
+        // Then
+        assertThat(read).isEqualTo(content);
+    }
+
+    private byte[] readAll(byte[] content, ByteBuffer buffer) throws IOException {
+        Path file = Files.createTempFile(tempDir, "content", ".bin");
+        Files.write(file, content);
+
+        DirectIoReadChannel channel;
+        try {
+            channel = DirectIoReadChannel.open(file, BUFFER_SIZE);
+        } catch (IOException | UnsupportedOperationException e) {
+            abort("Direct I/O is not supported here: " + e.getMessage());
+            return null;
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (channel) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                byte[] chunk = new byte[buffer.remaining()];
+                buffer.get(chunk);
+                output.write(chunk);
+                buffer.clear();
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.simohin.file.storage.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.abort;
+
+@DisplayName("DirectIoWriteChannel Tests")
+class DirectIoWriteChannelTest {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 4096, BUFFER_SIZE, 3 * BUFFER_SIZE + 123})
+    @DisplayName("Should write exactly the bytes given, whatever the chunking and tail length")
+    void shouldWriteUnalignedContent(int size) throws IOException {
+        // Given
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        Path file = tempDir.resolve("content.bin");
+
+        DirectIoWriteChannel channel;
+        try {
+            channel = DirectIoWriteChannel.open(file, BUFFER_SIZE);
+        } catch (IOException | UnsupportedOperationException e) {
+            abort("Direct I/O is not supported here: " + e.getMessage());
+            return;
+        }
+
+        // When - odd chunk sizes so writes straddle buffer boundaries
+        try (channel) {
+            for (int offset = 0; offset < size; offset += 10_007) {
+                channel.write(ByteBuffer.wrap(content, offset, Math.min(10_007, size - offset)));
+            }
+        }
+
+        // Then
+        assertThat(Files.readAllBytes(file)).isEqualTo(content);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.common.DurabilityMode;
+import com.github.simohin.file.storage.config.DurabilityProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("FileSyncer Tests")
+class FileSyncerTest {
+
+    @TempDir
+    Path storageDir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private FileSyncer fileSyncer;
+
+    @AfterEach
+    void tearDown() {
+        fileSyncer.stop();
+    }
+
+    @Test
+    @DisplayName("Should publish concurrent uploads together in group commit mode")
+    void shouldGroupConcurrentSyncs() throws Exception {
+        // Given
+        fileSyncer = startGroupCommit(Duration.ofMillis(50));
+        List<CompletableFuture<Void>> syncs = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            Path temp = Files.write(storageDir.resolve("file-" + i + ".tmp"), new byte[]{(byte) i});
+            Path target = storageDir.resolve("file-" + i);
+            syncs.add(CompletableFuture.runAsync(() -> {
+                try {
+                    fileSyncer.publish(temp, target);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        CompletableFuture.allOf(syncs.toArray(CompletableFuture[]::new)).get();
+
+        // Then
+        DistributionSummary groupSize = registry.get("file.storage.sync.group.size").summary();
+        assertThat((long) groupSize.totalAmount()).isEqualTo(8);
+        assertThat(groupSize.count()).isLessThan(8);
+        for (int i = 0; i < 8; i++) {
+            assertThat(storageDir.resolve("file-" + i)).hasBinaryContent(new byte[]{(byte) i});
+            assertThat(storageDir.resolve("file-" + i + ".tmp")).doesNotExist();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail the upload whose file cannot be synced")
+    void shouldPropagateSyncFailure() {
+        // Given
+        fileSyncer = startGroupCommit(Duration.ofMillis(1));
+
+        // When & Then
+        assertThatThrownBy(() -> fileSyncer.publish(storageDir.resolve("missing.tmp"), storageDir.resolve("missing")))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject publishes once stopped instead of waiting for a flusher that is gone")
+    void shouldRejectPublishAfterStop() throws Exception {
+        // Given
+        fileSyncer = startGroupCommit(Duration.ofMillis(1));
+        fileSyncer.stop();
+        Path temp = Files.write(storageDir.resolve("late.tmp"), new byte[]{1});
+
+        // When & Then
+        assertThatThrownBy(() -> fileSyncer.publish(temp, storageDir.resolve("late")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("stopped");
+        assertThat(temp).exists();
+        assertThat(storageDir.resolve("late")).doesNotExist();
+    }
+
+    private FileSyncer startGroupCommit(Duration window) {
+        DurabilityProperties properties = new DurabilityProperties();
+        properties.setMode(DurabilityMode.GROUP_COMMIT);
+        properties.setGroupCommitWindow(window);
+        FileSyncer syncer = new FileSyncer(properties, registry);
+        syncer.start();
+        return syncer;
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.simohin.file.storage.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IntentJournal Tests")
+class IntentJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    @DisplayName("Should recover only the intents that did not end, dropping a torn last record")
+    void shouldRecoverOpenIntents() throws Exception {
+        // Given
+        UUID interrupted = UUID.randomUUID();
+        try (IntentJournal journal = IntentJournal.open(journalDir, 1024 * 1024, false)) {
+            long done = journal.begin(UUID.randomUUID(), tempName(UUID.randomUUID()));
+            journal.begin(interrupted, tempName(interrupted));
+            journal.end(done);
+        }
+        Files.writeString(journalDir.resolve("1.log"), "B 3 " + UUID.randomUUID(), StandardCharsets.ISO_8859_1,
+                StandardOpenOption.APPEND);
+
+        // When
+        try (IntentJournal journal = IntentJournal.open(journalDir, 1024 * 1024, false)) {
+
+            // Then
+            assertThat(journal.recovered()).extracting(IntentJournal.Intent::fileId).containsExactly(interrupted);
+            assertThat(journal.begin(UUID.randomUUID(), tempName(UUID.randomUUID()))).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should carry open intents over when the segment rotates")
+    void shouldKeepOpenIntentsAcrossRotation() throws Exception {
+        // Given
+        UUID interrupted = UUID.randomUUID();
+        try (IntentJournal journal = IntentJournal.open(journalDir, 4096, true)) {
+            journal.begin(interrupted, tempName(interrupted));
+
+            // When
+            for (int i = 0; i < 200; i++) {
+                journal.end(journal.begin(UUID.randomUUID(), tempName(UUID.randomUUID())));
+            }
+        }
+
+        // Then
+        try (IntentJournal journal = IntentJournal.open(journalDir, 4096, true)) {
+            assertThat(journal.recovered()).extracting(IntentJournal.Intent::fileId).containsExactly(interrupted);
+        }
+        try (var segments = Files.list(journalDir)) {
+            assertThat(segments.toList()).hasSize(1);
+        }
+    }
+
+    private static String tempName(UUID fileId) {
+        return fileId + ".0123456789abcdef.tmp";
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.simohin.file.storage.service.impl;
+
+import com.github.simohin.file.storage.util.BufferPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ReplicatedWrite Tests")
+class ReplicatedWriteTest {
+
+    private static final int MAX_LAG = 1024 * 1024;
+
+    private final BufferPool bufferPool = new BufferPool(16 * 1024, 1024 * 1024, 64 * 1024, 16 * 1024 * 1024);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch stalledDisk = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        stalledDisk.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should acknowledge on the quorum and drop a replica that falls behind")
+    void shouldCommitWithoutWaitingForStalledReplica() throws Exception {
+        // Given
+        byte[] data = randomBytes(8 * 1024 * 1024);
+        TestReplica first = new TestReplica(null);
+        TestReplica second = new TestReplica(null);
+        TestReplica stalled = new TestReplica(stalledDisk);
+        CompletableFuture<TestReplica> lost = new CompletableFuture<>();
+
+        // When
+        TestReplica committed;
+        try (ReplicatedWrite<TestReplica> output = new ReplicatedWrite<>(List.of(first, second, stalled), 2, MAX_LAG,
+                data.length, bufferPool, executor, lost::complete)) {
+            for (int offset = 0; offset < data.length; offset += 100_000) {
+                output.write(ByteBuffer.wrap(data, offset, Math.min(100_000, data.length - offset)));
+            }
+            committed = output.commit();
+        }
+        stalledDisk.countDown();
+
+        // Then
+        assertThat(committed).isIn(first, second);
+        assertThat(lost.get(5, TimeUnit.SECONDS)).isSameAs(stalled);
+        assertThat(stalled.discarded).isTrue();
+        assertThat(stalled.published).isFalse();
+        assertThat(committed.content.toByteArray()).isEqualTo(data);
+    }
+
+    @Test
+    @DisplayName("Should discard every replica when closed without commit")
+    void shouldDiscardUncommittedWrite() throws Exception {
+        // Given
+        TestReplica first = new TestReplica(null);
+        TestReplica second = new TestReplica(null);
+
+        // When
+        try (ReplicatedWrite<TestReplica> output = new ReplicatedWrite<>(List.of(first, second), 2, MAX_LAG,
+                1000, bufferPool, executor, replica -> {
+        })) {
+            output.write(ByteBuffer.wrap(randomBytes(1000)));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(first.discarded).isTrue();
+        assertThat(second.discarded).isTrue();
+        assertThat(first.published || second.published).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should discard a replica still writing after the commit when cancelled")
+    void shouldDiscardStragglerWhenCancelled() throws Exception {
+        // Given
+        byte[] data = randomBytes(1000);
+        TestReplica first = new TestReplica(null);
+        TestReplica second = new TestReplica(null);
+        TestReplica straggler = new TestReplica(stalledDisk);
+        List<TestReplica> lost = new CopyOnWriteArrayList<>();
+
+        ReplicatedWrite<TestReplica> output = new ReplicatedWrite<>(List.of(first, second, straggler), 2, MAX_LAG,
+                data.length, bufferPool, executor, lost::add);
+        output.write(ByteBuffer.wrap(data));
+        output.commit();
+        output.close();
+
+        // When - the file is deleted while the straggler is still writing
+        output.cancel();
+        stalledDisk.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(first.published && second.published).isTrue();
+        assertThat(straggler.published).isFalse();
+        assertThat(straggler.discarded).isTrue();
+        assertThat(lost).isEmpty();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static final class TestReplica implements ReplicatedWrite.Replica, WritableByteChannel {
+
+        private final CountDownLatch gate;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private volatile boolean open = true;
+        private volatile boolean published;
+        private volatile boolean discarded;
+
+        private TestReplica(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public WritableByteChannel channel() {
+            return this;
+        }
+
+        @Override
+        public void publish() {
+            published = true;
+        }
+
+        @Override
+        public void discard() {
+            discarded = true;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            int count = src.remaining();
+            byte[] bytes = new byte[count];
+            src.get(bytes);
+            content.write(bytes);
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.simohin.file.storage.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("StorageVolumes Tests")
+class StorageVolumesTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("Should place files in proportion to the volume weights")
+    void shouldPlaceByWeight() {
+        // Given
+        StorageVolumes.Volume light = new StorageVolumes.Volume(root.resolve("light"), 1.0);
+        StorageVolumes.Volume heavy = new StorageVolumes.Volume(root.resolve("heavy"), 3.0);
+        StorageVolumes volumes = new StorageVolumes(List.of(light, heavy), 0, Long.MAX_VALUE, 0);
+
+        // When
+        int onHeavy = 0;
+        int files = 100_000;
+        for (int i = 0; i < files; i++) {
+            if (volumes.rank(UUID.randomUUID()).get(0) == heavy) {
+                onHeavy++;
+            }
+        }
+
+        // Then
+        assertThat((double) onHeavy / files).isCloseTo(0.75, within(0.01));
+    }
+
+    @Test
+    @DisplayName("Should only move the files a new volume wins")
+    void shouldKeepPlacementWhenAddingVolume() {
+        // Given
+        StorageVolumes.Volume first = new StorageVolumes.Volume(root.resolve("first"), 1.0);
+        StorageVolumes.Volume second = new StorageVolumes.Volume(root.resolve("second"), 1.0);
+        StorageVolumes.Volume added = new StorageVolumes.Volume(root.resolve("added"), 1.0);
+        StorageVolumes before = new StorageVolumes(List.of(first, second), 0, Long.MAX_VALUE, 0);
+        StorageVolumes after = new StorageVolumes(List.of(added, first, second), 0, Long.MAX_VALUE, 0);
+
+        // When & Then
+        for (int i = 0; i < 10_000; i++) {
+            UUID fileId = UUID.randomUUID();
+            StorageVolumes.Volume home = after.rank(fileId).get(0);
+            assertThat(home == added || home == before.rank(fileId).get(0)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should find a file on a volume other than its home and replace it there")
+    void shouldLocateFileOffItsHomeVolume() throws Exception {
+        // Given
+        StorageVolumes volumes = new StorageVolumes(List.of(new StorageVolumes.Volume(root.resolve("a"), 1.0),
+                new StorageVolumes.Volume(root.resolve("b"), 1.0)), 0, Long.MAX_VALUE, 0);
+        UUID fileId = UUID.randomUUID();
+        StorageVolumes.Volume other = volumes.rank(fileId).get(1);
+        Path stored = other.filePath(fileId);
+        Files.createDirectories(stored.getParent());
+        Files.write(stored, new byte[]{1});
+
+        // When & Then
+        assertThat(volumes.locate(fileId)).isEqualTo(stored);
+        assertThat(volumes.place(fileId, 1, 1)).containsExactly(other);
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.simohin.file.storage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+    private static final int PROBES = 100_000;
+
+    @Test
+    @DisplayName("Should never answer a miss for an inserted pair")
+    void shouldHaveNoFalseNegatives() {
+        // Given
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+
+        // When
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(user(i), "file-" + i + ".txt");
+        }
+
+        // Then
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain(user(i), "file-" + i + ".txt")).isTrue();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.01, 0.001})
+    @DisplayName("Should keep false positives close to the target when filled to capacity")
+    void shouldMatchTargetFalsePositiveRate(double target) {
+        // Given
+        BloomFilter filter = new BloomFilter(INSERTIONS, target);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put(user(i), "file-" + i + ".txt");
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain(user(i), "other-" + i + ".txt")) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertThat((double) falsePositives / PROBES).isCloseTo(target, within(target / 2));
+        assertThat(filter.expectedFalsePositiveProbability()).isCloseTo(target, within(target / 2));
+    }
+
+    @Test
+    @DisplayName("Should keep the two strings of a pair apart")
+    void shouldSeparatePairComponents() {
+        // Given
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        // When
+        filter.put("ab", "c");
+
+        // Then
+        assertThat(filter.mightContain("ab", "c")).isTrue();
+        assertThat(filter.mightContain("a", "bc")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject sizing that cannot give a working filter")
+    void shouldRejectInvalidSizing() {
+        // When & Then
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String user(int i) {
+        return "user-" + (i % 10);
+    }
+}
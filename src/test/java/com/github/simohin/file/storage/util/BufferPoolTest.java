@@ -0,0 +1,60 @@
+package com.github.simohin.file.storage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("BufferPool Tests")
+class BufferPoolTest {
+
+    private final BufferPool bufferPool = new BufferPool(16 * 1024, 1024 * 1024, 64 * 1024, 4 * 1024 * 1024);
+
+    @Test
+    @DisplayName("Should size buffers from the expected size within the configured bounds")
+    void shouldPickSizeClass() {
+        assertThat(bufferPool.acquire(100).capacity()).isEqualTo(16 * 1024);
+        assertThat(bufferPool.acquire(16 * 1024 + 1).capacity()).isEqualTo(64 * 1024);
+        assertThat(bufferPool.acquire(200 * 1024).capacity()).isEqualTo(256 * 1024);
+        assertThat(bufferPool.acquire(1L << 30).capacity()).isEqualTo(1024 * 1024);
+        assertThat(bufferPool.acquire(0).capacity()).isEqualTo(64 * 1024);
+    }
+
+    @Test
+    @DisplayName("Should hand a released buffer out again, cleared")
+    void shouldReuseReleasedBuffer() {
+        // Given
+        ByteBuffer buffer = bufferPool.acquire(1000);
+        buffer.put((byte) 1).flip();
+        bufferPool.release(buffer);
+
+        // When
+        ByteBuffer reused = bufferPool.acquire(1000);
+
+        // Then
+        assertThat(reused).isSameAs(buffer);
+        assertThat(reused.position()).isZero();
+        assertThat(reused.remaining()).isEqualTo(reused.capacity());
+    }
+
+    @Test
+    @DisplayName("Should copy the whole stream through a pooled buffer")
+    void shouldTransfer() throws Exception {
+        // Given
+        byte[] content = new byte[300_000];
+        new Random(1).nextBytes(content);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // When
+        long transferred = bufferPool.transfer(new ByteArrayInputStream(content), output, 1000);
+
+        // Then
+        assertThat(transferred).isEqualTo(content.length);
+        assertThat(output.toByteArray()).isEqualTo(content);
+    }
+}
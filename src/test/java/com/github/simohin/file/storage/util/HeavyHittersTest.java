@@ -0,0 +1,50 @@
+package com.github.simohin.file.storage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("HeavyHitters Tests")
+class HeavyHittersTest {
+
+    @Test
+    @DisplayName("Should rank the heaviest keys first while keeping the candidate set bounded")
+    void shouldRankHeavyKeys() {
+        // Given
+        HeavyHitters heavyHitters = new HeavyHitters(1024, 4, 3);
+
+        // When - three hot keys among many cold ones
+        for (int i = 0; i < 10_000; i++) {
+            heavyHitters.add("cold-" + i, 1);
+            if (i % 10 == 0) {
+                heavyHitters.add("hot-a", 3);
+                heavyHitters.add("hot-b", 2);
+                heavyHitters.add("hot-c", 1);
+            }
+        }
+
+        // Then
+        List<HeavyHitters.Entry> top = heavyHitters.top(3);
+        assertThat(top).extracting(HeavyHitters.Entry::key).containsExactly("hot-a", "hot-b", "hot-c");
+        assertThat(top.get(0).estimate()).isGreaterThanOrEqualTo(3000);
+        assertThat(heavyHitters.top(Integer.MAX_VALUE)).hasSizeLessThanOrEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should halve counts on decay and forget keys that faded out")
+    void shouldDecay() {
+        // Given
+        HeavyHitters heavyHitters = new HeavyHitters(1024, 4, 10);
+        heavyHitters.add("busy", 100);
+        heavyHitters.add("quiet", 1);
+
+        // When
+        heavyHitters.decay(1);
+
+        // Then
+        assertThat(heavyHitters.top(10)).containsExactly(new HeavyHitters.Entry("busy", 50));
+    }
+}
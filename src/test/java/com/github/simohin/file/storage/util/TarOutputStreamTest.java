@@ -0,0 +1,73 @@
+package com.github.simohin.file.storage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TarOutputStream Tests")
+class TarOutputStreamTest {
+
+    @Test
+    @DisplayName("Should write block-aligned ustar entries and end-of-archive marker")
+    void shouldWriteUstarEntry() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        try (TarOutputStream tar = new TarOutputStream(output)) {
+            tar.putNextEntry("a.txt", content.length, 1_700_000_000L);
+            tar.write(content);
+            tar.closeEntry();
+        }
+
+        // Then - header block, one padded data block, two zero blocks
+        byte[] archive = output.toByteArray();
+        assertThat(archive).hasSize(512 * 4);
+        assertThat(new String(archive, 0, 5, StandardCharsets.US_ASCII)).isEqualTo("a.txt");
+        assertThat(new String(archive, 257, 5, StandardCharsets.US_ASCII)).isEqualTo("ustar");
+        assertThat(new String(archive, 124, 11, StandardCharsets.US_ASCII)).isEqualTo("00000000005");
+        assertThat(Arrays.copyOfRange(archive, 512, 517)).isEqualTo(content);
+        assertThat(Arrays.copyOfRange(archive, 1024, 2048)).containsOnly(0);
+    }
+
+    @Test
+    @DisplayName("Should carry long and non-ASCII names in a PAX header")
+    void shouldUsePaxHeaderForLongNames() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        String name = "документ-" + "x".repeat(120) + ".txt";
+
+        // When
+        try (TarOutputStream tar = new TarOutputStream(output)) {
+            tar.putNextEntry(name, 0, 0);
+            tar.closeEntry();
+        }
+
+        // Then
+        byte[] archive = output.toByteArray();
+        assertThat(archive[156]).isEqualTo((byte) 'x');
+        assertThat(new String(archive, 512, 512, StandardCharsets.UTF_8)).contains("path=" + name + "\n");
+    }
+
+    @Test
+    @DisplayName("Should reject entries shorter than their declared size")
+    void shouldRejectIncompleteEntry() throws IOException {
+        // Given
+        TarOutputStream tar = new TarOutputStream(new ByteArrayOutputStream());
+        tar.putNextEntry("a.txt", 10, 0);
+        tar.write(new byte[4]);
+
+        // When & Then
+        assertThatThrownBy(tar::closeEntry)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("6 of 10 bytes missing");
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.simohin.file.storage.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TreeHash Tests")
+class TreeHashTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final BufferPool bufferPool = new BufferPool(16 * 1024, 1024 * 1024, 64 * 1024, 16 * 1024 * 1024);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, TreeHash.LEAF_SIZE, TreeHash.LEAF_SIZE * 5 / 2})
+    @DisplayName("Should produce the same digest in parallel as incrementally")
+    void shouldMatchIncrementalDigest(int size) throws Exception {
+        // Given
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+
+        // When
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        TreeHash.Result parallel = TreeHash.parallel(new ByteArrayInputStream(content), copy, executor, 2,
+                bufferPool);
+
+        TreeHash incremental = new TreeHash();
+        // Odd chunk size so updates straddle leaf boundaries
+        for (int offset = 0; offset < size; offset += 100_003) {
+            incremental.update(ByteBuffer.wrap(content, offset, Math.min(100_003, size - offset)));
+        }
+
+        // Then
+        assertThat(parallel.hash()).isEqualTo(incremental.hexDigest());
+        assertThat(parallel.size()).isEqualTo(size);
+        assertThat(copy.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("Should hash whole leaves when the pool's buffers are smaller than a leaf")
+    void shouldHashWithSmallPooledBuffers() throws Exception {
+        // Given
+        BufferPool smallBuffers = new BufferPool(16 * 1024, 64 * 1024, 64 * 1024, 1024 * 1024);
+        byte[] content = new byte[TreeHash.LEAF_SIZE * 3 / 2];
+        new Random(content.length).nextBytes(content);
+
+        // When
+        TreeHash.Result parallel = TreeHash.parallel(new ByteArrayInputStream(content), null, executor, 2,
+                smallBuffers);
+
+        // Then
+        TreeHash incremental = new TreeHash();
+        incremental.update(ByteBuffer.wrap(content));
+        assertThat(parallel.hash()).isEqualTo(incremental.hexDigest());
+        assertThat(parallel.size()).isEqualTo(content.length);
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.simohin.file.storage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ZipIndex Tests")
+class ZipIndexTest {
+
+    private static final long MAX_DIRECTORY = 1024 * 1024;
+    private static final byte[] CONTENT = "hello, archive".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should index a plain ZIP and locate entry data")
+    void shouldIndexPlainZip() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            zip.putNextEntry(new ZipEntry("docs/"));
+            zip.closeEntry();
+
+            CRC32 crc = new CRC32();
+            crc.update(CONTENT);
+            ZipEntry stored = new ZipEntry("docs/a.txt");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(CONTENT.length);
+            stored.setCrc(crc.getValue());
+            zip.putNextEntry(stored);
+            zip.write(CONTENT);
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("b.txt"));
+            zip.write(CONTENT);
+            zip.closeEntry();
+        }
+
+        try (SeekableByteChannel channel = channel(output.toByteArray())) {
+            // When
+            ZipIndex index = ZipIndex.read(channel, MAX_DIRECTORY);
+
+            // Then
+            assertThat(index.getEntries()).extracting(ZipIndex.Entry::name).containsExactly("docs/", "docs/a.txt", "b.txt");
+            assertThat(index.getEntry("docs/").isDirectory()).isTrue();
+
+            ZipIndex.Entry stored = index.getEntry("docs/a.txt");
+            assertThat(stored.method()).isEqualTo(ZipIndex.METHOD_STORED);
+            assertThat(stored.size()).isEqualTo(CONTENT.length);
+            assertThat(stored.encrypted()).isFalse();
+            assertThat(stored.lastModified()).isNotNull();
+            assertThat(read(channel, ZipIndex.dataOffset(channel, stored), CONTENT.length)).isEqualTo(CONTENT);
+
+            ZipIndex.Entry deflated = index.getEntry("b.txt");
+            assertThat(deflated.method()).isEqualTo(ZipIndex.METHOD_DEFLATED);
+            assertThat(deflated.size()).isEqualTo(CONTENT.length);
+            assertThat(deflated.crc()).isEqualTo(stored.crc());
+            assertThat(index.getRetainedSize()).isPositive();
+        }
+    }
+
+    @Test
+    @DisplayName("Should find the end of central directory before a trailing comment")
+    void shouldSkipTrailingComment() throws IOException {
+        // Given - the comment itself contains an end of central directory signature
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            zip.setComment("PK\u0005\u0006 not the real end " + "x".repeat(1000));
+            zip.putNextEntry(new ZipEntry("a.txt"));
+            zip.write(CONTENT);
+            zip.closeEntry();
+        }
+
+        try (SeekableByteChannel channel = channel(output.toByteArray())) {
+            // When
+            ZipIndex index = ZipIndex.read(channel, MAX_DIRECTORY);
+
+            // Then
+            assertThat(index.getEntries()).extracting(ZipIndex.Entry::name).containsExactly("a.txt");
+        }
+    }
+
+    @Test
+    @DisplayName("Should read sizes and offsets from the ZIP64 records")
+    void shouldIndexZip64() throws IOException {
+        // Given
+        byte[] archive = new ZipBuilder()
+                .entry("big.bin".getBytes(StandardCharsets.UTF_8), 0, ZipIndex.METHOD_STORED, CONTENT)
+                .build(true);
+
+        try (SeekableByteChannel channel = channel(archive)) {
+            // When
+            ZipIndex index = ZipIndex.read(channel, MAX_DIRECTORY);
+
+            // Then - the central header fields are saturated, the real values come from the extra field
+            ZipIndex.Entry entry = index.getEntry("big.bin");
+            assertThat(entry.size()).isEqualTo(CONTENT.length);
+            assertThat(entry.compressedSize()).isEqualTo(CONTENT.length);
+            assertThat(entry.localHeaderOffset()).isZero();
+            assertThat(read(channel, ZipIndex.dataOffset(channel, entry), CONTENT.length)).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject archives with a missing or inconsistent end of central directory")
+    void shouldRejectCorruptEndOfCentralDirectory() throws IOException {
+        // Given
+        byte[] archive = new ZipBuilder()
+                .entry("a.txt".getBytes(StandardCharsets.UTF_8), 0, ZipIndex.METHOD_STORED, CONTENT)
+                .build(false);
+        int eocd = archive.length - 22;
+
+        // When & Then
+        assertThatThrownBy(() -> read(new byte[10]))
+                .isInstanceOf(ZipException.class)
+                .hasMessage("File too small to be a ZIP archive");
+        assertThatThrownBy(() -> read(Arrays.copyOf(archive, archive.length - 5)))
+                .isInstanceOf(ZipException.class)
+                .hasMessage("End of central directory not found");
+
+        byte[] badOffset = archive.clone();
+        ByteBuffer.wrap(badOffset).order(ByteOrder.LITTLE_ENDIAN).putInt(eocd + 16, archive.length);
+        assertThatThrownBy(() -> read(badOffset))
+                .isInstanceOf(ZipException.class)
+                .hasMessage("Central directory exceeds file size");
+
+        byte[] badHeader = archive.clone();
+        int directoryOffset = ByteBuffer.wrap(archive).order(ByteOrder.LITTLE_ENDIAN).getInt(eocd + 16);
+        badHeader[directoryOffset] = 0;
+        assertThatThrownBy(() -> read(badHeader))
+                .isInstanceOf(ZipException.class)
+                .hasMessage("Invalid central directory header at 0");
+
+        byte[] zip64 = new ZipBuilder()
+                .entry("a.txt".getBytes(StandardCharsets.UTF_8), 0, ZipIndex.METHOD_STORED, CONTENT)
+                .build(true);
+        ByteBuffer.wrap(zip64).order(ByteOrder.LITTLE_ENDIAN).putLong(zip64.length - 22 - 20 + 8, 0);
+        assertThatThrownBy(() -> read(zip64))
+                .isInstanceOf(ZipException.class)
+                .hasMessage("Invalid ZIP64 end of central directory");
+
+        try (SeekableByteChannel channel = channel(archive)) {
+            assertThatThrownBy(() -> ZipIndex.read(channel, 10))
+                    .isInstanceOf(ZipException.class)
+                    .hasMessageStartingWith("Central directory too large");
+        }
+    }
+
+    @Test
+    @DisplayName("Should report encrypted entries and compression methods it cannot read")
+    void shouldReportEncryptedAndUnsupportedEntries() throws IOException {
+        // Given
+        byte[] archive = new ZipBuilder()
+                .entry("secret.txt".getBytes(StandardCharsets.UTF_8), 0x0001, ZipIndex.METHOD_STORED, CONTENT)
+                .entry("packed.bz2".getBytes(StandardCharsets.UTF_8), 0, 12, CONTENT)
+                .build(false);
+
+        // When
+        ZipIndex index = read(archive);
+
+        // Then
+        assertThat(index.getEntry("secret.txt").encrypted()).isTrue();
+        assertThat(index.getEntry("packed.bz2").encrypted()).isFalse();
+        assertThat(index.getEntry("packed.bz2").method()).isEqualTo(12);
+    }
+
+    @Test
+    @DisplayName("Should decode names by the UTF-8 flag and fall back to CP437 without it")
+    void shouldDecodeNamesByUtf8Flag() throws IOException {
+        // Given - 0x81 is 'ü' in CP437 and not valid UTF-8 on its own
+        byte[] utf8 = "отчёт.txt".getBytes(StandardCharsets.UTF_8);
+        byte[] archive = new ZipBuilder()
+                .entry(utf8, 0x0800, ZipIndex.METHOD_STORED, CONTENT)
+                .entry(new byte[]{(byte) 0x81, '.', 't', 'x', 't'}, 0, ZipIndex.METHOD_STORED, CONTENT)
+                .entry("заметки.txt".getBytes(StandardCharsets.UTF_8), 0, ZipIndex.METHOD_STORED, CONTENT)
+                .build(false);
+
+        // When
+        ZipIndex index = read(archive);
+
+        // Then - unflagged names that are valid UTF-8 are still read as UTF-8
+        assertThat(index.getEntries()).extracting(ZipIndex.Entry::name)
+                .containsExactly("отчёт.txt", "ü.txt", "заметки.txt");
+    }
+
+    private ZipIndex read(byte[] archive) throws IOException {
+        try (SeekableByteChannel channel = channel(archive)) {
+            return ZipIndex.read(channel, MAX_DIRECTORY);
+        }
+    }
+
+    private SeekableByteChannel channel(byte[] archive) throws IOException {
+        Path file = Files.createTempFile(tempDir, "archive", ".zip");
+        Files.write(file, archive);
+        return Files.newByteChannel(file);
+    }
+
+    private static byte[] read(SeekableByteChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.position(position);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Writes archives field by field, for flags, methods and ZIP64 records ZipOutputStream does not produce
+     */
+    private static final class ZipBuilder {
+
+        private final ByteBuffer local = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private final ByteBuffer central = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private int count;
+
+        ZipBuilder entry(byte[] name, int flags, int method, byte[] data) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            int offset = local.position();
+
+            local.putInt(0x04034b50).putShort((short) 20).putShort((short) flags).putShort((short) method)
+                    .putShort((short) 0).putShort((short) 0x5821)
+                    .putInt((int) crc.getValue()).putInt(data.length).putInt(data.length)
+                    .putShort((short) name.length).putShort((short) 0)
+                    .put(name).put(data);
+
+            // Saturated sizes and offset, with the real values in a ZIP64 extra field
+            central.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) flags)
+                    .putShort((short) method).putShort((short) 0).putShort((short) 0x5821)
+                    .putInt((int) crc.getValue()).putInt(-1).putInt(-1)
+                    .putShort((short) name.length).putShort((short) 28).putShort((short) 0)
+                    .putShort((short) 0).putShort((short) 0).putInt(0).putInt(-1)
+                    .put(name)
+                    .putShort((short) 0x0001).putShort((short) 24)
+                    .putLong(data.length).putLong(data.length).putLong(offset);
+            count++;
+            return this;
+        }
+
+        byte[] build(boolean zip64) {
+            int directoryOffset = local.position();
+            int directorySize = central.position();
+            ByteBuffer archive = ByteBuffer.allocate(directoryOffset + directorySize + 56 + 20 + 22)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .put(local.array(), 0, directoryOffset)
+                    .put(central.array(), 0, directorySize);
+
+            if (zip64) {
+                int eocd64 = archive.position();
+                archive.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45)
+                        .putInt(0).putInt(0).putLong(count).putLong(count)
+                        .putLong(directorySize).putLong(directoryOffset);
+                archive.putInt(0x07064b50).putInt(0).putLong(eocd64).putInt(1);
+                archive.putInt(0x06054b50).putShort((short) 0).putShort((short) 0)
+                        .putShort((short) -1).putShort((short) -1).putInt(-1).putInt(-1).putShort((short) 0);
+            } else {
+                archive.putInt(0x06054b50).putShort((short) 0).putShort((short) 0)
+                        .putShort((short) count).putShort((short) count)
+                        .putInt(directorySize).putInt(directoryOffset).putShort((short) 0);
+            }
+            return Arrays.copyOf(archive.array(), archive.position());
+        }
+    }
+}